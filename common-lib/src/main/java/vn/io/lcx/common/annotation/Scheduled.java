@@ -0,0 +1,70 @@
+package vn.io.lcx.common.annotation;
+
+import vn.io.lcx.common.cron.MisfirePolicy;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of a {@link Component} class to be run on a cron schedule by the default
+ * {@link vn.io.lcx.common.cron.CronScheduler}, once the {@link vn.io.lcx.common.config.ClassPool} is initialized.
+ *
+ * <p>Constraints:</p>
+ * <ul>
+ *   <li>The method must have no parameters; its return value is ignored.</li>
+ *   <li>The expression follows {@link vn.io.lcx.common.cron.CronExpression}: six fields starting with the
+ *       seconds.</li>
+ * </ul>
+ *
+ * <h3>Usage example:</h3>
+ * <pre>{@code
+ * @Component
+ * public class ReportJobs {
+ *
+ *     // every day at 02:30, on one instance of the application only
+ *     @Scheduled(cron = "0 30 2 * * *", singleInstance = true)
+ *     public void dailyReport() {
+ *         // build the report
+ *     }
+ * }
+ * }</pre>
+ *
+ * @see vn.io.lcx.common.cron.CronScheduler
+ * @see vn.io.lcx.common.config.ClassPool
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Scheduled {
+    /**
+     * @return the cron expression, with seconds
+     */
+    String cron();
+
+    /**
+     * @return the time zone the expression is evaluated in, or empty string for the system default
+     */
+    String zone() default "";
+
+    /**
+     * @return the name of the job, or empty string to use {@code ClassName.methodName}
+     */
+    String name() default "";
+
+    /**
+     * @return what to do with a fire time missed while the previous run was still going or the scheduler was late
+     */
+    MisfirePolicy misfire() default MisfirePolicy.FIRE_ONCE;
+
+    /**
+     * @return whether a run may start while the previous one is still going
+     */
+    boolean allowOverlap() default false;
+
+    /**
+     * @return whether the run must hold the job lock of the scheduler, so that only one instance of the application
+     * runs it at a time
+     */
+    boolean singleInstance() default false;
+}
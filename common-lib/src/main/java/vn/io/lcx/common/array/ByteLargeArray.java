@@ -0,0 +1,247 @@
+package vn.io.lcx.common.array;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A {@code byte} array indexed with a {@code long}, stored unboxed in power-of-two sized chunks.
+ *
+ * <p>Like a Java array it is not thread-safe, except that {@link #sort()} counts values with several threads.</p>
+ */
+public final class ByteLargeArray extends PrimitiveLargeArray {
+
+    private final byte[][] chunks;
+
+    public ByteLargeArray(long size) {
+        this(size, DEFAULT_CHUNK_SHIFT);
+    }
+
+    /**
+     * @param size       number of elements
+     * @param chunkShift log2 of the number of elements per chunk
+     */
+    public ByteLargeArray(long size, int chunkShift) {
+        super(size, chunkShift);
+        this.chunks = new byte[chunkCount][];
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[i] = new byte[chunkLength(i)];
+        }
+    }
+
+    public byte get(long index) {
+        checkIndex(index);
+        return chunks[chunkIndex(index)][offset(index)];
+    }
+
+    public void set(long index, byte value) {
+        checkIndex(index);
+        chunks[chunkIndex(index)][offset(index)] = value;
+    }
+
+    /**
+     * Adds {@code delta} to an element, handy when the array holds counters.
+     *
+     * @return the new value
+     */
+    public byte add(long index, byte delta) {
+        checkIndex(index);
+        return chunks[chunkIndex(index)][offset(index)] += delta;
+    }
+
+    public void fill(byte value) {
+        for (byte[] chunk : chunks) {
+            Arrays.fill(chunk, value);
+        }
+    }
+
+    /**
+     * Assigns {@code value} to the elements in {@code [fromIndex, toIndex)}.
+     */
+    public void fill(long fromIndex, long toIndex, byte value) {
+        checkRange(fromIndex, toIndex);
+        long index = fromIndex;
+        while (index < toIndex) {
+            final int offset = offset(index);
+            final int length = (int) Math.min(chunkSize - offset, toIndex - index);
+            Arrays.fill(chunks[chunkIndex(index)], offset, offset + length, value);
+            index += length;
+        }
+    }
+
+    /**
+     * Copies {@code length} elements of {@code src} starting at {@code srcPos} into this array at {@code destPos}.
+     */
+    public void copyFrom(byte[] src, int srcPos, long destPos, int length) {
+        checkArrayRange(src.length, srcPos, length);
+        checkRange(destPos, destPos + length);
+        int copied = 0;
+        while (copied < length) {
+            final long index = destPos + copied;
+            final int offset = offset(index);
+            final int n = Math.min(chunkSize - offset, length - copied);
+            System.arraycopy(src, srcPos + copied, chunks[chunkIndex(index)], offset, n);
+            copied += n;
+        }
+    }
+
+    /**
+     * Copies {@code length} elements of this array starting at {@code srcPos} into {@code dest} at {@code destPos}.
+     */
+    public void copyTo(long srcPos, byte[] dest, int destPos, int length) {
+        checkRange(srcPos, srcPos + length);
+        checkArrayRange(dest.length, destPos, length);
+        int copied = 0;
+        while (copied < length) {
+            final long index = srcPos + copied;
+            final int offset = offset(index);
+            final int n = Math.min(chunkSize - offset, length - copied);
+            System.arraycopy(chunks[chunkIndex(index)], offset, dest, destPos + copied, n);
+            copied += n;
+        }
+    }
+
+    /**
+     * Copies a range between two arrays, which may have different chunk sizes. Like {@link System#arraycopy}, the
+     * result is correct when {@code src} and {@code dest} are the same array and the ranges overlap.
+     */
+    public static void copy(ByteLargeArray src, long srcPos, ByteLargeArray dest, long destPos, long length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Length cannot be negative");
+        }
+        src.checkRange(srcPos, srcPos + length);
+        dest.checkRange(destPos, destPos + length);
+        if (src == dest && srcPos < destPos && destPos < srcPos + length) {
+            // overlapping forward move: copy the segments from the end so nothing is overwritten before it is read
+            long remaining = length;
+            while (remaining > 0) {
+                final long srcEnd = srcPos + remaining;
+                final long destEnd = destPos + remaining;
+                final int n = (int) Math.min(
+                        remaining,
+                        Math.min(src.offset(srcEnd - 1) + 1, dest.offset(destEnd - 1) + 1)
+                );
+                System.arraycopy(
+                        src.chunks[src.chunkIndex(srcEnd - n)], src.offset(srcEnd - n),
+                        dest.chunks[dest.chunkIndex(destEnd - n)], dest.offset(destEnd - n),
+                        n
+                );
+                remaining -= n;
+            }
+            return;
+        }
+        long copied = 0;
+        while (copied < length) {
+            final long from = srcPos + copied;
+            final long to = destPos + copied;
+            final int srcOffset = src.offset(from);
+            final int destOffset = dest.offset(to);
+            final int n = (int) Math.min(
+                    length - copied,
+                    Math.min(src.chunkSize - srcOffset, dest.chunkSize - destOffset)
+            );
+            System.arraycopy(src.chunks[src.chunkIndex(from)], srcOffset, dest.chunks[dest.chunkIndex(to)], destOffset, n);
+            copied += n;
+        }
+    }
+
+    /**
+     * Searches the whole array, which must be sorted, with the same contract as {@link Arrays#binarySearch(byte[], byte)}.
+     */
+    public long binarySearch(byte key) {
+        return binarySearch(0, size, key);
+    }
+
+    /**
+     * Searches {@code [fromIndex, toIndex)}, which must be sorted.
+     *
+     * @return the index of {@code key}, or {@code -(insertion point) - 1} if it is absent
+     */
+    public long binarySearch(long fromIndex, long toIndex, byte key) {
+        checkRange(fromIndex, toIndex);
+        long low = fromIndex;
+        long high = toIndex - 1;
+        while (low <= high) {
+            final long mid = (low + high) >>> 1;
+            final int cmp = Byte.compare(chunks[chunkIndex(mid)][offset(mid)], key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Sorts the whole array in ascending order, in place, using the common fork/join pool.
+     */
+    public void sort() {
+        sort(0, size);
+    }
+
+    /**
+     * Sorts {@code [fromIndex, toIndex)} in ascending order with a counting sort: the occurrences of each of the 256
+     * values are counted chunk by chunk in parallel, then the range is rewritten as runs of equal values.
+     */
+    public void sort(long fromIndex, long toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (toIndex - fromIndex < 2) {
+            return;
+        }
+        final long[] counts = ForkJoinPool.commonPool().invoke(new CountTask(fromIndex, toIndex));
+        long index = fromIndex;
+        for (int value = Byte.MIN_VALUE; value <= Byte.MAX_VALUE; value++) {
+            final long count = counts[value - Byte.MIN_VALUE];
+            if (count > 0) {
+                fill(index, index + count, (byte) value);
+                index += count;
+            }
+        }
+    }
+
+    private final class CountTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final long low;
+        private final long high;
+
+        private CountTask(long low, long high) {
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (high - low <= PARALLEL_SORT_THRESHOLD || chunkIndex(low) == chunkIndex(high - 1)) {
+                final long[] counts = new long[256];
+                long index = low;
+                while (index < high) {
+                    final byte[] chunk = chunks[chunkIndex(index)];
+                    final int offset = offset(index);
+                    final int end = offset + (int) Math.min(chunkSize - offset, high - index);
+                    for (int i = offset; i < end; i++) {
+                        counts[chunk[i] - Byte.MIN_VALUE]++;
+                    }
+                    index += end - offset;
+                }
+                return counts;
+            }
+            // split at a chunk boundary so each task scans whole chunks
+            long mid = ((low + ((high - low) >>> 1)) >>> chunkShift) << chunkShift;
+            if (mid <= low) {
+                mid = (long) (chunkIndex(low) + 1) << chunkShift;
+            }
+            final CountTask right = new CountTask(mid, high);
+            right.fork();
+            final long[] counts = new CountTask(low, mid).compute();
+            final long[] other = right.join();
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other[i];
+            }
+            return counts;
+        }
+    }
+}
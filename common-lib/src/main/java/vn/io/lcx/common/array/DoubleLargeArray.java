@@ -0,0 +1,307 @@
+package vn.io.lcx.common.array;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A {@code double} array indexed with a {@code long}, stored unboxed in power-of-two sized chunks.
+ *
+ * <p>Like a Java array it is not thread-safe, except that {@link #sort()} uses several threads internally.</p>
+ */
+public final class DoubleLargeArray extends PrimitiveLargeArray {
+
+    private final double[][] chunks;
+
+    public DoubleLargeArray(long size) {
+        this(size, DEFAULT_CHUNK_SHIFT);
+    }
+
+    /**
+     * @param size       number of elements
+     * @param chunkShift log2 of the number of elements per chunk
+     */
+    public DoubleLargeArray(long size, int chunkShift) {
+        super(size, chunkShift);
+        this.chunks = new double[chunkCount][];
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[i] = new double[chunkLength(i)];
+        }
+    }
+
+    public double get(long index) {
+        checkIndex(index);
+        return chunks[chunkIndex(index)][offset(index)];
+    }
+
+    public void set(long index, double value) {
+        checkIndex(index);
+        chunks[chunkIndex(index)][offset(index)] = value;
+    }
+
+    /**
+     * Adds {@code delta} to an element, handy when the array holds counters.
+     *
+     * @return the new value
+     */
+    public double add(long index, double delta) {
+        checkIndex(index);
+        return chunks[chunkIndex(index)][offset(index)] += delta;
+    }
+
+    public void fill(double value) {
+        for (double[] chunk : chunks) {
+            Arrays.fill(chunk, value);
+        }
+    }
+
+    /**
+     * Assigns {@code value} to the elements in {@code [fromIndex, toIndex)}.
+     */
+    public void fill(long fromIndex, long toIndex, double value) {
+        checkRange(fromIndex, toIndex);
+        long index = fromIndex;
+        while (index < toIndex) {
+            final int offset = offset(index);
+            final int length = (int) Math.min(chunkSize - offset, toIndex - index);
+            Arrays.fill(chunks[chunkIndex(index)], offset, offset + length, value);
+            index += length;
+        }
+    }
+
+    /**
+     * Copies {@code length} elements of {@code src} starting at {@code srcPos} into this array at {@code destPos}.
+     */
+    public void copyFrom(double[] src, int srcPos, long destPos, int length) {
+        checkArrayRange(src.length, srcPos, length);
+        checkRange(destPos, destPos + length);
+        int copied = 0;
+        while (copied < length) {
+            final long index = destPos + copied;
+            final int offset = offset(index);
+            final int n = Math.min(chunkSize - offset, length - copied);
+            System.arraycopy(src, srcPos + copied, chunks[chunkIndex(index)], offset, n);
+            copied += n;
+        }
+    }
+
+    /**
+     * Copies {@code length} elements of this array starting at {@code srcPos} into {@code dest} at {@code destPos}.
+     */
+    public void copyTo(long srcPos, double[] dest, int destPos, int length) {
+        checkRange(srcPos, srcPos + length);
+        checkArrayRange(dest.length, destPos, length);
+        int copied = 0;
+        while (copied < length) {
+            final long index = srcPos + copied;
+            final int offset = offset(index);
+            final int n = Math.min(chunkSize - offset, length - copied);
+            System.arraycopy(chunks[chunkIndex(index)], offset, dest, destPos + copied, n);
+            copied += n;
+        }
+    }
+
+    /**
+     * Copies a range between two arrays, which may have different chunk sizes. Like {@link System#arraycopy}, the
+     * result is correct when {@code src} and {@code dest} are the same array and the ranges overlap.
+     */
+    public static void copy(DoubleLargeArray src, long srcPos, DoubleLargeArray dest, long destPos, long length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Length cannot be negative");
+        }
+        src.checkRange(srcPos, srcPos + length);
+        dest.checkRange(destPos, destPos + length);
+        if (src == dest && srcPos < destPos && destPos < srcPos + length) {
+            // overlapping forward move: copy the segments from the end so nothing is overwritten before it is read
+            long remaining = length;
+            while (remaining > 0) {
+                final long srcEnd = srcPos + remaining;
+                final long destEnd = destPos + remaining;
+                final int n = (int) Math.min(
+                        remaining,
+                        Math.min(src.offset(srcEnd - 1) + 1, dest.offset(destEnd - 1) + 1)
+                );
+                System.arraycopy(
+                        src.chunks[src.chunkIndex(srcEnd - n)], src.offset(srcEnd - n),
+                        dest.chunks[dest.chunkIndex(destEnd - n)], dest.offset(destEnd - n),
+                        n
+                );
+                remaining -= n;
+            }
+            return;
+        }
+        long copied = 0;
+        while (copied < length) {
+            final long from = srcPos + copied;
+            final long to = destPos + copied;
+            final int srcOffset = src.offset(from);
+            final int destOffset = dest.offset(to);
+            final int n = (int) Math.min(
+                    length - copied,
+                    Math.min(src.chunkSize - srcOffset, dest.chunkSize - destOffset)
+            );
+            System.arraycopy(src.chunks[src.chunkIndex(from)], srcOffset, dest.chunks[dest.chunkIndex(to)], destOffset, n);
+            copied += n;
+        }
+    }
+
+    /**
+     * Searches the whole array, which must be sorted, with the same contract as {@link Arrays#binarySearch(double[], double)}.
+     */
+    public long binarySearch(double key) {
+        return binarySearch(0, size, key);
+    }
+
+    /**
+     * Searches {@code [fromIndex, toIndex)}, which must be sorted.
+     *
+     * @return the index of {@code key}, or {@code -(insertion point) - 1} if it is absent
+     */
+    public long binarySearch(long fromIndex, long toIndex, double key) {
+        checkRange(fromIndex, toIndex);
+        long low = fromIndex;
+        long high = toIndex - 1;
+        while (low <= high) {
+            final long mid = (low + high) >>> 1;
+            final int cmp = Double.compare(chunks[chunkIndex(mid)][offset(mid)], key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Sorts the whole array in ascending order, in place, using the common fork/join pool.
+     */
+    public void sort() {
+        sort(0, size);
+    }
+
+    /**
+     * Sorts {@code [fromIndex, toIndex)} in ascending order, in the same order as {@link Arrays#sort(double[])}.
+     *
+     * <p>A range inside a single chunk is handed to {@link Arrays#parallelSort(double[], int, int)}. Larger ranges are
+     * split in place by a three-way quicksort whose halves are sorted in parallel, until each piece fits a chunk.</p>
+     */
+    public void sort(long fromIndex, long toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (toIndex - fromIndex < 2) {
+            return;
+        }
+        if (chunkIndex(fromIndex) == chunkIndex(toIndex - 1)) {
+            Arrays.parallelSort(chunks[chunkIndex(fromIndex)], offset(fromIndex), offset(toIndex - 1) + 1);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new SortTask(fromIndex, toIndex));
+    }
+
+    private double at(long index) {
+        return chunks[chunkIndex(index)][offset(index)];
+    }
+
+    private void swap(long i, long j) {
+        final double[] a = chunks[chunkIndex(i)];
+        final double[] b = chunks[chunkIndex(j)];
+        final int x = offset(i);
+        final int y = offset(j);
+        final double tmp = a[x];
+        a[x] = b[y];
+        b[y] = tmp;
+    }
+
+    private double medianOfThree(long low, long high) {
+        final double a = at(low);
+        final double b = at(low + ((high - low) >>> 1));
+        final double c = at(high - 1);
+        if (Double.compare(a, b) < 0) {
+            return Double.compare(b, c) < 0 ? b : Double.compare(a, c) < 0 ? c : a;
+        }
+        return Double.compare(a, c) < 0 ? a : Double.compare(b, c) < 0 ? c : b;
+    }
+
+    /**
+     * Sorts {@code [low, high)}, recursing into the smaller part and looping over the larger one.
+     */
+    private void sortSequential(long low, long high) {
+        while (high - low > 1) {
+            if (chunkIndex(low) == chunkIndex(high - 1)) {
+                Arrays.sort(chunks[chunkIndex(low)], offset(low), offset(high - 1) + 1);
+                return;
+            }
+            if (high - low < INSERTION_SORT_THRESHOLD) {
+                insertionSort(low, high);
+                return;
+            }
+            final long[] bounds = partition(low, high);
+            if (bounds[0] - low < high - bounds[1]) {
+                sortSequential(low, bounds[0]);
+                low = bounds[1];
+            } else {
+                sortSequential(bounds[1], high);
+                high = bounds[0];
+            }
+        }
+    }
+
+    private void insertionSort(long low, long high) {
+        for (long i = low + 1; i < high; i++) {
+            final double value = at(i);
+            long j = i - 1;
+            while (j >= low && Double.compare(at(j), value) > 0) {
+                chunks[chunkIndex(j + 1)][offset(j + 1)] = at(j);
+                j--;
+            }
+            chunks[chunkIndex(j + 1)][offset(j + 1)] = value;
+        }
+    }
+
+    /**
+     * Three-way partition around a median of three, so runs of equal values do not degrade the sort.
+     *
+     * @return the bounds {@code [lt, gt)} of the elements equal to the pivot
+     */
+    private long[] partition(long low, long high) {
+        final double pivot = medianOfThree(low, high);
+        long lt = low;
+        long i = low;
+        long gt = high - 1;
+        while (i <= gt) {
+            final int cmp = Double.compare(at(i), pivot);
+            if (cmp < 0) {
+                swap(lt++, i++);
+            } else if (cmp > 0) {
+                swap(i, gt--);
+            } else {
+                i++;
+            }
+        }
+        return new long[]{lt, gt + 1};
+    }
+
+    private final class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long low;
+        private final long high;
+
+        private SortTask(long low, long high) {
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        protected void compute() {
+            if (high - low <= PARALLEL_SORT_THRESHOLD || chunkIndex(low) == chunkIndex(high - 1)) {
+                sortSequential(low, high);
+                return;
+            }
+            final long[] bounds = partition(low, high);
+            invokeAll(new SortTask(low, bounds[0]), new SortTask(bounds[1], high));
+        }
+    }
+}
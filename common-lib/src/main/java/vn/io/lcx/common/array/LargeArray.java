@@ -4,7 +4,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class LargeArray<T> {
-    private static final int CHUNK_SIZE = Integer.MAX_VALUE - 8; // Slightly less than max
+    // power of two so an index splits into chunk and offset with a shift and a mask
+    private static final int CHUNK_SHIFT = PrimitiveLargeArray.DEFAULT_CHUNK_SHIFT;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
     private final List<T[]> chunks = new ArrayList<>();
     private long size;
 
@@ -31,14 +34,14 @@ public class LargeArray<T> {
     }
 
     public T get(long index) {
-        int chunkIndex = (int) (index / CHUNK_SIZE);
-        int innerIndex = (int) (index % CHUNK_SIZE);
+        int chunkIndex = (int) (index >>> CHUNK_SHIFT);
+        int innerIndex = (int) index & CHUNK_MASK;
         return chunks.get(chunkIndex)[innerIndex];
     }
 
     public void set(long index, T value) {
-        int chunkIndex = (int) (index / CHUNK_SIZE);
-        int innerIndex = (int) (index % CHUNK_SIZE);
+        int chunkIndex = (int) (index >>> CHUNK_SHIFT);
+        int innerIndex = (int) index & CHUNK_MASK;
         chunks.get(chunkIndex)[innerIndex] = value;
     }
 }
@@ -0,0 +1,421 @@
+package vn.io.lcx.common.array;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A large array of fixed-width records stored in a file and accessed through memory mapping, for data sets that do
+ * not fit the heap. The OS page cache holds the hot part of the file and writes dirty pages back on its own schedule;
+ * call {@link #force()} to make writes durable at a given point.
+ *
+ * <p>The file is split into segments holding a power-of-two number of records, each mapped with
+ * {@link FileChannel#map} the first time one of its records is touched. A record never spans two segments.</p>
+ *
+ * <p>Records are either a single primitive, read with {@link #getLong(long)} and the like, or a record layout
+ * made of several fields, read with the overloads taking a byte offset inside the record, e.g.
+ * {@link #getLong(long, int)}. Like a Java array, concurrent access to distinct records is fine but nothing is
+ * synchronized.</p>
+ *
+ * <p>A mapping stays valid until the JVM garbage collects it, even after {@link #close()}; the array must not be
+ * used once closed.</p>
+ */
+public final class MappedLargeArray extends PrimitiveLargeArray implements AutoCloseable {
+
+    /**
+     * Segments of up to 64 MiB by default
+     */
+    public static final int DEFAULT_SEGMENT_BYTES = 1 << 26;
+
+    private final Path path;
+    private final int recordSize;
+    private final boolean readOnly;
+    private final ByteOrder byteOrder;
+    private final FileChannel channel;
+    private final AtomicReferenceArray<MappedByteBuffer> segments;
+    private volatile boolean closed;
+
+    private MappedLargeArray(Path path, long length, int recordSize, int segmentShift, boolean readOnly,
+                             ByteOrder byteOrder, FileChannel channel) {
+        super(length, segmentShift);
+        this.path = path;
+        this.recordSize = recordSize;
+        this.readOnly = readOnly;
+        this.byteOrder = byteOrder;
+        this.channel = channel;
+        this.segments = new AtomicReferenceArray<>(chunkCount);
+    }
+
+    /**
+     * Opens a file holding {@code length} longs for reading and writing, creating or growing it as needed.
+     */
+    public static MappedLargeArray ofLongs(Path path, long length) {
+        return builder().path(path).recordSize(Long.BYTES).length(length).build();
+    }
+
+    /**
+     * Opens a file holding {@code length} ints for reading and writing, creating or growing it as needed.
+     */
+    public static MappedLargeArray ofInts(Path path, long length) {
+        return builder().path(path).recordSize(Integer.BYTES).length(length).build();
+    }
+
+    /**
+     * Opens a file holding {@code length} doubles for reading and writing, creating or growing it as needed.
+     */
+    public static MappedLargeArray ofDoubles(Path path, long length) {
+        return builder().path(path).recordSize(Double.BYTES).length(length).build();
+    }
+
+    /**
+     * Opens a file holding {@code length} bytes for reading and writing, creating or growing it as needed.
+     */
+    public static MappedLargeArray ofBytes(Path path, long length) {
+        return builder().path(path).recordSize(Byte.BYTES).length(length).build();
+    }
+
+    public static MappedLargeArrayBuilder builder() {
+        return new MappedLargeArrayBuilder();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the width of a record in bytes
+     */
+    public int getRecordSize() {
+        return recordSize;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public ByteOrder getByteOrder() {
+        return byteOrder;
+    }
+
+    /**
+     * @return the number of segments mapped so far
+     */
+    public int getMappedSegmentCount() {
+        int count = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            if (segments.get(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public byte getByte(long index) {
+        return getByte(index, 0);
+    }
+
+    public void setByte(long index, byte value) {
+        setByte(index, 0, value);
+    }
+
+    public int getInt(long index) {
+        return getInt(index, 0);
+    }
+
+    public void setInt(long index, int value) {
+        setInt(index, 0, value);
+    }
+
+    public long getLong(long index) {
+        return getLong(index, 0);
+    }
+
+    public void setLong(long index, long value) {
+        setLong(index, 0, value);
+    }
+
+    public double getDouble(long index) {
+        return getDouble(index, 0);
+    }
+
+    public void setDouble(long index, double value) {
+        setDouble(index, 0, value);
+    }
+
+    /**
+     * Reads the byte at {@code fieldOffset} bytes inside the record at {@code index}.
+     */
+    public byte getByte(long index, int fieldOffset) {
+        return segmentOf(index).get(position(index, fieldOffset, Byte.BYTES));
+    }
+
+    public void setByte(long index, int fieldOffset, byte value) {
+        writableSegmentOf(index).put(position(index, fieldOffset, Byte.BYTES), value);
+    }
+
+    public short getShort(long index, int fieldOffset) {
+        return segmentOf(index).getShort(position(index, fieldOffset, Short.BYTES));
+    }
+
+    public void setShort(long index, int fieldOffset, short value) {
+        writableSegmentOf(index).putShort(position(index, fieldOffset, Short.BYTES), value);
+    }
+
+    public int getInt(long index, int fieldOffset) {
+        return segmentOf(index).getInt(position(index, fieldOffset, Integer.BYTES));
+    }
+
+    public void setInt(long index, int fieldOffset, int value) {
+        writableSegmentOf(index).putInt(position(index, fieldOffset, Integer.BYTES), value);
+    }
+
+    public long getLong(long index, int fieldOffset) {
+        return segmentOf(index).getLong(position(index, fieldOffset, Long.BYTES));
+    }
+
+    public void setLong(long index, int fieldOffset, long value) {
+        writableSegmentOf(index).putLong(position(index, fieldOffset, Long.BYTES), value);
+    }
+
+    public double getDouble(long index, int fieldOffset) {
+        return segmentOf(index).getDouble(position(index, fieldOffset, Double.BYTES));
+    }
+
+    public void setDouble(long index, int fieldOffset, double value) {
+        writableSegmentOf(index).putDouble(position(index, fieldOffset, Double.BYTES), value);
+    }
+
+    /**
+     * Copies the whole record at {@code index} into {@code dest}, which must be at least {@link #getRecordSize()}
+     * long.
+     */
+    public void getRecord(long index, byte[] dest) {
+        checkArrayRange(dest.length, 0, recordSize);
+        segmentOf(index).get(position(index, 0, recordSize), dest, 0, recordSize);
+    }
+
+    /**
+     * Overwrites the whole record at {@code index} with the first {@link #getRecordSize()} bytes of {@code src}.
+     */
+    public void setRecord(long index, byte[] src) {
+        checkArrayRange(src.length, 0, recordSize);
+        writableSegmentOf(index).put(position(index, 0, recordSize), src, 0, recordSize);
+    }
+
+    /**
+     * Writes the modified pages of every mapped segment back to the file.
+     */
+    public void force() {
+        force(0, size);
+    }
+
+    /**
+     * Writes the modified pages holding the records in {@code [fromIndex, toIndex)} back to the file. Segments never
+     * mapped have nothing to write and are skipped.
+     */
+    public void force(long fromIndex, long toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (readOnly || fromIndex == toIndex) {
+            return;
+        }
+        long index = fromIndex;
+        while (index < toIndex) {
+            final int segment = chunkIndex(index);
+            final int first = offset(index);
+            final int count = (int) Math.min(chunkLength(segment) - first, toIndex - index);
+            final MappedByteBuffer buffer = segments.get(segment);
+            if (buffer != null) {
+                buffer.force(first * recordSize, count * recordSize);
+            }
+            index += count;
+        }
+    }
+
+    /**
+     * Forces the pending writes, then closes the file.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            force();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to close " + path, e);
+            }
+        }
+    }
+
+    /**
+     * @return the byte position of a field inside its segment
+     */
+    private int position(long index, int fieldOffset, int fieldSize) {
+        if (fieldOffset < 0 || fieldOffset > recordSize - fieldSize) {
+            throw new IndexOutOfBoundsException(
+                    "Field of " + fieldSize + " bytes at offset " + fieldOffset + " exceeds record size " + recordSize
+            );
+        }
+        return offset(index) * recordSize + fieldOffset;
+    }
+
+    private MappedByteBuffer writableSegmentOf(long index) {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Array is read-only: " + path);
+        }
+        return segmentOf(index);
+    }
+
+    private MappedByteBuffer segmentOf(long index) {
+        checkIndex(index);
+        final int segment = chunkIndex(index);
+        final MappedByteBuffer buffer = segments.get(segment);
+        return buffer != null ? buffer : map(segment);
+    }
+
+    /**
+     * Maps a segment on first use. Two threads racing here map the same region, which is harmless, and both end up
+     * using the buffer that won.
+     */
+    private MappedByteBuffer map(int segment) {
+        if (closed) {
+            throw new IllegalStateException("Array is closed: " + path);
+        }
+        final long position = ((long) segment << chunkShift) * recordSize;
+        final long bytes = (long) chunkLength(segment) * recordSize;
+        try {
+            final MappedByteBuffer buffer = channel.map(
+                    readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE,
+                    position,
+                    bytes
+            );
+            buffer.order(byteOrder);
+            return segments.compareAndSet(segment, null, buffer) ? buffer : segments.get(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map segment " + segment + " of " + path, e);
+        }
+    }
+
+    public static class MappedLargeArrayBuilder {
+        private Path path;
+        private long length = -1;
+        private int recordSize = -1;
+        private int segmentBytes = DEFAULT_SEGMENT_BYTES;
+        private boolean readOnly;
+        private ByteOrder byteOrder = ByteOrder.nativeOrder();
+
+        public MappedLargeArrayBuilder path(Path path) {
+            this.path = path;
+            return this;
+        }
+
+        /**
+         * Number of records. Can be left out to use the current size of an existing file; a larger file is never
+         * truncated.
+         */
+        public MappedLargeArrayBuilder length(long length) {
+            this.length = length;
+            return this;
+        }
+
+        /**
+         * Width of a record in bytes, e.g. {@link Long#BYTES} for an array of longs
+         */
+        public MappedLargeArrayBuilder recordSize(int recordSize) {
+            this.recordSize = recordSize;
+            return this;
+        }
+
+        /**
+         * Upper bound of the size of a mapped segment, rounded down to hold a power-of-two number of records
+         */
+        public MappedLargeArrayBuilder segmentBytes(int segmentBytes) {
+            this.segmentBytes = segmentBytes;
+            return this;
+        }
+
+        public MappedLargeArrayBuilder readOnly(boolean readOnly) {
+            this.readOnly = readOnly;
+            return this;
+        }
+
+        /**
+         * Byte order of the fields in the file, the platform's native order by default
+         */
+        public MappedLargeArrayBuilder byteOrder(ByteOrder byteOrder) {
+            this.byteOrder = byteOrder;
+            return this;
+        }
+
+        public MappedLargeArray build() {
+            if (path == null) {
+                throw new IllegalArgumentException("Path cannot be null");
+            }
+            if (recordSize < 1) {
+                throw new IllegalArgumentException("Record size must be positive");
+            }
+            if (byteOrder == null) {
+                throw new IllegalArgumentException("Byte order cannot be null");
+            }
+            if (segmentBytes < recordSize) {
+                throw new IllegalArgumentException("Segment size must hold at least one record");
+            }
+            final int segmentShift = Math.min(
+                    MAX_CHUNK_SHIFT,
+                    Math.max(MIN_CHUNK_SHIFT, 31 - Integer.numberOfLeadingZeros(segmentBytes / recordSize))
+            );
+            if (((long) recordSize << segmentShift) > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Record size too large for a segment");
+            }
+            FileChannel channel = null;
+            try {
+                channel = readOnly
+                        ? FileChannel.open(path, StandardOpenOption.READ)
+                        : FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                final long fileSize = channel.size();
+                final long records = length < 0 ? fileSize / recordSize : length;
+                if (records > Long.MAX_VALUE / recordSize) {
+                    throw new IllegalArgumentException("Length too large for record size " + recordSize);
+                }
+                final long bytes = records * recordSize;
+                if (bytes > fileSize) {
+                    if (readOnly) {
+                        throw new IllegalArgumentException(
+                                "File " + path + " holds " + fileSize / recordSize + " records, fewer than " + records
+                        );
+                    }
+                    // a sparse extension, pages are only backed once written
+                    channel.write(ByteBuffer.allocate(1), bytes - 1);
+                }
+                return new MappedLargeArray(path, records, recordSize, segmentShift, readOnly, byteOrder, channel);
+            } catch (IOException e) {
+                closeQuietly(channel);
+                throw new UncheckedIOException("Failed to open " + path, e);
+            } catch (RuntimeException e) {
+                closeQuietly(channel);
+                throw e;
+            }
+        }
+
+        private static void closeQuietly(FileChannel channel) {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // already failing
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package vn.io.lcx.common.array;
+
+/**
+ * Base of the large arrays of primitives, indexed with a {@code long}.
+ *
+ * <p>Elements are stored unboxed in chunks whose size is a power of two, so that an index is split into a chunk and
+ * an offset with a shift and a mask, and no single allocation needs a huge contiguous block. The last chunk is only
+ * as long as needed.</p>
+ */
+public abstract class PrimitiveLargeArray {
+
+    /**
+     * 2^20 elements per chunk by default: 8 MiB of longs, few enough chunks for a billion elements
+     */
+    public static final int DEFAULT_CHUNK_SHIFT = 20;
+
+    static final int MIN_CHUNK_SHIFT = 4;
+    static final int MAX_CHUNK_SHIFT = 30;
+
+    /**
+     * Ranges larger than this are sorted by several threads
+     */
+    static final long PARALLEL_SORT_THRESHOLD = 1L << 16;
+
+    /**
+     * Ranges smaller than this that span two chunks are sorted by insertion
+     */
+    static final int INSERTION_SORT_THRESHOLD = 32;
+
+    final long size;
+    final int chunkShift;
+    final int chunkSize;
+    final int chunkMask;
+    final int chunkCount;
+
+    PrimitiveLargeArray(long size, int chunkShift) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size cannot be negative");
+        }
+        if (chunkShift < MIN_CHUNK_SHIFT || chunkShift > MAX_CHUNK_SHIFT) {
+            throw new IllegalArgumentException(
+                    String.format("Chunk shift must be between %d and %d", MIN_CHUNK_SHIFT, MAX_CHUNK_SHIFT)
+            );
+        }
+        final long chunks = (size + (1L << chunkShift) - 1) >>> chunkShift;
+        if (chunks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many chunks, use a larger chunk shift");
+        }
+        this.size = size;
+        this.chunkShift = chunkShift;
+        this.chunkSize = 1 << chunkShift;
+        this.chunkMask = chunkSize - 1;
+        this.chunkCount = (int) chunks;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of elements per chunk, a power of two
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    final int chunkIndex(long index) {
+        return (int) (index >>> chunkShift);
+    }
+
+    final int offset(long index) {
+        return (int) index & chunkMask;
+    }
+
+    /**
+     * @return the length of the given chunk, shorter for the last one
+     */
+    final int chunkLength(int chunk) {
+        return chunk < chunkCount - 1 ? chunkSize : (int) (size - ((long) chunk << chunkShift));
+    }
+
+    final void checkIndex(long index) {
+        if (index < 0 || index >= size) {
+            throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    final void checkRange(long fromIndex, long toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new ArrayIndexOutOfBoundsException(
+                    "Range [" + fromIndex + ", " + toIndex + ") out of bounds for size " + size
+            );
+        }
+    }
+
+    static void checkArrayRange(int arrayLength, int position, int length) {
+        if (position < 0 || length < 0 || position > arrayLength - length) {
+            throw new ArrayIndexOutOfBoundsException(
+                    "Range [" + position + ", " + ((long) position + length) + ") out of bounds for length " + arrayLength
+            );
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package vn.io.lcx.common.cache;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import vn.io.lcx.common.config.BuildObjectMapper;
+import vn.io.lcx.common.exception.CacheException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts the values of a {@link CacheUtils} to and from bytes for its off-heap tier.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * CacheUtils<String, Product> cache = CacheUtils.<String, Product>builder()
+ *         .capacity(10_000)
+ *         .offHeap(CacheCodec.json(Product.class), 4L * 1024 * 1024 * 1024)
+ *         .build();
+ * }</pre>
+ *
+ * @param <V> the type of values
+ */
+public interface CacheCodec<V> {
+
+    /**
+     * @param value the value, never null
+     * @return the serialized value
+     */
+    byte[] encode(V value);
+
+    /**
+     * @param bytes bytes returned by {@link #encode(Object)}
+     * @return the deserialized value
+     */
+    V decode(byte[] bytes);
+
+    /**
+     * @return a codec storing strings as UTF-8
+     */
+    static CacheCodec<String> utf8String() {
+        return new CacheCodec<>() {
+            @Override
+            public byte[] encode(String value) {
+                return value.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String decode(byte[] bytes) {
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    /**
+     * @return a codec storing byte arrays as they are; the arrays must not be modified once cached
+     */
+    static CacheCodec<byte[]> byteArray() {
+        return new CacheCodec<>() {
+            @Override
+            public byte[] encode(byte[] value) {
+                return value;
+            }
+
+            @Override
+            public byte[] decode(byte[] bytes) {
+                return bytes;
+            }
+        };
+    }
+
+    /**
+     * @param type the class of the values
+     * @param <V>  the type of values
+     * @return a codec storing values as JSON, using {@link BuildObjectMapper#getJsonMapper()}
+     */
+    static <V> CacheCodec<V> json(Class<V> type) {
+        final JsonMapper mapper = BuildObjectMapper.getJsonMapper();
+        return new CacheCodec<>() {
+            @Override
+            public byte[] encode(V value) {
+                try {
+                    return mapper.writeValueAsBytes(value);
+                } catch (IOException e) {
+                    throw new CacheException("Cannot serialize cache value of type " + type.getName(), e);
+                }
+            }
+
+            @Override
+            public V decode(byte[] bytes) {
+                try {
+                    return mapper.readValue(bytes, type);
+                } catch (IOException e) {
+                    throw new CacheException("Cannot deserialize cache value of type " + type.getName(), e);
+                }
+            }
+        };
+    }
+
+    /**
+     * @param <V> the type of values
+     * @return a codec storing values with Java serialization, which is compact to set up but slow and verbose;
+     * prefer a dedicated codec for hot caches
+     */
+    static <V extends Serializable> CacheCodec<V> javaSerialization() {
+        return new CacheCodec<>() {
+            @Override
+            public byte[] encode(V value) {
+                final ByteArrayOutputStream output = new ByteArrayOutputStream();
+                try (ObjectOutputStream oos = new ObjectOutputStream(output)) {
+                    oos.writeObject(value);
+                } catch (IOException e) {
+                    throw new CacheException("Cannot serialize cache value", e);
+                }
+                return output.toByteArray();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V decode(byte[] bytes) {
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return (V) ois.readObject();
+                } catch (IOException | ClassNotFoundException e) {
+                    throw new CacheException("Cannot deserialize cache value", e);
+                }
+            }
+        };
+    }
+}
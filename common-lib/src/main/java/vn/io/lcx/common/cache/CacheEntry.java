@@ -0,0 +1,89 @@
+package vn.io.lcx.common.cache;
+
+import java.lang.ref.SoftReference;
+
+/**
+ * A cache mapping: the value behind a {@link SoftReference} plus the bookkeeping the cache policies need.
+ *
+ * <p>The entry doubles as the node of the eviction policy's intrusive linked lists, so tracking recency
+ * costs two references and a byte per entry instead of a separate node object.</p>
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of the value
+ */
+final class CacheEntry<K, V> extends SoftReference<V> {
+
+    static final byte QUEUE_NONE = 0;
+    static final byte QUEUE_WINDOW = 1;
+    static final byte QUEUE_PROBATION = 2;
+    static final byte QUEUE_PROTECTED = 3;
+
+    final K key;
+
+    /**
+     * Set once the entry has been removed from (or replaced in) the cache map
+     */
+    private volatile boolean retired;
+
+    /**
+     * Time-to-live in nanoseconds, negative when the entry never expires
+     */
+    long ttlNanos = -1L;
+
+    /**
+     * Expiration time in nanoseconds, only meaningful when {@link #ttlNanos} is not negative
+     */
+    volatile long expiresAt;
+
+    /**
+     * Time the value was written in nanoseconds, used by refresh-ahead
+     */
+    long writeTime;
+
+    /*
+     * Eviction policy links, guarded by the cache's eviction lock
+     */
+    CacheEntry<K, V> policyPrev;
+    CacheEntry<K, V> policyNext;
+    byte queueType;
+
+    /*
+     * Timer wheel links, guarded by the cache's eviction lock
+     */
+    CacheEntry<K, V> wheelPrev;
+    CacheEntry<K, V> wheelNext;
+
+    CacheEntry(K key, V value) {
+        super(value);
+        this.key = key;
+    }
+
+    boolean hasExpiry() {
+        return ttlNanos >= 0;
+    }
+
+    boolean isExpired(long now) {
+        return ttlNanos >= 0 && expiresAt - now <= 0;
+    }
+
+    /**
+     * Pushes the expiration time forward for expire-after-access. The write is skipped while the new time is
+     * within 1/64 of the time-to-live of the current one, so hot keys do not write the field on every read.
+     *
+     * @param now the current time in nanoseconds
+     */
+    void touch(long now) {
+        final long newExpiresAt = now + ttlNanos;
+        if (newExpiresAt - expiresAt > (ttlNanos >>> 6)) {
+            expiresAt = newExpiresAt;
+        }
+    }
+
+    boolean isRetired() {
+        return retired;
+    }
+
+    void retire() {
+        this.retired = true;
+    }
+}
@@ -0,0 +1,165 @@
+package vn.io.lcx.common.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes the statistics of a {@link CacheUtils} instance as Micrometer meters, tagged with {@code cache=<name>}:
+ * <ul>
+ *   <li>{@code cache.size}: the number of entries</li>
+ *   <li>{@code cache.offheap.size} and {@code cache.offheap.used}: the entries and bytes of the off-heap tier, if any</li>
+ *   <li>{@code cache.gets{result=hit|miss}}: the lookups</li>
+ *   <li>{@code cache.evictions{cause=size|expired|collected}}: the entries removed by the cache itself</li>
+ *   <li>{@code cache.loads{result=success|failure}}: the loads and reloads</li>
+ *   <li>{@code cache.load.duration}: the time spent loading</li>
+ * </ul>
+ *
+ * <p>Every cache built with both {@link CacheUtils.CacheUtilsBuilder#name(String)} and
+ * {@link CacheUtils.CacheUtilsBuilder#recordStats()} registers itself here, and is bound to every registry passed to
+ * {@link #bindNamedCaches(MeterRegistry)}, whether it was built before or after. The Vert.x deployment does this with
+ * its Prometheus registry when {@code server.metrics.enable} is set.</p>
+ *
+ * <p>Meters only hold weak references to their cache, so binding a cache does not keep it from being garbage
+ * collected.</p>
+ */
+public class CacheMetricsBinder implements MeterBinder {
+
+    /**
+     * Named caches recording statistics, in creation order
+     */
+    private static final List<WeakReference<CacheUtils<?, ?>>> namedCaches = new ArrayList<>();
+
+    /**
+     * Registries named caches are published to
+     */
+    private static final List<MeterRegistry> registries = new ArrayList<>();
+
+    private final CacheUtils<?, ?> cache;
+    private final Iterable<Tag> tags;
+
+    /**
+     * @param cache the cache to publish, which must have a name
+     * @param tags  additional tags for every meter
+     * @throws IllegalArgumentException if the cache is null or has no name
+     */
+    public CacheMetricsBinder(CacheUtils<?, ?> cache, Iterable<Tag> tags) {
+        if (cache == null) {
+            throw new IllegalArgumentException("Cache cannot be null");
+        }
+        if (cache.getName() == null) {
+            throw new IllegalArgumentException("Only named caches can be bound to a meter registry");
+        }
+        this.cache = cache;
+        this.tags = Tags.concat(tags, "cache", cache.getName());
+    }
+
+    /**
+     * Publishes every named cache recording statistics to the given registry, including the ones built later.
+     *
+     * @param registry the registry
+     */
+    public static synchronized void bindNamedCaches(MeterRegistry registry) {
+        if (registry == null || registries.contains(registry)) {
+            return;
+        }
+        registries.add(registry);
+        final Iterator<WeakReference<CacheUtils<?, ?>>> iterator = namedCaches.iterator();
+        while (iterator.hasNext()) {
+            final CacheUtils<?, ?> cache = iterator.next().get();
+            if (cache == null) {
+                iterator.remove();
+            } else {
+                new CacheMetricsBinder(cache, Tags.empty()).bindTo(registry);
+            }
+        }
+    }
+
+    /**
+     * Called when a named cache recording statistics is built.
+     *
+     * @param cache the new cache
+     */
+    static synchronized void register(CacheUtils<?, ?> cache) {
+        namedCaches.removeIf(reference -> reference.get() == null);
+        namedCaches.add(new WeakReference<>(cache));
+        for (MeterRegistry registry : registries) {
+            new CacheMetricsBinder(cache, Tags.empty()).bindTo(registry);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("cache.size", cache, CacheUtils::size)
+                .tags(tags)
+                .description("The number of entries in the cache")
+                .register(registry);
+        if (cache.hasOffHeapTier()) {
+            Gauge.builder("cache.offheap.size", cache, CacheUtils::getOffHeapSize)
+                    .tags(tags)
+                    .description("The number of entries in the off-heap tier")
+                    .register(registry);
+            Gauge.builder("cache.offheap.used", cache, CacheUtils::getOffHeapUsedBytes)
+                    .tags(tags)
+                    .baseUnit("bytes")
+                    .description("The off-heap memory occupied by entries")
+                    .register(registry);
+        }
+
+        FunctionCounter.builder("cache.gets", cache, c -> count(c, StatsCounter::hitCount))
+                .tags(tags).tag("result", "hit")
+                .description("The number of lookups that found a live value")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, c -> count(c, StatsCounter::missCount))
+                .tags(tags).tag("result", "miss")
+                .description("The number of lookups that found no live value")
+                .register(registry);
+
+        for (EvictionCause cause : EvictionCause.values()) {
+            FunctionCounter.builder("cache.evictions", cache, c -> count(c, counter -> counter.evictionCount(cause)))
+                    .tags(tags).tag("cause", cause.name().toLowerCase())
+                    .description("The number of entries removed by the cache itself")
+                    .register(registry);
+        }
+
+        FunctionCounter.builder("cache.loads", cache, c -> count(c, StatsCounter::loadSuccessCount))
+                .tags(tags).tag("result", "success")
+                .description("The number of loads and reloads")
+                .register(registry);
+        FunctionCounter.builder("cache.loads", cache, c -> count(c, StatsCounter::loadFailureCount))
+                .tags(tags).tag("result", "failure")
+                .description("The number of loads and reloads")
+                .register(registry);
+
+        FunctionTimer.builder(
+                        "cache.load.duration",
+                        cache,
+                        c -> count(c, StatsCounter::loadCount),
+                        c -> count(c, StatsCounter::totalLoadTime),
+                        TimeUnit.NANOSECONDS
+                )
+                .tags(tags)
+                .description("The time spent loading values")
+                .register(registry);
+    }
+
+    /**
+     * Reads a single counter of the cache; every meter is read on each scrape, so building a whole
+     * {@link CacheUtils#stats()} snapshot per meter would sum every counter once per meter.
+     */
+    private static long count(CacheUtils<?, ?> cache, ToLongFunction<StatsCounter> counter) {
+        final StatsCounter statsCounter = cache.statsCounter();
+        return statsCounter == null ? 0 : counter.applyAsLong(statsCounter);
+    }
+}
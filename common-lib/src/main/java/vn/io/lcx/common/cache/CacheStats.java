@@ -0,0 +1,143 @@
+package vn.io.lcx.common.cache;
+
+/**
+ * An immutable snapshot of the statistics of a {@link CacheUtils} instance.
+ *
+ * <p>Statistics are only recorded when the cache was built with {@link CacheUtils.CacheUtilsBuilder#recordStats()};
+ * otherwise every count is zero.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * CacheStats stats = cache.stats();
+ * LogUtils.writeLog(MyService.class, LogUtils.Level.INFO,
+ *         "Hit rate: {}, evicted by size: {}", stats.getHitRate(), stats.getEvictionCount(EvictionCause.SIZE));
+ * }</pre>
+ */
+public final class CacheStats {
+
+    private static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, new long[EvictionCause.values().length]);
+
+    private final long hitCount;
+    private final long missCount;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    private final long totalLoadTime;
+    private final long[] evictionCounts;
+
+    CacheStats(long hitCount,
+               long missCount,
+               long loadSuccessCount,
+               long loadFailureCount,
+               long totalLoadTime,
+               long[] evictionCounts) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        this.evictionCounts = evictionCounts;
+    }
+
+    /**
+     * @return statistics where every count is zero
+     */
+    public static CacheStats empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return the number of lookups that found a live value
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of lookups that found no value, or an expired or garbage-collected one
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of lookups
+     */
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * @return the ratio of lookups that were hits, or 1.0 if there was no lookup
+     */
+    public double getHitRate() {
+        final long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * @return the number of loads and reloads that completed without failure
+     */
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    /**
+     * @return the number of loads and reloads that failed
+     */
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    /**
+     * @return the number of loads and reloads
+     */
+    public long getLoadCount() {
+        return loadSuccessCount + loadFailureCount;
+    }
+
+    /**
+     * @return the total time spent loading and reloading values, in nanoseconds
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * @return the average time spent loading a value, in nanoseconds, or 0 if there was no load
+     */
+    public double getAverageLoadPenalty() {
+        final long loadCount = getLoadCount();
+        return loadCount == 0 ? 0.0 : (double) totalLoadTime / loadCount;
+    }
+
+    /**
+     * @return the number of entries the cache removed on its own, for any cause
+     */
+    public long getEvictionCount() {
+        long count = 0;
+        for (long evictionCount : evictionCounts) {
+            count += evictionCount;
+        }
+        return count;
+    }
+
+    /**
+     * @param cause the eviction cause
+     * @return the number of entries the cache removed on its own for the given cause
+     */
+    public long getEvictionCount(EvictionCause cause) {
+        return evictionCounts[cause.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", loadSuccessCount=" + loadSuccessCount +
+                ", loadFailureCount=" + loadFailureCount +
+                ", totalLoadTime=" + totalLoadTime +
+                ", evictionCount=" + getEvictionCount() +
+                '}';
+    }
+}
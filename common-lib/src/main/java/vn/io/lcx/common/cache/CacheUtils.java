@@ -1,17 +1,28 @@
 package vn.io.lcx.common.cache;
 
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
 import vn.io.lcx.common.exception.CacheException;
 import vn.io.lcx.common.utils.LogUtils;
 
 import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
 import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 /**
  * A thread-safe cache implementation with soft references and TTL support.
@@ -23,25 +34,61 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <ul>
  *   <li>Thread-safe operations using {@link ConcurrentHashMap}</li>
  *   <li>Soft references to allow GC when memory pressure is high</li>
- *   <li>Time-based expiration (TTL) support</li>
- *   <li>LRU eviction when cache reaches capacity</li>
- *   <li>Automatic cleanup of expired entries</li>
+ *   <li>Time-based expiration (TTL) support: per-entry expire-after-write, or expire-after-access</li>
+ *   <li>Selectable eviction when cache reaches capacity ({@link EvictionPolicy})</li>
+ *   <li>Automatic cleanup of expired entries through a hierarchical {@link TimerWheel}</li>
+ *   <li>Loading with a single in-flight load per key, synchronous or returning a Vert.x {@link Future}</li>
+ *   <li>Refresh-ahead: entries older than {@link CacheUtilsBuilder#refreshAfterWrite(Duration)} are reloaded
+ *   in the background on read while the stale value keeps being served</li>
+ *   <li>Optional off-heap tier: entries evicted from the heap are kept serialized in direct memory, so large caches
+ *   do not inflate the old generation, and are promoted back to the heap once read again
+ *   ({@link CacheUtilsBuilder#offHeap(CacheCodec, long)})</li>
+ *   <li>Optional statistics ({@link #stats()}), published to Micrometer for named caches by {@link CacheMetricsBinder}</li>
  * </ul>
  *
+ * <p>Expired entries are never returned: reads check the exact expiration time. The timer wheel only reclaims
+ * their memory, so {@link #size()} may include entries that expired within roughly the last second.</p>
+ *
  * <p>Example usage:</p>
  * <pre>{@code
  * // Create a cache with capacity 1000
  * CacheUtils<String, User> cache = CacheUtils.create(1000);
  *
+ * // Or keep frequently used keys resident under skewed workloads
+ * CacheUtils<String, User> hotCache = CacheUtils.create(1000, EvictionPolicy.W_TINY_LFU);
+ *
  * // Add entry without expiration
  * cache.put("user1", user1);
  *
  * // Add entry with 5 minutes expiration
  * cache.put("user2", user2, Duration.ofMinutes(5));
  *
+ * // Or drop sessions that have not been read for 30 minutes
+ * CacheUtils<String, Session> sessions = CacheUtils.<String, Session>builder()
+ *         .capacity(10_000)
+ *         .expireAfterAccess(Duration.ofMinutes(30))
+ *         .build();
+ *
+ * // Record statistics, published as cache metrics with the tag cache=users
+ * CacheUtils<String, User> users = CacheUtils.<String, User>builder()
+ *         .name("users")
+ *         .capacity(1000)
+ *         .recordStats()
+ *         .build();
+ *
+ * // Keep 1000 users on the heap and up to 2 GB of serialized users off-heap
+ * CacheUtils<String, User> largeCache = CacheUtils.<String, User>builder()
+ *         .capacity(1000)
+ *         .offHeap(CacheCodec.json(User.class), 2L * 1024 * 1024 * 1024)
+ *         .build();
+ *
  * // Retrieve entry
  * User user = cache.get("user1");
  *
+ * // Retrieve entry, loading it once for all concurrent callers on a miss
+ * User loaded = cache.get("user3", userRepository::findById);
+ * Future<User> loadedAsync = cache.getAsync("user4", userReactiveRepository::findById);
+ *
  * // Check if key exists
  * if (cache.containsKey("user1")) {
  *     // do something
@@ -65,10 +112,25 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class CacheUtils<K, V> {
 
     /**
-     * Scheduler for handling TTL expiration
+     * Scheduler advancing the timer wheel of every cache holding TTL entries (one task per cache)
      */
     private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
 
+    /**
+     * Interval between two timer wheel advances by {@link #scheduler}
+     */
+    private static final long CLEAN_UP_INTERVAL_MILLIS = 1000L;
+
+    /**
+     * Origin of {@link #now()}, so that the timer wheel only sees non-negative times
+     */
+    private static final long ORIGIN_NANOS = System.nanoTime();
+
+    /**
+     * Name of the cache in metrics, null for an anonymous cache
+     */
+    private final String name;
+
     /**
      * Maximum number of entries in the cache
      */
@@ -77,21 +139,96 @@ public class CacheUtils<K, V> {
     /**
      * Main cache storage using soft references
      */
-    private final ConcurrentHashMap<K, SoftReference<V>> cache;
+    private final ConcurrentHashMap<K, CacheEntry<K, V>> cache;
 
     /**
-     * Tasks for removing expired entries
+     * Policy choosing the entry to evict when the cache is full
      */
-    private final ConcurrentHashMap<K, ScheduledFuture<SoftReference<V>>> removeExpiredKeyTasks = new ConcurrentHashMap<>();
+    private final EvictionPolicy evictionPolicy;
+
+    /**
+     * W-TinyLFU bookkeeping, null when {@link EvictionPolicy#SIMPLE} is used
+     */
+    private final WTinyLfuPolicy<K, V> tinyLfuPolicy;
+
+    /**
+     * Lock guarding the eviction policy and the timer wheel, never taken by reads
+     */
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * Default time-to-live in nanoseconds applied by {@link #put(Object, Object)}, negative for none
+     */
+    private final long defaultTtlNanos;
+
+    /**
+     * Whether reads push the expiration time of an entry forward (expire-after-access)
+     */
+    private final boolean expireAfterAccess;
+
+    /**
+     * Timer wheel of the entries having a time-to-live, created on first use under {@link #evictionLock}
+     */
+    private TimerWheel<K, V> timerWheel;
+
+    /**
+     * Age in nanoseconds after which a read through a loader triggers a background reload, negative for never
+     */
+    private final long refreshAfterWriteNanos;
+
+    /**
+     * Executor running the background reloads of synchronous loaders
+     */
+    private final Executor refreshExecutor;
+
+    /**
+     * Loads and reloads in progress, so that concurrent misses on a key share a single load
+     */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlightLoads = new ConcurrentHashMap<>();
 
     /**
      * Counter for tracking cache size (atomic for thread safety)
      */
     private final AtomicInteger size = new AtomicInteger(0);
 
-    private CacheUtils(int capacity, ConcurrentHashMap<K, SoftReference<V>> cache) {
-        this.capacity = capacity;
-        this.cache = cache;
+    /**
+     * Statistics counters, null when statistics are not recorded
+     */
+    private final StatsCounter statsCounter;
+
+    /**
+     * Off-heap tier holding the serialized values evicted from the heap, null when not configured.
+     * A key is mapped in at most one of {@link #cache} and this tier.
+     */
+    private final OffHeapStore<K> offHeapStore;
+
+    /**
+     * Codec of the off-heap tier
+     */
+    private final CacheCodec<V> offHeapCodec;
+
+    /**
+     * Number of reads of an off-heap entry after which it is moved back to the heap
+     */
+    private final int offHeapPromotionThreshold;
+
+    private CacheUtils(CacheUtilsBuilder<K, V> builder) {
+        this.name = builder.name;
+        this.capacity = builder.capacity;
+        this.cache = new ConcurrentHashMap<>(builder.capacity);
+        this.evictionPolicy = builder.evictionPolicy;
+        this.tinyLfuPolicy = builder.evictionPolicy == EvictionPolicy.W_TINY_LFU
+                ? new WTinyLfuPolicy<>(builder.capacity, evictionLock, this::evictEntry)
+                : null;
+        final Duration defaultTtl = builder.expireAfterWrite != null ? builder.expireAfterWrite : builder.expireAfterAccess;
+        this.defaultTtlNanos = defaultTtl == null ? -1L : toTtlNanos(defaultTtl);
+        this.expireAfterAccess = builder.expireAfterAccess != null;
+        this.refreshAfterWriteNanos = builder.refreshAfterWrite == null ? -1L : toTtlNanos(builder.refreshAfterWrite);
+        this.refreshExecutor = builder.refreshExecutor == null ? ForkJoinPool.commonPool() : builder.refreshExecutor;
+        this.statsCounter = builder.recordStats ? new StatsCounter() : null;
+        this.offHeapStore = builder.offHeapCodec == null ? null : new OffHeapStore<>(builder.offHeapMaxBytes, this::recordEviction);
+        this.offHeapCodec = builder.offHeapCodec;
+        this.offHeapPromotionThreshold = builder.offHeapPromotionThreshold;
     }
 
     /**
@@ -104,17 +241,44 @@ public class CacheUtils<K, V> {
      * @throws CacheException if capacity is less than 1
      */
     public static <K, V> CacheUtils<K, V> create(int capacity) {
-        if (capacity < 1) {
-            throw new CacheException("Cache capacity must be greater than 0, got: " + capacity);
-        }
-        return new CacheUtils<>(capacity, new ConcurrentHashMap<>(capacity));
+        return create(capacity, EvictionPolicy.SIMPLE);
+    }
+
+    /**
+     * Creates a new cache instance with the specified capacity and eviction policy.
+     *
+     * @param capacity       the maximum number of entries the cache can hold
+     * @param evictionPolicy the policy choosing which entry to evict when the cache is full
+     * @param <K>            the type of keys
+     * @param <V>            the type of values
+     * @return a new CacheUtils instance
+     * @throws CacheException if capacity is less than 1 or evictionPolicy is null
+     */
+    public static <K, V> CacheUtils<K, V> create(int capacity, EvictionPolicy evictionPolicy) {
+        return CacheUtils.<K, V>builder()
+                .capacity(capacity)
+                .evictionPolicy(evictionPolicy)
+                .build();
+    }
+
+    /**
+     * Creates a builder for configuring a new cache instance.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     * @return a new builder
+     */
+    public static <K, V> CacheUtilsBuilder<K, V> builder() {
+        return new CacheUtilsBuilder<>();
     }
 
     /**
      * Shuts down the scheduler used for TTL expiration.
      * This method should be called when the cache is no longer needed to prevent memory leaks.
      *
-     * <p>Note: This is a static method that affects all cache instances since they share the same scheduler.</p>
+     * <p>Note: This is a static method that affects all cache instances since they share the same scheduler.
+     * Expired entries are still never returned afterwards, but their memory is only reclaimed when they are
+     * read, on writes, or through {@link #cleanUp()}.</p>
      */
     public static void shutdown() {
         scheduler.shutdown();
@@ -129,8 +293,10 @@ public class CacheUtils<K, V> {
     }
 
     /**
-     * Adds an entry to the cache without expiration.
-     * If the cache is full, the least recently used entry will be evicted.
+     * Adds an entry to the cache with the default expiration of the cache, if one was configured with
+     * {@link CacheUtilsBuilder#expireAfterWrite(Duration)} or {@link CacheUtilsBuilder#expireAfterAccess(Duration)},
+     * otherwise without expiration.
+     * If the cache is full, an entry will be evicted according to the {@link EvictionPolicy}.
      *
      * @param key   the key with which the specified value is to be associated
      * @param value the value to be associated with the specified key
@@ -138,14 +304,15 @@ public class CacheUtils<K, V> {
      */
     public void put(K key, V value) {
         validateKeyValue(key, value);
-        evictIfNeeded();
-        cache.put(key, new SoftReference<>(value));
-        size.incrementAndGet();
+        putEntry(key, value, defaultTtlNanos);
     }
 
     /**
      * Adds an entry to the cache with time-based expiration.
-     * If the cache is full, the least recently used entry will be evicted.
+     * If the cache is full, an entry will be evicted according to the {@link EvictionPolicy}.
+     *
+     * <p>When the cache expires after access, the duration is the time the entry may stay unread;
+     * otherwise it is the time after which the entry expires regardless of reads.</p>
      *
      * @param key      the key with which the specified value is to be associated
      * @param value    the value to be associated with the specified key
@@ -161,26 +328,7 @@ public class CacheUtils<K, V> {
             throw new IllegalArgumentException("Duration cannot be negative: " + duration);
         }
 
-        evictIfNeeded();
-        cancelOldTask(key);
-
-        cache.put(key, new SoftReference<>(value));
-        size.incrementAndGet();
-
-        final ScheduledFuture<SoftReference<V>> schedule = scheduler.schedule(
-                () -> {
-                    LogUtils.writeLog(this.getClass(), LogUtils.Level.DEBUG, "Removing key {} from cache", key);
-                    removeExpiredKeyTasks.remove(key);
-                    SoftReference<V> removed = cache.remove(key);
-                    if (removed != null) {
-                        size.decrementAndGet();
-                    }
-                    return removed;
-                },
-                duration.toMillis(),
-                TimeUnit.MILLISECONDS
-        );
-        removeExpiredKeyTasks.put(key, schedule);
+        putEntry(key, value, toTtlNanos(duration));
     }
 
     /**
@@ -193,17 +341,131 @@ public class CacheUtils<K, V> {
         if (key == null) {
             return null;
         }
-        final SoftReference<V> ref = cache.get(key);
-        if (ref == null) {
-            return null;
+        final CacheEntry<K, V> entry = getEntry(key);
+        final V value = entry == null ? null : entry.get();
+        recordLookup(value != null);
+        return value;
+    }
+
+    /**
+     * Retrieves the value associated with the specified key, loading it on a miss.
+     *
+     * <p>Concurrent misses on the same key share a single invocation of the loader: the first caller runs it
+     * on its own thread and the others wait for its result, so a popular key that expires causes one load
+     * instead of a stampede. The loaded value is stored with the default expiration of the cache.
+     * If the loader returns null, nothing is cached and null is returned.</p>
+     *
+     * <p>When {@link CacheUtilsBuilder#refreshAfterWrite(Duration)} is configured and the entry is older than
+     * that, the current value is returned and the loader is run again on the refresh executor.</p>
+     *
+     * <p>This method blocks while another caller loads the key; use {@link #getAsync(Object, Function)}
+     * on a Vert.x event loop.</p>
+     *
+     * @param key    the key whose associated value is to be returned
+     * @param loader computes the value of a missing key
+     * @return the cached or loaded value, or null if the loader returned null
+     * @throws IllegalArgumentException if key or loader is null
+     * @throws RuntimeException         the exception thrown by the loader, for every caller waiting on the load
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        validateKeyLoader(key, loader);
+        final CacheEntry<K, V> entry = getEntry(key);
+        if (entry != null) {
+            final V value = entry.get();
+            if (value != null) {
+                recordLookup(true);
+                if (needsRefresh(entry)) {
+                    refresh(entry, loader);
+                }
+                return value;
+            }
         }
-        V value = ref.get();
-        if (value == null) {
-            // Value has been garbage collected, remove the entry
-            cache.remove(key);
-            size.decrementAndGet();
+        recordLookup(false);
+
+        final CompletableFuture<V> load = new CompletableFuture<>();
+        final CompletableFuture<V> inFlight = inFlightLoads.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return awaitLoad(inFlight);
+        }
+        final long startTime = loadStartTime();
+        try {
+            // another caller may have finished loading between our miss and our registration
+            V value = getValue(key);
+            if (value == null) {
+                value = loader.apply(key);
+                recordLoadSuccess(startTime);
+                if (value != null) {
+                    putEntry(key, value, defaultTtlNanos);
+                }
+            }
+            load.complete(value);
+            return value;
+        } catch (Throwable e) {
+            recordLoadFailure(startTime);
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, load);
         }
-        return value;
+    }
+
+    /**
+     * Retrieves the value associated with the specified key, loading it asynchronously on a miss.
+     *
+     * <p>Concurrent misses on the same key share a single load, whether it was started by this method or by
+     * {@link #get(Object, Function)}. When called on a Vert.x context, the returned future completes on that
+     * context. The loaded value is stored with the default expiration of the cache; a null result is not cached.</p>
+     *
+     * <p>When {@link CacheUtilsBuilder#refreshAfterWrite(Duration)} is configured and the entry is older than
+     * that, the current value is returned and the loader is invoked again in the background.</p>
+     *
+     * @param key    the key whose associated value is to be returned
+     * @param loader starts loading the value of a missing key
+     * @return a future completed with the cached or loaded value, or failed with the loader's failure
+     * @throws IllegalArgumentException if key or loader is null
+     */
+    public Future<V> getAsync(K key, Function<? super K, Future<V>> loader) {
+        validateKeyLoader(key, loader);
+        final CacheEntry<K, V> entry = getEntry(key);
+        if (entry != null) {
+            final V value = entry.get();
+            if (value != null) {
+                recordLookup(true);
+                if (needsRefresh(entry)) {
+                    refreshAsync(entry, loader);
+                }
+                return Future.succeededFuture(value);
+            }
+        }
+        recordLookup(false);
+
+        final Context context = Vertx.currentContext();
+        final CompletableFuture<V> load = new CompletableFuture<>();
+        final CompletableFuture<V> inFlight = inFlightLoads.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return context == null ? Future.fromCompletionStage(inFlight) : Future.fromCompletionStage(inFlight, context);
+        }
+        final V cached = getValue(key);
+        if (cached != null) {
+            inFlightLoads.remove(key, load);
+            load.complete(cached);
+            return Future.succeededFuture(cached);
+        }
+        final long startTime = loadStartTime();
+        startLoad(key, loader).onComplete(ar -> {
+            inFlightLoads.remove(key, load);
+            if (ar.failed()) {
+                recordLoadFailure(startTime);
+                load.completeExceptionally(ar.cause());
+                return;
+            }
+            recordLoadSuccess(startTime);
+            if (ar.result() != null) {
+                putEntry(key, ar.result(), defaultTtlNanos);
+            }
+            load.complete(ar.result());
+        });
+        return context == null ? Future.fromCompletionStage(load) : Future.fromCompletionStage(load, context);
     }
 
     /**
@@ -215,11 +477,14 @@ public class CacheUtils<K, V> {
         if (key == null) {
             return;
         }
-        SoftReference<V> removed = cache.remove(key);
+        CacheEntry<K, V> removed = cache.remove(key);
         if (removed != null) {
             size.decrementAndGet();
+            discard(removed);
+        }
+        if (offHeapStore != null) {
+            offHeapStore.remove(key);
         }
-        cancelOldTask(key);
     }
 
     /**
@@ -232,22 +497,21 @@ public class CacheUtils<K, V> {
         if (key == null) {
             return false;
         }
-        SoftReference<V> ref = cache.get(key);
-        if (ref == null) {
-            return false;
+        CacheEntry<K, V> entry = cache.get(key);
+        if (entry == null) {
+            return offHeapStore != null && offHeapStore.get(key, now()) != null;
         }
-        V value = ref.get();
-        if (value == null) {
-            // Value has been garbage collected, remove the entry
-            cache.remove(key);
-            size.decrementAndGet();
+        V value = entry.get();
+        if (value == null || entry.isExpired(now())) {
+            // Value has been garbage collected or has expired, remove the entry
+            removeEntry(entry, value == null ? EvictionCause.COLLECTED : EvictionCause.EXPIRED);
             return false;
         }
         return true;
     }
 
     /**
-     * Returns the number of entries in the cache.
+     * Returns the number of entries in the cache, not counting the off-heap tier.
      *
      * @return the number of entries in the cache
      */
@@ -261,54 +525,608 @@ public class CacheUtils<K, V> {
      * @return true if the cache contains no entries
      */
     public boolean isEmpty() {
-        return size.get() == 0;
+        return size.get() == 0 && getOffHeapSize() == 0;
     }
 
     /**
-     * Removes all entries from the cache and cancels all scheduled expiration tasks.
+     * Returns the number of entries in the off-heap tier.
+     *
+     * @return the number of off-heap entries, 0 if the cache has no off-heap tier
+     */
+    public int getOffHeapSize() {
+        return offHeapStore == null ? 0 : offHeapStore.size();
+    }
+
+    /**
+     * Returns the off-heap memory occupied by entries, including the padding of their slots.
+     *
+     * @return the number of occupied off-heap bytes, 0 if the cache has no off-heap tier
+     */
+    public long getOffHeapUsedBytes() {
+        return offHeapStore == null ? 0L : offHeapStore.usedBytes();
+    }
+
+    boolean hasOffHeapTier() {
+        return offHeapStore != null;
+    }
+
+    /**
+     * Removes all entries from the cache and unschedules their expiration.
+     * The off-heap tier, if any, releases its memory.
      */
     public void clear() {
         cache.clear();
         size.set(0);
-        for (Map.Entry<K, ScheduledFuture<SoftReference<V>>> entry : removeExpiredKeyTasks.entrySet()) {
-            ScheduledFuture<SoftReference<V>> task = entry.getValue();
-            if (task != null) {
-                task.cancel(false);
+        if (offHeapStore != null) {
+            offHeapStore.clear();
+        }
+        if (tinyLfuPolicy != null) {
+            tinyLfuPolicy.clear();
+        }
+        evictionLock.lock();
+        try {
+            if (timerWheel != null) {
+                timerWheel.clear();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entries whose expiration time has passed.
+     *
+     * <p>This runs automatically about once per second on the shared scheduler, and on every write of an entry
+     * with a time-to-live. Calling it explicitly is only useful after {@link #shutdown()}.</p>
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            if (timerWheel != null) {
+                timerWheel.advance(now());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the eviction policy used by this cache.
+     *
+     * @return the eviction policy
+     */
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    /**
+     * Returns the name of this cache in metrics.
+     *
+     * @return the name given by {@link CacheUtilsBuilder#name(String)}, or null
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns whether this cache records statistics.
+     *
+     * @return true if the cache was built with {@link CacheUtilsBuilder#recordStats()}
+     */
+    public boolean isRecordingStats() {
+        return statsCounter != null;
+    }
+
+    /**
+     * @return the live counters, or null if statistics are not recorded
+     */
+    StatsCounter statsCounter() {
+        return statsCounter;
+    }
+
+    /**
+     * Returns a snapshot of the statistics of this cache.
+     *
+     * <p>Lookups are counted by {@link #get(Object)}, {@link #get(Object, Function)} and
+     * {@link #getAsync(Object, Function)}; {@link #containsKey(Object)} is not a lookup. Explicit removals are not
+     * evictions.</p>
+     *
+     * @return the current statistics, or {@link CacheStats#empty()} if statistics are not recorded
+     */
+    public CacheStats stats() {
+        return statsCounter == null ? CacheStats.empty() : statsCounter.snapshot();
+    }
+
+    /**
+     * Looks up a live entry, dropping it if its value was garbage collected or it has expired,
+     * and records the read for the eviction policy and expire-after-access.
+     *
+     * @param key the key
+     * @return the entry, or null if absent
+     */
+    private CacheEntry<K, V> getEntry(K key) {
+        final CacheEntry<K, V> entry = cache.get(key);
+        if (entry == null) {
+            return offHeapStore == null ? null : getOffHeapEntry(key);
+        }
+        if (entry.get() == null) {
+            // Value has been garbage collected, remove the entry
+            removeEntry(entry, EvictionCause.COLLECTED);
+            return null;
+        }
+        if (entry.hasExpiry()) {
+            final long now = now();
+            if (entry.isExpired(now)) {
+                removeEntry(entry, EvictionCause.EXPIRED);
+                return null;
+            }
+            if (expireAfterAccess) {
+                entry.touch(now);
+            }
+        }
+        if (tinyLfuPolicy != null) {
+            tinyLfuPolicy.onAccess(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Reads an entry from the off-heap tier, moving it back to the heap once it has been read
+     * {@link #offHeapPromotionThreshold} times.
+     *
+     * <p>An entry that is not promoted is returned detached: it is not in the cache map, so it is retired and
+     * never refreshed.</p>
+     *
+     * @param key the key
+     * @return the entry, or null if absent
+     */
+    private CacheEntry<K, V> getOffHeapEntry(K key) {
+        final long now = now();
+        final OffHeapStore.Entry<K> stored = offHeapStore.get(key, now);
+        if (stored == null) {
+            return null;
+        }
+        final byte[] bytes = offHeapStore.read(stored);
+        if (bytes == null) {
+            return null;
+        }
+        final V value;
+        try {
+            value = offHeapCodec.decode(bytes);
+        } catch (Exception e) {
+            LogUtils.writeLog(this.getClass(), "Cannot decode off-heap value of key " + key, e, LogUtils.Level.WARN);
+            offHeapStore.remove(key, stored);
+            return null;
+        }
+        if (expireAfterAccess && stored.ttlNanos >= 0) {
+            stored.touch(now);
+        }
+        final CacheEntry<K, V> entry = new CacheEntry<>(key, value);
+        entry.writeTime = stored.writeTime;
+        if (stored.ttlNanos >= 0) {
+            entry.ttlNanos = stored.ttlNanos;
+            entry.expiresAt = stored.expiresAt;
+        }
+        if (++stored.hits >= offHeapPromotionThreshold && offHeapStore.remove(key, stored)) {
+            evictIfNeeded();
+            if (cache.putIfAbsent(key, entry) == null) {
+                afterWrite(entry, null);
+                return entry;
+            }
+        }
+        entry.retire();
+        return entry;
+    }
+
+    /**
+     * Moves an entry evicted from the heap to the off-heap tier, unless it has expired or cannot be encoded.
+     *
+     * @param entry the entry, already removed from the cache map
+     * @return true if the value was stored off-heap
+     */
+    private boolean demote(CacheEntry<K, V> entry) {
+        if (offHeapStore == null) {
+            return false;
+        }
+        final V value = entry.get();
+        final long now = now();
+        if (value == null || entry.isExpired(now)) {
+            return false;
+        }
+        final byte[] bytes;
+        try {
+            bytes = offHeapCodec.encode(value);
+        } catch (Exception e) {
+            LogUtils.writeLog(this.getClass(), "Cannot encode value of key " + entry.key + " for the off-heap tier", e, LogUtils.Level.WARN);
+            return false;
+        }
+        final OffHeapStore.Entry<K> stored = offHeapStore.put(entry.key, bytes, entry.ttlNanos, entry.expiresAt, entry.writeTime, now);
+        if (stored == null) {
+            return false;
+        }
+        if (cache.containsKey(entry.key)) {
+            // written again while demoting: putEntry may have missed the off-heap copy, and the new value wins
+            offHeapStore.remove(entry.key, stored);
+        }
+        return true;
+    }
+
+    /**
+     * Looks up a live value without counting a lookup in the statistics.
+     *
+     * @param key the key
+     * @return the value, or null if absent
+     */
+    private V getValue(K key) {
+        final CacheEntry<K, V> entry = getEntry(key);
+        return entry == null ? null : entry.get();
+    }
+
+    private boolean needsRefresh(CacheEntry<K, V> entry) {
+        return refreshAfterWriteNanos >= 0
+                && !entry.isRetired()
+                && now() - entry.writeTime >= refreshAfterWriteNanos
+                && !inFlightLoads.containsKey(entry.key);
+    }
+
+    /**
+     * Reloads an entry on the refresh executor, unless a load of its key is already in flight.
+     * The stale value keeps being served until the reload completes; a failed reload keeps the stale value.
+     *
+     * @param entry  the stale entry
+     * @param loader computes the new value
+     */
+    private void refresh(CacheEntry<K, V> entry, Function<? super K, ? extends V> loader) {
+        final CompletableFuture<V> reload = new CompletableFuture<>();
+        if (inFlightLoads.putIfAbsent(entry.key, reload) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                final long startTime = loadStartTime();
+                try {
+                    final V value = loader.apply(entry.key);
+                    recordLoadSuccess(startTime);
+                    if (value != null) {
+                        replaceRefreshed(entry, value);
+                    }
+                    reload.complete(value);
+                } catch (Throwable e) {
+                    recordLoadFailure(startTime);
+                    LogUtils.writeLog(this.getClass(), "Cannot refresh key " + entry.key, e, LogUtils.Level.WARN);
+                    reload.completeExceptionally(e);
+                } finally {
+                    inFlightLoads.remove(entry.key, reload);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlightLoads.remove(entry.key, reload);
+            reload.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Reloads an entry through an asynchronous loader, unless a load of its key is already in flight.
+     *
+     * @param entry  the stale entry
+     * @param loader starts loading the new value
+     */
+    private void refreshAsync(CacheEntry<K, V> entry, Function<? super K, Future<V>> loader) {
+        final CompletableFuture<V> reload = new CompletableFuture<>();
+        if (inFlightLoads.putIfAbsent(entry.key, reload) != null) {
+            return;
+        }
+        final long startTime = loadStartTime();
+        startLoad(entry.key, loader).onComplete(ar -> {
+            inFlightLoads.remove(entry.key, reload);
+            if (ar.failed()) {
+                recordLoadFailure(startTime);
+                LogUtils.writeLog(this.getClass(), "Cannot refresh key " + entry.key, ar.cause(), LogUtils.Level.WARN);
+                reload.completeExceptionally(ar.cause());
+                return;
             }
+            recordLoadSuccess(startTime);
+            if (ar.result() != null) {
+                replaceRefreshed(entry, ar.result());
+            }
+            reload.complete(ar.result());
+        });
+    }
+
+    /**
+     * Invokes an asynchronous loader, turning a thrown exception or a null future into a failed future.
+     */
+    private Future<V> startLoad(K key, Function<? super K, Future<V>> loader) {
+        try {
+            final Future<V> future = loader.apply(key);
+            return future == null ? Future.failedFuture(new CacheException("Loader returned a null future for key " + key)) : future;
+        } catch (Throwable e) {
+            return Future.failedFuture(e);
         }
-        removeExpiredKeyTasks.clear();
     }
 
     /**
-     * Evicts the least recently used entry if the cache is at capacity.
+     * Swaps in a reloaded value, unless the entry was removed or replaced while reloading.
+     * The new entry keeps the time-to-live and the eviction policy position of the stale one.
+     *
+     * @param stale the entry that was reloaded
+     * @param value the reloaded value
+     */
+    private void replaceRefreshed(CacheEntry<K, V> stale, V value) {
+        final CacheEntry<K, V> refreshed = new CacheEntry<>(stale.key, value);
+        refreshed.writeTime = now();
+        if (stale.hasExpiry()) {
+            refreshed.ttlNanos = stale.ttlNanos;
+            refreshed.expiresAt = refreshed.writeTime + stale.ttlNanos;
+        }
+        if (cache.replace(stale.key, stale, refreshed)) {
+            afterWrite(refreshed, stale);
+        }
+    }
+
+    /**
+     * Waits for a load started by another caller and returns its result, rethrowing its failure.
+     */
+    private V awaitLoad(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new CacheException("Cannot load cache value", cause);
+        }
+    }
+
+    /**
+     * Evicts an entry if the cache is at capacity and uses {@link EvictionPolicy#SIMPLE}.
      * This is a simple implementation that removes the first entry found.
-     * For better LRU implementation, consider using LinkedHashMap or a custom LRU structure.
+     * {@link EvictionPolicy#W_TINY_LFU} evicts after the write instead, see {@link #afterWrite}.
      */
     private void evictIfNeeded() {
+        if (evictionPolicy != EvictionPolicy.SIMPLE) {
+            return;
+        }
         if (size.get() >= capacity) {
             // Simple eviction strategy: remove the first entry
-            for (Map.Entry<K, SoftReference<V>> entry : cache.entrySet()) {
-                K key = entry.getKey();
-                SoftReference<V> ref = entry.getValue();
+            for (Map.Entry<K, CacheEntry<K, V>> entry : cache.entrySet()) {
+                CacheEntry<K, V> ref = entry.getValue();
                 if (ref.get() == null) {
                     // Already garbage collected, remove it
-                    cache.remove(key);
-                    size.decrementAndGet();
-                    cancelOldTask(key);
+                    removeEntry(ref, EvictionCause.COLLECTED);
                     return;
                 }
             }
 
             // If no garbage collected entries found, remove the first one
-            Map.Entry<K, SoftReference<V>> firstEntry = cache.entrySet().iterator().next();
-            if (firstEntry != null) {
-                cache.remove(firstEntry.getKey());
-                size.decrementAndGet();
-                cancelOldTask(firstEntry.getKey());
+            final var iterator = cache.values().iterator();
+            if (iterator.hasNext()) {
+                final CacheEntry<K, V> victim = iterator.next();
+                if (removeEntry(victim) && !demote(victim)) {
+                    recordEviction(EvictionCause.SIZE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores a new entry, evicting and scheduling its expiration as needed.
+     *
+     * @param key      the key
+     * @param value    the value
+     * @param ttlNanos the time-to-live in nanoseconds, negative for none
+     */
+    private void putEntry(K key, V value, long ttlNanos) {
+        evictIfNeeded();
+        final CacheEntry<K, V> entry = new CacheEntry<>(key, value);
+        entry.writeTime = now();
+        if (ttlNanos >= 0) {
+            entry.ttlNanos = ttlNanos;
+            entry.expiresAt = entry.writeTime + ttlNanos;
+        }
+        afterWrite(entry, cache.put(key, entry));
+        if (offHeapStore != null) {
+            // after the map write, so that a concurrent demotion either is removed here or sees the new entry
+            offHeapStore.remove(key);
+        }
+    }
+
+    /**
+     * Updates the size, the eviction policy and the timer wheel after an entry has been stored in the cache map.
+     *
+     * @param entry    the stored entry
+     * @param previous the entry it replaced, or null
+     */
+    private void afterWrite(CacheEntry<K, V> entry, CacheEntry<K, V> previous) {
+        if (previous == null) {
+            size.incrementAndGet();
+        } else {
+            previous.retire();
+        }
+        if (tinyLfuPolicy != null) {
+            tinyLfuPolicy.onWrite(entry, previous);
+        }
+        if (entry.hasExpiry() || (previous != null && previous.hasExpiry())) {
+            evictionLock.lock();
+            try {
+                if (previous != null && timerWheel != null) {
+                    timerWheel.deschedule(previous);
+                }
+                if (entry.hasExpiry() && !entry.isRetired()) {
+                    final long now = now();
+                    timerWheel().advance(now);
+                    timerWheel().schedule(entry);
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes the given entry if it is still the one mapped to its key.
+     *
+     * @param entry the entry to remove
+     * @return true if the entry was removed by this call
+     */
+    private boolean removeEntry(CacheEntry<K, V> entry) {
+        if (cache.remove(entry.key, entry)) {
+            size.decrementAndGet();
+            discard(entry);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the given entry if it is still the one mapped to its key, counting it as an eviction.
+     *
+     * @param entry the entry to remove
+     * @param cause the reason for removing it
+     */
+    private void removeEntry(CacheEntry<K, V> entry, EvictionCause cause) {
+        if (removeEntry(entry)) {
+            recordEviction(cause);
+        }
+    }
+
+    /**
+     * Releases the policy and timer wheel bookkeeping of an entry that left the cache map.
+     *
+     * @param entry the removed entry
+     */
+    private void discard(CacheEntry<K, V> entry) {
+        entry.retire();
+        if (tinyLfuPolicy != null) {
+            tinyLfuPolicy.onRemove(entry);
+        }
+        if (entry.hasExpiry()) {
+            evictionLock.lock();
+            try {
+                if (timerWheel != null) {
+                    timerWheel.deschedule(entry);
+                }
+            } finally {
+                evictionLock.unlock();
             }
         }
     }
 
+    /**
+     * Called by the W-TinyLFU policy, under the eviction lock, for each entry it chose to evict.
+     * The entry moves to the off-heap tier if there is one.
+     *
+     * @param entry the evicted entry, already unlinked from the policy
+     */
+    private void evictEntry(CacheEntry<K, V> entry) {
+        entry.retire();
+        if (timerWheel != null) {
+            timerWheel.deschedule(entry);
+        }
+        if (cache.remove(entry.key, entry)) {
+            size.decrementAndGet();
+            if (!demote(entry)) {
+                recordEviction(EvictionCause.SIZE);
+            }
+        }
+    }
+
+    /**
+     * Called by the timer wheel, under the eviction lock, for each entry whose expiration time has passed.
+     *
+     * @param entry the expired entry, already unlinked from the timer wheel
+     */
+    private void expireEntry(CacheEntry<K, V> entry) {
+        removeEntry(entry, EvictionCause.EXPIRED);
+    }
+
+    /**
+     * Returns the timer wheel, creating it and scheduling its periodic clean-up on first use.
+     * Must be called under {@link #evictionLock}.
+     *
+     * @return the timer wheel
+     */
+    private TimerWheel<K, V> timerWheel() {
+        if (timerWheel == null) {
+            timerWheel = new TimerWheel<>(now(), this::expireEntry);
+            try {
+                CleanUpTask.schedule(this);
+            } catch (RejectedExecutionException e) {
+                LogUtils.writeLog(
+                        this.getClass(),
+                        LogUtils.Level.WARN,
+                        "Cache scheduler has been shut down, expired entries will only be removed lazily"
+                );
+            }
+        }
+        return timerWheel;
+    }
+
+    private void recordLookup(boolean hit) {
+        if (statsCounter == null) {
+            return;
+        }
+        if (hit) {
+            statsCounter.recordHit();
+        } else {
+            statsCounter.recordMiss();
+        }
+    }
+
+    private void recordEviction(EvictionCause cause) {
+        if (statsCounter != null) {
+            statsCounter.recordEviction(cause);
+        }
+    }
+
+    /**
+     * Returns the start time of a load for the statistics, without reading the clock when they are not recorded.
+     *
+     * @return the current {@link System#nanoTime()}, or 0
+     */
+    private long loadStartTime() {
+        return statsCounter == null ? 0L : System.nanoTime();
+    }
+
+    private void recordLoadSuccess(long startTime) {
+        if (statsCounter != null) {
+            statsCounter.recordLoadSuccess(System.nanoTime() - startTime);
+        }
+    }
+
+    private void recordLoadFailure(long startTime) {
+        if (statsCounter != null) {
+            statsCounter.recordLoadFailure(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Returns the current time in nanoseconds, relative to {@link #ORIGIN_NANOS}.
+     *
+     * @return the current time
+     */
+    private static long now() {
+        return System.nanoTime() - ORIGIN_NANOS;
+    }
+
+    /**
+     * Converts a duration to a time-to-live, saturating durations too long to be represented.
+     *
+     * @param duration the duration
+     * @return the time-to-live in nanoseconds
+     */
+    private static long toTtlNanos(Duration duration) {
+        try {
+            return Math.min(duration.toNanos(), Long.MAX_VALUE >>> 1);
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE >>> 1;
+        }
+    }
+
     /**
      * Validates that key and value are not null.
      *
@@ -326,14 +1144,247 @@ public class CacheUtils<K, V> {
     }
 
     /**
-     * Cancels the scheduled task for the specified key.
+     * Validates that key and loader are not null.
+     *
+     * @param key    the key to validate
+     * @param loader the loader to validate
+     * @throws IllegalArgumentException if key or loader is null
+     */
+    private void validateKeyLoader(K key, Object loader) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cache key cannot be null");
+        }
+        if (loader == null) {
+            throw new IllegalArgumentException("Cache loader cannot be null");
+        }
+    }
+
+    /**
+     * Periodically advances the timer wheel of one cache on the shared {@link #scheduler}.
+     * The cache is only weakly referenced so that an abandoned cache can still be garbage collected,
+     * at which point the task cancels itself.
+     */
+    private static final class CleanUpTask implements Runnable {
+        private final WeakReference<CacheUtils<?, ?>> cacheRef;
+        private volatile ScheduledFuture<?> future;
+
+        private CleanUpTask(CacheUtils<?, ?> cache) {
+            this.cacheRef = new WeakReference<>(cache);
+        }
+
+        static void schedule(CacheUtils<?, ?> cache) {
+            final CleanUpTask task = new CleanUpTask(cache);
+            task.future = scheduler.scheduleWithFixedDelay(
+                    task,
+                    CLEAN_UP_INTERVAL_MILLIS,
+                    CLEAN_UP_INTERVAL_MILLIS,
+                    TimeUnit.MILLISECONDS
+            );
+        }
+
+        @Override
+        public void run() {
+            final CacheUtils<?, ?> cache = cacheRef.get();
+            if (cache == null) {
+                final ScheduledFuture<?> scheduled = future;
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                }
+                return;
+            }
+            try {
+                cache.cleanUp();
+            } catch (Exception e) {
+                LogUtils.writeLog(CacheUtils.class, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Builder for {@link CacheUtils}.
      *
-     * @param key the key whose scheduled task should be cancelled
+     * @param <K> the type of keys
+     * @param <V> the type of values
      */
-    private void cancelOldTask(K key) {
-        final ScheduledFuture<SoftReference<V>> oldTask = removeExpiredKeyTasks.remove(key);
-        if (oldTask != null) {
-            oldTask.cancel(false);
+    public static class CacheUtilsBuilder<K, V> {
+        private String name;
+        private boolean recordStats;
+        private int capacity;
+        private EvictionPolicy evictionPolicy = EvictionPolicy.SIMPLE;
+        private Duration expireAfterWrite;
+        private Duration expireAfterAccess;
+        private Duration refreshAfterWrite;
+        private Executor refreshExecutor;
+        private CacheCodec<V> offHeapCodec;
+        private long offHeapMaxBytes;
+        private int offHeapPromotionThreshold = 2;
+
+        public CacheUtilsBuilder() {
+        }
+
+        /**
+         * Names the cache. A named cache that records statistics is published by {@link CacheMetricsBinder}
+         * with the tag {@code cache=<name>}.
+         *
+         * @param name the name of the cache in metrics
+         * @return this builder
+         */
+        public CacheUtilsBuilder<K, V> name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * Enables {@link CacheUtils#stats()}. Disabled by default, in which case nothing is counted.
+         *
+         * @return this builder
+         */
+        public CacheUtilsBuilder<K, V> recordStats() {
+            this.recordStats = true;
+            return this;
+        }
+
+        /**
+         * @param capacity the maximum number of entries the cache can hold
+         * @return this builder
+         */
+        public CacheUtilsBuilder<K, V> capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * @param evictionPolicy the policy choosing which entry to evict when the cache is full,
+         *                       {@link EvictionPolicy#SIMPLE} by default
+         * @return this builder
+         */
+        public CacheUtilsBuilder<K, V> evictionPolicy(EvictionPolicy evictionPolicy) {
+            this.evictionPolicy = evictionPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the time-to-live applied by {@link CacheUtils#put(Object, Object)}; each entry expires once this
+         * duration has passed since it was written, regardless of reads.
+         *
+         * @param expireAfterWrite the default time-to-live
+         * @return this builder
+         */
+        public CacheUtilsBuilder<K, V> expireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+            return this;
+        }
+
+        /**
+         * Makes every entry with a time-to-live expire once it has not been read for that long, and sets the
+         * time-to-live applied by {@link CacheUtils#put(Object, Object)}.
+         * {@link CacheUtils#put(Object, Object, Duration)} can still give an entry its own idle duration.
+         *
+         * @param expireAfterAccess the default idle duration
+         * @return this builder
+         */
+        public CacheUtilsBuilder<K, V> expireAfterAccess(Duration expireAfterAccess) {
+            this.expireAfterAccess = expireAfterAccess;
+            return this;
+        }
+
+        /**
+         * Enables refresh-ahead: a read through {@link CacheUtils#get(Object, Function)} or
+         * {@link CacheUtils#getAsync(Object, Function)} of an entry written longer ago than this duration returns
+         * the current value and reloads the key in the background. Should be shorter than the expiration, so that
+         * popular keys are reloaded before they expire.
+         *
+         * @param refreshAfterWrite the age after which an entry is reloaded on read
+         * @return this builder
+         */
+        public CacheUtilsBuilder<K, V> refreshAfterWrite(Duration refreshAfterWrite) {
+            this.refreshAfterWrite = refreshAfterWrite;
+            return this;
+        }
+
+        /**
+         * @param refreshExecutor the executor running background reloads of synchronous loaders,
+         *                        {@link ForkJoinPool#commonPool()} by default
+         * @return this builder
+         */
+        public CacheUtilsBuilder<K, V> refreshExecutor(Executor refreshExecutor) {
+            this.refreshExecutor = refreshExecutor;
+            return this;
+        }
+
+        /**
+         * Adds an off-heap tier: entries evicted from the heap because the cache is at capacity are serialized with
+         * the codec into direct memory instead of being dropped. {@link CacheUtils#get(Object)} falls back to this
+         * tier and decodes the value; an entry read often enough is moved back to the heap, see
+         * {@link #offHeapPromotionThreshold(int)}.
+         *
+         * <p>The capacity then only bounds the heap tier, which can be kept small while the off-heap tier holds
+         * gigabytes without adding to GC pauses. Memory is allocated in 1 MiB pages as needed; larger values are
+         * not kept off-heap. Expired off-heap entries are removed when read or when their memory is needed.</p>
+         *
+         * @param codec    converts values to and from bytes
+         * @param maxBytes the maximum off-heap memory, at least 1 MiB
+         * @return this builder
+         */
+        public CacheUtilsBuilder<K, V> offHeap(CacheCodec<V> codec, long maxBytes) {
+            this.offHeapCodec = codec;
+            this.offHeapMaxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * @param offHeapPromotionThreshold the number of reads after which an off-heap entry is moved back to the heap,
+         *                                  2 by default; 1 promotes on the first read
+         * @return this builder
+         */
+        public CacheUtilsBuilder<K, V> offHeapPromotionThreshold(int offHeapPromotionThreshold) {
+            this.offHeapPromotionThreshold = offHeapPromotionThreshold;
+            return this;
+        }
+
+        /**
+         * @return a new CacheUtils instance
+         * @throws CacheException if capacity is less than 1, evictionPolicy is null, name is blank, a duration is negative,
+         *                        both expireAfterWrite and expireAfterAccess are set,
+         *                        refreshAfterWrite is not shorter than expireAfterWrite,
+         *                        or the off-heap tier is smaller than 1 MiB or its promotion threshold is less than 1
+         */
+        public CacheUtils<K, V> build() {
+            if (capacity < 1) {
+                throw new CacheException("Cache capacity must be greater than 0, got: " + capacity);
+            }
+            if (evictionPolicy == null) {
+                throw new CacheException("Eviction policy cannot be null");
+            }
+            if (name != null && name.isBlank()) {
+                throw new CacheException("Cache name cannot be blank");
+            }
+            if (expireAfterWrite != null && expireAfterAccess != null) {
+                throw new CacheException("expireAfterWrite and expireAfterAccess cannot be combined");
+            }
+            final Duration defaultTtl = expireAfterWrite != null ? expireAfterWrite : expireAfterAccess;
+            if (defaultTtl != null && defaultTtl.isNegative()) {
+                throw new CacheException("Cache expiration cannot be negative: " + defaultTtl);
+            }
+            if (refreshAfterWrite != null) {
+                if (refreshAfterWrite.isNegative() || refreshAfterWrite.isZero()) {
+                    throw new CacheException("Cache refresh must be positive: " + refreshAfterWrite);
+                }
+                if (expireAfterWrite != null && refreshAfterWrite.compareTo(expireAfterWrite) >= 0) {
+                    throw new CacheException("refreshAfterWrite must be shorter than expireAfterWrite");
+                }
+            }
+            if (offHeapCodec != null && offHeapMaxBytes < OffHeapStore.PAGE_SIZE) {
+                throw new CacheException("Off-heap tier must be at least " + OffHeapStore.PAGE_SIZE + " bytes, got: " + offHeapMaxBytes);
+            }
+            if (offHeapPromotionThreshold < 1) {
+                throw new CacheException("Off-heap promotion threshold must be greater than 0, got: " + offHeapPromotionThreshold);
+            }
+            final CacheUtils<K, V> cache = new CacheUtils<>(this);
+            if (name != null && recordStats) {
+                CacheMetricsBinder.register(cache);
+            }
+            return cache;
         }
     }
 }
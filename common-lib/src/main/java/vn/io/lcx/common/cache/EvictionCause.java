@@ -0,0 +1,21 @@
+package vn.io.lcx.common.cache;
+
+/**
+ * The reason why {@link CacheUtils} removed an entry on its own, as reported by {@link CacheStats}.
+ */
+public enum EvictionCause {
+    /**
+     * The cache was at capacity and the {@link EvictionPolicy} chose the entry
+     */
+    SIZE,
+
+    /**
+     * The time-to-live of the entry had passed
+     */
+    EXPIRED,
+
+    /**
+     * The garbage collector cleared the soft reference holding the value
+     */
+    COLLECTED,
+}
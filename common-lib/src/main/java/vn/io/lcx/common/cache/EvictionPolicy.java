@@ -0,0 +1,25 @@
+package vn.io.lcx.common.cache;
+
+/**
+ * Strategy used by {@link CacheUtils} to choose which entry leaves the cache once it reaches its capacity.
+ */
+public enum EvictionPolicy {
+    /**
+     * <p>Removes the first garbage-collected entry found, otherwise whatever entry the underlying
+     * {@link java.util.concurrent.ConcurrentHashMap} iterator returns first.</p>
+     * <p>This is the historical behaviour of {@link CacheUtils}. It costs nothing on reads but ignores
+     * how often or how recently a key was used, so hot keys are evicted as often as cold ones.</p>
+     */
+    SIMPLE,
+
+    /**
+     * <p>Window TinyLFU: a small LRU admission window in front of a segmented LRU main space
+     * (probation + protected), with a 4-bit count-min sketch estimating how often each key is requested.</p>
+     * <p>When the cache is full, the entry leaving the window only replaces the probation victim if it has
+     * been requested more often, which keeps frequently used keys resident under skewed (Zipfian) workloads
+     * while the window still absorbs bursts of new keys.</p>
+     * <p>Reads are recorded into striped lossy buffers and replayed against the policy in batches,
+     * so the read path never takes the eviction lock.</p>
+     */
+    W_TINY_LFU,
+}
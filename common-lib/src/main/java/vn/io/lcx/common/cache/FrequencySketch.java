@@ -0,0 +1,153 @@
+/*
+ * Copyright 2015 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Derived from FrequencySketch of Caffeine (https://github.com/ben-manes/caffeine),
+ * modified to fit CacheUtils.
+ */
+package vn.io.lcx.common.cache;
+
+/**
+ * A probabilistic multiset estimating how often an element has been seen within a time window.
+ *
+ * <p>This is a count-min sketch with 4-bit counters: sixteen counters are packed into each {@code long}
+ * and every element maps to four counters selected by independent hashes. The estimated frequency is the
+ * minimum of those four counters, capped at 15.</p>
+ *
+ * <p>To let the history age, every counter is halved once the number of recorded increments reaches
+ * ten times the configured maximum size.</p>
+ *
+ * <p>This class is not thread-safe; callers must serialize access (see {@link WTinyLfuPolicy}).</p>
+ *
+ * @param <E> the type of elements being counted
+ */
+final class FrequencySketch<E> {
+
+    private static final long[] SEED = {
+            0xc3a5c85c97cb3127L,
+            0xb492b66fbe98f273L,
+            0x9ae16a3b2f90404fL,
+            0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    /**
+     * Creates a sketch sized for the given number of distinct elements.
+     *
+     * @param maximumSize the maximum number of elements the owning cache can hold
+     */
+    FrequencySketch(int maximumSize) {
+        int maximum = Math.max(1, Math.min(maximumSize, 1 << 30));
+        int tableSize = Integer.highestOneBit(maximum - 1) << 1;
+        if (tableSize <= 0) {
+            tableSize = 1;
+        }
+        this.table = new long[tableSize];
+        this.tableMask = tableSize - 1;
+        this.sampleSize = (int) Math.min(10L * maximum, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the estimated number of occurrences of an element, up to the maximum (15).
+     *
+     * @param e the element to count occurrences of
+     * @return the estimated number of occurrences of the element
+     */
+    int frequency(E e) {
+        final int hash = spread(e.hashCode());
+        final int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            final int index = indexOf(hash, i);
+            final int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Increments the popularity of the element if it does not exceed the maximum (15).
+     * All counters are periodically halved so that popular elements do not stay resident forever.
+     *
+     * @param e the element to add
+     */
+    void increment(E e) {
+        final int hash = spread(e.hashCode());
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && (++size == sampleSize)) {
+            reset();
+        }
+    }
+
+    /**
+     * Increments the specified counter by 1 if it is not already at the maximum value (15).
+     *
+     * @param i the table index (16 counters)
+     * @param j the counter to increment
+     * @return if incremented
+     */
+    private boolean incrementAt(int i, int j) {
+        final int offset = j << 2;
+        final long mask = (0xfL << offset);
+        if ((table[i] & mask) != mask) {
+            table[i] += (1L << offset);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reduces every counter by half of its original value.
+     */
+    private void reset() {
+        int count = 0;
+        for (int i = 0; i < table.length; i++) {
+            count += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (count >>> 2);
+    }
+
+    /**
+     * Returns the table index for the counter at the specified depth.
+     *
+     * @param item the element's hash
+     * @param i    the counter depth
+     * @return the table index
+     */
+    private int indexOf(int item, int i) {
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += (hash >>> 32);
+        return ((int) hash) & tableMask;
+    }
+
+    /**
+     * Applies a supplemental hash function to defend against a poor quality {@code hashCode()}.
+     */
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
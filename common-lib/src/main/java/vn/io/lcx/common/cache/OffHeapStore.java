@@ -0,0 +1,492 @@
+package vn.io.lcx.common.cache;
+
+import vn.io.lcx.common.utils.LogUtils;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Off-heap tier of {@link CacheUtils}: serialized values stored in direct {@link ByteBuffer}s.
+ *
+ * <p>Memory is allocated in pages of {@link #PAGE_SIZE} bytes, up to the configured number of bytes. Each page is
+ * assigned to a size class and cut into equal slots, so allocating and freeing is popping and pushing a slot index,
+ * and the heap only holds one small {@link Entry} per value. A page of the size class owning the most pages is
+ * handed over when a size class needs memory and none is left.</p>
+ *
+ * <p>When a size class is full, a CLOCK sweep over its slots evicts an expired entry or one that was not read
+ * since the last sweep.</p>
+ *
+ * <p>Allocation, eviction and writes happen under {@link #lock}. Reads copy the bytes without locking and are
+ * validated afterwards against {@link Entry#freed}, which is set before a slot can be reused: a store-store fence
+ * between freeing and rewriting a slot, paired with the acquire fence of {@link #read(Entry)}, works like the
+ * stamp of a {@code StampedLock}, so a read that saw new bytes also sees its entry freed.</p>
+ *
+ * <p>If direct memory runs out before the configured size, the tier stops growing and evicts instead.</p>
+ *
+ * @param <K> the type of keys
+ */
+final class OffHeapStore<K> {
+
+    /**
+     * Size of an allocated page, which is also the largest value the tier can store
+     */
+    static final int PAGE_SIZE = 1 << 20;
+
+    private static final int MIN_SLOT_SIZE = 64;
+    private static final double SLOT_GROWTH_FACTOR = 1.25d;
+
+    private final ConcurrentHashMap<K, Entry<K>> index = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ByteBuffer[] pages;
+    private final SizeClass<K>[] sizeClasses;
+    private final Consumer<EvictionCause> evictionListener;
+
+    /**
+     * Number of pages allocated so far, guarded by {@link #lock}
+     */
+    private int pageCount;
+
+    /**
+     * Number of pages that may be allocated, lowered when direct memory runs out, guarded by {@link #lock}
+     */
+    private int pageLimit;
+
+    /**
+     * Bytes of the occupied slots, written under {@link #lock}
+     */
+    private volatile long usedBytes;
+
+    /**
+     * @param maxBytes         the maximum number of bytes to allocate, rounded down to whole pages
+     * @param evictionListener invoked for each entry the tier evicted on its own
+     */
+    OffHeapStore(long maxBytes, Consumer<EvictionCause> evictionListener) {
+        this.pages = new ByteBuffer[(int) Math.min(Integer.MAX_VALUE - 8, maxBytes / PAGE_SIZE)];
+        this.pageLimit = pages.length;
+        this.evictionListener = evictionListener;
+        int slotSizeCount = 0;
+        final int[] slotSizes = new int[64];
+        for (int slotSize = MIN_SLOT_SIZE; slotSize < PAGE_SIZE; ) {
+            slotSizes[slotSizeCount++] = slotSize;
+            slotSize = Math.max(slotSize + 8, ((int) (slotSize * SLOT_GROWTH_FACTOR) + 7) & ~7);
+        }
+        slotSizes[slotSizeCount++] = PAGE_SIZE;
+        @SuppressWarnings("unchecked") final SizeClass<K>[] classes = (SizeClass<K>[]) new SizeClass<?>[slotSizeCount];
+        for (int i = 0; i < slotSizeCount; i++) {
+            classes[i] = new SizeClass<>(slotSizes[i]);
+        }
+        this.sizeClasses = classes;
+    }
+
+    /**
+     * Stores a value, replacing the current one of the key.
+     *
+     * @param key       the key
+     * @param bytes     the serialized value
+     * @param ttlNanos  the time-to-live in nanoseconds, negative for none
+     * @param expiresAt the expiration time, only meaningful with a time-to-live
+     * @param writeTime the time the value was written
+     * @param now       the current time
+     * @return the stored entry, or null if the value is larger than {@link #PAGE_SIZE} or no memory could be freed
+     */
+    Entry<K> put(K key, byte[] bytes, long ttlNanos, long expiresAt, long writeTime, long now) {
+        if (bytes.length > PAGE_SIZE) {
+            return null;
+        }
+        final SizeClass<K> sizeClass = sizeClasses[sizeClassFor(bytes.length)];
+        lock.lock();
+        try {
+            final int slot = allocate(sizeClass, now);
+            if (slot < 0) {
+                return null;
+            }
+            final ByteBuffer page = pages[sizeClass.pageOf(slot)];
+            final int offset = sizeClass.offsetOf(slot);
+            // the slot may have just been freed: its owner must be seen freed before any of the new bytes
+            VarHandle.storeStoreFence();
+            page.put(offset, bytes, 0, bytes.length);
+            final Entry<K> entry = new Entry<>(key, sizeClass, slot, page, offset, bytes.length);
+            entry.ttlNanos = ttlNanos;
+            entry.expiresAt = expiresAt;
+            entry.writeTime = writeTime;
+            sizeClass.owners[slot] = entry;
+            usedBytes += sizeClass.slotSize;
+            final Entry<K> previous = index.put(key, entry);
+            if (previous != null) {
+                free(previous);
+            }
+            return entry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Looks up a live entry, dropping it if it has expired, and marks it as recently used.
+     *
+     * @param key the key
+     * @param now the current time
+     * @return the entry, or null if absent
+     */
+    Entry<K> get(K key, long now) {
+        final Entry<K> entry = index.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(now)) {
+            if (remove(key, entry)) {
+                evictionListener.accept(EvictionCause.EXPIRED);
+            }
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        return entry;
+    }
+
+    /**
+     * Copies the serialized value of an entry.
+     *
+     * @param entry an entry returned by {@link #get(Object, long)}
+     * @return the serialized value, or null if the entry was removed while copying
+     */
+    byte[] read(Entry<K> entry) {
+        final byte[] bytes = new byte[entry.length];
+        entry.page.get(entry.offset, bytes, 0, entry.length);
+        // keep the copy from being reordered after the check, as StampedLock#validate does
+        VarHandle.acquireFence();
+        return entry.freed ? null : bytes;
+    }
+
+    /**
+     * @param key the key
+     * @return true if an entry was removed
+     */
+    boolean remove(K key) {
+        final Entry<K> entry = index.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            free(entry);
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * @param key   the key
+     * @param entry the entry expected to be mapped to the key
+     * @return true if the entry was still mapped to the key and was removed
+     */
+    boolean remove(K key, Entry<K> entry) {
+        if (!index.remove(key, entry)) {
+            return false;
+        }
+        lock.lock();
+        try {
+            free(entry);
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Removes every entry and releases every page.
+     */
+    void clear() {
+        lock.lock();
+        try {
+            index.clear();
+            for (SizeClass<K> sizeClass : sizeClasses) {
+                for (int slot = 0; slot < sizeClass.slotCount; slot++) {
+                    final Entry<K> entry = sizeClass.owners[slot];
+                    if (entry != null) {
+                        entry.freed = true;
+                    }
+                }
+                sizeClass.reset();
+            }
+            Arrays.fill(pages, 0, pageCount, null);
+            pageCount = 0;
+            pageLimit = pages.length;
+            usedBytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of entries
+     */
+    int size() {
+        return index.size();
+    }
+
+    /**
+     * @return the bytes of the occupied slots
+     */
+    long usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Must be called under {@link #lock}.
+     *
+     * @return a free slot of the size class, or -1 if none could be freed
+     */
+    private int allocate(SizeClass<K> sizeClass, long now) {
+        if (sizeClass.freeCount == 0) {
+            if (pageCount < pageLimit && allocatePage()) {
+                sizeClass.addPage(pageCount++);
+            } else if (sizeClass.slotCount > 0) {
+                evictOne(sizeClass, now);
+            } else {
+                reclaimPage(sizeClass, now);
+            }
+        }
+        return sizeClass.freeCount == 0 ? -1 : sizeClass.freeSlots[--sizeClass.freeCount];
+    }
+
+    /**
+     * Allocates the next page. When direct memory is exhausted, the tier keeps the pages it has: retrying would make
+     * every write go through the garbage collection {@link ByteBuffer#allocateDirect(int)} attempts before failing.
+     *
+     * @return true if the page was allocated
+     */
+    private boolean allocatePage() {
+        try {
+            pages[pageCount] = ByteBuffer.allocateDirect(PAGE_SIZE);
+            return true;
+        } catch (OutOfMemoryError e) {
+            pageLimit = pageCount;
+            LogUtils.writeLog(this.getClass(), LogUtils.Level.WARN,
+                    "Direct memory exhausted, the off-heap tier stops growing at {} page(s): {}", pageCount, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Sweeps the slots of a full size class until an entry is evicted.
+     */
+    private void evictOne(SizeClass<K> sizeClass, long now) {
+        for (int i = 0; i < 2 * sizeClass.slotCount + 1 && sizeClass.freeCount == 0; i++) {
+            final int slot = sizeClass.clockHand;
+            sizeClass.clockHand = slot + 1 == sizeClass.slotCount ? 0 : slot + 1;
+            final Entry<K> entry = sizeClass.owners[slot];
+            if (entry == null) {
+                continue;
+            }
+            final boolean expired = entry.isExpired(now);
+            if (!expired && entry.referenced) {
+                entry.referenced = false;
+                continue;
+            }
+            // an entry that is no longer indexed is being removed, its remover frees it
+            if (index.remove(entry.key, entry)) {
+                free(entry);
+                evictionListener.accept(expired ? EvictionCause.EXPIRED : EvictionCause.SIZE);
+            }
+        }
+    }
+
+    /**
+     * Takes the last page of the size class owning the most pages, evicting its entries, and gives it to a size
+     * class that has none.
+     */
+    private void reclaimPage(SizeClass<K> sizeClass, long now) {
+        SizeClass<K> donor = null;
+        for (SizeClass<K> candidate : sizeClasses) {
+            if (candidate != sizeClass && candidate.pageCount > 0 && (donor == null || candidate.pageCount > donor.pageCount)) {
+                donor = candidate;
+            }
+        }
+        if (donor == null) {
+            return;
+        }
+        final int firstSlot = (donor.pageCount - 1) * donor.slotsPerPage;
+        for (int slot = firstSlot; slot < donor.slotCount; slot++) {
+            final Entry<K> entry = donor.owners[slot];
+            if (entry == null) {
+                continue;
+            }
+            if (index.remove(entry.key, entry)) {
+                evictionListener.accept(entry.isExpired(now) ? EvictionCause.EXPIRED : EvictionCause.SIZE);
+            }
+            free(entry);
+        }
+        sizeClass.addPage(donor.removeLastPage());
+    }
+
+    /**
+     * Returns the slot of an entry to its size class. Does nothing if the entry was already freed.
+     * Must be called under {@link #lock}.
+     */
+    private void free(Entry<K> entry) {
+        if (entry.freed) {
+            return;
+        }
+        entry.freed = true;
+        final SizeClass<K> sizeClass = entry.sizeClass;
+        sizeClass.owners[entry.slot] = null;
+        sizeClass.freeSlots[sizeClass.freeCount++] = entry.slot;
+        usedBytes -= sizeClass.slotSize;
+    }
+
+    private int sizeClassFor(int length) {
+        int low = 0;
+        int high = sizeClasses.length - 1;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (sizeClasses[mid].slotSize < length) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * A serialized value and its metadata. The bytes live in {@link #page}, everything else on the heap.
+     *
+     * @param <K> the type of the key
+     */
+    static final class Entry<K> {
+        final K key;
+        private final SizeClass<K> sizeClass;
+        private final int slot;
+        private final ByteBuffer page;
+        private final int offset;
+        private final int length;
+
+        long ttlNanos = -1L;
+        volatile long expiresAt;
+        long writeTime;
+
+        /**
+         * Number of reads, counted without synchronization so concurrent reads may be lost
+         */
+        int hits;
+
+        /**
+         * Set by reads, cleared by the CLOCK sweep
+         */
+        private volatile boolean referenced;
+
+        /**
+         * Set under the lock before the slot can be reused
+         */
+        private volatile boolean freed;
+
+        private Entry(K key, SizeClass<K> sizeClass, int slot, ByteBuffer page, int offset, int length) {
+            this.key = key;
+            this.sizeClass = sizeClass;
+            this.slot = slot;
+            this.page = page;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        boolean isExpired(long now) {
+            return ttlNanos >= 0 && expiresAt - now <= 0;
+        }
+
+        /**
+         * Pushes the expiration time forward for expire-after-access, see {@link CacheEntry#touch(long)}.
+         */
+        void touch(long now) {
+            final long newExpiresAt = now + ttlNanos;
+            if (newExpiresAt - expiresAt > (ttlNanos >>> 6)) {
+                expiresAt = newExpiresAt;
+            }
+        }
+    }
+
+    /**
+     * The pages of one slot size, guarded by {@link #lock}. Slot {@code i} lives in the page
+     * {@code pageIds[i / slotsPerPage]} at offset {@code (i % slotsPerPage) * slotSize}.
+     */
+    private static final class SizeClass<K> {
+        final int slotSize;
+        final int slotsPerPage;
+        int[] pageIds = new int[4];
+        int pageCount;
+        Entry<K>[] owners;
+        int slotCount;
+        int[] freeSlots;
+        int freeCount;
+        int clockHand;
+
+        SizeClass(int slotSize) {
+            this.slotSize = slotSize;
+            this.slotsPerPage = PAGE_SIZE / slotSize;
+            reset();
+        }
+
+        int pageOf(int slot) {
+            return pageIds[slot / slotsPerPage];
+        }
+
+        int offsetOf(int slot) {
+            return (slot % slotsPerPage) * slotSize;
+        }
+
+        void addPage(int pageId) {
+            if (pageCount == pageIds.length) {
+                pageIds = Arrays.copyOf(pageIds, pageCount * 2);
+            }
+            pageIds[pageCount++] = pageId;
+            final int newSlotCount = slotCount + slotsPerPage;
+            if (newSlotCount > owners.length) {
+                final int newLength = Math.max(newSlotCount, owners.length * 2);
+                owners = Arrays.copyOf(owners, newLength);
+                freeSlots = Arrays.copyOf(freeSlots, newLength);
+            }
+            // pushed in reverse so that slots are handed out in address order
+            for (int slot = newSlotCount - 1; slot >= slotCount; slot--) {
+                freeSlots[freeCount++] = slot;
+            }
+            slotCount = newSlotCount;
+        }
+
+        /**
+         * Detaches the last page, whose entries must already be freed.
+         *
+         * @return the id of the page
+         */
+        int removeLastPage() {
+            final int firstSlot = slotCount - slotsPerPage;
+            int kept = 0;
+            for (int i = 0; i < freeCount; i++) {
+                if (freeSlots[i] < firstSlot) {
+                    freeSlots[kept++] = freeSlots[i];
+                }
+            }
+            freeCount = kept;
+            slotCount = firstSlot;
+            if (clockHand >= slotCount) {
+                clockHand = 0;
+            }
+            return pageIds[--pageCount];
+        }
+
+        @SuppressWarnings("unchecked")
+        void reset() {
+            pageCount = 0;
+            owners = (Entry<K>[]) new Entry<?>[0];
+            slotCount = 0;
+            freeSlots = new int[0];
+            freeCount = 0;
+            clockHand = 0;
+        }
+    }
+}
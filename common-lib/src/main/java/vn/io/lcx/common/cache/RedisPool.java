@@ -1,11 +1,77 @@
 package vn.io.lcx.common.cache;
 
+import redis.clients.jedis.Pipeline;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
 public interface RedisPool extends AutoCloseable {
     void ping();
 
+    /**
+     * Sets a value, with its expiration in the same command ({@code SET key value EX seconds}).
+     *
+     * @param key          the key
+     * @param value        the value
+     * @param expireSecond the time-to-live in seconds, 0 or less for none
+     * @return true if Redis acknowledged the write
+     */
     boolean set(String key, String value, int expireSecond);
 
+    /**
+     * Binary variant of {@link #set(String, String, int)}.
+     */
+    boolean set(byte[] key, byte[] value, int expireSecond);
+
     boolean delete(String key);
 
+    boolean delete(byte[] key);
+
     String get(String key);
+
+    byte[] get(byte[] key);
+
+    /**
+     * Gets many values with one {@code MGET} per batch of keys.
+     *
+     * @param keys the keys
+     * @return the values of the existing keys, in the order of the keys
+     */
+    Map<String, String> multiGet(Collection<String> keys);
+
+    /**
+     * Sets many values in a few round trips: one {@code MSET} per batch without expiration,
+     * otherwise pipelined {@code SET ... EX}.
+     *
+     * @param entries      the keys and values
+     * @param expireSecond the time-to-live in seconds, 0 or less for none
+     * @return true if Redis acknowledged every write
+     */
+    boolean multiSet(Map<String, String> entries, int expireSecond);
+
+    /**
+     * Deletes many keys with one {@code DEL} per batch of keys.
+     *
+     * @param keys the keys
+     * @return the number of keys that existed
+     */
+    long multiDelete(Collection<String> keys);
+
+    /**
+     * Sends the commands queued by the callback in a single pipeline on one connection.
+     *
+     * <p>Example usage:</p>
+     * <pre>{@code
+     * List<Object> replies = redisPool.pipelined(pipeline -> {
+     *     pipeline.incr("counter");
+     *     pipeline.expire("counter", 60);
+     * });
+     * }</pre>
+     *
+     * @param commands queues the commands
+     * @return the replies, in the order the commands were queued
+     */
+    List<Object> pipelined(Consumer<Pipeline> commands);
 }
@@ -4,29 +4,49 @@ import org.apache.commons.lang3.StringUtils;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
 import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.params.SetParams;
+import vn.io.lcx.common.exception.CacheException;
 import vn.io.lcx.common.utils.LogUtils;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
 public class RedisPoolImpl implements RedisPool {
 
+    /**
+     * Maximum number of keys sent in one bulk command or pipeline sync, so that a huge batch neither blocks
+     * Redis on a single command nor buffers every reply at once
+     */
+    private static final int BATCH_SIZE = 1000;
+
     private final JedisPool jedisPool;
 
     private RedisPoolImpl(JedisPool jedisPool) {
         this.jedisPool = jedisPool;
     }
 
+    /**
+     * Creates a pool with the default sizing. Unlike {@link RedisPoolBuilder#build()}, the host is not validated,
+     * as before the builder existed: a blank host only fails once a connection is requested.
+     */
     public static RedisPoolImpl create(String host, int port, String password) {
-        JedisPoolConfig config = new JedisPoolConfig();
-        config.setMaxIdle(5);
-        config.setMaxTotal(10);
-        config.setMinIdle(1);
-        JedisPool jedisPool;
-        if (StringUtils.isNotBlank(password)) {
-            jedisPool = new JedisPool(config, host, port, Protocol.DEFAULT_TIMEOUT, password);
-        } else {
-            jedisPool = new JedisPool(config, host, port);
-        }
-        return new RedisPoolImpl(jedisPool);
+        return RedisPoolImpl.builder()
+                .host(host)
+                .port(port)
+                .password(password)
+                .createPool();
+    }
+
+    public static RedisPoolBuilder builder() {
+        return new RedisPoolBuilder();
     }
 
     @Override
@@ -39,36 +59,26 @@ public class RedisPoolImpl implements RedisPool {
 
     @Override
     public boolean set(String key, String value, int expireSecond) {
-        boolean success = false;
         try (Jedis jedis = jedisPool.getResource()) {
-            final var setValueForKeyResult = jedis.set(key, value);
+            final var setValueForKeyResult = expireSecond > 0
+                    ? jedis.set(key, value, SetParams.setParams().ex(expireSecond))
+                    : jedis.set(key, value);
             if (!"OK".equals(setValueForKeyResult)) {
-                return success;
-            }
-            LogUtils.writeLog(
-                    RedisPoolImpl.class,
-                    LogUtils.Level.INFO,
-                    "Save data into redis:\n    - Key name: {}\n    - Value: {}",
-                    key,
-                    value
-            );
-            success = true;
-            if (expireSecond > 0) {
-                final var setExpireResult = jedis.expire(key, expireSecond);
-                if (setExpireResult == 0) {
-                    LogUtils.writeLog(this.getClass(), LogUtils.Level.WARN, "Cannot set expire time for key {}", key);
-                } else {
-                    LogUtils.writeLog(
-                            RedisPoolImpl.class,
-                            LogUtils.Level.INFO,
-                            "Key {} will expire after {} second(s)",
-                            key,
-                            expireSecond
-                    );
-                }
+                return false;
             }
+            LogUtils.writeLog(RedisPoolImpl.class, LogUtils.Level.DEBUG, "Saved key {} into redis (expire: {}s)", key, expireSecond);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean set(byte[] key, byte[] value, int expireSecond) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            final var setValueForKeyResult = expireSecond > 0
+                    ? jedis.set(key, value, SetParams.setParams().ex(expireSecond))
+                    : jedis.set(key, value);
+            return "OK".equals(setValueForKeyResult);
         }
-        return success;
     }
 
     @Override
@@ -79,6 +89,13 @@ public class RedisPoolImpl implements RedisPool {
         }
     }
 
+    @Override
+    public boolean delete(byte[] key) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.del(key) == 1;
+        }
+    }
+
     @Override
     public String get(String key) {
         try (Jedis jedis = jedisPool.getResource()) {
@@ -86,8 +103,211 @@ public class RedisPoolImpl implements RedisPool {
         }
     }
 
+    @Override
+    public byte[] get(byte[] key) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.get(key);
+        }
+    }
+
+    @Override
+    public Map<String, String> multiGet(Collection<String> keys) {
+        final Map<String, String> result = new LinkedHashMap<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            for (List<String> batch : batches(keys)) {
+                final List<String> values = jedis.mget(batch.toArray(String[]::new));
+                for (int i = 0; i < batch.size(); i++) {
+                    if (values.get(i) != null) {
+                        result.put(batch.get(i), values.get(i));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean multiSet(Map<String, String> entries, int expireSecond) {
+        if (entries.isEmpty()) {
+            return true;
+        }
+        boolean success = true;
+        try (Jedis jedis = jedisPool.getResource()) {
+            for (List<String> batch : batches(entries.keySet())) {
+                if (expireSecond > 0) {
+                    final List<Response<String>> replies = new ArrayList<>(batch.size());
+                    try (Pipeline pipeline = jedis.pipelined()) {
+                        final SetParams params = SetParams.setParams().ex(expireSecond);
+                        for (String key : batch) {
+                            replies.add(pipeline.set(key, entries.get(key), params));
+                        }
+                        pipeline.sync();
+                    }
+                    for (Response<String> reply : replies) {
+                        success &= "OK".equals(reply.get());
+                    }
+                } else {
+                    final String[] keysAndValues = new String[batch.size() * 2];
+                    for (int i = 0; i < batch.size(); i++) {
+                        keysAndValues[2 * i] = batch.get(i);
+                        keysAndValues[2 * i + 1] = entries.get(batch.get(i));
+                    }
+                    success &= "OK".equals(jedis.mset(keysAndValues));
+                }
+            }
+        }
+        LogUtils.writeLog(RedisPoolImpl.class, LogUtils.Level.DEBUG, "Saved {} keys into redis (expire: {}s)", entries.size(), expireSecond);
+        return success;
+    }
+
+    @Override
+    public long multiDelete(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        long deleted = 0;
+        try (Jedis jedis = jedisPool.getResource()) {
+            for (List<String> batch : batches(keys)) {
+                deleted += jedis.del(batch.toArray(String[]::new));
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public List<Object> pipelined(Consumer<Pipeline> commands) {
+        try (Jedis jedis = jedisPool.getResource(); Pipeline pipeline = jedis.pipelined()) {
+            commands.accept(pipeline);
+            return pipeline.syncAndReturnAll();
+        }
+    }
+
     @Override
     public void close() {
         this.jedisPool.close();
     }
+
+    private static List<List<String>> batches(Collection<String> keys) {
+        final List<List<String>> batches = new ArrayList<>((keys.size() + BATCH_SIZE - 1) / BATCH_SIZE);
+        List<String> batch = new ArrayList<>(Math.min(keys.size(), BATCH_SIZE));
+        for (String key : keys) {
+            if (batch.size() == BATCH_SIZE) {
+                batches.add(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+            batch.add(key);
+        }
+        batches.add(batch);
+        return batches;
+    }
+
+    public static class RedisPoolBuilder {
+        private String host;
+        private int port = Protocol.DEFAULT_PORT;
+        private String password;
+        private int maxTotal = 10;
+        private int maxIdle = 5;
+        private int minIdle = 1;
+        private Duration maxWait;
+        private int timeoutMillis = Protocol.DEFAULT_TIMEOUT;
+
+        public RedisPoolBuilder() {
+        }
+
+        public RedisPoolBuilder host(String host) {
+            this.host = host;
+            return this;
+        }
+
+        public RedisPoolBuilder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public RedisPoolBuilder password(String password) {
+            this.password = password;
+            return this;
+        }
+
+        /**
+         * @param maxTotal the maximum number of connections, 10 by default
+         * @return this builder
+         */
+        public RedisPoolBuilder maxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+            return this;
+        }
+
+        /**
+         * @param maxIdle the maximum number of idle connections kept open, 5 by default
+         * @return this builder
+         */
+        public RedisPoolBuilder maxIdle(int maxIdle) {
+            this.maxIdle = maxIdle;
+            return this;
+        }
+
+        /**
+         * @param minIdle the minimum number of idle connections kept open, 1 by default
+         * @return this builder
+         */
+        public RedisPoolBuilder minIdle(int minIdle) {
+            this.minIdle = minIdle;
+            return this;
+        }
+
+        /**
+         * @param maxWait the longest time to wait for a free connection when the pool is exhausted,
+         *                unbounded by default
+         * @return this builder
+         */
+        public RedisPoolBuilder maxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        /**
+         * @param timeoutMillis the connection and socket timeout in milliseconds, 2000 by default
+         * @return this builder
+         */
+        public RedisPoolBuilder timeoutMillis(int timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+            return this;
+        }
+
+        /**
+         * @throws CacheException if the host is blank or the pool sizing is inconsistent
+         */
+        public RedisPoolImpl build() {
+            if (StringUtils.isBlank(host)) {
+                throw new CacheException("Redis host must be defined");
+            }
+            return createPool();
+        }
+
+        private RedisPoolImpl createPool() {
+            if (maxTotal < 1 || maxIdle < 0 || minIdle < 0 || minIdle > maxIdle || maxIdle > maxTotal) {
+                throw new CacheException(
+                        String.format("Invalid redis pool sizing: maxTotal=%d, maxIdle=%d, minIdle=%d", maxTotal, maxIdle, minIdle)
+                );
+            }
+            JedisPoolConfig config = new JedisPoolConfig();
+            config.setMaxIdle(maxIdle);
+            config.setMaxTotal(maxTotal);
+            config.setMinIdle(minIdle);
+            if (maxWait != null) {
+                config.setMaxWait(maxWait);
+            }
+            JedisPool jedisPool;
+            if (StringUtils.isNotBlank(password)) {
+                jedisPool = new JedisPool(config, host, port, timeoutMillis, password);
+            } else {
+                jedisPool = new JedisPool(config, host, port, timeoutMillis);
+            }
+            return new RedisPoolImpl(jedisPool);
+        }
+    }
 }
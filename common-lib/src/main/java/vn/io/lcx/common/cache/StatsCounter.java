@@ -0,0 +1,96 @@
+package vn.io.lcx.common.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates the statistics of a {@link CacheUtils} instance.
+ *
+ * <p>Every counter is a {@link LongAdder}, which spreads concurrent increments over striped cells instead of
+ * having every reader CAS the same word, so recording a hit costs about as much as an uncontended write.</p>
+ */
+final class StatsCounter {
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder[] evictionCounts;
+
+    StatsCounter() {
+        evictionCounts = new LongAdder[EvictionCause.values().length];
+        for (int i = 0; i < evictionCounts.length; i++) {
+            evictionCounts[i] = new LongAdder();
+        }
+    }
+
+    void recordHit() {
+        hitCount.increment();
+    }
+
+    void recordMiss() {
+        missCount.increment();
+    }
+
+    void recordLoadSuccess(long loadTimeNanos) {
+        loadSuccessCount.increment();
+        totalLoadTime.add(loadTimeNanos);
+    }
+
+    void recordLoadFailure(long loadTimeNanos) {
+        loadFailureCount.increment();
+        totalLoadTime.add(loadTimeNanos);
+    }
+
+    void recordEviction(EvictionCause cause) {
+        evictionCounts[cause.ordinal()].increment();
+    }
+
+    long hitCount() {
+        return hitCount.sum();
+    }
+
+    long missCount() {
+        return missCount.sum();
+    }
+
+    long loadSuccessCount() {
+        return loadSuccessCount.sum();
+    }
+
+    long loadFailureCount() {
+        return loadFailureCount.sum();
+    }
+
+    long loadCount() {
+        return loadSuccessCount.sum() + loadFailureCount.sum();
+    }
+
+    long totalLoadTime() {
+        return totalLoadTime.sum();
+    }
+
+    long evictionCount(EvictionCause cause) {
+        return evictionCounts[cause.ordinal()].sum();
+    }
+
+    /**
+     * Returns a snapshot of the counters. Counters updated concurrently may or may not be included.
+     *
+     * @return the current statistics
+     */
+    CacheStats snapshot() {
+        final long[] evictions = new long[evictionCounts.length];
+        for (int i = 0; i < evictions.length; i++) {
+            evictions[i] = evictionCounts[i].sum();
+        }
+        return new CacheStats(
+                hitCount.sum(),
+                missCount.sum(),
+                loadSuccessCount.sum(),
+                loadFailureCount.sum(),
+                totalLoadTime.sum(),
+                evictions
+        );
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Derived from StripedBuffer and BoundedBuffer of Caffeine (https://github.com/ben-manes/caffeine),
+ * modified to fit CacheUtils.
+ */
+package vn.io.lcx.common.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A striped, lossy, bounded buffer used to record cache reads without taking a lock.
+ *
+ * <p>Each thread is mapped to one of several small ring buffers, so concurrent readers rarely touch the
+ * same counter. When a ring is full or a slot is contended the element is simply dropped: losing a few
+ * access events only makes the eviction policy slightly less precise, it never breaks correctness.</p>
+ *
+ * <p>{@link #drainTo(Consumer)} must be called by a single thread at a time (the owner of the eviction lock).</p>
+ *
+ * @param <E> the type of buffered elements
+ */
+final class StripedReadBuffer<E> {
+
+    static final int SUCCESS = 0;
+    static final int FAILED = 1;
+    static final int FULL = 2;
+
+    private static final int BUFFER_SIZE = 16;
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+    private static final int MAX_STRIPES = 64;
+
+    private final Stripe<E>[] stripes;
+    private final int stripeMask;
+
+    @SuppressWarnings("unchecked")
+    StripedReadBuffer() {
+        final int wanted = Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors() * 2);
+        final int count = Integer.highestOneBit(Math.max(1, wanted - 1)) << 1;
+        this.stripes = (Stripe<E>[]) new Stripe<?>[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>();
+        }
+        this.stripeMask = count - 1;
+    }
+
+    /**
+     * Records an element without blocking.
+     *
+     * @param e the element to record
+     * @return {@link #SUCCESS}, {@link #FAILED} if the slot was contended, or {@link #FULL} if the stripe
+     * needs to be drained
+     */
+    int offer(E e) {
+        return stripes[stripeIndex()].offer(e);
+    }
+
+    /**
+     * Drains every stripe into the consumer. The caller must hold the lock guarding the consumer's state.
+     *
+     * @param consumer the action applied to each buffered element
+     */
+    void drainTo(Consumer<E> consumer) {
+        for (Stripe<E> stripe : stripes) {
+            stripe.drainTo(consumer);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private int stripeIndex() {
+        long id = Thread.currentThread().getId();
+        id = (id ^ (id >>> 33)) * 0xff51afd7ed558ccdL;
+        return (int) (id ^ (id >>> 33)) & stripeMask;
+    }
+
+    private static final class Stripe<E> {
+        private final AtomicLong writeCounter = new AtomicLong();
+        private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+        private volatile long readCounter;
+
+        int offer(E e) {
+            final long head = readCounter;
+            final long tail = writeCounter.get();
+            if (tail - head >= BUFFER_SIZE) {
+                return FULL;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                buffer.lazySet((int) (tail & BUFFER_MASK), e);
+                return SUCCESS;
+            }
+            return FAILED;
+        }
+
+        void drainTo(Consumer<E> consumer) {
+            long head = readCounter;
+            final long tail = writeCounter.get();
+            while (head < tail) {
+                final int index = (int) (head & BUFFER_MASK);
+                final E e = buffer.get(index);
+                if (e == null) {
+                    // the writer claimed the slot but has not published the element yet
+                    break;
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(e);
+                head++;
+            }
+            readCounter = head;
+        }
+    }
+}
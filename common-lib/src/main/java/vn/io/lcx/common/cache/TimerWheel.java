@@ -0,0 +1,217 @@
+/*
+ * Copyright 2017 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Derived from TimerWheel of Caffeine (https://github.com/ben-manes/caffeine),
+ * modified to fit CacheUtils.
+ */
+package vn.io.lcx.common.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timer wheel holding the {@link CacheEntry entries} of a cache that have a time-to-live.
+ *
+ * <p>The wheel has five levels whose buckets cover roughly one second, one minute, one hour, one day and
+ * (a single overflow bucket) six days. An entry is linked into the bucket matching its expiration time, so
+ * scheduling, rescheduling and descheduling are O(1) pointer updates on the entry itself instead of a
+ * {@link java.util.concurrent.ScheduledFuture} per entry in a heap-ordered delay queue.</p>
+ *
+ * <p>When the wheel advances, every bucket whose time span has passed is detached and its entries are either
+ * expired or cascaded into a finer bucket (for example because an expire-after-access read pushed their
+ * expiration time forward). Each entry is moved at most once per level, which gives O(1) amortized expiry.
+ * Because the buckets are coarse, the owning cache must still check the exact expiration time on read.</p>
+ *
+ * <p>This class is not thread-safe; the owning cache guards it with its eviction lock.</p>
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class TimerWheel<K, V> {
+
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+    private static final long[] SPANS = {
+            1L << 30, // 1.07s
+            1L << 36, // 1.14m
+            1L << 42, // 1.22h
+            1L << 47, // 1.63d
+            1L << 49, // 6.5d
+            1L << 49, // 6.5d
+    };
+    private static final long[] SHIFT = {30, 36, 42, 47, 49};
+
+    private final CacheEntry<K, V>[][] wheel;
+    private final Consumer<CacheEntry<K, V>> expirationListener;
+    private long nanos;
+
+    /**
+     * @param currentTimeNanos   the current time, in nanoseconds
+     * @param expirationListener invoked for each entry whose expiration time has passed; the entry is already
+     *                           unlinked from the wheel and must be removed from the cache map
+     */
+    @SuppressWarnings("unchecked")
+    TimerWheel(long currentTimeNanos, Consumer<CacheEntry<K, V>> expirationListener) {
+        this.nanos = currentTimeNanos;
+        this.expirationListener = expirationListener;
+        this.wheel = (CacheEntry<K, V>[][]) new CacheEntry<?, ?>[BUCKETS.length][];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = (CacheEntry<K, V>[]) new CacheEntry<?, ?>[BUCKETS[i]];
+            for (int j = 0; j < wheel[i].length; j++) {
+                wheel[i][j] = newSentinel();
+            }
+        }
+    }
+
+    /**
+     * Advances the wheel to the given time, expiring or cascading the entries of every bucket passed.
+     *
+     * @param currentTimeNanos the current time, in nanoseconds
+     */
+    void advance(long currentTimeNanos) {
+        final long previousTimeNanos = nanos;
+        if (currentTimeNanos - previousTimeNanos <= 0) {
+            return;
+        }
+        nanos = currentTimeNanos;
+        for (int i = 0; i < SHIFT.length; i++) {
+            final long previousTicks = previousTimeNanos >>> SHIFT[i];
+            final long currentTicks = currentTimeNanos >>> SHIFT[i];
+            final long delta = currentTicks - previousTicks;
+            if (delta <= 0L) {
+                break;
+            }
+            expire(i, previousTicks, delta);
+        }
+    }
+
+    /**
+     * Links the entry into the bucket matching its expiration time.
+     *
+     * @param entry the entry to schedule, which must not already be scheduled
+     */
+    void schedule(CacheEntry<K, V> entry) {
+        link(findBucket(entry.expiresAt), entry);
+    }
+
+    /**
+     * Unlinks the entry from its bucket, if scheduled.
+     *
+     * @param entry the entry to deschedule
+     */
+    void deschedule(CacheEntry<K, V> entry) {
+        if (entry.wheelNext != null) {
+            unlink(entry);
+        }
+    }
+
+    /**
+     * Unlinks every entry.
+     */
+    void clear() {
+        for (CacheEntry<K, V>[] buckets : wheel) {
+            for (CacheEntry<K, V> sentinel : buckets) {
+                CacheEntry<K, V> entry = sentinel.wheelNext;
+                while (entry != sentinel) {
+                    final CacheEntry<K, V> next = entry.wheelNext;
+                    entry.wheelPrev = null;
+                    entry.wheelNext = null;
+                    entry = next;
+                }
+                sentinel.wheelPrev = sentinel;
+                sentinel.wheelNext = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Expires or cascades the entries of the buckets passed at the given level.
+     *
+     * @param index         the wheel level
+     * @param previousTicks the ticks at the previous time
+     * @param delta         the number of ticks passed
+     */
+    private void expire(int index, long previousTicks, long delta) {
+        final CacheEntry<K, V>[] buckets = wheel[index];
+        final int mask = buckets.length - 1;
+        final int steps = (int) Math.min(1 + delta, buckets.length);
+        final int start = (int) (previousTicks & mask);
+        final int end = start + steps;
+
+        for (int i = start; i < end; i++) {
+            final CacheEntry<K, V> sentinel = buckets[i & mask];
+            CacheEntry<K, V> entry = sentinel.wheelNext;
+            sentinel.wheelPrev = sentinel;
+            sentinel.wheelNext = sentinel;
+
+            while (entry != sentinel) {
+                final CacheEntry<K, V> next = entry.wheelNext;
+                entry.wheelPrev = null;
+                entry.wheelNext = null;
+
+                if (!entry.isRetired()) {
+                    if (entry.expiresAt - nanos > 0) {
+                        schedule(entry);
+                    } else {
+                        expirationListener.accept(entry);
+                    }
+                }
+                entry = next;
+            }
+        }
+    }
+
+    /**
+     * Determines the bucket that the timer event should be added to.
+     *
+     * @param time the time when the event fires
+     * @return the sentinel at the head of the bucket
+     */
+    private CacheEntry<K, V> findBucket(long time) {
+        final long duration = time - nanos;
+        final int length = wheel.length - 1;
+        for (int i = 0; i < length; i++) {
+            if (duration < SPANS[i + 1]) {
+                final long ticks = (time >>> SHIFT[i]);
+                final int index = (int) (ticks & (wheel[i].length - 1));
+                return wheel[i][index];
+            }
+        }
+        return wheel[length][0];
+    }
+
+    private void link(CacheEntry<K, V> sentinel, CacheEntry<K, V> entry) {
+        entry.wheelPrev = sentinel.wheelPrev;
+        entry.wheelNext = sentinel;
+        sentinel.wheelPrev.wheelNext = entry;
+        sentinel.wheelPrev = entry;
+    }
+
+    private void unlink(CacheEntry<K, V> entry) {
+        final CacheEntry<K, V> next = entry.wheelNext;
+        if (next != null) {
+            final CacheEntry<K, V> prev = entry.wheelPrev;
+            next.wheelPrev = prev;
+            prev.wheelNext = next;
+            entry.wheelPrev = null;
+            entry.wheelNext = null;
+        }
+    }
+
+    private CacheEntry<K, V> newSentinel() {
+        final CacheEntry<K, V> sentinel = new CacheEntry<>(null, null);
+        sentinel.wheelPrev = sentinel;
+        sentinel.wheelNext = sentinel;
+        return sentinel;
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright 2014 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Derived from the W-TinyLFU policy of BoundedLocalCache of Caffeine (https://github.com/ben-manes/caffeine),
+ * modified to fit CacheUtils.
+ */
+package vn.io.lcx.common.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Window TinyLFU bookkeeping for {@link CacheUtils}.
+ *
+ * <p>The entries are split into three LRU queues:</p>
+ * <ul>
+ *   <li><b>window</b> (1% of the capacity): every new entry lands here first</li>
+ *   <li><b>probation</b>: entries that left the window, or were demoted from protected</li>
+ *   <li><b>protected</b> (80% of the main space): probation entries that were read again</li>
+ * </ul>
+ *
+ * <p>When the cache is over capacity, the entry leaving the window (the candidate) competes with the head of
+ * probation (the victim) and the one with the lower estimated frequency in the {@link FrequencySketch} is
+ * evicted. Every queue operation is O(1) because the queues are intrusive lists threaded through
+ * {@link CacheEntry}.</p>
+ *
+ * <p>Writes update the policy under {@link #evictionLock}. Reads are only recorded into a
+ * {@link StripedReadBuffer}, which is replayed the next time the lock is held, so readers never block.</p>
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class WTinyLfuPolicy<K, V> {
+
+    private static final double WINDOW_PERCENTAGE = 0.01d;
+    private static final double PROTECTED_PERCENTAGE = 0.80d;
+    /**
+     * Candidates at or below this frequency never win against a more popular victim by chance
+     */
+    private static final int ADMIT_HASHDOS_THRESHOLD = 6;
+
+    private final ReentrantLock evictionLock;
+    private final StripedReadBuffer<CacheEntry<K, V>> readBuffer = new StripedReadBuffer<>();
+    private final FrequencySketch<K> sketch;
+    private final Consumer<CacheEntry<K, V>> evictionListener;
+
+    private final AccessOrderQueue<K, V> window = new AccessOrderQueue<>();
+    private final AccessOrderQueue<K, V> probation = new AccessOrderQueue<>();
+    private final AccessOrderQueue<K, V> protectedQueue = new AccessOrderQueue<>();
+
+    private final int maximum;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+
+    private int size;
+    private int windowSize;
+    private int protectedSize;
+
+    /**
+     * @param maximum          the maximum number of entries
+     * @param evictionLock     the cache's eviction lock, also guarding its timer wheel
+     * @param evictionListener invoked under the eviction lock for each entry chosen for eviction; the entry is
+     *                         already unlinked from the policy and must be removed from the cache map
+     */
+    WTinyLfuPolicy(int maximum, ReentrantLock evictionLock, Consumer<CacheEntry<K, V>> evictionListener) {
+        this.maximum = maximum;
+        this.evictionLock = evictionLock;
+        this.windowMaximum = Math.max(1, (int) (maximum * WINDOW_PERCENTAGE));
+        final int mainMaximum = Math.max(0, maximum - windowMaximum);
+        this.protectedMaximum = (int) (mainMaximum * PROTECTED_PERCENTAGE);
+        this.sketch = new FrequencySketch<>(maximum);
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Records a read without blocking. If the read buffer is full, tries to replay it.
+     *
+     * @param entry the entry that was read
+     */
+    void onAccess(CacheEntry<K, V> entry) {
+        if (readBuffer.offer(entry) == StripedReadBuffer.FULL && evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Records a write, taking over the position of the replaced entry if there was one, and evicts entries
+     * while the cache is over capacity.
+     *
+     * @param entry    the entry just stored in the cache map
+     * @param previous the entry it replaced, or null
+     */
+    void onWrite(CacheEntry<K, V> entry, CacheEntry<K, V> previous) {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            if (entry.isRetired()) {
+                // removed again before we got the lock
+                if (previous != null) {
+                    unlink(previous);
+                }
+                return;
+            }
+            sketch.increment(entry.key);
+            if (previous != null && previous.queueType != CacheEntry.QUEUE_NONE) {
+                queueOf(previous).replace(previous, entry);
+                entry.queueType = previous.queueType;
+                previous.queueType = CacheEntry.QUEUE_NONE;
+                return;
+            }
+            window.addLast(entry);
+            entry.queueType = CacheEntry.QUEUE_WINDOW;
+            windowSize++;
+            size++;
+            evictEntries();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Removes an entry that was explicitly removed from the cache map.
+     *
+     * @param entry the removed entry
+     */
+    void onRemove(CacheEntry<K, V> entry) {
+        evictionLock.lock();
+        try {
+            unlink(entry);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Forgets every tracked entry. Frequency history is kept.
+     */
+    void clear() {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            window.clear();
+            probation.clear();
+            protectedQueue.clear();
+            size = 0;
+            windowSize = 0;
+            protectedSize = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void drainReadBuffer() {
+        readBuffer.drainTo(this::onAccessLocked);
+    }
+
+    private void onAccessLocked(CacheEntry<K, V> entry) {
+        if (entry.queueType == CacheEntry.QUEUE_NONE) {
+            return;
+        }
+        sketch.increment(entry.key);
+        switch (entry.queueType) {
+            case CacheEntry.QUEUE_WINDOW -> window.moveToBack(entry);
+            case CacheEntry.QUEUE_PROBATION -> {
+                probation.remove(entry);
+                protectedQueue.addLast(entry);
+                entry.queueType = CacheEntry.QUEUE_PROTECTED;
+                protectedSize++;
+                demoteFromProtected();
+            }
+            case CacheEntry.QUEUE_PROTECTED -> protectedQueue.moveToBack(entry);
+            default -> {
+            }
+        }
+    }
+
+    private void demoteFromProtected() {
+        while (protectedSize > protectedMaximum) {
+            final CacheEntry<K, V> demoted = protectedQueue.first();
+            if (demoted == null) {
+                break;
+            }
+            protectedQueue.remove(demoted);
+            probation.addLast(demoted);
+            demoted.queueType = CacheEntry.QUEUE_PROBATION;
+            protectedSize--;
+        }
+    }
+
+    private void evictEntries() {
+        final CacheEntry<K, V> candidate = evictFromWindow();
+        evictFromMain(candidate);
+    }
+
+    /**
+     * Moves the entries that overflow the window to the back of probation.
+     *
+     * @return the first entry moved, or null if the window was not over its maximum
+     */
+    private CacheEntry<K, V> evictFromWindow() {
+        CacheEntry<K, V> first = null;
+        while (windowSize > windowMaximum) {
+            final CacheEntry<K, V> entry = window.first();
+            if (entry == null) {
+                break;
+            }
+            window.remove(entry);
+            probation.addLast(entry);
+            entry.queueType = CacheEntry.QUEUE_PROBATION;
+            windowSize--;
+            if (first == null) {
+                first = entry;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Evicts from the main space until the cache is within its maximum, letting each candidate that left the
+     * window compete with the probation victim.
+     *
+     * @param candidate the first candidate, whose successors in probation are the other candidates
+     */
+    private void evictFromMain(CacheEntry<K, V> candidate) {
+        while (size > maximum) {
+            CacheEntry<K, V> victim = probation.first();
+            if (victim == null || victim == candidate || candidate == null) {
+                if (victim == null) {
+                    victim = protectedQueue.first() != null ? protectedQueue.first() : window.first();
+                }
+                if (victim == null) {
+                    return;
+                }
+                if (victim == candidate) {
+                    candidate = candidate.policyNext;
+                }
+                evict(victim);
+                continue;
+            }
+            if (admit(candidate.key, victim.key)) {
+                evict(victim);
+            } else {
+                final CacheEntry<K, V> next = candidate.policyNext;
+                evict(candidate);
+                candidate = next;
+            }
+        }
+    }
+
+    /**
+     * Determines if the candidate should be accepted into the main space, as determined by its frequency
+     * relative to the victim. A small amount of randomness is used to protect against hash flooding attacks,
+     * where the victim's frequency is artificially raised so that no new entries are admitted.
+     */
+    private boolean admit(K candidateKey, K victimKey) {
+        final int victimFreq = sketch.frequency(victimKey);
+        final int candidateFreq = sketch.frequency(candidateKey);
+        if (candidateFreq > victimFreq) {
+            return true;
+        } else if (candidateFreq < ADMIT_HASHDOS_THRESHOLD) {
+            return false;
+        }
+        return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+    }
+
+    private void evict(CacheEntry<K, V> entry) {
+        unlink(entry);
+        evictionListener.accept(entry);
+    }
+
+    private void unlink(CacheEntry<K, V> entry) {
+        switch (entry.queueType) {
+            case CacheEntry.QUEUE_WINDOW -> {
+                window.remove(entry);
+                windowSize--;
+            }
+            case CacheEntry.QUEUE_PROBATION -> probation.remove(entry);
+            case CacheEntry.QUEUE_PROTECTED -> {
+                protectedQueue.remove(entry);
+                protectedSize--;
+            }
+            default -> {
+                return;
+            }
+        }
+        entry.queueType = CacheEntry.QUEUE_NONE;
+        size--;
+    }
+
+    private AccessOrderQueue<K, V> queueOf(CacheEntry<K, V> entry) {
+        return switch (entry.queueType) {
+            case CacheEntry.QUEUE_WINDOW -> window;
+            case CacheEntry.QUEUE_PROBATION -> probation;
+            default -> protectedQueue;
+        };
+    }
+
+    /**
+     * A doubly linked list threaded through {@link CacheEntry#policyPrev} and {@link CacheEntry#policyNext},
+     * ordered from least to most recently used.
+     */
+    private static final class AccessOrderQueue<K, V> {
+        private CacheEntry<K, V> head;
+        private CacheEntry<K, V> tail;
+
+        CacheEntry<K, V> first() {
+            return head;
+        }
+
+        void addLast(CacheEntry<K, V> entry) {
+            entry.policyNext = null;
+            entry.policyPrev = tail;
+            if (tail == null) {
+                head = entry;
+            } else {
+                tail.policyNext = entry;
+            }
+            tail = entry;
+        }
+
+        void remove(CacheEntry<K, V> entry) {
+            final CacheEntry<K, V> prev = entry.policyPrev;
+            final CacheEntry<K, V> next = entry.policyNext;
+            if (prev == null) {
+                head = next;
+            } else {
+                prev.policyNext = next;
+            }
+            if (next == null) {
+                tail = prev;
+            } else {
+                next.policyPrev = prev;
+            }
+            entry.policyPrev = null;
+            entry.policyNext = null;
+        }
+
+        void moveToBack(CacheEntry<K, V> entry) {
+            if (entry != tail) {
+                remove(entry);
+                addLast(entry);
+            }
+        }
+
+        void replace(CacheEntry<K, V> oldEntry, CacheEntry<K, V> newEntry) {
+            final CacheEntry<K, V> prev = oldEntry.policyPrev;
+            final CacheEntry<K, V> next = oldEntry.policyNext;
+            newEntry.policyPrev = prev;
+            newEntry.policyNext = next;
+            if (prev == null) {
+                head = newEntry;
+            } else {
+                prev.policyNext = newEntry;
+            }
+            if (next == null) {
+                tail = newEntry;
+            } else {
+                next.policyPrev = newEntry;
+            }
+            oldEntry.policyPrev = null;
+            oldEntry.policyNext = null;
+        }
+
+        void clear() {
+            CacheEntry<K, V> entry = head;
+            while (entry != null) {
+                final CacheEntry<K, V> next = entry.policyNext;
+                entry.policyPrev = null;
+                entry.policyNext = null;
+                entry.queueType = CacheEntry.QUEUE_NONE;
+                entry = next;
+            }
+            head = null;
+            tail = null;
+        }
+    }
+}
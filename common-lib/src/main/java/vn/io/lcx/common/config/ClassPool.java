@@ -9,9 +9,11 @@ import vn.io.lcx.common.annotation.DependsOn;
 import vn.io.lcx.common.annotation.Instance;
 import vn.io.lcx.common.annotation.PostConstruct;
 import vn.io.lcx.common.annotation.Qualifier;
+import vn.io.lcx.common.annotation.Scheduled;
 import vn.io.lcx.common.annotation.TableName;
 import vn.io.lcx.common.annotation.Verticle;
 import vn.io.lcx.common.constant.CommonConstant;
+import vn.io.lcx.common.cron.CronScheduler;
 import vn.io.lcx.common.database.utils.EntityUtils;
 import vn.io.lcx.common.exception.DuplicateInstancesException;
 import vn.io.lcx.common.scanner.PackageScanner;
@@ -62,6 +64,8 @@ import static vn.io.lcx.common.utils.FileUtils.createFolderIfNotExists;
  *       whose parameters were not yet available.</li>
  *   <li><b>Error reporting</b> - throws {@link ExceptionInInitializerError} if any component
  *       or {@code @Instance} method remains unresolved.</li>
+ *   <li><b>Scheduling</b> - hands {@link Scheduled @Scheduled} methods to the default
+ *       {@link CronScheduler}.</li>
  * </ol>
  *
  * <h3>Instance registration:</h3>
@@ -90,8 +94,11 @@ public class ClassPool {
 
     private record DeferredInstanceMethod(Object componentInstance, Method method) {}
 
+    private record ScheduledMethod(Class<?> componentClass, Object componentInstance, Method method) {}
+
     private static final List<Class<?>> ENTITIES = new ArrayList<>();
     private static final ConcurrentHashMap<String, Object> CLASS_POOL = new ConcurrentHashMap<>();
+    private static final List<ScheduledMethod> SCHEDULED_METHODS = new ArrayList<>();
 
     /**
      * Returns an unmodifiable list of all discovered entity classes
@@ -286,6 +293,7 @@ public class ClassPool {
                 message.append("]");
                 throw new ExceptionInInitializerError(message.toString());
             }
+            scheduleAnnotatedMethods();
         } catch (Throwable e) {
             LoggerFactory.getLogger(ClassPool.class).error(e.getMessage(), e);
             System.exit(1);
@@ -333,6 +341,9 @@ public class ClassPool {
                 }
             }
         }
+        Arrays.stream(aClass.getDeclaredMethods())
+                .filter(m -> m.getAnnotation(Scheduled.class) != null)
+                .forEach(m -> SCHEDULED_METHODS.add(new ScheduledMethod(aClass, instance, m)));
         final var postConstructMethods = Arrays
                 .stream(aClass.getDeclaredMethods())
                 .filter(m -> m.getAnnotation(PostConstruct.class) != null)
@@ -372,6 +383,27 @@ public class ClassPool {
         }
     }
 
+    /**
+     * Hands the {@link Scheduled @Scheduled} methods of the components over to the default {@link CronScheduler},
+     * once every component exists. A method is invoked on the registered instance of its class, which is the proxy
+     * when the class has one.
+     */
+    private static void scheduleAnnotatedMethods() {
+        if (SCHEDULED_METHODS.isEmpty()) {
+            return;
+        }
+        final var scheduler = CronScheduler.defaultScheduler();
+        for (ScheduledMethod scheduledMethod : SCHEDULED_METHODS) {
+            final var registeredInstance = CLASS_POOL.get(scheduledMethod.componentClass().getName());
+            final var target = scheduledMethod.componentClass().isInstance(registeredInstance)
+                    ? registeredInstance
+                    : scheduledMethod.componentInstance();
+            scheduler.schedule(target, scheduledMethod.method());
+        }
+        SCHEDULED_METHODS.clear();
+        setInstance(scheduler);
+    }
+
     /**
      * Retrieves a registered instance by name.
      *
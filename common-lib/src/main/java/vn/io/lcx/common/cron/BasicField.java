@@ -110,21 +110,4 @@ public class BasicField {
     protected boolean matches(int val, FieldPart part) {
         return val >= part.getFrom() && val <= part.getTo() && (val - part.getFrom()) % part.getIncrement() == 0;
     }
-
-    protected int nextMatch(int val, FieldPart part) {
-        if (val > part.getTo()) {
-            return -1;
-        }
-        int nextPotential = Math.max(val, part.getFrom());
-        if (part.getIncrement() == 1 || nextPotential == part.getFrom()) {
-            return nextPotential;
-        }
-
-        int remainder = ((nextPotential - part.getFrom()) % part.getIncrement());
-        if (remainder != 0) {
-            nextPotential += part.getIncrement() - remainder;
-        }
-
-        return nextPotential <= part.getTo() ? nextPotential : -1;
-    }
 }
@@ -1,9 +1,14 @@
 package vn.io.lcx.common.cron;
 
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 public class CronExpression {
     private final String expr;
@@ -13,6 +18,10 @@ public class CronExpression {
     private final DayOfWeekField dayOfWeekField;
     private final SimpleField monthField;
     private final DayOfMonthField dayOfMonthField;
+    /**
+     * Bit {@code d} is set when day {@code d} matches, indexed by month length (28 to 31) and first day of week
+     */
+    private final int[] dayMasks;
 
     public CronExpression(final String expr) {
         this(expr, true);
@@ -38,6 +47,15 @@ public class CronExpression {
         this.dayOfMonthField = new DayOfMonthField(parts[ix++]);
         this.monthField = new SimpleField(CronFieldType.MONTH, parts[ix++]);
         this.dayOfWeekField = new DayOfWeekField(parts[ix++]);
+
+        // which days match depends only on the length of the month and the day of week it starts on
+        this.dayMasks = new int[4 * 7];
+        for (int lengthOfMonth = 28; lengthOfMonth <= 31; lengthOfMonth++) {
+            for (int firstDayOfWeek = 1; firstDayOfWeek <= 7; firstDayOfWeek++) {
+                dayMasks[(lengthOfMonth - 28) * 7 + firstDayOfWeek - 1] =
+                        dayOfMonthField.mask(lengthOfMonth, firstDayOfWeek) & dayOfWeekField.mask(lengthOfMonth, firstDayOfWeek);
+            }
+        }
     }
 
     public static CronExpression create(final String expr) {
@@ -50,10 +68,14 @@ public class CronExpression {
 
     private static void checkIfDateTimeBarrierIsReached(ZonedDateTime nextTime, ZonedDateTime dateTimeBarrier) {
         if (nextTime.isAfter(dateTimeBarrier)) {
-            throw new IllegalArgumentException("No next execution time could be determined that is before the limit of " + dateTimeBarrier);
+            throw barrierReached(dateTimeBarrier);
         }
     }
 
+    private static IllegalArgumentException barrierReached(ZonedDateTime dateTimeBarrier) {
+        return new IllegalArgumentException("No next execution time could be determined that is before the limit of " + dateTimeBarrier);
+    }
+
     public ZonedDateTime nextTimeAfter(ZonedDateTime afterTime) {
         // will search for the next time within the next 4 years. If there is no
         // time matching, an InvalidArgumentException will be thrown (it is very
@@ -73,53 +95,148 @@ public class CronExpression {
     }
 
     public ZonedDateTime nextTimeAfter(ZonedDateTime afterTime, ZonedDateTime dateTimeBarrier) {
-        ZonedDateTime[] nextDateTime = {afterTime.plusSeconds(1).withNano(0)};
+        final ZoneId zone = afterTime.getZone();
+        final LocalDateTime barrier = dateTimeBarrier.withZoneSameInstant(zone).toLocalDateTime();
+        LocalDateTime from = afterTime.toLocalDateTime().plusSeconds(1).withNano(0);
 
         while (true) {
-            checkIfDateTimeBarrierIsReached(nextDateTime[0], dateTimeBarrier);
-            if (!monthField.nextMatch(nextDateTime)) {
+            final LocalDateTime next = nextLocalMatch(from, barrier, dateTimeBarrier);
+            // a time in a DST gap is moved forward by the length of the gap; in an overlap the offset of afterTime is
+            // kept when valid, so that a wall-clock time is fired once and the result is never before afterTime
+            final ZonedDateTime nextTime = ZonedDateTime.ofLocal(next, zone, afterTime.getOffset());
+            if (nextTime.isAfter(afterTime)) {
+                checkIfDateTimeBarrierIsReached(nextTime, dateTimeBarrier);
+                return nextTime;
+            }
+            from = next.plusSeconds(1);
+        }
+    }
+
+    /**
+     * Computes the next {@code count} fire times after {@code afterTime}, each one searched within 4 years of the
+     * previous one.
+     *
+     * @param afterTime the time to start from, excluded
+     * @param count     the number of fire times to compute
+     * @return the fire times in ascending order
+     */
+    public List<ZonedDateTime> nextTimesAfter(ZonedDateTime afterTime, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative");
+        }
+        final List<ZonedDateTime> times = new ArrayList<>(count);
+        ZonedDateTime time = afterTime;
+        for (int i = 0; i < count; i++) {
+            time = nextTimeAfter(time);
+            times.add(time);
+        }
+        return times;
+    }
+
+    /**
+     * Finds the first wall-clock time at or after {@code from} matching every field, jumping straight to the next set
+     * bit of each field and carrying into the next field up when a field has no match left.
+     */
+    private LocalDateTime nextLocalMatch(LocalDateTime from, LocalDateTime barrier, ZonedDateTime dateTimeBarrier) {
+        int year = from.getYear();
+        int month = from.getMonthValue();
+        int day = from.getDayOfMonth();
+        int hour = from.getHour();
+        int minute = from.getMinute();
+        int second = from.getSecond();
+
+        while (true) {
+            if (year > barrier.getYear()) {
+                throw barrierReached(dateTimeBarrier);
+            }
+            final int nextMonth = monthField.nextSetBit(month);
+            if (nextMonth < 0) {
+                year++;
+                month = 1;
+                day = 1;
+                hour = minute = second = 0;
                 continue;
             }
-            if (!findDay(nextDateTime, dateTimeBarrier)) {
+            if (nextMonth != month) {
+                month = nextMonth;
+                day = 1;
+                hour = minute = second = 0;
+            }
+
+            final int lengthOfMonth = Month.of(month).length(Year.isLeap(year));
+            final int days = day > lengthOfMonth ? 0 : dayMask(year, month, lengthOfMonth) & (-1 << day);
+            if (days == 0) {
+                month++;
+                day = 1;
+                hour = minute = second = 0;
+                if (month > 12) {
+                    year++;
+                    month = 1;
+                }
                 continue;
             }
-            if (!hourField.nextMatch(nextDateTime)) {
+            final int nextDay = Integer.numberOfTrailingZeros(days);
+            if (nextDay != day) {
+                day = nextDay;
+                hour = minute = second = 0;
+            }
+
+            final int nextHour = hourField.nextSetBit(hour);
+            if (nextHour < 0) {
+                day++;
+                hour = minute = second = 0;
                 continue;
             }
-            if (!minuteField.nextMatch(nextDateTime)) {
+            if (nextHour != hour) {
+                hour = nextHour;
+                minute = second = 0;
+            }
+
+            final int nextMinute = minuteField.nextSetBit(minute);
+            if (nextMinute < 0) {
+                hour++;
+                minute = second = 0;
+                if (hour > 23) {
+                    day++;
+                    hour = 0;
+                }
                 continue;
             }
-            if (!secondField.nextMatch(nextDateTime)) {
+            if (nextMinute != minute) {
+                minute = nextMinute;
+                second = 0;
+            }
+
+            final int nextSecond = secondField.nextSetBit(second);
+            if (nextSecond < 0) {
+                minute++;
+                second = 0;
+                if (minute > 59) {
+                    hour++;
+                    minute = 0;
+                    if (hour > 23) {
+                        day++;
+                        hour = 0;
+                    }
+                }
                 continue;
             }
 
-            checkIfDateTimeBarrierIsReached(nextDateTime[0], dateTimeBarrier);
-            return nextDateTime[0];
+            final LocalDateTime next = LocalDateTime.of(year, month, day, hour, minute, nextSecond);
+            if (next.isAfter(barrier)) {
+                throw barrierReached(dateTimeBarrier);
+            }
+            return next;
         }
     }
 
     /**
-     * Find the next match for the day field.
-     * <p>
-     * This is handled different than all other fields because there are two ways to describe the day and it is easier
-     * to handle them together in the same method.
-     *
-     * @param dateTime        Initial {@link ZonedDateTime} instance to start from
-     * @param dateTimeBarrier At which point stop searching for next execution time
-     * @return {@code true} if a match was found for this field or {@code false} if the field overflowed
-     * @see {@link SimpleField#nextMatch(ZonedDateTime[])}
+     * The days of a month matching both day fields, taken from the masks precomputed for every month length and
+     * starting day of week.
      */
-    private boolean findDay(ZonedDateTime[] dateTime, ZonedDateTime dateTimeBarrier) {
-        int month = dateTime[0].getMonthValue();
-
-        while (!(dayOfMonthField.matches(dateTime[0].toLocalDate())
-                && dayOfWeekField.matches(dateTime[0].toLocalDate()))) {
-            dateTime[0] = dateTime[0].plusDays(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
-            if (dateTime[0].getMonthValue() != month) {
-                return false;
-            }
-        }
-        return true;
+    private int dayMask(int year, int month, int lengthOfMonth) {
+        final int firstDayOfWeek = LocalDate.of(year, month, 1).getDayOfWeek().getValue();
+        return dayMasks[(lengthOfMonth - 28) * 7 + firstDayOfWeek - 1];
     }
 
     @Override
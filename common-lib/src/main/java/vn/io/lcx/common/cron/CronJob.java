@@ -0,0 +1,146 @@
+package vn.io.lcx.common.cron;
+
+import java.time.ZoneId;
+
+/**
+ * The definition of a job run by a {@link CronScheduler}: what to run, when, and how runs may overlap.
+ *
+ * <pre>{@code
+ * scheduler.schedule(CronJob.builder()
+ *         .name("purge-sessions")
+ *         .cron("0 0 3 * * *")
+ *         .misfire(MisfirePolicy.SKIP)
+ *         .task(sessionStore::purgeExpired)
+ *         .build());
+ * }</pre>
+ */
+public final class CronJob {
+
+    private final String name;
+    private final CronExpression cron;
+    private final ZoneId zone;
+    private final MisfirePolicy misfire;
+    private final boolean allowOverlap;
+    private final boolean singleInstance;
+    private final Runnable task;
+
+    private CronJob(CronJobBuilder builder) {
+        this.name = builder.name;
+        this.cron = builder.cron;
+        this.zone = builder.zone;
+        this.misfire = builder.misfire;
+        this.allowOverlap = builder.allowOverlap;
+        this.singleInstance = builder.singleInstance;
+        this.task = builder.task;
+    }
+
+    public static CronJobBuilder builder() {
+        return new CronJobBuilder();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CronExpression getCron() {
+        return cron;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public MisfirePolicy getMisfire() {
+        return misfire;
+    }
+
+    public boolean isAllowOverlap() {
+        return allowOverlap;
+    }
+
+    public boolean isSingleInstance() {
+        return singleInstance;
+    }
+
+    public Runnable getTask() {
+        return task;
+    }
+
+    public static class CronJobBuilder {
+        private String name;
+        private CronExpression cron;
+        private ZoneId zone = ZoneId.systemDefault();
+        private MisfirePolicy misfire = MisfirePolicy.FIRE_ONCE;
+        private boolean allowOverlap;
+        private boolean singleInstance;
+        private Runnable task;
+
+        /**
+         * Unique name of the job in its scheduler, also the name of its {@link JobLock}
+         */
+        public CronJobBuilder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * Cron expression with seconds, see {@link CronExpression}
+         */
+        public CronJobBuilder cron(String cron) {
+            this.cron = CronExpression.create(cron);
+            return this;
+        }
+
+        public CronJobBuilder cron(CronExpression cron) {
+            this.cron = cron;
+            return this;
+        }
+
+        /**
+         * Time zone the expression is evaluated in, the system default by default
+         */
+        public CronJobBuilder zone(ZoneId zone) {
+            this.zone = zone;
+            return this;
+        }
+
+        /**
+         * {@link MisfirePolicy#FIRE_ONCE} by default
+         */
+        public CronJobBuilder misfire(MisfirePolicy misfire) {
+            this.misfire = misfire;
+            return this;
+        }
+
+        /**
+         * Whether a run may start while the previous one is still going, {@code false} by default
+         */
+        public CronJobBuilder allowOverlap(boolean allowOverlap) {
+            this.allowOverlap = allowOverlap;
+            return this;
+        }
+
+        /**
+         * Whether a run must hold the {@link JobLock} of the scheduler, {@code false} by default
+         */
+        public CronJobBuilder singleInstance(boolean singleInstance) {
+            this.singleInstance = singleInstance;
+            return this;
+        }
+
+        public CronJobBuilder task(Runnable task) {
+            this.task = task;
+            return this;
+        }
+
+        public CronJob build() {
+            if (name == null || name.isBlank()) {
+                throw new IllegalArgumentException("Job name cannot be blank");
+            }
+            if (cron == null || zone == null || misfire == null || task == null) {
+                throw new IllegalArgumentException("Cron expression, zone, misfire policy and task are required");
+            }
+            return new CronJob(this);
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package vn.io.lcx.common.cron;
+
+import vn.io.lcx.common.annotation.Scheduled;
+import vn.io.lcx.common.constant.CommonConstant;
+import vn.io.lcx.common.thread.SimpleExecutor;
+import vn.io.lcx.common.utils.FileUtils;
+import vn.io.lcx.common.utils.LogUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs {@link CronJob}s on their {@link CronExpression} schedules.
+ *
+ * <p>Every job of a scheduler waits in the queue of a single timer thread, ordered by next fire time, so hundreds of
+ * schedules cost one thread. The timer only hands the due jobs over to the executor, by default
+ * {@link SimpleExecutor#sharedExecutor()}, which uses virtual threads when the JVM has them.</p>
+ *
+ * <p>A job does not overlap itself unless it allows it: a fire time reached while the previous run is still going is
+ * a misfire, handled by the {@link MisfirePolicy} of the job. So is a fire time the timer reached later than the
+ * misfire threshold. Single-instance jobs only run while holding their {@link JobLock}, and skip the fire time
+ * otherwise.</p>
+ *
+ * <p>The {@link #defaultScheduler() default scheduler} runs the {@link Scheduled @Scheduled} methods discovered by
+ * the {@link vn.io.lcx.common.config.ClassPool}.</p>
+ *
+ * <pre>{@code
+ * CronScheduler scheduler = CronScheduler.builder().jobLock(JobLock.fileLock("/var/run/app")).build();
+ * scheduler.schedule("cleanup", "0 0 * * * *", cleanupService::run);
+ * }</pre>
+ */
+public final class CronScheduler implements AutoCloseable {
+
+    private static volatile CronScheduler defaultScheduler;
+
+    private final Executor executor;
+    private final JobLock jobLock;
+    private final long misfireThresholdMillis;
+    private final ScheduledThreadPoolExecutor timer;
+    private final ConcurrentMap<String, ScheduledJob> jobs = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    private CronScheduler(CronSchedulerBuilder builder) {
+        this.executor = builder.executor != null ? builder.executor : SimpleExecutor.sharedExecutor();
+        this.jobLock = builder.jobLock;
+        this.misfireThresholdMillis = builder.misfireThreshold.toMillis();
+        final String threadName = builder.name + "-timer";
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    public static CronSchedulerBuilder builder() {
+        return new CronSchedulerBuilder();
+    }
+
+    /**
+     * The scheduler of the {@link Scheduled @Scheduled} methods, created on first use. Its job lock is a
+     * {@link JobLock#fileLock file lock} in the {@code data/lock} folder of the project, created when a
+     * single-instance job first runs.
+     */
+    public static CronScheduler defaultScheduler() {
+        CronScheduler scheduler = defaultScheduler;
+        if (scheduler == null) {
+            synchronized (CronScheduler.class) {
+                scheduler = defaultScheduler;
+                if (scheduler == null) {
+                    final String folderPath = FileUtils.pathJoining(CommonConstant.ROOT_DIRECTORY_PROJECT_PATH, "data", "lock");
+                    scheduler = builder()
+                            .name("lcx-cron")
+                            .jobLock(JobLock.fileLock(folderPath))
+                            .build();
+                    defaultScheduler = scheduler;
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * Schedules a job with the default options.
+     */
+    public ScheduledJob schedule(String name, String cron, Runnable task) {
+        return schedule(CronJob.builder().name(name).cron(cron).task(task).build());
+    }
+
+    /**
+     * Schedules a job from its next fire time on.
+     *
+     * @return the handle of the job, already cancelled if its expression has no fire time within 4 years
+     * @throws IllegalArgumentException if a job with the same name is already scheduled
+     */
+    public ScheduledJob schedule(CronJob job) {
+        if (closed) {
+            throw new IllegalStateException("Scheduler is closed");
+        }
+        if (job.isSingleInstance() && jobLock == null) {
+            throw new IllegalArgumentException("Job " + job.getName() + " is single-instance but the scheduler has no job lock");
+        }
+        final ScheduledJob scheduledJob = new ScheduledJob(job);
+        if (jobs.putIfAbsent(job.getName(), scheduledJob) != null) {
+            throw new IllegalArgumentException("A job named " + job.getName() + " is already scheduled");
+        }
+        if (arm(scheduledJob, ZonedDateTime.now(job.getZone()))) {
+            LogUtils.writeLog(CronScheduler.class, LogUtils.Level.INFO,
+                    "Scheduled job {} with {}, next run at {}", job.getName(), job.getCron(), scheduledJob.nextFireTime);
+        }
+        return scheduledJob;
+    }
+
+    /**
+     * Schedules a method annotated with {@link Scheduled @Scheduled}.
+     *
+     * @param target the instance the method is invoked on
+     * @param method a method without parameters
+     */
+    public ScheduledJob schedule(Object target, Method method) {
+        final Scheduled scheduled = method.getAnnotation(Scheduled.class);
+        if (scheduled == null) {
+            throw new IllegalArgumentException("Method " + method + " is not annotated with @Scheduled");
+        }
+        if (method.getParameterCount() > 0) {
+            throw new IllegalArgumentException("Scheduled method " + method + " cannot have parameters");
+        }
+        method.setAccessible(true);
+        final String name = scheduled.name().isBlank()
+                ? method.getDeclaringClass().getSimpleName() + "." + method.getName()
+                : scheduled.name();
+        return schedule(CronJob.builder()
+                .name(name)
+                .cron(scheduled.cron())
+                .zone(scheduled.zone().isBlank() ? ZoneId.systemDefault() : ZoneId.of(scheduled.zone()))
+                .misfire(scheduled.misfire())
+                .allowOverlap(scheduled.allowOverlap())
+                .singleInstance(scheduled.singleInstance())
+                .task(() -> invoke(target, method))
+                .build());
+    }
+
+    public Collection<ScheduledJob> getJobs() {
+        return Collections.unmodifiableCollection(new ArrayList<>(jobs.values()));
+    }
+
+    public ScheduledJob getJob(String name) {
+        return jobs.get(name);
+    }
+
+    /**
+     * Cancels every job and stops the timer. Runs already started complete on the executor, which is not shut down.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (ScheduledJob job : jobs.values()) {
+            job.cancel();
+        }
+        timer.shutdownNow();
+        synchronized (CronScheduler.class) {
+            if (defaultScheduler == this) {
+                defaultScheduler = null;
+            }
+        }
+    }
+
+    private static void invoke(Object target, Method method) {
+        try {
+            method.invoke(target);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Queues the next fire of a job after the given time. Fire times between the last fire and {@code after} are
+     * never queued, which coalesces the fire times missed while the timer was late. A job whose expression has no
+     * next fire time, e.g. {@code 0 0 0 30 2 *}, is cancelled.
+     *
+     * @return whether the next fire was queued
+     */
+    private boolean arm(ScheduledJob job, ZonedDateTime after) {
+        final ZonedDateTime next;
+        try {
+            next = job.definition.getCron().nextTimeAfter(after);
+        } catch (RuntimeException e) {
+            LogUtils.writeLog(CronScheduler.class, "Job " + job.definition.getName() + " has no next fire time after " + after + ", cancelled", e, LogUtils.Level.ERROR);
+            job.nextFireTime = null;
+            job.cancel();
+            return false;
+        }
+        job.nextFireTime = next;
+        schedule(job, next);
+        return true;
+    }
+
+    private void schedule(ScheduledJob job, ZonedDateTime fireTime) {
+        if (closed || job.cancelled) {
+            return;
+        }
+        final long delay = Math.max(0, Duration.between(ZonedDateTime.now(fireTime.getZone()), fireTime).toMillis());
+        try {
+            job.timerTask = timer.schedule(() -> fire(job, fireTime), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // closed concurrently
+        }
+    }
+
+    /**
+     * Runs on the timer thread when a fire time is reached.
+     */
+    private void fire(ScheduledJob job, ZonedDateTime fireTime) {
+        if (closed || job.cancelled) {
+            return;
+        }
+        final ZonedDateTime now = ZonedDateTime.now(fireTime.getZone());
+        if (now.isBefore(fireTime)) {
+            // the wall clock moved back since the delay was computed
+            schedule(job, fireTime);
+            return;
+        }
+        arm(job, now);
+        final long lateMillis = Duration.between(fireTime, now).toMillis();
+        if (lateMillis > misfireThresholdMillis && job.definition.getMisfire() == MisfirePolicy.SKIP) {
+            job.misfires.incrementAndGet();
+            LogUtils.writeLog(CronScheduler.class, LogUtils.Level.WARN,
+                    "Job {} fired {} ms late, skipped", job.definition.getName(), lateMillis);
+            return;
+        }
+        dispatch(job);
+    }
+
+    private void dispatch(ScheduledJob job) {
+        synchronized (job) {
+            if (!job.definition.isAllowOverlap() && job.running > 0) {
+                job.misfires.incrementAndGet();
+                if (job.definition.getMisfire() == MisfirePolicy.FIRE_ONCE) {
+                    job.catchUp = true;
+                }
+                LogUtils.writeLog(CronScheduler.class, LogUtils.Level.DEBUG,
+                        "Job {} is still running, fire time {}", job.definition.getName(),
+                        job.catchUp ? "postponed" : "skipped");
+                return;
+            }
+            job.running++;
+        }
+        submit(job);
+    }
+
+    private void submit(ScheduledJob job) {
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            LogUtils.writeLog(CronScheduler.class, "Executor rejected job " + job.definition.getName(), e, LogUtils.Level.ERROR);
+            synchronized (job) {
+                job.running--;
+            }
+        }
+    }
+
+    private void run(ScheduledJob job) {
+        final String name = job.definition.getName();
+        AutoCloseable lease = null;
+        try {
+            if (job.definition.isSingleInstance()) {
+                lease = jobLock.tryAcquire(name);
+                if (lease == null) {
+                    LogUtils.writeLog(CronScheduler.class, LogUtils.Level.DEBUG, "Job {} is running on another instance, skipped", name);
+                    return;
+                }
+            }
+            LogUtils.writeLog(CronScheduler.class, LogUtils.Level.DEBUG, "Running job {}", name);
+            job.definition.getTask().run();
+            job.runs.incrementAndGet();
+        } catch (Throwable e) {
+            job.failures.incrementAndGet();
+            LogUtils.writeLog(CronScheduler.class, "Job " + name + " failed", e, LogUtils.Level.ERROR);
+        } finally {
+            if (lease != null) {
+                try {
+                    lease.close();
+                } catch (Exception e) {
+                    LogUtils.writeLog(CronScheduler.class, "Failed to release the lock of job " + name, e, LogUtils.Level.WARN);
+                }
+            }
+            finish(job);
+        }
+    }
+
+    private void finish(ScheduledJob job) {
+        final boolean again;
+        synchronized (job) {
+            job.running--;
+            again = job.catchUp && !job.cancelled && !closed;
+            job.catchUp = false;
+            if (again) {
+                job.running++;
+            }
+        }
+        if (again) {
+            submit(job);
+        }
+    }
+
+    /**
+     * The handle of a scheduled job
+     */
+    public final class ScheduledJob {
+        private final CronJob definition;
+        private final AtomicLong runs = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong misfires = new AtomicLong();
+        private volatile ZonedDateTime nextFireTime;
+        private volatile ScheduledFuture<?> timerTask;
+        private volatile boolean cancelled;
+        // guarded by this
+        private int running;
+        private boolean catchUp;
+
+        private ScheduledJob(CronJob definition) {
+            this.definition = definition;
+        }
+
+        public CronJob getDefinition() {
+            return definition;
+        }
+
+        public ZonedDateTime getNextFireTime() {
+            return nextFireTime;
+        }
+
+        public synchronized boolean isRunning() {
+            return running > 0;
+        }
+
+        /**
+         * @return the number of runs that completed normally
+         */
+        public long getRuns() {
+            return runs.get();
+        }
+
+        /**
+         * @return the number of runs that threw
+         */
+        public long getFailures() {
+            return failures.get();
+        }
+
+        /**
+         * @return the number of fire times postponed or skipped
+         */
+        public long getMisfires() {
+            return misfires.get();
+        }
+
+        /**
+         * Removes the job from the scheduler. A run already started completes.
+         */
+        public void cancel() {
+            cancelled = true;
+            final ScheduledFuture<?> task = timerTask;
+            if (task != null) {
+                task.cancel(false);
+            }
+            jobs.remove(definition.getName(), this);
+        }
+    }
+
+    public static class CronSchedulerBuilder {
+        private String name = "lcx-cron-scheduler";
+        private Executor executor;
+        private JobLock jobLock;
+        private Duration misfireThreshold = Duration.ofSeconds(1);
+
+        /**
+         * Prefix of the timer thread name
+         */
+        public CronSchedulerBuilder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * Runs the jobs, {@link SimpleExecutor#sharedExecutor()} by default. It is not shut down by the scheduler.
+         */
+        public CronSchedulerBuilder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Lock of the single-instance jobs, none by default
+         */
+        public CronSchedulerBuilder jobLock(JobLock jobLock) {
+            this.jobLock = jobLock;
+            return this;
+        }
+
+        /**
+         * How late the timer may fire before the fire time counts as missed, 1 second by default
+         */
+        public CronSchedulerBuilder misfireThreshold(Duration misfireThreshold) {
+            this.misfireThreshold = misfireThreshold;
+            return this;
+        }
+
+        public CronScheduler build() {
+            if (name == null || name.isBlank()) {
+                throw new IllegalArgumentException("Name cannot be blank");
+            }
+            if (misfireThreshold == null || misfireThreshold.isNegative()) {
+                throw new IllegalArgumentException("Misfire threshold cannot be negative");
+            }
+            return new CronScheduler(this);
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package vn.io.lcx.common.cron;
 
-import java.time.LocalDate;
-import java.time.YearMonth;
 import java.util.Arrays;
 
 @SuppressWarnings("ListIndexOfReplaceableByContains")
@@ -10,22 +8,42 @@ public class DayOfMonthField extends BasicField {
         super(CronFieldType.DAY_OF_MONTH, fieldExpr);
     }
 
-    boolean matches(LocalDate dato) {
+    /**
+     * @param lengthOfMonth  number of days of the month
+     * @param firstDayOfWeek day of week of the first day of the month, 1 for Monday
+     * @return a mask whose bit {@code d} is set when day {@code d} of such a month matches
+     */
+    int mask(int lengthOfMonth, int firstDayOfWeek) {
+        int mask = 0;
+        for (int day = 1; day <= lengthOfMonth; day++) {
+            if (matches(day, (firstDayOfWeek + day - 2) % 7 + 1, lengthOfMonth)) {
+                mask |= 1 << day;
+            }
+        }
+        return mask;
+    }
+
+    private boolean matches(int day, int dayOfWeek, int lengthOfMonth) {
         for (FieldPart part : parts) {
             if ("L".equals(part.getModifier())) {
-                YearMonth ym = YearMonth.of(dato.getYear(), dato.getMonth().getValue());
-                return dato.getDayOfMonth() == (ym.lengthOfMonth() - (part.getFrom() == -1 ? 0 : part.getFrom()));
+                if (day == lengthOfMonth - (part.getFrom() == -1 ? 0 : part.getFrom())) {
+                    return true;
+                }
             } else if ("W".equals(part.getModifier())) {
-                if (dato.getDayOfWeek().getValue() <= 5) {
-                    if (dato.getDayOfMonth() == part.getFrom()) {
+                if (dayOfWeek <= 5) {
+                    if (day == part.getFrom()) {
                         return true;
-                    } else if (dato.getDayOfWeek().getValue() == 5) {
-                        return dato.plusDays(1).getDayOfMonth() == part.getFrom();
-                    } else if (dato.getDayOfWeek().getValue() == 1) {
-                        return dato.minusDays(1).getDayOfMonth() == part.getFrom();
+                    } else if (dayOfWeek == 5 && day < lengthOfMonth) {
+                        if (day + 1 == part.getFrom()) {
+                            return true;
+                        }
+                    } else if (dayOfWeek == 1 && day > 1) {
+                        if (day - 1 == part.getFrom()) {
+                            return true;
+                        }
                     }
                 }
-            } else if (matches(dato.getDayOfMonth(), part)) {
+            } else if (matches(day, part)) {
                 return true;
             }
         }
@@ -1,8 +1,5 @@
 package vn.io.lcx.common.cron;
 
-import java.time.DayOfWeek;
-import java.time.LocalDate;
-import java.time.YearMonth;
 import java.util.Arrays;
 
 @SuppressWarnings("ListIndexOfReplaceableByContains")
@@ -12,18 +9,32 @@ public class DayOfWeekField extends BasicField {
         super(CronFieldType.DAY_OF_WEEK, fieldExpr);
     }
 
-    boolean matches(LocalDate dato) {
+    /**
+     * @param lengthOfMonth  number of days of the month
+     * @param firstDayOfWeek day of week of the first day of the month, 1 for Monday
+     * @return a mask whose bit {@code d} is set when day {@code d} of such a month matches
+     */
+    int mask(int lengthOfMonth, int firstDayOfWeek) {
+        int mask = 0;
+        for (int day = 1; day <= lengthOfMonth; day++) {
+            if (matches(day, (firstDayOfWeek + day - 2) % 7 + 1, lengthOfMonth)) {
+                mask |= 1 << day;
+            }
+        }
+        return mask;
+    }
+
+    private boolean matches(int day, int dayOfWeek, int lengthOfMonth) {
         for (FieldPart part : parts) {
             if ("L".equals(part.getModifier())) {
-                YearMonth ym = YearMonth.of(dato.getYear(), dato.getMonth().getValue());
-                return dato.getDayOfWeek() == DayOfWeek.of(part.getFrom()) && dato.getDayOfMonth() > (ym.lengthOfMonth() - 7);
+                if (dayOfWeek == part.getFrom() && day > lengthOfMonth - 7) {
+                    return true;
+                }
             } else if ("#".equals(part.getIncrementModifier())) {
-                if (dato.getDayOfWeek() == DayOfWeek.of(part.getFrom())) {
-                    int num = dato.getDayOfMonth() / 7;
-                    return part.getIncrement() == (dato.getDayOfMonth() % 7 == 0 ? num : num + 1);
+                if (dayOfWeek == part.getFrom() && (day - 1) / 7 + 1 == part.getIncrement()) {
+                    return true;
                 }
-                return false;
-            } else if (matches(dato.getDayOfWeek().getValue(), part)) {
+            } else if (matches(dayOfWeek, part)) {
                 return true;
             }
         }
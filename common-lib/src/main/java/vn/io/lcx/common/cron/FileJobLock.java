@@ -0,0 +1,36 @@
+package vn.io.lcx.common.cron;
+
+import vn.io.lcx.common.lock.LockTable;
+
+/**
+ * The {@link JobLock#fileLock file lock} of single-instance jobs. Its directory and {@link LockTable} are only created
+ * on the first lock attempt, so a scheduler without single-instance jobs never touches the file system.
+ */
+final class FileJobLock implements JobLock {
+
+    private final String lockDirectory;
+    private volatile LockTable table;
+
+    FileJobLock(String lockDirectory) {
+        this.lockDirectory = lockDirectory;
+    }
+
+    @Override
+    public AutoCloseable tryAcquire(String jobName) {
+        return table().tryLock(jobName, LockTable.Mode.EXCLUSIVE);
+    }
+
+    private LockTable table() {
+        LockTable current = table;
+        if (current == null) {
+            synchronized (this) {
+                current = table;
+                if (current == null) {
+                    current = new LockTable(lockDirectory, "cron-scheduler");
+                    table = current;
+                }
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,27 @@
+package vn.io.lcx.common.cron;
+
+import vn.io.lcx.common.lock.LockTable;
+
+/**
+ * Guards the runs of single-instance jobs of a {@link CronScheduler}, so that only one instance of the application
+ * runs a job at a time. Implement it over a shared store, such as a database or Redis, for instances on several hosts.
+ */
+@FunctionalInterface
+public interface JobLock {
+
+    /**
+     * Tries to take the lock of a job without waiting. Called and released on the thread running the job.
+     *
+     * @param jobName the name of the job
+     * @return a handle releasing the lock when closed, or {@code null} if another instance holds it
+     */
+    AutoCloseable tryAcquire(String jobName) throws Exception;
+
+    /**
+     * A lock shared by the processes of one host, backed by a {@link LockTable} in the given directory. The directory
+     * and the lock file are created on the first lock attempt.
+     */
+    static JobLock fileLock(String lockDirectory) {
+        return new FileJobLock(lockDirectory);
+    }
+}
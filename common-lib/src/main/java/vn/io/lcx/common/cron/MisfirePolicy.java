@@ -0,0 +1,17 @@
+package vn.io.lcx.common.cron;
+
+/**
+ * What a {@link CronScheduler} does with a fire time it missed, either because the previous run of the job was still
+ * going, or because the scheduler fired later than the misfire threshold (e.g. after a long GC pause or a suspended
+ * host).
+ */
+public enum MisfirePolicy {
+    /**
+     * Run the job once as soon as possible, however many fire times were missed
+     */
+    FIRE_ONCE,
+    /**
+     * Drop the missed fire times and wait for the next one
+     */
+    SKIP
+}
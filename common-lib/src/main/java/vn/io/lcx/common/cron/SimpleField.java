@@ -1,44 +1,41 @@
 package vn.io.lcx.common.cron;
 
-import java.time.ZonedDateTime;
-
 public class SimpleField extends BasicField {
+    /**
+     * Bit {@code v} is set when value {@code v} matches, compiled once so that the next match is a bit scan
+     */
+    private final long bits;
+
     SimpleField(CronFieldType fieldType, String fieldExpr) {
         super(fieldType, fieldExpr);
-    }
-
-    public boolean matches(int val) {
-        if (val >= fieldType.from && val <= fieldType.to) {
-            for (FieldPart part : parts) {
-                if (matches(val, part)) {
-                    return true;
-                }
+        long matching = 0;
+        for (int value = fieldType.from; value <= fieldType.to; value++) {
+            if (matches(value)) {
+                matching |= 1L << value;
             }
         }
-        return false;
+        this.bits = matching;
     }
 
     /**
-     * Find the next match for this field. If a match cannot be found force an overflow and increase the next
-     * greatest field.
-     *
-     * @param dateTime {@link ZonedDateTime} array so the reference can be modified
-     * @return {@code true} if a match was found for this field or {@code false} if the field overflowed
+     * @return the smallest matching value greater than or equal to {@code value}, or -1 if there is none
      */
-    protected boolean nextMatch(ZonedDateTime[] dateTime) {
-        int value = fieldType.getValue(dateTime[0]);
+    int nextSetBit(int value) {
+        if (value > fieldType.to) {
+            return -1;
+        }
+        final long candidates = bits & (-1L << value);
+        return candidates == 0 ? -1 : Long.numberOfTrailingZeros(candidates);
+    }
 
-        for (FieldPart part : parts) {
-            int nextMatch = nextMatch(value, part);
-            if (nextMatch > -1) {
-                if (nextMatch != value) {
-                    dateTime[0] = fieldType.setValue(dateTime[0], nextMatch);
+    public boolean matches(int val) {
+        if (val >= fieldType.from && val <= fieldType.to) {
+            for (FieldPart part : parts) {
+                if (matches(val, part)) {
+                    return true;
                 }
-                return true;
             }
         }
-
-        dateTime[0] = fieldType.overflow(dateTime[0]);
         return false;
     }
 }
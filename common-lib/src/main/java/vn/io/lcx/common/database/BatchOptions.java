@@ -0,0 +1,136 @@
+package vn.io.lcx.common.database;
+
+/**
+ * How {@link DatabaseExecutor#executeMutationBatch(java.sql.Connection, String, Iterable,
+ * java.util.function.BiConsumer, BatchOptions)} splits a large batch.
+ *
+ * <p>The rows are sent in chunks of {@link BatchOptionsBuilder#chunkSize(int)} rows, each one an
+ * {@code executeBatch} call, so that neither the driver nor the database holds the whole batch at once. A plain
+ * {@code INSERT ... VALUES (?, ...)} is also rewritten into multi-row {@code VALUES} when the driver does not
+ * already do it itself (MySQL without {@code rewriteBatchedStatements=true}, PostgreSQL without
+ * {@code reWriteBatchedInserts=true}, SQL Server, H2), which turns a round trip per row into one per few hundred
+ * rows.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * BatchResult result = executor.executeMutationBatch(connection, sql, orders, orderMapping::insertJDBCParams,
+ *         BatchOptions.builder()
+ *                 .chunkSize(5000)
+ *                 .commitPerChunk(true)
+ *                 .failureMode(BatchOptions.FailureMode.SKIP)
+ *                 .build());
+ * }</pre>
+ */
+public final class BatchOptions {
+
+    public static final BatchOptions DEFAULT = builder().build();
+
+    private final int chunkSize;
+    private final boolean commitPerChunk;
+    private final boolean rewriteValues;
+    private final FailureMode failureMode;
+
+    private BatchOptions(BatchOptionsBuilder builder) {
+        this.chunkSize = builder.chunkSize;
+        this.commitPerChunk = builder.commitPerChunk;
+        this.rewriteValues = builder.rewriteValues;
+        this.failureMode = builder.failureMode;
+    }
+
+    public static BatchOptionsBuilder builder() {
+        return new BatchOptionsBuilder();
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public boolean isCommitPerChunk() {
+        return commitPerChunk;
+    }
+
+    public boolean isRewriteValues() {
+        return rewriteValues;
+    }
+
+    public FailureMode getFailureMode() {
+        return failureMode;
+    }
+
+    /**
+     * What the batch does when a chunk fails
+     */
+    public enum FailureMode {
+        /**
+         * Stop reading the rows and return the result so far
+         */
+        STOP,
+        /**
+         * Record the failure in the result and go on with the next chunks
+         */
+        SKIP
+    }
+
+    public static class BatchOptionsBuilder {
+        private int chunkSize = 1000;
+        private boolean commitPerChunk;
+        private boolean rewriteValues = true;
+        private FailureMode failureMode = FailureMode.STOP;
+
+        public BatchOptionsBuilder() {
+        }
+
+        /**
+         * @param chunkSize the number of rows sent per {@code executeBatch} call, 1000 by default
+         * @return this builder
+         */
+        public BatchOptionsBuilder chunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * @param commitPerChunk whether to commit after every chunk and roll a failed chunk back, false by default.
+         *                       The connection is taken out of auto-commit mode for the batch and restored after,
+         *                       so it must be in auto-commit mode: a connection already in a transaction is
+         *                       rejected with an {@link IllegalArgumentException}, as committing or rolling back a
+         *                       chunk would also commit or discard the statements run before the batch.
+         *                       Without it, the chunks are committed as the connection would commit them.
+         * @return this builder
+         */
+        public BatchOptionsBuilder commitPerChunk(boolean commitPerChunk) {
+            this.commitPerChunk = commitPerChunk;
+            return this;
+        }
+
+        /**
+         * @param rewriteValues whether a single-row {@code INSERT ... VALUES} may be rewritten into multi-row
+         *                      {@code VALUES}, true by default. A failed rewritten chunk cannot tell which of its rows
+         *                      failed, so all of them are reported failed.
+         * @return this builder
+         */
+        public BatchOptionsBuilder rewriteValues(boolean rewriteValues) {
+            this.rewriteValues = rewriteValues;
+            return this;
+        }
+
+        /**
+         * @param failureMode what to do when a chunk fails, {@link FailureMode#STOP} by default
+         * @return this builder
+         */
+        public BatchOptionsBuilder failureMode(FailureMode failureMode) {
+            this.failureMode = failureMode;
+            return this;
+        }
+
+        public BatchOptions build() {
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("Chunk size must be at least 1");
+            }
+            if (failureMode == null) {
+                throw new IllegalArgumentException("Failure mode cannot be null");
+            }
+            return new BatchOptions(this);
+        }
+    }
+}
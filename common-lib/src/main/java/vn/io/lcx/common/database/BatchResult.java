@@ -0,0 +1,212 @@
+package vn.io.lcx.common.database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a batch run in chunks with {@link BatchOptions}, chunk by chunk.
+ */
+public final class BatchResult {
+
+    private final List<ChunkResult> chunks;
+    private final boolean stopped;
+    private final long elapsedMillis;
+
+    BatchResult(List<ChunkResult> chunks, boolean stopped, long elapsedMillis) {
+        this.chunks = Collections.unmodifiableList(chunks);
+        this.stopped = stopped;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<ChunkResult> getChunks() {
+        return chunks;
+    }
+
+    /**
+     * @return whether a chunk failed in {@link BatchOptions.FailureMode#STOP} mode, leaving the rows after it unsent
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * @return whether every row was sent and none failed
+     */
+    public boolean isSuccessful() {
+        return !stopped && getFailedRows() == 0;
+    }
+
+    /**
+     * @return the number of rows sent
+     */
+    public long getRows() {
+        long rows = 0;
+        for (ChunkResult chunk : chunks) {
+            rows += chunk.rows;
+        }
+        return rows;
+    }
+
+    /**
+     * @return the sum of the update counts reported by the driver
+     */
+    public long getUpdateCount() {
+        long count = 0;
+        for (ChunkResult chunk : chunks) {
+            count += chunk.updateCount;
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of rows that failed, or were rolled back with their chunk
+     */
+    public long getFailedRows() {
+        long rows = 0;
+        for (ChunkResult chunk : chunks) {
+            rows += chunk.failedIndices.length;
+        }
+        return rows;
+    }
+
+    /**
+     * @return the indices in the row source of the rows that failed, in order
+     */
+    public long[] getFailedIndices() {
+        final long[] indices = new long[(int) getFailedRows()];
+        int i = 0;
+        for (ChunkResult chunk : chunks) {
+            System.arraycopy(chunk.failedIndices, 0, indices, i, chunk.failedIndices.length);
+            i += chunk.failedIndices.length;
+        }
+        return indices;
+    }
+
+    public List<ChunkResult> getFailedChunks() {
+        final List<ChunkResult> failed = new ArrayList<>();
+        for (ChunkResult chunk : chunks) {
+            if (chunk.error != null) {
+                failed.add(chunk);
+            }
+        }
+        return failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "BatchResult{chunks=%d, rows=%d, updateCount=%d, failedRows=%d, stopped=%s, elapsed=%dms}",
+                chunks.size(), getRows(), getUpdateCount(), getFailedRows(), stopped, elapsedMillis
+        );
+    }
+
+    /**
+     * One {@code executeBatch} call of the batch
+     */
+    public static final class ChunkResult {
+        private final int index;
+        private final long firstRow;
+        private final int rows;
+        private final long updateCount;
+        private final int successNoInfo;
+        private final long[] failedIndices;
+        private final SQLException error;
+        private final boolean committed;
+        private final long elapsedNanos;
+
+        ChunkResult(int index,
+                    long firstRow,
+                    int rows,
+                    long updateCount,
+                    int successNoInfo,
+                    long[] failedIndices,
+                    SQLException error,
+                    boolean committed,
+                    long elapsedNanos) {
+            this.index = index;
+            this.firstRow = firstRow;
+            this.rows = rows;
+            this.updateCount = updateCount;
+            this.successNoInfo = successNoInfo;
+            this.failedIndices = failedIndices;
+            this.error = error;
+            this.committed = committed;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return the index of the chunk, starting from 0
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return the index in the row source of the first row of the chunk
+         */
+        public long getFirstRow() {
+            return firstRow;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        /**
+         * @return the sum of the update counts reported by the driver
+         */
+        public long getUpdateCount() {
+            return updateCount;
+        }
+
+        /**
+         * @return the number of statements that succeeded without an update count
+         * ({@link java.sql.Statement#SUCCESS_NO_INFO})
+         */
+        public int getSuccessNoInfo() {
+            return successNoInfo;
+        }
+
+        /**
+         * @return the indices in the row source of the rows that failed or did not run after a failure; all the rows
+         * of the chunk when it was rolled back, or its failed statement was rewritten into multi-row {@code VALUES}
+         */
+        public long[] getFailedIndices() {
+            return failedIndices.clone();
+        }
+
+        /**
+         * @return the error of the chunk, or {@code null} if it succeeded
+         */
+        public SQLException getError() {
+            return error;
+        }
+
+        /**
+         * @return whether the chunk was committed on its own, with {@link BatchOptions.BatchOptionsBuilder#commitPerChunk}
+         */
+        public boolean isCommitted() {
+            return committed;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "ChunkResult{index=%d, firstRow=%d, rows=%d, updateCount=%d, successNoInfo=%d, failedIndices=%s, committed=%s}",
+                    index, firstRow, rows, updateCount, successNoInfo,
+                    failedIndices.length > 20 ? failedIndices.length + " rows" : Arrays.toString(failedIndices), committed
+            );
+        }
+    }
+}
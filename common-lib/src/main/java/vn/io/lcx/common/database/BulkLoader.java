@@ -0,0 +1,408 @@
+package vn.io.lcx.common.database;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import vn.io.lcx.common.database.context.QueryDeadline;
+import vn.io.lcx.common.database.utils.BulkLoadMethod;
+import vn.io.lcx.common.database.utils.DatabaseStrategyFactory;
+import vn.io.lcx.common.exception.LCXDataSourceException;
+import vn.io.lcx.common.exception.QueryCancelledException;
+import vn.io.lcx.common.utils.LogUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Loads large volumes of rows into one table with the fastest mechanism of the database, as given by its
+ * {@link vn.io.lcx.common.database.utils.DatabaseStrategy#getBulkLoadMethod()}:
+ * <ul>
+ *   <li>PostgreSQL: {@code COPY ... FROM STDIN} through the copy API of the driver, the rows streamed as text.</li>
+ *   <li>MySQL, SQL Server and H2: multi-row {@code INSERT}, see {@link BatchOptions}.</li>
+ *   <li>Oracle: a JDBC batch, which the driver binds as arrays.</li>
+ * </ul>
+ * The rows are read lazily and sent in chunks of {@link BatchOptions#getChunkSize()} rows, so the source can stream
+ * from a file or a query without being held in memory. Each row is bound by a binder filling the values of
+ * {@link BulkLoaderBuilder#columns(String...) the columns} in order.
+ *
+ * <p>With {@link BatchOptions#isCommitPerChunk()} or {@link BatchOptions.FailureMode#SKIP}, the connection must be in
+ * auto-commit mode: committing or rolling back a chunk would also commit or discard the statements the caller ran
+ * before the load, and in PostgreSQL a failed chunk aborts the caller's transaction, failing every chunk after it.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * BatchResult result = BulkLoader.builder()
+ *         .table("ORDERS")
+ *         .columns("ID", "CUSTOMER_ID", "AMOUNT")
+ *         .options(BatchOptions.builder().chunkSize(50_000).commitPerChunk(true).build())
+ *         .build()
+ *         .load(connection, orders, (order, parameters) -> parameters
+ *                 .addLong(order.getId())
+ *                 .addLong(order.getCustomerId())
+ *                 .addBigDecimal(order.getAmount()));
+ * }</pre>
+ */
+public final class BulkLoader {
+
+    /**
+     * Characters of COPY text buffered before they are sent to the server
+     */
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final String table;
+    private final List<String> columns;
+    private final BatchOptions options;
+    private final String insertSql;
+
+    private BulkLoader(BulkLoaderBuilder builder) {
+        this.table = builder.table;
+        this.columns = List.copyOf(builder.columns);
+        this.options = builder.options;
+        final String columnList = String.join(", ", columns);
+        this.insertSql = String.format("INSERT INTO %s (%s) VALUES (%s)",
+                table, columnList, String.join(", ", Collections.nCopies(columns.size(), "?")));
+    }
+
+    public static BulkLoaderBuilder builder() {
+        return new BulkLoaderBuilder();
+    }
+
+    /**
+     * @return the mechanism used to load rows through {@code connection}
+     */
+    public BulkLoadMethod getMethod(Connection connection) {
+        try {
+            final JdbcDriver driver = JdbcDriver.of(connection);
+            if (driver.getDatabaseType() != null) {
+                return DatabaseStrategyFactory.createStrategy(driver.getDatabaseType()).getBulkLoadMethod();
+            }
+            return driver.getMaxParameters() > 0 ? BulkLoadMethod.MULTI_ROW_INSERT : BulkLoadMethod.BATCH;
+        } catch (SQLException e) {
+            throw new LCXDataSourceException(e);
+        }
+    }
+
+    /**
+     * Loads every row of {@code rows}.
+     *
+     * @param binder fills the values of one row, one per column
+     * @throws LCXDataSourceException   if the load cannot start or a chunk cannot be committed or rolled back
+     * @throws QueryCancelledException  if a chunk is cancelled or times out, or for {@code COPY}, the calling thread
+     *                                  is interrupted or its {@link QueryDeadline} passes; the chunks before it are kept
+     * @throws IllegalArgumentException if the options commit per chunk or skip failed chunks and the connection is
+     *                                  already in a transaction
+     */
+    public <R> BatchResult load(Connection connection,
+                                Iterable<? extends R> rows,
+                                BiConsumer<? super R, SqlParameters> binder) {
+        final boolean autoCommit;
+        try {
+            autoCommit = connection.getAutoCommit();
+        } catch (SQLException e) {
+            throw new LCXDataSourceException(e);
+        }
+        if (!autoCommit && (options.isCommitPerChunk() || options.getFailureMode() == BatchOptions.FailureMode.SKIP)) {
+            throw new IllegalArgumentException(String.format(
+                    "Loading %s with commitPerChunk or failure mode SKIP needs a connection in auto-commit mode, "
+                            + "not one already in a transaction", table));
+        }
+        final BulkLoadMethod method = getMethod(connection);
+        if (method == BulkLoadMethod.COPY) {
+            final boolean copySupported;
+            try {
+                copySupported = connection.isWrapperFor(PGConnection.class);
+            } catch (SQLException e) {
+                throw new LCXDataSourceException(e);
+            }
+            if (copySupported) {
+                LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, "Bulk loading into {} with {}", table, method);
+                return this.copy(connection, rows, binder);
+            }
+            LogUtils.writeLog(this.getClass(), LogUtils.Level.WARN,
+                    "Connection does not unwrap to a PostgreSQL connection, loading {} with inserts instead", table);
+        } else {
+            LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, "Bulk loading into {} with {}", table, method);
+        }
+        return DatabaseExecutorImpl.getInstance().executeMutationBatch(connection, insertSql, rows, binder, options);
+    }
+
+    /**
+     * Loads every row of {@code rows}; the stream is not closed.
+     *
+     * @see #load(Connection, Iterable, BiConsumer)
+     */
+    public <R> BatchResult load(Connection connection,
+                                Stream<? extends R> rows,
+                                BiConsumer<? super R, SqlParameters> binder) {
+        return this.load(connection, iterable(rows), binder);
+    }
+
+    private static <T> Iterable<T> iterable(Stream<T> stream) {
+        return stream::iterator;
+    }
+
+    private <R> BatchResult copy(Connection connection,
+                                 Iterable<? extends R> rows,
+                                 BiConsumer<? super R, SqlParameters> binder) {
+        final long startedAt = System.nanoTime();
+        final var run = new CopyRun<R>(connection, binder);
+        try {
+            run.open();
+            for (R row : rows) {
+                if (!run.add(row)) {
+                    break;
+                }
+            }
+            run.finish();
+        } catch (SQLException e) {
+            LogUtils.writeLog(this.getClass(), e.getMessage(), e);
+            throw new LCXDataSourceException(e);
+        } finally {
+            run.close();
+        }
+        final var result = new BatchResult(run.chunks, run.stopped, (System.nanoTime() - startedAt) / 1_000_000L);
+        LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, "Bulk loaded {}, result: {}", table, result);
+        return result;
+    }
+
+    /**
+     * One load through {@code COPY}, one {@code COPY} command per chunk. A {@code COPY} either loads all of its rows
+     * or none of them, so a failed chunk reports all of its rows failed.
+     */
+    private final class CopyRun<R> {
+        private final Connection connection;
+        private final BiConsumer<? super R, SqlParameters> binder;
+        private final SqlParameters parameters = new SqlParameters();
+        private final StringBuilder text = new StringBuilder(COPY_BUFFER_SIZE + 1024);
+        private final List<BatchResult.ChunkResult> chunks = new ArrayList<>();
+        private final String copySql = String.format("COPY %s (%s) FROM STDIN", table, String.join(", ", columns));
+        private CopyManager copyManager;
+        private boolean autoCommitDisabled;
+        private boolean stopped;
+
+        private CopyIn copyIn;
+        private SQLException error;
+        private StatementMetrics.Sample sample;
+        private long chunkStartedAt;
+        private long rowIndex;
+        private int chunkFill;
+
+        private CopyRun(Connection connection, BiConsumer<? super R, SqlParameters> binder) {
+            this.connection = connection;
+            this.binder = binder;
+        }
+
+        private void open() throws SQLException {
+            copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            if (options.isCommitPerChunk()) {
+                connection.setAutoCommit(false);
+                autoCommitDisabled = true;
+            }
+        }
+
+        /**
+         * @return whether to go on with the next row
+         */
+        private boolean add(R row) throws SQLException {
+            parameters.clear();
+            binder.accept(row, parameters);
+            if (parameters.size() != columns.size()) {
+                throw new IllegalArgumentException(String.format(
+                        "Row %d binds %d value(s) but %d column(s) are loaded", rowIndex, parameters.size(), columns.size()));
+            }
+            if (chunkFill == 0) {
+                this.startChunk();
+            }
+            if (error == null) {
+                parameters.appendCopyText(text);
+                if (text.length() >= COPY_BUFFER_SIZE) {
+                    this.write();
+                }
+            }
+            rowIndex++;
+            chunkFill++;
+            if (error != null && options.getFailureMode() == BatchOptions.FailureMode.STOP) {
+                // the load ends with this chunk, the rest of it is not read
+                return this.flush();
+            }
+            // when skipping, the rows of a failed chunk are still read, so that the indices of the next chunks stay right
+            return chunkFill < options.getChunkSize() || this.flush();
+        }
+
+        private void finish() throws SQLException {
+            if (chunkFill > 0) {
+                this.flush();
+            }
+        }
+
+        private void startChunk() {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new QueryCancelledException("Bulk load stopped because the calling thread was interrupted");
+            }
+            if (QueryDeadline.remainingNanos() <= 0) {
+                throw new QueryCancelledException("Bulk load stopped because its deadline passed");
+            }
+            chunkStartedAt = System.nanoTime();
+            sample = StatementMetrics.getInstance().start(copySql, StatementMetrics.StatementType.COPY, null);
+            error = null;
+            try {
+                copyIn = copyManager.copyIn(copySql);
+            } catch (SQLException e) {
+                error = e;
+            }
+        }
+
+        private void write() {
+            try {
+                final byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            } catch (SQLException e) {
+                error = e;
+                this.cancel();
+            }
+            text.setLength(0);
+        }
+
+        /**
+         * Ends the {@code COPY} of the current chunk.
+         *
+         * @return whether to go on with the next chunk
+         */
+        private boolean flush() throws SQLException {
+            final long firstRow = rowIndex - chunkFill;
+            long count = 0;
+            boolean committed = false;
+            if (error == null) {
+                this.write();
+            }
+            if (error == null) {
+                try {
+                    count = copyIn.endCopy();
+                    copyIn = null;
+                    if (options.isCommitPerChunk()) {
+                        connection.commit();
+                        committed = true;
+                    }
+                } catch (SQLException e) {
+                    error = e;
+                    this.cancel();
+                }
+            }
+            if (error != null && options.isCommitPerChunk()) {
+                connection.rollback();
+            }
+            if (error == null) {
+                sample.success(count);
+            }
+            sample.stop();
+            final long[] failed = new long[error == null ? 0 : chunkFill];
+            for (int i = 0; i < failed.length; i++) {
+                failed[i] = firstRow + i;
+            }
+            final var chunk = new BatchResult.ChunkResult(chunks.size(), firstRow, chunkFill, error == null ? count : 0,
+                    0, failed, error, committed, System.nanoTime() - chunkStartedAt);
+            chunks.add(chunk);
+            chunkFill = 0;
+            text.setLength(0);
+            if (error != null) {
+                LogUtils.writeLog(BulkLoader.class, LogUtils.Level.WARN,
+                        "Chunk {} of {} row(s) from row {} failed: {}", chunk.getIndex(), chunk.getRows(), firstRow,
+                        error.getMessage());
+                stopped = options.getFailureMode() == BatchOptions.FailureMode.STOP;
+                return !stopped;
+            }
+            LogUtils.writeLog(BulkLoader.class, LogUtils.Level.DEBUG,
+                    "Copied chunk {} of {} row(s) in {} ms", chunk.getIndex(), chunk.getRows(),
+                    chunk.getElapsedNanos() / 1_000_000L);
+            return true;
+        }
+
+        private void cancel() {
+            if (copyIn == null) {
+                return;
+            }
+            try {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            } catch (SQLException e) {
+                LogUtils.writeLog(BulkLoader.class, "Cannot cancel copy", e, LogUtils.Level.WARN);
+            }
+            copyIn = null;
+        }
+
+        private void close() {
+            this.cancel();
+            if (autoCommitDisabled) {
+                try {
+                    // rows of a chunk interrupted by an exception are not committed
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                } catch (SQLException e) {
+                    LogUtils.writeLog(BulkLoader.class, "Cannot restore auto-commit mode of connection", e);
+                }
+            }
+        }
+    }
+
+    public static class BulkLoaderBuilder {
+        private String table;
+        private List<String> columns = List.of();
+        private BatchOptions options = BatchOptions.builder().chunkSize(10_000).build();
+
+        public BulkLoaderBuilder() {
+        }
+
+        /**
+         * @param table the table to load, as written in SQL
+         * @return this builder
+         */
+        public BulkLoaderBuilder table(String table) {
+            this.table = table;
+            return this;
+        }
+
+        /**
+         * @param columns the columns to load, in the order the binder fills their values
+         * @return this builder
+         */
+        public BulkLoaderBuilder columns(String... columns) {
+            this.columns = Arrays.asList(columns);
+            return this;
+        }
+
+        public BulkLoaderBuilder columns(List<String> columns) {
+            this.columns = columns;
+            return this;
+        }
+
+        /**
+         * @param options the chunking of the load, chunks of 10000 rows stopping at the first failure by default
+         * @return this builder
+         */
+        public BulkLoaderBuilder options(BatchOptions options) {
+            this.options = options;
+            return this;
+        }
+
+        public BulkLoader build() {
+            if (table == null || table.isBlank()) {
+                throw new IllegalArgumentException("Table cannot be empty");
+            }
+            if (columns == null || columns.isEmpty()) {
+                throw new IllegalArgumentException("Columns cannot be empty");
+            }
+            if (options == null) {
+                throw new IllegalArgumentException("Options cannot be null");
+            }
+            return new BulkLoader(this);
+        }
+    }
+}
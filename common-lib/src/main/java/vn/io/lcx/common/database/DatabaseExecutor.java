@@ -6,18 +6,60 @@ import vn.io.lcx.common.database.type.PostgresTypeEnum;
 import java.sql.Connection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface DatabaseExecutor {
 
     String SUCCESS_KEY_NAME = "success";
     String SUCCESS_BUT_NO_INFO_KEY_NAME = "success.but.no.info";
     String FAILED_KEY_NAME = "failed";
+    /**
+     * Number of rows fetched per round trip by the streaming queries when no fetch size is given
+     */
+    int DEFAULT_FETCH_SIZE = 1000;
 
     <T> List<T> executeQuery(Connection connection,
                              String sqlString,
                              Map<Integer, Object> parameter,
                              ResultSetHandler<T> handler);
 
+    /**
+     * Runs a query and hands every row to {@code consumer} as soon as it is read, so that the result is never held
+     * in memory as a whole. Unlike {@link #executeQuery(Connection, String, Map, ResultSetHandler)}, no
+     * {@code FOR UPDATE} is appended in a transaction.
+     *
+     * @param fetchSize number of rows fetched per round trip
+     * @return the number of rows read
+     * @throws vn.io.lcx.common.exception.LCXDataSourceException if the query or the reading of a row fails
+     */
+    <T> long executeQuery(Connection connection,
+                          String sqlString,
+                          Map<Integer, Object> parameter,
+                          ResultSetHandler<T> handler,
+                          int fetchSize,
+                          Consumer<? super T> consumer);
+
+    /**
+     * Runs a query and returns its rows as a lazy stream, read from the database as the stream is consumed. The
+     * stream holds the statement open until it is closed, so use it in a try-with-resources block:
+     *
+     * <pre>{@code
+     * try (Stream<Order> orders = executor.streamQuery(connection, sql, parameters, Order::fromRow, 500)) {
+     *     orders.forEach(csvWriter::write);
+     * }
+     * }</pre>
+     *
+     * @param fetchSize number of rows fetched per round trip
+     * @throws vn.io.lcx.common.exception.LCXDataSourceException if the query or the reading of a row fails
+     */
+    <T> Stream<T> streamQuery(Connection connection,
+                              String sqlString,
+                              Map<Integer, Object> parameter,
+                              ResultSetHandler<T> handler,
+                              int fetchSize);
+
     <T> List<T> executeOracleStoreProcedure(Connection connection,
                                             String storeProcedureName,
                                             Map<Integer, Object> inParameters,
@@ -48,4 +90,40 @@ public interface DatabaseExecutor {
                                               String sqlString,
                                               List<Map<Integer, Object>> parameterMapList);
 
+    /**
+     * Runs {@code sqlString} as one batch with a row of parameters per element of {@code rows}. The parameters of
+     * every row are filled by {@code binder} into the same {@link SqlParameters}, cleared in between, so that binding
+     * allocates no map per row:
+     *
+     * <pre>{@code
+     * executor.executeMutationBatch(connection, sql, orders, orderMapping::insertJDBCParams);
+     * }</pre>
+     */
+    <R> Map<String, Integer> executeMutationBatch(Connection connection,
+                                                  String sqlString,
+                                                  Iterable<? extends R> rows,
+                                                  BiConsumer<? super R, SqlParameters> binder);
+
+    /**
+     * Runs {@code sqlString} with a row of parameters per element of {@code rows}, sent in chunks as set by
+     * {@code options}. The rows are read lazily, one chunk at a time, so {@code rows} can stream from a file or a
+     * query. A chunk that fails is recorded in the result with the indices of its failed rows.
+     *
+     * @throws vn.io.lcx.common.exception.LCXDataSourceException if the statement cannot be prepared or bound
+     * @throws vn.io.lcx.common.exception.QueryCancelledException if a chunk is cancelled or times out; the chunks
+     *                                                            before it are kept
+     * @throws IllegalArgumentException                           if {@link BatchOptions#isCommitPerChunk()} is set
+     *                                                            and the connection is already in a transaction
+     */
+    <R> BatchResult executeMutationBatch(Connection connection,
+                                         String sqlString,
+                                         Iterable<? extends R> rows,
+                                         BiConsumer<? super R, SqlParameters> binder,
+                                         BatchOptions options);
+
+    BatchResult executeMutationBatch(Connection connection,
+                                     String sqlString,
+                                     List<Map<Integer, Object>> parameterMapList,
+                                     BatchOptions options);
+
 }
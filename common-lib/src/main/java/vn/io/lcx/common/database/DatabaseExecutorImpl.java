@@ -1,20 +1,34 @@
 package vn.io.lcx.common.database;
 
 import vn.io.lcx.common.constant.CommonConstant;
+import vn.io.lcx.common.database.context.QueryDeadline;
 import vn.io.lcx.common.database.handler.statement.SqlStatementHandler;
 import vn.io.lcx.common.database.type.OracleTypeEnum;
 import vn.io.lcx.common.database.type.PostgresTypeEnum;
+import vn.io.lcx.common.exception.LCXDataSourceException;
+import vn.io.lcx.common.exception.QueryCancelledException;
 import vn.io.lcx.common.utils.LogUtils;
 
+import java.sql.BatchUpdateException;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static vn.io.lcx.common.constant.CommonConstant.DATA_TYPE_AND_SQL_STATEMENT_METHOD_MAP;
 
@@ -22,6 +36,11 @@ public class DatabaseExecutorImpl implements DatabaseExecutor {
 
     private static final DatabaseExecutorImpl INSTANCE = new DatabaseExecutorImpl();
 
+    /**
+     * Timeout applied to every statement, 0 for none
+     */
+    private volatile long defaultQueryTimeoutNanos;
+
     private DatabaseExecutorImpl() {
     }
 
@@ -29,6 +48,25 @@ public class DatabaseExecutorImpl implements DatabaseExecutor {
         return INSTANCE;
     }
 
+    /**
+     * Sets the timeout of every statement run by this executor. A {@link QueryDeadline} of the calling thread that
+     * is earlier takes precedence. A statement still running at its deadline, or whose calling thread is
+     * interrupted, is cancelled and the call throws {@link QueryCancelledException}.
+     *
+     * @param timeout the timeout, {@code null} or zero for none
+     */
+    public void setDefaultQueryTimeout(Duration timeout) {
+        if (timeout != null && timeout.isNegative()) {
+            throw new IllegalArgumentException("timeout must not be negative");
+        }
+        this.defaultQueryTimeoutNanos = timeout == null ? 0 : timeout.toNanos();
+    }
+
+    public Duration getDefaultQueryTimeout() {
+        final long timeout = defaultQueryTimeoutNanos;
+        return timeout == 0 ? null : Duration.ofNanos(timeout);
+    }
+
     @SuppressWarnings("SqlSourceToSinkFlow")
     @Override
     public <T> List<T> executeQuery(Connection connection,
@@ -38,6 +76,7 @@ public class DatabaseExecutorImpl implements DatabaseExecutor {
         PreparedStatement statement = null;
         ResultSet resultSet = null;
         List<T> result = new ArrayList<>();
+        final var sample = StatementMetrics.getInstance().start(sqlString, StatementMetrics.StatementType.QUERY, parameter);
         try {
             var transactionIsEnabled = !connection.getAutoCommit();
             String finalQueryString;
@@ -48,40 +87,217 @@ public class DatabaseExecutorImpl implements DatabaseExecutor {
             }
             // finalQueryString = MyStringUtils.minifyString(finalQueryString);
             statement = connection.prepareStatement(finalQueryString);
-            LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO,
-                    "\n" + finalQueryString.replaceAll("^\\n+|\\n+$", CommonConstant.EMPTY_STRING));
+            this.logSql(finalQueryString);
             var parameterIsNotNullAndNotEmpty = parameter != null && !parameter.isEmpty();
             if (parameterIsNotNullAndNotEmpty) {
-                StringBuilder parametersLog = new StringBuilder("parameters:");
+                final var parametersLog = this.parametersLog("parameters:");
                 this.handleInputParameters(statement, parameter, parametersLog);
-                LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, parametersLog.toString());
+                this.logParameters(parametersLog);
             }
-            final var startingTime = (double) System.currentTimeMillis();
-
-            // TODO: should set time-out using `.setQueryTimeout(int seconds);`
-            resultSet = statement.executeQuery();
-
-            final var endingTime = (double) System.currentTimeMillis();
-            final var duration = (endingTime - startingTime) / 1000D;
-
-            LogUtils.writeLog(this.getClass(),
-                    LogUtils.Level.INFO, String.format("Executed SQL statement take %.2f second(s)", duration));
+            resultSet = this.execute(statement, PreparedStatement::executeQuery);
 
             var count = 0;
             while (resultSet.next()) {
                 result.add(handler.handle(resultSet));
                 count++;
             }
-            LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, "Fetched {} row(s)", count);
+            sample.success(count);
+            LogUtils.writeLog(this.getClass(), LogUtils.Level.DEBUG, "Fetched {} row(s)", count);
         } catch (SQLException e) {
             LogUtils.writeLog(this.getClass(), e.getMessage(), e);
             result = null;
         } finally {
+            sample.stop();
             this.closeStatementAndResultSet(statement, resultSet);
         }
         return result;
     }
 
+    @Override
+    public <T> long executeQuery(Connection connection,
+                                 String sqlString,
+                                 Map<Integer, Object> parameter,
+                                 ResultSetHandler<T> handler,
+                                 int fetchSize,
+                                 Consumer<? super T> consumer) {
+        final Cursor<T> cursor = this.openCursor(connection, sqlString, parameter, handler, fetchSize);
+        boolean completed = false;
+        try {
+            while (cursor.next()) {
+                consumer.accept(cursor.current);
+            }
+            completed = true;
+        } finally {
+            cursor.close(completed);
+        }
+        return cursor.rows;
+    }
+
+    @Override
+    public <T> Stream<T> streamQuery(Connection connection,
+                                     String sqlString,
+                                     Map<Integer, Object> parameter,
+                                     ResultSetHandler<T> handler,
+                                     int fetchSize) {
+        final Cursor<T> cursor = this.openCursor(connection, sqlString, parameter, handler, fetchSize);
+        final var spliterator = new Spliterators.AbstractSpliterator<T>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (!cursor.next()) {
+                    return false;
+                }
+                action.accept(cursor.current);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> cursor.close(!cursor.failed));
+    }
+
+    @SuppressWarnings("SqlSourceToSinkFlow")
+    private <T> Cursor<T> openCursor(Connection connection,
+                                     String sqlString,
+                                     Map<Integer, Object> parameter,
+                                     ResultSetHandler<T> handler,
+                                     int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("fetchSize must be positive");
+        }
+        final Cursor<T> cursor = new Cursor<>(connection, handler,
+                StatementMetrics.getInstance().start(sqlString, StatementMetrics.StatementType.QUERY, parameter));
+        try {
+            cursor.statement = connection.prepareStatement(sqlString, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            this.logSql(sqlString);
+            var parameterIsNotNullAndNotEmpty = parameter != null && !parameter.isEmpty();
+            if (parameterIsNotNullAndNotEmpty) {
+                final var parametersLog = this.parametersLog("parameters:");
+                this.handleInputParameters(cursor.statement, parameter, parametersLog);
+                this.logParameters(parametersLog);
+            }
+            this.applyFetchSize(cursor, fetchSize);
+            cursor.watch = this.watch(cursor.statement);
+            cursor.resultSet = cursor.statement.executeQuery();
+        } catch (QueryCancelledException e) {
+            // not run because the deadline passed or the thread was interrupted, a cancellation rather than an error
+            cursor.close(false);
+            throw e;
+        } catch (SQLException | RuntimeException e) {
+            cursor.close(false);
+            final var cancellation = e instanceof SQLException ? cancellation(cursor.watch, (SQLException) e) : null;
+            if (cancellation != null) {
+                throw cancellation;
+            }
+            LogUtils.writeLog(this.getClass(), e.getMessage(), e);
+            throw e instanceof RuntimeException ? (RuntimeException) e : new LCXDataSourceException(e);
+        }
+        return cursor;
+    }
+
+    /**
+     * Sets the fetch size the way each driver actually honours it:
+     * <ul>
+     *   <li>PostgreSQL only uses a cursor outside auto-commit mode, so auto-commit is turned off until the cursor
+     *       is closed.</li>
+     *   <li>MySQL Connector/J reads the whole result unless the fetch size is {@link Integer#MIN_VALUE} (row by row
+     *       streaming), or the connection has {@code useCursorFetch=true}.</li>
+     *   <li>Other drivers take the fetch size as given.</li>
+     * </ul>
+     */
+    private void applyFetchSize(Cursor<?> cursor, int fetchSize) throws SQLException {
+        final String url = cursor.connection.getMetaData().getURL();
+        final JdbcDriver driver = JdbcDriver.of(url);
+        if (driver == JdbcDriver.POSTGRESQL) {
+            if (cursor.connection.getAutoCommit()) {
+                cursor.connection.setAutoCommit(false);
+                cursor.autoCommitDisabled = true;
+            }
+        } else if (driver == JdbcDriver.MYSQL && !url.contains("useCursorFetch=true")) {
+            fetchSize = Integer.MIN_VALUE;
+        }
+        cursor.statement.setFetchSize(fetchSize);
+    }
+
+    /**
+     * An open result set read one row at a time, shared by the streaming queries
+     */
+    private final class Cursor<T> {
+        private final Connection connection;
+        private final ResultSetHandler<T> handler;
+        private final StatementMetrics.Sample sample;
+        private PreparedStatement statement;
+        private ResultSet resultSet;
+        private StatementWatchdog.Watch watch;
+        private boolean autoCommitDisabled;
+        private boolean failed;
+        private boolean closed;
+        private long rows;
+        private T current;
+
+        private Cursor(Connection connection, ResultSetHandler<T> handler, StatementMetrics.Sample sample) {
+            this.connection = connection;
+            this.handler = handler;
+            this.sample = sample;
+        }
+
+        private boolean next() {
+            try {
+                if (closed || !resultSet.next()) {
+                    return false;
+                }
+                current = handler.handle(resultSet);
+                rows++;
+                return true;
+            } catch (SQLException e) {
+                failed = true;
+                final var cancellation = cancellation(watch, e);
+                if (cancellation != null) {
+                    throw cancellation;
+                }
+                LogUtils.writeLog(DatabaseExecutorImpl.class, e.getMessage(), e);
+                throw new LCXDataSourceException(e);
+            } catch (RuntimeException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        private void close(boolean completed) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            current = null;
+            if (watch != null) {
+                watch.close();
+            }
+            try {
+                closeStatementAndResultSet(statement, resultSet);
+            } finally {
+                if (autoCommitDisabled) {
+                    this.restoreAutoCommit(completed);
+                }
+            }
+            if (completed) {
+                sample.success(rows);
+            }
+            sample.stop();
+            LogUtils.writeLog(DatabaseExecutorImpl.class, LogUtils.Level.DEBUG, "Fetched {} row(s)", rows);
+        }
+
+        private void restoreAutoCommit(boolean completed) {
+            try {
+                if (completed) {
+                    connection.commit();
+                } else {
+                    connection.rollback();
+                }
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                LogUtils.writeLog(DatabaseExecutorImpl.class, "Cannot restore auto-commit mode of connection", e);
+            }
+        }
+    }
+
     @Override
     public <T> List<T> executeOracleStoreProcedure(Connection connection,
                                                    String storeProcedureName,
@@ -90,24 +306,20 @@ public class DatabaseExecutorImpl implements DatabaseExecutor {
                                                    CallableStatementHandler<List<T>> handler) {
         CallableStatement statement = null;
         List<T> result;
+        final var sample = StatementMetrics.getInstance()
+                .start(storeProcedureName, StatementMetrics.StatementType.PROCEDURE, inParameters);
         try {
 
             statement = this.prepareOracleStatement(connection, storeProcedureName, inParameters, outParameters);
-            final var startingTime = (double) System.currentTimeMillis();
-
-            statement.execute();
-
-            final var endingTime = (double) System.currentTimeMillis();
-            final var duration = (endingTime - startingTime) / 1000D;
-
-            LogUtils.writeLog(this.getClass(),
-                    LogUtils.Level.INFO, String.format("Executed SQL statement take %.2f second(s)", duration));
+            this.execute(statement, PreparedStatement::execute);
 
             result = new ArrayList<>(handler.handle(statement));
+            sample.success(result.size());
         } catch (SQLException e) {
             LogUtils.writeLog(this.getClass(), e.getMessage(), e);
             result = null;
         } finally {
+            sample.stop();
             this.closeStatementAndResultSet(statement, null);
         }
         return result;
@@ -119,23 +331,19 @@ public class DatabaseExecutorImpl implements DatabaseExecutor {
                                         Map<Integer, OracleTypeEnum> outParameters,
                                         CallableStatementHandler<List<Void>> handler) {
         CallableStatement statement = null;
+        final var sample = StatementMetrics.getInstance()
+                .start(storeProcedureName, StatementMetrics.StatementType.PROCEDURE, inParameters);
         try {
 
             statement = this.prepareOracleStatement(connection, storeProcedureName, inParameters, outParameters);
-            final var startingTime = (double) System.currentTimeMillis();
-
-            statement.execute();
-
-            final var endingTime = (double) System.currentTimeMillis();
-            final var duration = (endingTime - startingTime) / 1000D;
+            this.execute(statement, PreparedStatement::execute);
 
             handler.handle(statement);
-
-            LogUtils.writeLog(this.getClass(),
-                    LogUtils.Level.INFO, String.format("Executed SQL statement take %.2f second(s)", duration));
+            sample.success(0);
         } catch (SQLException e) {
             LogUtils.writeLog(this.getClass(), e.getMessage(), e);
         } finally {
+            sample.stop();
             this.closeStatementAndResultSet(statement, null);
         }
     }
@@ -147,6 +355,8 @@ public class DatabaseExecutorImpl implements DatabaseExecutor {
                                                                  List<Map<Integer, Object>> inParameterMaps) {
         final var batchExecutionResult = new HashMap<String, Integer>();
         CallableStatement statement = null;
+        final var sample = StatementMetrics.getInstance()
+                .start(storeProcedureName, StatementMetrics.StatementType.BATCH, null);
         try {
 
             int numberOfParameters = 0;
@@ -171,29 +381,22 @@ public class DatabaseExecutorImpl implements DatabaseExecutor {
                     storeProcedureName,
                     parameterString);
             statement = connection.prepareCall(sqlCallingSPStatement);
-            LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO,
-                    "\n" + sqlCallingSPStatement.replaceAll("^\\n+|\\n+$", CommonConstant.EMPTY_STRING));
+            this.logSql(sqlCallingSPStatement);
             for (Map<Integer, Object> inParameters : inParameterMaps) {
                 var inParameterIsNotNullAndNotEmpty = inParameters != null && !inParameters.isEmpty();
                 if (inParameterIsNotNullAndNotEmpty) {
-                    StringBuilder parametersLog = new StringBuilder("input parameters:");
+                    final var parametersLog = this.parametersLog("input parameters:");
                     this.handleInputParameters(statement, inParameters, parametersLog);
                     statement.addBatch();
-                    LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, parametersLog.toString());
+                    this.logParameters(parametersLog);
                 }
             }
             var success = 0;
             var successNoInfo = 0;
             var executeFailed = 0;
-            final var startingTime = (double) System.currentTimeMillis();
-
-            var result = statement.executeBatch();
 
-            final var endingTime = (double) System.currentTimeMillis();
-            final var duration = (endingTime - startingTime) / 1000D;
-
-            LogUtils.writeLog(this.getClass(),
-                    LogUtils.Level.INFO, String.format("Executed SQL statement take %.2f second(s)", duration));
+            var result = this.execute(statement, Statement::executeBatch);
+            sample.success(result.length);
 
             if (result.length > 0) {
                 for (int i : result) {
@@ -222,6 +425,7 @@ public class DatabaseExecutorImpl implements DatabaseExecutor {
             LogUtils.writeLog(this.getClass(), e.getMessage(), e);
             return null;
         } finally {
+            sample.stop();
             this.closeStatementAndResultSet(statement, null);
         }
         return batchExecutionResult;
@@ -247,6 +451,8 @@ public class DatabaseExecutorImpl implements DatabaseExecutor {
 
         CallableStatement statement = null;
         List<T> result;
+        final var sample = StatementMetrics.getInstance()
+                .start(storeProcedureName, StatementMetrics.StatementType.PROCEDURE, inParameters);
         try {
 
             int numberOfParameters = 0;
@@ -270,42 +476,38 @@ public class DatabaseExecutorImpl implements DatabaseExecutor {
                     storeProcedureName,
                     parameterString);
             statement = connection.prepareCall(sqlCallingSPStatement);
-            LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO,
-                    "\n" + sqlCallingSPStatement.replaceAll("^\\n+|\\n+$", CommonConstant.EMPTY_STRING));
+            this.logSql(sqlCallingSPStatement);
             var inParameterIsNotNullAndNotEmpty = inParameters != null && !inParameters.isEmpty();
             if (inParameterIsNotNullAndNotEmpty) {
-                StringBuilder parametersLog = new StringBuilder("input parameters:");
+                final var parametersLog = this.parametersLog("input parameters:");
                 this.handleInputParameters(statement, inParameters, parametersLog);
-                LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, parametersLog.toString());
+                this.logParameters(parametersLog);
             }
             var outParameterIsNotNullAndNotEmpty = outParameters != null && !outParameters.isEmpty();
             if (outParameterIsNotNullAndNotEmpty) {
-                StringBuilder parametersLog = new StringBuilder("output parameters:");
+                final var parametersLog = this.parametersLog("output parameters:");
                 for (Integer i : outParameters.keySet()) {
                     statement.registerOutParameter(i, outParameters.get(i).getType());
-                    parametersLog.append(
-                            String.format(
-                                    "\n\t- parameter %s: %s",
-                                    String.format("%-3d", i),
-                                    outParameters.get(i).name()));
+                    if (parametersLog != null) {
+                        parametersLog.append(
+                                String.format(
+                                        "\n\t- parameter %s: %s",
+                                        String.format("%-3d", i),
+                                        outParameters.get(i).name()));
+                    }
                 }
-                LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, parametersLog.toString());
+                this.logParameters(parametersLog);
             }
-            final var startingTime = (double) System.currentTimeMillis();
 
-            statement.execute();
-
-            final var endingTime = (double) System.currentTimeMillis();
-            final var duration = (endingTime - startingTime) / 1000D;
-
-            LogUtils.writeLog(this.getClass(),
-                    LogUtils.Level.INFO, String.format("Executed SQL statement take %.2f second(s)", duration));
+            this.execute(statement, PreparedStatement::execute);
 
             result = new ArrayList<>(handler.handle(statement));
+            sample.success(result.size());
         } catch (SQLException e) {
             LogUtils.writeLog(this.getClass(), e.getMessage(), e);
             result = null;
         } finally {
+            sample.stop();
             this.closeStatementAndResultSet(statement, null);
         }
         return result;
@@ -318,33 +520,27 @@ public class DatabaseExecutorImpl implements DatabaseExecutor {
                                Map<Integer, Object> parameter) {
         PreparedStatement statement = null;
         int rowAffected = 0;
+        final var sample = StatementMetrics.getInstance().start(sqlString, StatementMetrics.StatementType.MUTATION, parameter);
         try {
             // sqlString = MyStringUtils.minifyString(sqlString);
             statement = connection.prepareStatement(sqlString);
-            LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO,
-                    "\n" + sqlString.replaceAll("^\\n+|\\n+$", CommonConstant.EMPTY_STRING));
+            this.logSql(sqlString);
             var parameterIsNotNullAndNotEmpty = parameter != null && !parameter.isEmpty();
             if (parameterIsNotNullAndNotEmpty) {
-                StringBuilder parametersLog = new StringBuilder("parameters:");
+                final var parametersLog = this.parametersLog("parameters:");
                 this.handleInputParameters(statement, parameter, parametersLog);
-                LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, parametersLog.toString());
+                this.logParameters(parametersLog);
             }
-            final var startingTime = (double) System.currentTimeMillis();
-
-            rowAffected = statement.executeUpdate();
-
-            final var endingTime = (double) System.currentTimeMillis();
-            final var duration = (endingTime - startingTime) / 1000D;
-
-            LogUtils.writeLog(this.getClass(),
-                    LogUtils.Level.INFO, String.format("Executed SQL statement take %.2f second(s)", duration));
 
+            rowAffected = this.execute(statement, PreparedStatement::executeUpdate);
+            sample.success(rowAffected);
         } catch (SQLException e) {
             LogUtils.writeLog(this.getClass(), e.getMessage(), e);
         } finally {
+            sample.stop();
             this.closeStatementAndResultSet(statement, null);
         }
-        LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, "Modified {} row(s)", rowAffected);
+        LogUtils.writeLog(this.getClass(), LogUtils.Level.DEBUG, "Modified {} row(s)", rowAffected);
         return rowAffected;
     }
 
@@ -353,71 +549,446 @@ public class DatabaseExecutorImpl implements DatabaseExecutor {
     public Map<String, Integer> executeMutationBatch(Connection connection,
                                                      String sqlString,
                                                      List<Map<Integer, Object>> parameterMapList) {
-        final var batchExecutionResult = new HashMap<String, Integer>();
         PreparedStatement statement = null;
+        final var sample = StatementMetrics.getInstance().start(sqlString, StatementMetrics.StatementType.BATCH, null);
         try {
             statement = connection.prepareStatement(sqlString);
-            LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO,
-                    "\n" + sqlString.replaceAll("^\\n+|\\n+$", CommonConstant.EMPTY_STRING));
+            this.logSql(sqlString);
             final var parameterMapListIsNotNullAndNotEmpty = parameterMapList != null && !parameterMapList.isEmpty();
             if (parameterMapListIsNotNullAndNotEmpty) {
                 for (Map<Integer, Object> parameter : parameterMapList) {
                     final var parameterIsNotNullAndNotEmpty = parameter != null && !parameter.isEmpty();
                     if (parameterIsNotNullAndNotEmpty) {
-                        StringBuilder parametersLog = new StringBuilder("parameters:");
+                        final var parametersLog = this.parametersLog("parameters:");
                         this.handleInputParameters(statement, parameter, parametersLog);
-                        LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, parametersLog.toString());
+                        this.logParameters(parametersLog);
                         statement.addBatch();
                     }
                 }
             }
-            var success = 0;
-            var successNoInfo = 0;
-            var executeFailed = 0;
-            final var startingTime = (double) System.currentTimeMillis();
+            return this.executeBatchAndCount(statement, sample);
+        } catch (SQLException e) {
+            LogUtils.writeLog(this.getClass(), e.getMessage(), e);
+            return null;
+        } finally {
+            sample.stop();
+            this.closeStatementAndResultSet(statement, null);
+        }
+    }
 
-            var result = statement.executeBatch();
+    @SuppressWarnings("SqlSourceToSinkFlow")
+    @Override
+    public <R> Map<String, Integer> executeMutationBatch(Connection connection,
+                                                         String sqlString,
+                                                         Iterable<? extends R> rows,
+                                                         BiConsumer<? super R, SqlParameters> binder) {
+        PreparedStatement statement = null;
+        final var sample = StatementMetrics.getInstance().start(sqlString, StatementMetrics.StatementType.BATCH, null);
+        try {
+            statement = connection.prepareStatement(sqlString);
+            this.logSql(sqlString);
+            final SqlParameters parameters = new SqlParameters();
+            var count = 0;
+            for (R row : rows) {
+                parameters.clear();
+                binder.accept(row, parameters);
+                parameters.bind(statement);
+                statement.addBatch();
+                count++;
+            }
+            LogUtils.writeLog(this.getClass(), LogUtils.Level.DEBUG, "Bound {} row(s) of parameters", count);
+            return this.executeBatchAndCount(statement, sample);
+        } catch (SQLException e) {
+            LogUtils.writeLog(this.getClass(), e.getMessage(), e);
+            return null;
+        } finally {
+            sample.stop();
+            this.closeStatementAndResultSet(statement, null);
+        }
+    }
 
-            final var endingTime = (double) System.currentTimeMillis();
-            final var duration = (endingTime - startingTime) / 1000D;
+    private Map<String, Integer> executeBatchAndCount(PreparedStatement statement,
+                                                      StatementMetrics.Sample sample) throws SQLException {
+        final var batchExecutionResult = new HashMap<String, Integer>();
+        var success = 0;
+        var successNoInfo = 0;
+        var executeFailed = 0;
+        var result = this.execute(statement, Statement::executeBatch);
+        sample.success(result.length);
 
+        if (result.length > 0) {
+            for (int i : result) {
+                if (i >= 0) {
+                    success++;
+                } else if (i == -2) {
+                    successNoInfo++;
+                } else if (i == -3) {
+                    executeFailed++;
+                }
+            }
             LogUtils.writeLog(this.getClass(),
-                    LogUtils.Level.INFO, String.format("Executed SQL statement take %.2f second(s)", duration));
+                    LogUtils.Level.INFO,
+                    "Executed batch, result:" +
+                            "\n    - Success: {}" +
+                            "\n    - Success no info: {}" +
+                            "\n    - Execute failed: {}",
+                    success,
+                    successNoInfo,
+                    executeFailed);
+            batchExecutionResult.put(SUCCESS_KEY_NAME, success);
+            batchExecutionResult.put(SUCCESS_BUT_NO_INFO_KEY_NAME, successNoInfo);
+            batchExecutionResult.put(FAILED_KEY_NAME, executeFailed);
+        }
+        return batchExecutionResult;
+    }
 
-            if (result.length > 0) {
-                for (int i : result) {
-                    if (i >= 0) {
-                        success++;
-                    } else if (i == -2) {
-                        successNoInfo++;
-                    } else if (i == -3) {
-                        executeFailed++;
-                    }
+    @Override
+    public <R> BatchResult executeMutationBatch(Connection connection,
+                                                String sqlString,
+                                                Iterable<? extends R> rows,
+                                                BiConsumer<? super R, SqlParameters> binder,
+                                                BatchOptions options) {
+        final var startedAt = System.nanoTime();
+        this.logSql(sqlString);
+        final var batch = new ChunkedBatch<R>(connection, sqlString, binder, options);
+        try {
+            batch.open();
+            for (R row : rows) {
+                if (!batch.add(row)) {
+                    break;
                 }
-                LogUtils.writeLog(this.getClass(),
-                        LogUtils.Level.INFO,
-                        "Executed batch, result:" +
-                                "\n    - Success: {}" +
-                                "\n    - Success no info: {}" +
-                                "\n    - Execute failed: {}",
-                        success,
-                        successNoInfo,
-                        executeFailed);
-                batchExecutionResult.put(SUCCESS_KEY_NAME, success);
-                batchExecutionResult.put(SUCCESS_BUT_NO_INFO_KEY_NAME, successNoInfo);
-                batchExecutionResult.put(FAILED_KEY_NAME, executeFailed);
             }
+            batch.finish();
         } catch (SQLException e) {
             LogUtils.writeLog(this.getClass(), e.getMessage(), e);
-            return null;
+            throw new LCXDataSourceException(e);
         } finally {
-            this.closeStatementAndResultSet(statement, null);
+            batch.close();
+        }
+        final var result = new BatchResult(batch.chunks, batch.stopped, (System.nanoTime() - startedAt) / 1_000_000L);
+        LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, "Executed batch, result: {}", result);
+        return result;
+    }
+
+    @Override
+    public BatchResult executeMutationBatch(Connection connection,
+                                            String sqlString,
+                                            List<Map<Integer, Object>> parameterMapList,
+                                            BatchOptions options) {
+        return this.executeMutationBatch(connection, sqlString, parameterMapList, (parameter, parameters) -> {
+            if (parameter != null) {
+                parameters.setAll(parameter);
+            }
+        }, options);
+    }
+
+    /**
+     * One run of a batch in chunks. Every chunk is one {@code executeBatch} call, of the statement itself or, when it
+     * is rewritten into multi-row {@code VALUES}, of a statement of {@code groupRows} rows followed by one of the rows
+     * left over at the end of the chunk.
+     */
+    private final class ChunkedBatch<R> {
+        private final Connection connection;
+        private final String sqlString;
+        private final BiConsumer<? super R, SqlParameters> binder;
+        private final BatchOptions options;
+        private final SqlParameters parameters = new SqlParameters();
+        private final List<BatchResult.ChunkResult> chunks = new ArrayList<>();
+        private PreparedStatement statement;
+        private boolean autoCommitDisabled;
+        private boolean stopped;
+
+        /**
+         * Set when the statement is rewritten into multi-row {@code VALUES}
+         */
+        private MultiRowInsert insert;
+        private int groupRows;
+        private SqlParameters group;
+        private int groupFill;
+        private int groupEntries;
+        private PreparedStatement tailStatement;
+        private int tailRows;
+
+        private long rowIndex;
+        private int chunkFill;
+        private int accounted;
+        private long updateCount;
+        private int successNoInfo;
+        private long[] failed = new long[16];
+        private int failedCount;
+
+        private ChunkedBatch(Connection connection,
+                             String sqlString,
+                             BiConsumer<? super R, SqlParameters> binder,
+                             BatchOptions options) {
+            this.connection = connection;
+            this.sqlString = sqlString;
+            this.binder = binder;
+            this.options = options;
+        }
+
+        @SuppressWarnings("SqlSourceToSinkFlow")
+        private void open() throws SQLException {
+            if (options.isCommitPerChunk() && !connection.getAutoCommit()) {
+                // committing a chunk would commit, and rolling it back would discard, the caller's own statements
+                throw new IllegalArgumentException("commitPerChunk needs a connection in auto-commit mode, "
+                        + "not one already in a transaction");
+            }
+            if (options.isRewriteValues()) {
+                final String url = connection.getMetaData().getURL();
+                final JdbcDriver driver = JdbcDriver.of(url);
+                final MultiRowInsert parsed = driver.getMaxParameters() == 0 || driver.batchesInsertsItself(url)
+                        ? null
+                        : MultiRowInsert.parse(sqlString);
+                if (parsed != null) {
+                    // most databases also cap the rows of one VALUES list, SQL Server at 1000
+                    groupRows = Math.min(Math.min(options.getChunkSize(), 1000),
+                            driver.getMaxParameters() / parsed.getParametersPerRow());
+                    if (groupRows > 1) {
+                        insert = parsed;
+                        group = new SqlParameters(groupRows * parsed.getParametersPerRow());
+                        LogUtils.writeLog(DatabaseExecutorImpl.class, LogUtils.Level.DEBUG,
+                                "Rewriting batch into inserts of {} row(s)", groupRows);
+                    }
+                }
+            }
+            statement = connection.prepareStatement(insert == null ? sqlString : insert.sql(groupRows));
+            if (options.isCommitPerChunk()) {
+                connection.setAutoCommit(false);
+                autoCommitDisabled = true;
+            }
+        }
+
+        /**
+         * @return whether to go on with the next row
+         */
+        private boolean add(R row) throws SQLException {
+            parameters.clear();
+            binder.accept(row, parameters);
+            if (insert == null) {
+                parameters.bind(statement);
+                statement.addBatch();
+            } else {
+                if (parameters.size() != insert.getParametersPerRow()) {
+                    throw new IllegalArgumentException(String.format(
+                            "Row %d binds %d parameter(s) but the statement has %d",
+                            rowIndex, parameters.size(), insert.getParametersPerRow()));
+                }
+                group.addAll(parameters);
+                if (++groupFill == groupRows) {
+                    group.bind(statement);
+                    statement.addBatch();
+                    group.clear();
+                    groupFill = 0;
+                    groupEntries++;
+                }
+            }
+            rowIndex++;
+            return ++chunkFill < options.getChunkSize() || flush();
+        }
+
+        private void finish() throws SQLException {
+            if (chunkFill > 0) {
+                flush();
+            }
+        }
+
+        /**
+         * Sends the rows of the current chunk.
+         *
+         * @return whether to go on with the next chunk
+         */
+        @SuppressWarnings("SqlSourceToSinkFlow")
+        private boolean flush() throws SQLException {
+            final long firstRow = rowIndex - chunkFill;
+            final long startedAt = System.nanoTime();
+            final var sample = StatementMetrics.getInstance()
+                    .start(sqlString, StatementMetrics.StatementType.BATCH, null);
+            SQLException error = null;
+            boolean committed = false;
+            accounted = 0;
+            updateCount = 0;
+            successNoInfo = 0;
+            failedCount = 0;
+            int rowsPerEntry = insert == null ? 1 : groupRows;
+            try {
+                if (insert == null || groupEntries > 0) {
+                    account(DatabaseExecutorImpl.this.execute(statement, Statement::executeBatch), rowsPerEntry, firstRow);
+                }
+                if (groupFill > 0) {
+                    if (tailStatement == null || tailRows != groupFill) {
+                        closeStatementAndResultSet(tailStatement, null);
+                        tailStatement = connection.prepareStatement(insert.sql(groupFill));
+                        tailRows = groupFill;
+                    }
+                    rowsPerEntry = groupFill;
+                    group.bind(tailStatement);
+                    tailStatement.addBatch();
+                    account(DatabaseExecutorImpl.this.execute(tailStatement, Statement::executeBatch), rowsPerEntry, firstRow);
+                }
+                if (options.isCommitPerChunk()) {
+                    connection.commit();
+                    committed = true;
+                }
+            } catch (SQLException e) {
+                error = e;
+                if (e instanceof BatchUpdateException) {
+                    account(((BatchUpdateException) e).getUpdateCounts(), rowsPerEntry, firstRow);
+                }
+                // the statements after the failed one did not run
+                markFailed(firstRow + accounted, chunkFill - accounted);
+                clearBatch(statement);
+                clearBatch(tailStatement);
+                if (options.isCommitPerChunk()) {
+                    connection.rollback();
+                    updateCount = 0;
+                    successNoInfo = 0;
+                    failedCount = 0;
+                    markFailed(firstRow, chunkFill);
+                }
+            } finally {
+                if (group != null) {
+                    group.clear();
+                }
+                groupFill = 0;
+                groupEntries = 0;
+            }
+            if (error == null) {
+                sample.success(chunkFill);
+            }
+            sample.stop();
+            final var chunk = new BatchResult.ChunkResult(chunks.size(), firstRow, chunkFill, updateCount,
+                    successNoInfo, Arrays.copyOf(failed, failedCount), error, committed, System.nanoTime() - startedAt);
+            chunks.add(chunk);
+            chunkFill = 0;
+            if (error != null) {
+                LogUtils.writeLog(DatabaseExecutorImpl.class, LogUtils.Level.WARN,
+                        "Chunk {} of {} row(s) from row {} failed: {}", chunk.getIndex(), chunk.getRows(), firstRow,
+                        error.getMessage());
+                stopped = options.getFailureMode() == BatchOptions.FailureMode.STOP;
+                return !stopped;
+            }
+            LogUtils.writeLog(DatabaseExecutorImpl.class, LogUtils.Level.DEBUG,
+                    "Executed chunk {} of {} row(s) in {} ms", chunk.getIndex(), chunk.getRows(),
+                    chunk.getElapsedNanos() / 1_000_000L);
+            return true;
+        }
+
+        /**
+         * Counts the results of the statements of a chunk, each one covering {@code rowsPerEntry} rows.
+         */
+        private void account(int[] counts, int rowsPerEntry, long firstRow) {
+            for (int count : counts) {
+                if (count == Statement.EXECUTE_FAILED) {
+                    markFailed(firstRow + accounted, rowsPerEntry);
+                } else if (count == Statement.SUCCESS_NO_INFO) {
+                    successNoInfo++;
+                } else {
+                    updateCount += count;
+                }
+                accounted += rowsPerEntry;
+            }
+        }
+
+        private void markFailed(long firstRow, int rows) {
+            if (failedCount + rows > failed.length) {
+                failed = Arrays.copyOf(failed, Math.max(failedCount + rows, failed.length * 2));
+            }
+            for (int i = 0; i < rows; i++) {
+                failed[failedCount++] = firstRow + i;
+            }
+        }
+
+        private void clearBatch(PreparedStatement statement) {
+            if (statement == null) {
+                return;
+            }
+            try {
+                statement.clearBatch();
+            } catch (SQLException e) {
+                LogUtils.writeLog(DatabaseExecutorImpl.class, "Cannot clear batch of statement", e, LogUtils.Level.WARN);
+            }
+        }
+
+        private void close() {
+            closeStatementAndResultSet(statement, null);
+            closeStatementAndResultSet(tailStatement, null);
+            if (autoCommitDisabled) {
+                try {
+                    // rows of a chunk interrupted by an exception are not committed
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                } catch (SQLException e) {
+                    LogUtils.writeLog(DatabaseExecutorImpl.class, "Cannot restore auto-commit mode of connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a statement under the watch of the {@link StatementWatchdog}, turning a cancellation into a
+     * {@link QueryCancelledException}.
+     */
+    private <S extends Statement, R> R execute(S statement, StatementCall<S, R> call) throws SQLException {
+        try (var watch = this.watch(statement)) {
+            try {
+                return call.call(statement);
+            } catch (SQLException e) {
+                final var cancellation = cancellation(watch, e);
+                if (cancellation != null) {
+                    throw cancellation;
+                }
+                throw e;
+            }
         }
-        return batchExecutionResult;
+    }
+
+    /**
+     * Registers a statement about to run with the watchdog, with the earliest of the default timeout and the
+     * {@link QueryDeadline} of the current thread. The timeout is also set on the statement in whole seconds, for
+     * the drivers to enforce on the server side.
+     */
+    private StatementWatchdog.Watch watch(Statement statement) throws SQLException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new QueryCancelledException("Statement not run because the calling thread was interrupted");
+        }
+        final long defaultTimeout = defaultQueryTimeoutNanos;
+        final long remaining = Math.min(defaultTimeout == 0 ? Long.MAX_VALUE : defaultTimeout, QueryDeadline.remainingNanos());
+        if (remaining <= 0) {
+            throw new QueryCancelledException("Statement not run because its deadline already passed");
+        }
+        if (remaining == Long.MAX_VALUE) {
+            return WatchdogHolder.WATCHDOG.watch(statement, Long.MAX_VALUE);
+        }
+        statement.setQueryTimeout((int) Math.min(Integer.MAX_VALUE, (remaining - 1) / 1_000_000_000L + 1));
+        return WatchdogHolder.WATCHDOG.watch(statement, System.nanoTime() + remaining);
+    }
+
+    /**
+     * @return the exception to throw if {@code e} comes from a cancelled or timed out statement, otherwise null
+     */
+    private static QueryCancelledException cancellation(StatementWatchdog.Watch watch, SQLException e) {
+        final String reason = watch == null ? null : watch.getCancelReason();
+        if (reason != null) {
+            return new QueryCancelledException("Statement cancelled because " + reason, e);
+        }
+        if (e instanceof SQLTimeoutException) {
+            return new QueryCancelledException("Statement cancelled because its query timeout passed", e);
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface StatementCall<S extends Statement, R> {
+        R call(S statement) throws SQLException;
+    }
+
+    private static final class WatchdogHolder {
+        private static final StatementWatchdog WATCHDOG = new StatementWatchdog();
     }
 
     public void closeStatementAndResultSet(PreparedStatement statement, ResultSet resultSet) {
-        LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, "Closing result set and statement");
+        LogUtils.writeLog(this.getClass(), LogUtils.Level.DEBUG, "Closing result set and statement");
         try {
             if (resultSet != null && !resultSet.isClosed()) {
                 resultSet.close();
@@ -458,26 +1029,27 @@ public class DatabaseExecutorImpl implements DatabaseExecutor {
                 storeProcedureName,
                 parameterString);
         CallableStatement statement = connection.prepareCall(sqlCallingSPStatement);
-        LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO,
-                "\n" + sqlCallingSPStatement.replaceAll("^\\n+|\\n+$", CommonConstant.EMPTY_STRING));
+        this.logSql(sqlCallingSPStatement);
         var inParameterIsNotNullAndNotEmpty = inParameters != null && !inParameters.isEmpty();
         if (inParameterIsNotNullAndNotEmpty) {
-            StringBuilder parametersLog = new StringBuilder("input parameters:");
+            final var parametersLog = this.parametersLog("input parameters:");
             this.handleInputParameters(statement, inParameters, parametersLog);
-            LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, parametersLog.toString());
+            this.logParameters(parametersLog);
         }
         var outParameterIsNotNullAndNotEmpty = outParameters != null && !outParameters.isEmpty();
         if (outParameterIsNotNullAndNotEmpty) {
-            StringBuilder parametersLog = new StringBuilder("output parameters:");
+            final var parametersLog = this.parametersLog("output parameters:");
             for (Integer i : outParameters.keySet()) {
                 statement.registerOutParameter(i, outParameters.get(i).getType());
-                parametersLog.append(
-                        String.format(
-                                "\n\t- parameter %s: %s",
-                                String.format("%-3d", i),
-                                outParameters.get(i).name()));
+                if (parametersLog != null) {
+                    parametersLog.append(
+                            String.format(
+                                    "\n\t- parameter %s: %s",
+                                    String.format("%-3d", i),
+                                    outParameters.get(i).name()));
+                }
             }
-            LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, parametersLog.toString());
+            this.logParameters(parametersLog);
         }
         return statement;
     }
@@ -493,36 +1065,74 @@ public class DatabaseExecutorImpl implements DatabaseExecutor {
         return stringValue;
     }
 
+    /**
+     * Logs a statement at DEBUG, the level SQL is written at now that its timing goes to {@link StatementMetrics}.
+     */
+    private void logSql(String sql) {
+        if (LogUtils.isEnabled(this.getClass(), LogUtils.Level.DEBUG)) {
+            LogUtils.writeLog(this.getClass(), LogUtils.Level.DEBUG,
+                    "\n" + sql.replaceAll("^\\n+|\\n+$", CommonConstant.EMPTY_STRING));
+        }
+    }
+
+    /**
+     * @return the builder of a parameters log, or {@code null} when DEBUG is off so that no value gets formatted
+     */
+    private StringBuilder parametersLog(String title) {
+        return LogUtils.isEnabled(this.getClass(), LogUtils.Level.DEBUG) ? new StringBuilder(title) : null;
+    }
+
+    private void logParameters(StringBuilder parametersLog) {
+        if (parametersLog != null) {
+            LogUtils.writeLog(this.getClass(), LogUtils.Level.DEBUG, parametersLog.toString());
+        }
+    }
+
     private void handleInputParameters(PreparedStatement statement, Map<Integer, Object> parameters,
                                        StringBuilder parametersLog) throws SQLException {
+        if (parameters instanceof SqlParameters) {
+            final SqlParameters sqlParameters = (SqlParameters) parameters;
+            sqlParameters.bind(statement);
+            if (parametersLog == null) {
+                return;
+            }
+            for (int i = 1; i <= sqlParameters.size(); i++) {
+                final Object parameterValue = sqlParameters.get(i);
+                parametersLog.append(
+                        String.format(
+                                "\n\t- parameter %s: %s",
+                                String.format("%-3d %-20s)", i,
+                                        "(" + (parameterValue == null ? CommonConstant.EMPTY_STRING : parameterValue.getClass().getSimpleName())),
+                                this.formatParameterValue(parameterValue)));
+            }
+            return;
+        }
         for (Integer i : parameters.keySet()) {
             Object parameterValue = parameters.get(i);
-            String aNull = String.format(
-                    "\n\t- parameter %s: %s",
-                    String.format("%-3d %-20s)", i, "("),
-                    "NULL");
-            if (parameterValue == null) {
+            if (parameterValue == null || parameterValue.getClass().isPrimitive()) {
                 statement.setObject(i, null);
-                parametersLog.append(aNull);
-                continue;
-            }
-            Class<?> parameterClass = parameters.get(i).getClass();
-            if (parameterClass.isPrimitive()) {
-                statement.setObject(i, null);
-                parametersLog.append(aNull);
+                if (parametersLog != null) {
+                    parametersLog.append(
+                            String.format(
+                                    "\n\t- parameter %s: %s",
+                                    String.format("%-3d %-20s)", i, "("),
+                                    "NULL"));
+                }
                 continue;
             }
-            String parameterSimpleClassName = parameterClass.getSimpleName();
+            String parameterSimpleClassName = parameterValue.getClass().getSimpleName();
             SqlStatementHandler sqlStatementHandler = DATA_TYPE_AND_SQL_STATEMENT_METHOD_MAP
                     .get(parameterSimpleClassName);
             if (sqlStatementHandler == null) {
                 throw new RuntimeException("unknown parameter type");
             }
-            parametersLog.append(
-                    String.format(
-                            "\n\t- parameter %s: %s",
-                            String.format("%-3d %-20s)", i, "(" + parameterSimpleClassName),
-                            this.formatParameterValue(parameterValue)));
+            if (parametersLog != null) {
+                parametersLog.append(
+                        String.format(
+                                "\n\t- parameter %s: %s",
+                                String.format("%-3d %-20s)", i, "(" + parameterSimpleClassName),
+                                this.formatParameterValue(parameterValue)));
+            }
             // statement.setObject(i, parameterValue);
             sqlStatementHandler.handle(i, parameterValue, statement);
         }
@@ -0,0 +1,82 @@
+package vn.io.lcx.common.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * The JDBC drivers {@link DatabaseExecutorImpl} knows the batching and fetching rules of, told apart by the URL of
+ * the connection.
+ */
+enum JdbcDriver {
+    POSTGRESQL("jdbc:postgresql:", "postgresql", 32767, "rewritebatchedinserts=true"),
+    MYSQL("jdbc:mysql:", "mysql", 65535, "rewritebatchedstatements=true"),
+    /**
+     * Sends batches with its bulk protocol by default
+     */
+    MARIADB("jdbc:mariadb:", "mysql", 65535, null),
+    /**
+     * At most 2100 parameters per statement
+     */
+    MSSQL("jdbc:sqlserver:", "mssql", 2000, "usebulkcopyforbatchinsert=true"),
+    /**
+     * Binds batches as arrays natively, and has no multi-row {@code VALUES}
+     */
+    ORACLE("jdbc:oracle:", "oracle", 0, null),
+    H2("jdbc:h2:", null, 32767, null),
+    OTHER(null, null, 0, null);
+
+    private final String urlPrefix;
+    private final String databaseType;
+    private final int maxParameters;
+    private final String rewriteProperty;
+
+    JdbcDriver(String urlPrefix, String databaseType, int maxParameters, String rewriteProperty) {
+        this.urlPrefix = urlPrefix;
+        this.databaseType = databaseType;
+        this.maxParameters = maxParameters;
+        this.rewriteProperty = rewriteProperty;
+    }
+
+    static JdbcDriver of(Connection connection) throws SQLException {
+        return of(connection.getMetaData().getURL());
+    }
+
+    static JdbcDriver of(String url) {
+        if (url != null) {
+            for (JdbcDriver driver : values()) {
+                if (driver.urlPrefix != null && url.startsWith(driver.urlPrefix)) {
+                    return driver;
+                }
+            }
+        }
+        return OTHER;
+    }
+
+    /**
+     * @return the database type of the {@link vn.io.lcx.common.database.utils.DatabaseStrategyFactory}, or
+     * {@code null} if it has no strategy for the database
+     */
+    String getDatabaseType() {
+        return databaseType;
+    }
+
+    /**
+     * @return the most parameters a multi-row {@code INSERT} may carry, 0 if the database has no multi-row
+     * {@code VALUES} or it is not known
+     */
+    int getMaxParameters() {
+        return maxParameters;
+    }
+
+    /**
+     * @return whether the driver already sends a batch of inserts efficiently with the given connection URL, so that
+     * rewriting it into multi-row {@code VALUES} gains nothing
+     */
+    boolean batchesInsertsItself(String url) {
+        if (this == MARIADB || this == ORACLE) {
+            return true;
+        }
+        return rewriteProperty != null && url != null && url.toLowerCase(Locale.ROOT).contains(rewriteProperty);
+    }
+}
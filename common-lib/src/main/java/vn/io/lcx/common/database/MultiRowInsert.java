@@ -0,0 +1,97 @@
+package vn.io.lcx.common.database;
+
+import java.util.Locale;
+
+/**
+ * An {@code INSERT ... VALUES (?, ...)} statement of one row, rewritten to insert several rows per statement:
+ * {@code INSERT ... VALUES (?, ...), (?, ...), ...}.
+ */
+final class MultiRowInsert {
+
+    private final String prefix;
+    private final String tuple;
+    private final int parametersPerRow;
+
+    private MultiRowInsert(String prefix, String tuple, int parametersPerRow) {
+        this.prefix = prefix;
+        this.tuple = tuple;
+        this.parametersPerRow = parametersPerRow;
+    }
+
+    /**
+     * @return the statement, or {@code null} if {@code sql} is not a plain single-row {@code INSERT ... VALUES}
+     * ending with its values, e.g. it has an {@code ON CONFLICT} or {@code RETURNING} clause, or parameters outside
+     * the values
+     */
+    static MultiRowInsert parse(String sql) {
+        String trimmed = sql.strip();
+        if (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).stripTrailing();
+        }
+        final String upper = trimmed.toUpperCase(Locale.ROOT);
+        if (!upper.startsWith("INSERT") || !trimmed.endsWith(")")) {
+            return null;
+        }
+        // the values are the last top-level parenthesis, right after the VALUES keyword
+        final int close = trimmed.length() - 1;
+        int open = -1;
+        int depth = 0;
+        boolean quoted = false;
+        for (int i = close; i >= 0; i--) {
+            final char c = trimmed.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (!quoted && c == ')') {
+                depth++;
+            } else if (!quoted && c == '(' && --depth == 0) {
+                open = i;
+                break;
+            }
+        }
+        if (open < 0) {
+            return null;
+        }
+        final String head = upper.substring(0, open).stripTrailing();
+        if (!head.endsWith("VALUES") || (head.length() > 6 && Character.isLetterOrDigit(head.charAt(head.length() - 7)))) {
+            return null;
+        }
+        final String tuple = trimmed.substring(open);
+        final int parametersPerRow = countParameters(tuple);
+        if (parametersPerRow == 0 || countParameters(trimmed) != parametersPerRow) {
+            return null;
+        }
+        return new MultiRowInsert(trimmed.substring(0, open), tuple, parametersPerRow);
+    }
+
+    private static int countParameters(String sql) {
+        int count = 0;
+        boolean quoted = false;
+        for (int i = 0; i < sql.length(); i++) {
+            final char c = sql.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (c == '?' && !quoted) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    int getParametersPerRow() {
+        return parametersPerRow;
+    }
+
+    /**
+     * @return the statement inserting {@code rows} rows
+     */
+    String sql(int rows) {
+        final StringBuilder sql = new StringBuilder(prefix.length() + (tuple.length() + 2) * rows).append(prefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(tuple);
+        }
+        return sql.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package vn.io.lcx.common.database;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes SQL text into the fingerprint shared by every execution of the same statement: comments removed,
+ * literals replaced by {@code ?}, whitespace collapsed, and lists of parameters or of rows collapsed to one, so that
+ * {@code IN (?, ?, ?)} and {@code IN (?)} are one statement.
+ */
+final class SqlFingerprint {
+
+    private static final int MAX_LENGTH = 300;
+    private static final int MAX_CACHED = 4096;
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\?(?:, ?\\?)+\\)");
+    private static final Pattern ROW_LIST = Pattern.compile("\\(\\?\\)(?:, ?\\(\\?\\))+");
+
+    /**
+     * Fingerprints of the SQL texts seen, which are mostly constants of the application
+     */
+    private static final Map<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private SqlFingerprint() {
+    }
+
+    static String of(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        final String cached = CACHE.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        final String fingerprint = normalize(sql);
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.put(sql, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    static String normalize(String sql) {
+        final StringBuilder out = new StringBuilder(Math.min(sql.length(), MAX_LENGTH * 2));
+        final int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            final char c = sql.charAt(i);
+            if (c == '\'') {
+                // string literal, '' being an escaped quote
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+                out.append('?');
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                while (i < length && sql.charAt(i) != '\n') {
+                    i++;
+                }
+                appendSpace(out);
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                final int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                appendSpace(out);
+            } else if (Character.isWhitespace(c)) {
+                i++;
+                appendSpace(out);
+            } else if (Character.isDigit(c) && !isIdentifierPart(out)) {
+                // numeric literal
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                out.append('?');
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        String fingerprint = out.toString().strip();
+        fingerprint = PARAMETER_LIST.matcher(fingerprint).replaceAll("(?)");
+        fingerprint = ROW_LIST.matcher(fingerprint).replaceAll("(?)");
+        return fingerprint.length() > MAX_LENGTH ? fingerprint.substring(0, MAX_LENGTH) : fingerprint;
+    }
+
+    private static void appendSpace(StringBuilder out) {
+        if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') {
+            out.append(' ');
+        }
+    }
+
+    private static boolean isIdentifierPart(StringBuilder out) {
+        if (out.length() == 0) {
+            return false;
+        }
+        final char previous = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '$' || previous == '"';
+    }
+}
@@ -0,0 +1,442 @@
+package vn.io.lcx.common.database;
+
+import vn.io.lcx.common.database.handler.statement.SqlStatementHandler;
+
+import java.math.BigDecimal;
+import java.sql.Clob;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static vn.io.lcx.common.constant.CommonConstant.DATA_TYPE_AND_SQL_STATEMENT_METHOD_MAP;
+
+/**
+ * Positional statement parameters kept in arrays, bound with the typed setters of {@link PreparedStatement}
+ * ({@code setLong}, {@code setInt}, ...) in index order. Primitive values are stored unboxed, and an instance can be
+ * {@link #clear() cleared} and refilled for every row of a batch, so binding allocates close to nothing.
+ * <p>
+ * It is also a {@code Map<Integer, Object>} from the 1-based position to the value, so that it can be passed to every
+ * method of {@link DatabaseExecutor}; {@link DatabaseExecutorImpl} recognises it and skips the map lookups. Positions
+ * below the highest one set that were never set are bound as NULL.
+ *
+ * <pre>{@code
+ * SqlParameters parameters = new SqlParameters()
+ *         .addLong(customerId)
+ *         .addString(status.name());
+ * executor.executeQuery(connection, "SELECT * FROM ORDERS WHERE CUSTOMER_ID = ? AND STATUS = ?", parameters, handler);
+ * }</pre>
+ */
+public final class SqlParameters extends AbstractMap<Integer, Object> {
+
+    private static final byte UNSET = 0;
+    private static final byte NULL = 1;
+    private static final byte LONG = 2;
+    private static final byte INT = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte STRING = 6;
+    private static final byte BIG_DECIMAL = 7;
+    private static final byte OBJECT = 8;
+
+    /**
+     * Type of the value at each position, index 0 being position 1
+     */
+    private byte[] types;
+    /**
+     * Primitive values, doubles as raw long bits, and the SQL type of NULL values
+     */
+    private long[] primitives;
+    private Object[] objects;
+    private int size;
+
+    public SqlParameters() {
+        this(8);
+    }
+
+    public SqlParameters(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
+        }
+        this.types = new byte[capacity];
+        this.primitives = new long[capacity];
+        this.objects = new Object[capacity];
+    }
+
+    /**
+     * @return parameters holding {@code values} at positions 1 to {@code values.length}
+     */
+    public static SqlParameters of(Object... values) {
+        final SqlParameters parameters = new SqlParameters(values.length);
+        for (Object value : values) {
+            parameters.addObject(value);
+        }
+        return parameters;
+    }
+
+    public SqlParameters setLong(int index, long value) {
+        final int slot = slot(index);
+        types[slot] = LONG;
+        primitives[slot] = value;
+        objects[slot] = null;
+        return this;
+    }
+
+    public SqlParameters setInt(int index, int value) {
+        final int slot = slot(index);
+        types[slot] = INT;
+        primitives[slot] = value;
+        objects[slot] = null;
+        return this;
+    }
+
+    public SqlParameters setDouble(int index, double value) {
+        final int slot = slot(index);
+        types[slot] = DOUBLE;
+        primitives[slot] = Double.doubleToRawLongBits(value);
+        objects[slot] = null;
+        return this;
+    }
+
+    public SqlParameters setBoolean(int index, boolean value) {
+        final int slot = slot(index);
+        types[slot] = BOOLEAN;
+        primitives[slot] = value ? 1 : 0;
+        objects[slot] = null;
+        return this;
+    }
+
+    public SqlParameters setString(int index, String value) {
+        return setReference(index, value == null ? NULL : STRING, value);
+    }
+
+    public SqlParameters setBigDecimal(int index, BigDecimal value) {
+        return setReference(index, value == null ? NULL : BIG_DECIMAL, value);
+    }
+
+    /**
+     * Sets a NULL of the given {@link Types SQL type}, which some drivers need to bind a NULL properly.
+     */
+    public SqlParameters setNull(int index, int sqlType) {
+        final int slot = slot(index);
+        types[slot] = NULL;
+        primitives[slot] = sqlType;
+        objects[slot] = null;
+        return this;
+    }
+
+    /**
+     * Sets a value of any type supported by {@link DatabaseExecutorImpl}, choosing the typed setter from its class.
+     *
+     * @throws IllegalArgumentException if the type of the value is not supported
+     */
+    public SqlParameters setObject(int index, Object value) {
+        if (value == null) {
+            return setNull(index, Types.NULL);
+        } else if (value instanceof Long) {
+            return setLong(index, (Long) value);
+        } else if (value instanceof Integer) {
+            return setInt(index, (Integer) value);
+        } else if (value instanceof Double) {
+            return setDouble(index, (Double) value);
+        } else if (value instanceof Boolean) {
+            return setBoolean(index, (Boolean) value);
+        } else if (value instanceof String) {
+            return setString(index, (String) value);
+        } else if (value instanceof BigDecimal) {
+            return setBigDecimal(index, (BigDecimal) value);
+        }
+        if (DATA_TYPE_AND_SQL_STATEMENT_METHOD_MAP.get(value.getClass().getSimpleName()) == null) {
+            throw new IllegalArgumentException("unknown parameter type " + value.getClass().getName());
+        }
+        return setReference(index, OBJECT, value);
+    }
+
+    /**
+     * Copies {@code parameters} into these parameters, position by position.
+     */
+    public SqlParameters setAll(Map<Integer, Object> parameters) {
+        for (Map.Entry<Integer, Object> entry : parameters.entrySet()) {
+            setObject(entry.getKey(), entry.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * Appends the values of {@code parameters} after the highest position set, as {@code INSERT ... VALUES} rewritten
+     * to several rows binds them.
+     */
+    public SqlParameters addAll(SqlParameters parameters) {
+        final int offset = size;
+        if (parameters.size > 0) {
+            slot(offset + parameters.size);
+            System.arraycopy(parameters.types, 0, types, offset, parameters.size);
+            System.arraycopy(parameters.primitives, 0, primitives, offset, parameters.size);
+            System.arraycopy(parameters.objects, 0, objects, offset, parameters.size);
+        }
+        return this;
+    }
+
+    public SqlParameters addLong(long value) {
+        return setLong(size + 1, value);
+    }
+
+    public SqlParameters addInt(int value) {
+        return setInt(size + 1, value);
+    }
+
+    public SqlParameters addDouble(double value) {
+        return setDouble(size + 1, value);
+    }
+
+    public SqlParameters addBoolean(boolean value) {
+        return setBoolean(size + 1, value);
+    }
+
+    public SqlParameters addString(String value) {
+        return setString(size + 1, value);
+    }
+
+    public SqlParameters addBigDecimal(BigDecimal value) {
+        return setBigDecimal(size + 1, value);
+    }
+
+    public SqlParameters addNull(int sqlType) {
+        return setNull(size + 1, sqlType);
+    }
+
+    public SqlParameters addObject(Object value) {
+        return setObject(size + 1, value);
+    }
+
+    /**
+     * @return the highest position set
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every value, keeping the arrays for the next use.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(types, 0, size, UNSET);
+        Arrays.fill(objects, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * @return the value at the 1-based {@code index}, boxed, or {@code null}
+     */
+    public Object get(int index) {
+        if (index < 1 || index > size) {
+            return null;
+        }
+        final int slot = index - 1;
+        switch (types[slot]) {
+            case LONG:
+                return primitives[slot];
+            case INT:
+                return (int) primitives[slot];
+            case DOUBLE:
+                return Double.longBitsToDouble(primitives[slot]);
+            case BOOLEAN:
+                return primitives[slot] != 0;
+            default:
+                return objects[slot];
+        }
+    }
+
+    @Override
+    public Object get(Object key) {
+        return key instanceof Integer ? get(((Integer) key).intValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && (Integer) key >= 1 && (Integer) key <= size;
+    }
+
+    @Override
+    public Object put(Integer key, Object value) {
+        final Object previous = get(key.intValue());
+        setObject(key, value);
+        return previous;
+    }
+
+    /**
+     * Binds every position to {@code statement} with the typed setter of its value.
+     */
+    public void bind(PreparedStatement statement) throws SQLException {
+        for (int slot = 0; slot < size; slot++) {
+            final int index = slot + 1;
+            switch (types[slot]) {
+                case LONG:
+                    statement.setLong(index, primitives[slot]);
+                    break;
+                case INT:
+                    statement.setInt(index, (int) primitives[slot]);
+                    break;
+                case DOUBLE:
+                    statement.setDouble(index, Double.longBitsToDouble(primitives[slot]));
+                    break;
+                case BOOLEAN:
+                    statement.setBoolean(index, primitives[slot] != 0);
+                    break;
+                case STRING:
+                    statement.setString(index, (String) objects[slot]);
+                    break;
+                case BIG_DECIMAL:
+                    statement.setBigDecimal(index, (BigDecimal) objects[slot]);
+                    break;
+                case OBJECT:
+                    final SqlStatementHandler handler = DATA_TYPE_AND_SQL_STATEMENT_METHOD_MAP
+                            .get(objects[slot].getClass().getSimpleName());
+                    handler.handle(index, objects[slot], statement);
+                    break;
+                case NULL:
+                    if (primitives[slot] == Types.NULL) {
+                        statement.setObject(index, null);
+                    } else {
+                        statement.setNull(index, (int) primitives[slot]);
+                    }
+                    break;
+                default:
+                    statement.setObject(index, null);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Appends the values as one row of the PostgreSQL {@code COPY} text format: tab separated, {@code \N} for NULL,
+     * ended by a newline. Values of other types are written with {@code toString()}.
+     */
+    void appendCopyText(StringBuilder out) throws SQLException {
+        for (int slot = 0; slot < size; slot++) {
+            if (slot > 0) {
+                out.append('\t');
+            }
+            switch (types[slot]) {
+                case LONG:
+                case INT:
+                    out.append(primitives[slot]);
+                    break;
+                case DOUBLE:
+                    out.append(Double.longBitsToDouble(primitives[slot]));
+                    break;
+                case BOOLEAN:
+                    out.append(primitives[slot] != 0 ? 't' : 'f');
+                    break;
+                case BIG_DECIMAL:
+                    out.append(((BigDecimal) objects[slot]).toPlainString());
+                    break;
+                case STRING:
+                    appendEscaped(out, (String) objects[slot]);
+                    break;
+                case OBJECT:
+                    if (objects[slot] instanceof Clob) {
+                        final Clob clob = (Clob) objects[slot];
+                        appendEscaped(out, clob.getSubString(1, (int) clob.length()));
+                    } else {
+                        appendEscaped(out, objects[slot].toString());
+                    }
+                    break;
+                default:
+                    out.append("\\N");
+                    break;
+            }
+        }
+        out.append('\n');
+    }
+
+    private static void appendEscaped(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                default:
+                    out.append(c);
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public Set<Entry<Integer, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, Object>> iterator() {
+                return new Iterator<>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < size;
+                    }
+
+                    @Override
+                    public Entry<Integer, Object> next() {
+                        if (index >= size) {
+                            throw new NoSuchElementException();
+                        }
+                        index++;
+                        return new SimpleImmutableEntry<>(index, get(index));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private SqlParameters setReference(int index, byte type, Object value) {
+        final int slot = slot(index);
+        types[slot] = type;
+        primitives[slot] = type == NULL ? Types.NULL : 0;
+        objects[slot] = value;
+        return this;
+    }
+
+    /**
+     * @return the array slot of the 1-based {@code index}, growing the arrays and the size to reach it
+     */
+    private int slot(int index) {
+        if (index < 1) {
+            throw new IllegalArgumentException("parameter index starts from 1");
+        }
+        if (index > types.length) {
+            final int capacity = Math.max(index, Math.max(8, types.length * 2));
+            types = Arrays.copyOf(types, capacity);
+            primitives = Arrays.copyOf(primitives, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+        }
+        if (index > size) {
+            size = index;
+        }
+        return index - 1;
+    }
+
+}
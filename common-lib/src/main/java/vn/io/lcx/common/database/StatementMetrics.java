@@ -0,0 +1,343 @@
+package vn.io.lcx.common.database;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import vn.io.lcx.common.utils.LogUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and row metrics of the statements run by {@link DatabaseExecutorImpl} and {@link BulkLoader}, keyed by
+ * the fingerprint of their SQL: the text with literals replaced by {@code ?} and parameter lists collapsed, so that
+ * every execution of a statement lands on the same meters whatever its values. Published as Micrometer meters:
+ * <ul>
+ *   <li>{@code db.statement.duration{statement, type, outcome=success|error}}: the time of a call, from preparing
+ *       the statement to its last row read, with 6 latency buckets from 5 ms to 5 s, or a full percentile
+ *       histogram when {@link #setPercentileHistogram(boolean) enabled}</li>
+ *   <li>{@code db.statement.rows{statement, type}}: the rows returned by a query, or modified by a mutation</li>
+ *   <li>{@code db.connection.acquire{outcome=success|error}}: the time to get a connection through
+ *       {@link #getConnection(DataSource)}</li>
+ * </ul>
+ * The Vert.x deployment binds the executor to its Prometheus registry when {@code server.metrics.enable} is set;
+ * registries bound later also receive the meters already created. At most
+ * {@link #setMaxStatements(int) 100 statements} get their own meters, the others share {@code statement=other}.
+ * A percentile histogram is about 70 series per statement, type and outcome, so it is left to the applications that
+ * keep the statement count low.
+ *
+ * <p>Statements slower than {@link #setSlowStatementThreshold(Duration) the threshold}, 1 second by default, are
+ * logged at WARN with their SQL and parameters, at most once per statement every
+ * {@link #setSlowStatementLogInterval(Duration) 10 seconds}; the next report tells how many were skipped.</p>
+ */
+public final class StatementMetrics implements MeterBinder {
+
+    private static final StatementMetrics INSTANCE = new StatementMetrics();
+    private static final String OTHER = "other";
+    /**
+     * The latency buckets of {@code db.statement.duration} when percentile histograms are off
+     */
+    private static final Duration[] STATEMENT_SLOS = {
+            Duration.ofMillis(5),
+            Duration.ofMillis(25),
+            Duration.ofMillis(100),
+            Duration.ofMillis(500),
+            Duration.ofSeconds(1),
+            Duration.ofSeconds(5)
+    };
+
+    private final CompositeMeterRegistry registry = new CompositeMeterRegistry();
+    private final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+    private volatile int maxStatements = 100;
+    private volatile boolean percentileHistogram;
+    private volatile long slowThresholdNanos = TimeUnit.SECONDS.toNanos(1);
+    private volatile long slowLogIntervalNanos = TimeUnit.SECONDS.toNanos(10);
+    private volatile Timer acquireSuccess;
+    private volatile Timer acquireError;
+
+    private StatementMetrics() {
+    }
+
+    public static StatementMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the fingerprint statements of {@code sql} are published under
+     */
+    public static String fingerprint(String sql) {
+        return SqlFingerprint.of(sql);
+    }
+
+    /**
+     * Publishes the meters of every statement to the given registry, including the ones created before.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry.add(registry);
+    }
+
+    /**
+     * @param threshold the duration from which a statement is logged as slow, {@code null} or zero to log none
+     */
+    public void setSlowStatementThreshold(Duration threshold) {
+        if (threshold != null && threshold.isNegative()) {
+            throw new IllegalArgumentException("threshold must not be negative");
+        }
+        this.slowThresholdNanos = threshold == null ? 0 : threshold.toNanos();
+    }
+
+    /**
+     * @param interval the minimum time between two slow logs of the same statement
+     */
+    public void setSlowStatementLogInterval(Duration interval) {
+        if (interval == null || interval.isNegative()) {
+            throw new IllegalArgumentException("interval must not be null or negative");
+        }
+        this.slowLogIntervalNanos = interval.toNanos();
+    }
+
+    /**
+     * @param maxStatements the number of distinct statements getting their own meters
+     */
+    public void setMaxStatements(int maxStatements) {
+        if (maxStatements < 0) {
+            throw new IllegalArgumentException("maxStatements must not be negative");
+        }
+        this.maxStatements = maxStatements;
+    }
+
+    /**
+     * @param percentileHistogram whether {@code db.statement.duration} publishes a full percentile histogram instead
+     *                            of the 6 latency buckets; only applies to the meters created afterwards
+     */
+    public void setPercentileHistogram(boolean percentileHistogram) {
+        this.percentileHistogram = percentileHistogram;
+    }
+
+    /**
+     * Gets a connection from {@code dataSource}, recording the time it took in {@code db.connection.acquire}.
+     */
+    public Connection getConnection(DataSource dataSource) throws SQLException {
+        final long startedAt = System.nanoTime();
+        boolean success = false;
+        try {
+            final Connection connection = dataSource.getConnection();
+            success = true;
+            return connection;
+        } finally {
+            this.recordConnectionAcquisition(System.nanoTime() - startedAt, success);
+        }
+    }
+
+    /**
+     * Records the time taken to get a connection from a pool not reached through {@link #getConnection(DataSource)}.
+     */
+    public void recordConnectionAcquisition(long nanos, boolean success) {
+        if (registry.getRegistries().isEmpty()) {
+            return;
+        }
+        Timer timer = success ? acquireSuccess : acquireError;
+        if (timer == null) {
+            timer = Timer.builder("db.connection.acquire")
+                    .tag("outcome", success ? "success" : "error")
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(100_000))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .description("The time taken to get a database connection")
+                    .register(registry);
+            if (success) {
+                acquireSuccess = timer;
+            } else {
+                acquireError = timer;
+            }
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Starts timing one execution of a statement; {@link Sample#stop()} must be called once it is done.
+     *
+     * @param parameters the parameters of the statement, only formatted if it is logged as slow; may be null
+     */
+    Sample start(String sql, StatementType type, Map<Integer, Object> parameters) {
+        return new Sample(sql, type, parameters);
+    }
+
+    private StatementStats stats(String sql) {
+        final String fingerprint = SqlFingerprint.of(sql);
+        final StatementStats stats = statements.get(fingerprint);
+        if (stats != null) {
+            return stats;
+        }
+        if (statements.size() >= maxStatements) {
+            return statements.computeIfAbsent(OTHER, StatementStats::new);
+        }
+        return statements.computeIfAbsent(fingerprint, StatementStats::new);
+    }
+
+    private void record(Sample sample, long nanos) {
+        final boolean published = !registry.getRegistries().isEmpty();
+        final long slowThreshold = slowThresholdNanos;
+        final boolean slow = slowThreshold > 0 && nanos >= slowThreshold;
+        if (!published && !slow) {
+            return;
+        }
+        final StatementStats stats = this.stats(sample.sql);
+        if (published) {
+            stats.timer(sample.type, sample.success).record(nanos, TimeUnit.NANOSECONDS);
+            if (sample.success) {
+                stats.rows(sample.type).record(sample.rows);
+            }
+        }
+        if (slow) {
+            stats.slow(sample, nanos);
+        }
+    }
+
+    /**
+     * What kind of call a statement was run by
+     */
+    enum StatementType {
+        QUERY,
+        MUTATION,
+        BATCH,
+        PROCEDURE,
+        COPY;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * One execution being timed
+     */
+    final class Sample {
+        private final String sql;
+        private final StatementType type;
+        private final Map<Integer, Object> parameters;
+        private final long startedAt = System.nanoTime();
+        private boolean success;
+        private long rows;
+        private boolean stopped;
+
+        private Sample(String sql, StatementType type, Map<Integer, Object> parameters) {
+            this.sql = sql;
+            this.type = type;
+            this.parameters = parameters;
+        }
+
+        /**
+         * Marks the execution successful, with the rows it returned or modified.
+         */
+        void success(long rows) {
+            this.success = true;
+            this.rows = rows;
+        }
+
+        /**
+         * Records the execution, as an error unless {@link #success(long)} was called; only the first call counts.
+         */
+        void stop() {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            record(this, System.nanoTime() - startedAt);
+        }
+    }
+
+    /**
+     * The meters and slow log sampling of one statement fingerprint
+     */
+    private final class StatementStats {
+        private final String fingerprint;
+        private final Timer[] timers = new Timer[StatementType.values().length * 2];
+        private final DistributionSummary[] rows = new DistributionSummary[StatementType.values().length];
+        private final AtomicLong lastSlowLog = new AtomicLong();
+        private final LongAdder skippedSlowLogs = new LongAdder();
+
+        private StatementStats(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private Timer timer(StatementType type, boolean success) {
+            final int index = type.ordinal() * 2 + (success ? 0 : 1);
+            Timer timer = timers[index];
+            if (timer == null) {
+                // registering twice returns the same timer, so racing threads are harmless
+                final Timer.Builder builder = Timer.builder("db.statement.duration")
+                        .tags("statement", fingerprint, "type", type.tag, "outcome", success ? "success" : "error")
+                        .description("The time of a statement, from its preparation to its last row read");
+                if (percentileHistogram) {
+                    builder.publishPercentileHistogram()
+                            .minimumExpectedValue(Duration.ofNanos(100_000))
+                            .maximumExpectedValue(Duration.ofMinutes(1));
+                } else {
+                    builder.serviceLevelObjectives(STATEMENT_SLOS);
+                }
+                timer = builder.register(registry);
+                timers[index] = timer;
+            }
+            return timer;
+        }
+
+        private DistributionSummary rows(StatementType type) {
+            DistributionSummary summary = rows[type.ordinal()];
+            if (summary == null) {
+                summary = DistributionSummary.builder("db.statement.rows")
+                        .tags("statement", fingerprint, "type", type.tag)
+                        .baseUnit("rows")
+                        .description("The rows returned or modified by a statement")
+                        .register(registry);
+                rows[type.ordinal()] = summary;
+            }
+            return summary;
+        }
+
+        private void slow(Sample sample, long nanos) {
+            final long now = System.nanoTime();
+            final long last = lastSlowLog.get();
+            if (last != 0 && now - last < slowLogIntervalNanos || !lastSlowLog.compareAndSet(last, now)) {
+                skippedSlowLogs.increment();
+                return;
+            }
+            if (!LogUtils.isEnabled(StatementMetrics.class, LogUtils.Level.WARN)) {
+                return;
+            }
+            final long skipped = skippedSlowLogs.sumThenReset();
+            LogUtils.writeLog(StatementMetrics.class, LogUtils.Level.WARN,
+                    "Slow {} statement took {} ms, {}{}:\n{}{}",
+                    sample.type.tag,
+                    TimeUnit.NANOSECONDS.toMillis(nanos),
+                    sample.success ? sample.rows + " row(s)" : "failed",
+                    skipped == 0 ? "" : String.format(" (%d more slow execution(s) since the last report)", skipped),
+                    sample.sql.strip(),
+                    formatParameters(sample.parameters));
+        }
+    }
+
+    private static String formatParameters(Map<Integer, Object> parameters) {
+        if (parameters == null || parameters.isEmpty()) {
+            return "";
+        }
+        final StringBuilder log = new StringBuilder("\nparameters:");
+        for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+            String value = String.valueOf(parameter.getValue());
+            if (value.length() > 100) {
+                value = value.substring(0, 10) + "..." + value.substring(value.length() - 10);
+            }
+            log.append("\n\t- parameter ").append(parameter.getKey()).append(": ").append(value);
+        }
+        return log.toString();
+    }
+}
@@ -0,0 +1,111 @@
+package vn.io.lcx.common.database;
+
+import vn.io.lcx.common.utils.LogUtils;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cancels in-flight statements whose deadline passed or whose calling thread was interrupted. A JDBC call blocked on
+ * the network does not react to {@link Thread#interrupt()}, so a single daemon thread checks the registered
+ * statements every {@link #SCAN_INTERVAL_MILLIS} milliseconds and calls {@link Statement#cancel()} on them; it parks
+ * while no statement is running.
+ */
+final class StatementWatchdog {
+
+    private static final long SCAN_INTERVAL_MILLIS = 50;
+
+    private final Set<Watch> inFlight = ConcurrentHashMap.newKeySet();
+    private final Thread thread;
+    private volatile boolean idle;
+
+    StatementWatchdog() {
+        this.thread = new Thread(this::scan, "lcx-statement-watchdog");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Starts watching {@code statement} for the current thread until the returned watch is closed.
+     *
+     * @param deadlineNanos the {@link System#nanoTime()} to cancel the statement at, {@link Long#MAX_VALUE} for none
+     */
+    Watch watch(Statement statement, long deadlineNanos) {
+        final Watch watch = new Watch(statement, Thread.currentThread(), deadlineNanos);
+        inFlight.add(watch);
+        if (idle) {
+            LockSupport.unpark(thread);
+        }
+        return watch;
+    }
+
+    private void scan() {
+        while (true) {
+            if (inFlight.isEmpty()) {
+                idle = true;
+                if (inFlight.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                continue;
+            }
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(SCAN_INTERVAL_MILLIS));
+            final long now = System.nanoTime();
+            for (Watch watch : inFlight) {
+                if (watch.caller.isInterrupted()) {
+                    watch.cancel("the calling thread was interrupted");
+                } else if (watch.deadlineNanos != Long.MAX_VALUE && now - watch.deadlineNanos >= 0) {
+                    watch.cancel("its deadline passed");
+                }
+            }
+        }
+    }
+
+    final class Watch implements AutoCloseable {
+        private final Statement statement;
+        private final Thread caller;
+        private final long deadlineNanos;
+        private String cancelReason;
+        private boolean closed;
+
+        private Watch(Statement statement, Thread caller, long deadlineNanos) {
+            this.statement = statement;
+            this.caller = caller;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * @return why the statement was cancelled, or {@code null} if it was not
+         */
+        synchronized String getCancelReason() {
+            return cancelReason;
+        }
+
+        private synchronized void cancel(String reason) {
+            if (closed || cancelReason != null) {
+                return;
+            }
+            cancelReason = reason;
+            inFlight.remove(this);
+            try {
+                statement.cancel();
+                LogUtils.writeLog(StatementWatchdog.class, LogUtils.Level.WARN, "Cancelled statement because {}", reason);
+            } catch (SQLException e) {
+                LogUtils.writeLog(StatementWatchdog.class, "Cannot cancel statement", e, LogUtils.Level.WARN);
+            }
+        }
+
+        /**
+         * Stops watching; waits for a cancellation in progress so that it cannot hit a later use of the statement.
+         */
+        @Override
+        public synchronized void close() {
+            closed = true;
+            inFlight.remove(this);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package vn.io.lcx.common.database.context;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * The point in time by which the statements run by {@link vn.io.lcx.common.database.DatabaseExecutorImpl} on the
+ * current thread must finish, usually taken from the timeout of the incoming request. A statement still running at
+ * the deadline is cancelled with {@link java.sql.Statement#cancel()}.
+ *
+ * <p>The deadline only lives for the scope of {@link #callWithin} or {@link #runWithin}, or of a task returned by
+ * {@link #wrap}. For an HTTP request, {@code VertxBaseVerticle#queryDeadlineHandler} keeps the deadline in the
+ * {@code RoutingContext} and {@code ReactiveController#executeBlocking} applies it on the worker thread, so nothing is
+ * left behind on the event loop.</p>
+ *
+ * <pre>{@code
+ * // for one call
+ * List<Order> orders = QueryDeadline.callWithin(Duration.ofSeconds(2),
+ *         () -> executor.executeQuery(connection, sql, parameters, Order::fromRow));
+ *
+ * // for a request, with router.route("/api/*").handler(queryDeadlineHandler(Duration.ofSeconds(5)))
+ * executeBlocking(ctx, () -> service.report(filter))
+ *         .onSuccess(report -> handleResponse(ctx, gson, report))
+ *         .onFailure(e -> handleError(ctx, gson, e));
+ * }</pre>
+ */
+public final class QueryDeadline {
+
+    /**
+     * The deadline as a {@link System#nanoTime()} value
+     */
+    private static final ThreadLocal<Long> deadlineThreadLocal = new ThreadLocal<>();
+
+    private QueryDeadline() {
+    }
+
+    /**
+     * Sets the deadline of the current thread to {@code timeout} from now. It stays until {@link #clear()}, so call
+     * it in a {@code try} block clearing it in {@code finally}; {@link #callWithin} does both.
+     */
+    public static void set(Duration timeout) {
+        deadlineThreadLocal.set(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * @return the deadline of the current thread as a {@link System#nanoTime()} value, or {@code null} if none
+     */
+    public static Long get() {
+        return deadlineThreadLocal.get();
+    }
+
+    /**
+     * @return the time left before the deadline, negative once passed, or {@link Long#MAX_VALUE} if there is none
+     */
+    public static long remainingNanos() {
+        final Long deadline = deadlineThreadLocal.get();
+        return deadline == null ? Long.MAX_VALUE : deadline - System.nanoTime();
+    }
+
+    public static void clear() {
+        deadlineThreadLocal.remove();
+    }
+
+    /**
+     * Runs {@code action} with a deadline of {@code timeout} from now, or the current deadline if that one is
+     * earlier, then restores the current deadline.
+     */
+    public static <T> T callWithin(Duration timeout, Supplier<T> action) {
+        final Long previous = deadlineThreadLocal.get();
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        deadlineThreadLocal.set(previous != null && previous - deadline < 0 ? previous : deadline);
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static void runWithin(Duration timeout, Runnable action) {
+        callWithin(timeout, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return a task running {@code callable} under the deadline of the current thread, for handing work over to
+     * another thread
+     */
+    public static <T> Callable<T> wrap(Callable<T> callable) {
+        return wrap(deadlineThreadLocal.get(), callable);
+    }
+
+    /**
+     * @param deadline the deadline as a {@link System#nanoTime()} value, or {@code null} for none
+     * @return a task running {@code callable} under {@code deadline}, then restoring the deadline of the thread
+     * running it
+     */
+    public static <T> Callable<T> wrap(Long deadline, Callable<T> callable) {
+        return () -> {
+            final Long previous = deadlineThreadLocal.get();
+            restore(deadline);
+            try {
+                return callable.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    public static Runnable wrap(Runnable runnable) {
+        final Long deadline = deadlineThreadLocal.get();
+        return () -> {
+            final Long previous = deadlineThreadLocal.get();
+            restore(deadline);
+            try {
+                runnable.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void restore(Long deadline) {
+        if (deadline == null) {
+            deadlineThreadLocal.remove();
+        } else {
+            deadlineThreadLocal.set(deadline);
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package vn.io.lcx.common.database.utils;
+
+/**
+ * Mechanism used to load many rows into a table at once
+ */
+public enum BulkLoadMethod {
+    /**
+     * {@code COPY ... FROM STDIN}, streaming the rows as text through the driver's copy API
+     */
+    COPY,
+    /**
+     * {@code INSERT ... VALUES (...), (...), ...}, several rows per statement
+     */
+    MULTI_ROW_INSERT,
+    /**
+     * A JDBC batch of single-row inserts, which the driver binds as arrays
+     */
+    BATCH
+}
@@ -87,4 +87,11 @@ public interface DatabaseStrategy {
      * @return the cascade options
      */
     String generateForeignKeyCascade(boolean cascade);
+
+    /**
+     * Get the fastest way to load many rows into a table of the specified database
+     *
+     * @return the bulk load method
+     */
+    BulkLoadMethod getBulkLoadMethod();
 }
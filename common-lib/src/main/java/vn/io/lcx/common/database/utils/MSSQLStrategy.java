@@ -70,4 +70,9 @@ public class MSSQLStrategy implements DatabaseStrategy {
     public String generateForeignKeyCascade(boolean cascade) {
         return cascade ? "\nON DELETE CASCADE\nON UPDATE CASCADE;" : ";";
     }
+
+    @Override
+    public BulkLoadMethod getBulkLoadMethod() {
+        return BulkLoadMethod.MULTI_ROW_INSERT;
+    }
 }
@@ -75,4 +75,9 @@ public class MySQLStrategy implements DatabaseStrategy {
     public String generateForeignKeyCascade(boolean cascade) {
         return cascade ? "\nON DELETE CASCADE\nON UPDATE RESTRICT;" : ";";
     }
+
+    @Override
+    public BulkLoadMethod getBulkLoadMethod() {
+        return BulkLoadMethod.MULTI_ROW_INSERT;
+    }
 }
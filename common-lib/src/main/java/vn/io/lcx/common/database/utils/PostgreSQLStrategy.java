@@ -95,4 +95,9 @@ public class PostgreSQLStrategy implements DatabaseStrategy {
     public String generateForeignKeyCascade(boolean cascade) {
         return cascade ? "\nON DELETE SET NULL\nON UPDATE CASCADE;" : ";";
     }
+
+    @Override
+    public BulkLoadMethod getBulkLoadMethod() {
+        return BulkLoadMethod.COPY;
+    }
 }
@@ -0,0 +1,19 @@
+package vn.io.lcx.common.exception;
+
+public class BatchProcessingException extends RuntimeException {
+    private static final long serialVersionUID = -1745301236872261958L;
+
+    private final long batchIndex;
+
+    public BatchProcessingException(String message, long batchIndex, Throwable cause) {
+        super(message, cause);
+        this.batchIndex = batchIndex;
+    }
+
+    /**
+     * @return the index of the failed batch, starting from 0, or -1 if the failure is not tied to a batch
+     */
+    public long getBatchIndex() {
+        return batchIndex;
+    }
+}
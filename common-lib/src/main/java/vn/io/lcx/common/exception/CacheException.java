@@ -6,4 +6,8 @@ public class CacheException extends RuntimeException {
     public CacheException(String message) {
         super(message);
     }
+
+    public CacheException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
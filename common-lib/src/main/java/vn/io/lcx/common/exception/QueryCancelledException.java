@@ -0,0 +1,13 @@
+package vn.io.lcx.common.exception;
+
+public class QueryCancelledException extends RuntimeException {
+    private static final long serialVersionUID = -3208461157209934183L;
+
+    public QueryCancelledException(String message) {
+        super(message);
+    }
+
+    public QueryCancelledException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,13 @@
+package vn.io.lcx.common.exception;
+
+public class TaskGroupException extends RuntimeException {
+    private static final long serialVersionUID = 6213470921853186482L;
+
+    public TaskGroupException(String message) {
+        super(message);
+    }
+
+    public TaskGroupException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,120 @@
+package vn.io.lcx.common.lock;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Waits for file locks held by other processes.
+ *
+ * <p>A blocking {@link FileChannel#lock(long, long, boolean)} sleeps in the kernel and returns as soon as the other
+ * process releases its lock, so it is used instead of polling {@code tryLock}. It cannot be given a timeout or be
+ * interrupted without closing the channel, so it runs on a dedicated daemon platform thread (a blocking file lock
+ * would pin the carrier of a virtual thread), and callers wait on the returned future with their own timeout.</p>
+ */
+final class FileLockWaiter {
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private static final ExecutorService waiters = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "lcx-file-lock-waiter-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private FileLockWaiter() {
+    }
+
+    /**
+     * Starts waiting for a lock.
+     *
+     * @param channel  the channel of the lock file
+     * @param position the first byte of the locked range
+     * @param size     the size of the locked range
+     * @param shared   true for a shared lock, false for an exclusive one
+     * @return a future completed with the lock once it is granted
+     */
+    static CompletableFuture<FileLock> lock(FileChannel channel, long position, long size, boolean shared) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return channel.lock(position, size, shared);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, waiters);
+    }
+
+    /**
+     * Waits for a pending lock.
+     *
+     * @param attempt      the pending lock
+     * @param timeoutNanos the longest time to wait, negative to wait as long as needed
+     * @return the lock, or null if the timeout elapsed first
+     * @throws InterruptedException  if the calling thread is interrupted while waiting
+     * @throws LockManager.LockException if the lock could not be acquired
+     */
+    static FileLock await(CompletableFuture<FileLock> attempt, long timeoutNanos) throws InterruptedException {
+        try {
+            if (timeoutNanos < 0) {
+                return attempt.get();
+            }
+            return attempt.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (ExecutionException e) {
+            throw new LockManager.LockException("I/O error occurred while waiting for file lock", e.getCause());
+        }
+    }
+
+    /**
+     * Waits for a pending lock to be granted or to fail.
+     *
+     * @param attempt      the pending lock
+     * @param timeoutNanos the longest time to wait, negative to wait as long as needed
+     * @return false if the timeout elapsed first
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    static boolean awaitCompletion(CompletableFuture<FileLock> attempt, long timeoutNanos) throws InterruptedException {
+        try {
+            await(attempt, timeoutNanos);
+        } catch (LockManager.LockException ignored) {
+            // failed attempts are completed too
+        }
+        return attempt.isDone();
+    }
+
+    /**
+     * Releases the lock of a completed attempt, if it was granted.
+     *
+     * @param attempt the attempt
+     */
+    static void releaseQuietly(CompletableFuture<FileLock> attempt) {
+        if (attempt.isDone() && !attempt.isCompletedExceptionally()) {
+            releaseQuietly(attempt.join());
+        }
+    }
+
+    /**
+     * Releases a lock without failing, for locks that were granted after their caller gave up.
+     *
+     * @param lock the lock, may be null
+     */
+    static void releaseQuietly(FileLock lock) {
+        if (lock == null || !lock.isValid()) {
+            return;
+        }
+        try {
+            lock.release();
+        } catch (IOException ignored) {
+            // the channel was closed meanwhile, which released the lock
+        }
+    }
+}
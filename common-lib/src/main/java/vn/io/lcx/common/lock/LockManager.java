@@ -10,7 +10,10 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * LockManager - A utility class that provides file-based locking mechanism for process synchronization.
@@ -26,14 +29,25 @@ import java.util.concurrent.TimeUnit;
  *     // Execute critical section code here
  * } // Lock is automatically released when exiting the try-with-resources block
  * </pre>
+ * <p>
+ * To hold many locks, or shared (reader) locks, use a {@link LockTable}, which maps named locks to byte ranges of
+ * a single lock file.
  *
  * @since 1.0
  */
 public class LockManager implements AutoCloseable {
 
     private final File file;
+    /**
+     * Guards the state of this instance; unlike a monitor, waiting for it does not pin a virtual thread
+     */
+    private final ReentrantLock instanceLock = new ReentrantLock();
     private FileChannel channel = null;
     private FileLock lock = null;
+    /**
+     * A lock requested by {@link #tryLock(long, TimeUnit)} whose caller timed out before it was granted
+     */
+    private CompletableFuture<FileLock> pendingLock = null;
 
     /**
      * Creates a new LockManager instance.
@@ -56,12 +70,99 @@ public class LockManager implements AutoCloseable {
 
     /**
      * Acquires an exclusive lock on the file.
-     * This method is synchronized to prevent concurrent lock attempts from the same instance.
+     * Concurrent lock attempts from the same instance are serialized.
      *
      * @throws LockException if the process is already locked, if the file cannot be created,
      *                       if the lock cannot be acquired, or if an I/O error occurs
      */
-    public synchronized void lock() {
+    public void lock() {
+        instanceLock.lock();
+        try {
+            this.openChannel();
+            if (this.pendingLock != null) {
+                if (!this.pendingLock.isDone()) {
+                    throw new LockException("Failed to lock file, it may be locked by another process");
+                }
+                this.adoptPendingLock();
+                return;
+            }
+            this.lock = this.channel.tryLock();
+            if (this.lock != null) {
+                LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, "File locked successfully");
+            } else {
+                throw new LockException("Failed to lock file, it may be locked by another process");
+            }
+        } catch (IOException e) {
+            closeResources();
+            throw new LockException("I/O error occurred while trying to lock file", e);
+        } finally {
+            instanceLock.unlock();
+        }
+    }
+
+    /**
+     * Attempts to acquire a lock with a specified timeout.
+     * <p>
+     * The wait is not polled: the lock is requested with a blocking file lock, which the operating system grants as
+     * soon as the holding process releases it. If the timeout elapses first, the request stays pending and is
+     * picked up by the next attempt of this instance, or dropped as soon as it is granted otherwise.
+     *
+     * @param timeout the maximum time to wait for the lock
+     * @param unit    the time unit of the timeout argument
+     * @return true if the lock was acquired, false if the timeout elapsed before the lock could be acquired
+     * @throws LockException if an I/O error occurs during lock acquisition
+     */
+    public boolean tryLock(long timeout, TimeUnit unit) {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            if (!instanceLock.tryLock(timeout, unit)) {
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        try {
+            this.openChannel();
+            CompletableFuture<FileLock> attempt = this.pendingLock;
+            if (attempt == null) {
+                final FileLock free = this.channel.tryLock();
+                if (free != null) {
+                    this.lock = free;
+                    LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, "File locked successfully");
+                    return true;
+                }
+                attempt = FileLockWaiter.lock(this.channel, 0L, Long.MAX_VALUE, false);
+                this.pendingLock = attempt;
+            }
+            final FileLock granted;
+            try {
+                granted = FileLockWaiter.await(attempt, Math.max(0L, deadline - System.nanoTime()));
+            } catch (LockException e) {
+                this.pendingLock = null;
+                throw e;
+            }
+            if (granted == null) {
+                this.abandon(attempt);
+                return false;
+            }
+            this.adoptPendingLock();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (IOException e) {
+            closeResources();
+            throw new LockException("I/O error occurred while trying to lock file", e);
+        } finally {
+            instanceLock.unlock();
+        }
+    }
+
+    /**
+     * Creates the lock file and opens its channel if needed. Must be called with the instance lock held.
+     */
+    private void openChannel() throws IOException {
         LogUtils.writeLog(
                 LockManager.class,
                 LogUtils.Level.INFO,
@@ -82,56 +183,43 @@ public class LockManager implements AutoCloseable {
                 throw new LockException("Failed to create lock file", e);
             }
         }
-        try {
-            if (this.lock != null) {
-                throw new LockException("Process already locked");
-            }
-            if (this.channel == null) {
-                this.channel = FileChannel.open(Paths.get(file.getAbsolutePath()), StandardOpenOption.WRITE);
-            }
-            this.lock = this.channel.tryLock();
-            if (this.lock != null) {
-                LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, "File locked successfully");
-            } else {
-                throw new LockException("Failed to lock file, it may be locked by another process");
-            }
-        } catch (IOException e) {
-            closeResources();
-            throw new LockException("I/O error occurred while trying to lock file", e);
+        if (this.lock != null) {
+            throw new LockException("Process already locked");
+        }
+        if (this.channel == null) {
+            this.channel = FileChannel.open(Paths.get(file.getAbsolutePath()), StandardOpenOption.WRITE);
         }
     }
 
     /**
-     * Attempts to acquire a lock with a specified timeout.
-     *
-     * @param timeout the maximum time to wait for the lock
-     * @param unit    the time unit of the timeout argument
-     * @return true if the lock was acquired, false if the timeout elapsed before the lock could be acquired
-     * @throws LockException if an I/O error occurs during lock acquisition
+     * Takes over the granted pending lock. Must be called with the instance lock held.
      */
-    public synchronized boolean tryLock(long timeout, TimeUnit unit) {
-        long endTime = System.currentTimeMillis() + unit.toMillis(timeout);
+    private void adoptPendingLock() {
+        final CompletableFuture<FileLock> attempt = this.pendingLock;
+        this.pendingLock = null;
+        try {
+            this.lock = attempt.join();
+        } catch (CompletionException e) {
+            throw new LockException("I/O error occurred while trying to lock file", e.getCause());
+        }
+        LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, "File locked successfully");
+    }
 
-        while (System.currentTimeMillis() < endTime) {
+    /**
+     * Releases a pending lock once granted, unless this instance picked it up meanwhile.
+     */
+    private void abandon(CompletableFuture<FileLock> attempt) {
+        attempt.whenComplete((granted, error) -> {
+            instanceLock.lock();
             try {
-                lock();
-                return true;
-            } catch (LockException e) {
-                if (e.getMessage().contains("already locked")) {
-                    throw e; // Re-throw if this instance already holds a lock
-                }
-
-                // Wait a bit before retrying
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    return false;
+                if (this.pendingLock == attempt) {
+                    this.pendingLock = null;
+                    FileLockWaiter.releaseQuietly(granted);
                 }
+            } finally {
+                instanceLock.unlock();
             }
-        }
-
-        return false;
+        });
     }
 
     /**
@@ -165,17 +253,22 @@ public class LockManager implements AutoCloseable {
 
     /**
      * Releases the lock if it is held by this instance.
-     * This method is synchronized to prevent concurrent release attempts.
+     * Concurrent release attempts are serialized.
      * After releasing the lock, it attempts to delete the lock file.
+     * If the lock is not held, the channel is still closed, dropping a lock request left pending by
+     * {@link #tryLock(long, TimeUnit)}.
      *
      * @throws LockException if an I/O error occurs during lock release
      */
-    public synchronized void releaseLock() {
-        if (this.lock == null) {
-            LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, "Process is not being locked");
-            return;
-        }
+    public void releaseLock() {
+        instanceLock.lock();
         try {
+            if (this.lock == null) {
+                // a lock request may still be pending on the channel, closing it fails the request
+                closeResources();
+                LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, "Process is not being locked");
+                return;
+            }
             this.lock.release();
             closeResources();
             LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, "Lock released successfully");
@@ -187,6 +280,8 @@ public class LockManager implements AutoCloseable {
             }
         } catch (IOException e) {
             throw new LockException("Error releasing lock", e);
+        } finally {
+            instanceLock.unlock();
         }
     }
 
@@ -201,9 +296,11 @@ public class LockManager implements AutoCloseable {
                 this.lock = null;
             }
             if (this.channel != null) {
+                // also fails a pending lock request, if any
                 this.channel.close();
                 this.channel = null;
             }
+            this.pendingLock = null;
         } catch (IOException e) {
             LogUtils.writeLog(this.getClass(), LogUtils.Level.ERROR, "Error closing resources: {}", e.getMessage());
         }
@@ -0,0 +1,414 @@
+package vn.io.lcx.common.lock;
+
+import org.apache.commons.lang3.StringUtils;
+import vn.io.lcx.common.utils.FileUtils;
+import vn.io.lcx.common.utils.LogUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * LockTable - Many named locks backed by a single lock file, for synchronization across JVM processes.
+ * <p>
+ * Where a {@link LockManager} locks a whole file per lock, a lock table maps each lock name to a one-byte range of
+ * one shared file, so any number of locks only costs one file and one open channel. Each lock can be taken in
+ * {@link Mode#SHARED} mode, held by many readers at once, or in {@link Mode#EXCLUSIVE} mode.
+ * <p>
+ * Waiting never polls: threads of the same JVM queue in FIFO order on an in-memory read-write lock, which parks
+ * virtual threads without pinning them, and waiting for another process is left to a blocking file lock that the
+ * kernel grants as soon as that process releases its range. Names are hashed to ranges, so two names may share a
+ * range; this never breaks mutual exclusion, it only makes them contend with each other.
+ * <p>
+ * As with the locks of {@code java.util.concurrent}, a lease must be released by the thread that acquired it.
+ * Since file locks belong to the whole JVM, a lock file should be opened by a single lock table per process.
+ * <p>
+ * Usage example:
+ * <pre>
+ * try (LockTable table = new LockTable("/tmp/locks", "accounts")) {
+ *     try (LockTable.Lease lease = table.lock("account-42", LockTable.Mode.EXCLUSIVE)) {
+ *         // Execute critical section code here
+ *     }
+ * }
+ * </pre>
+ */
+public class LockTable implements AutoCloseable {
+
+    /**
+     * Keeps range positions below {@code Long.MAX_VALUE} so that the end of a range never overflows
+     */
+    private static final long POSITION_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+    private final File file;
+    private final FileChannel channel;
+    private final ConcurrentHashMap<Long, Range> ranges = new ConcurrentHashMap<>();
+
+    /**
+     * Creates or opens a lock table.
+     *
+     * @param lockFilePath The directory path where the lock file will be created
+     * @param tableName    The name of the lock file (with or without .lock extension)
+     * @throws IllegalArgumentException if lockFilePath or tableName is blank
+     * @throws LockManager.LockException if the lock file cannot be opened
+     */
+    public LockTable(String lockFilePath, String tableName) {
+        if (StringUtils.isBlank(lockFilePath) || StringUtils.isBlank(tableName)) {
+            throw new IllegalArgumentException("lockFilePath and tableName can't be blank");
+        }
+        FileUtils.createFolderIfNotExists(lockFilePath);
+        this.file = new File(FileUtils.pathJoining(lockFilePath, tableName.contains(".lock") ? tableName : tableName + ".lock"));
+        try {
+            // shared locks need a readable channel, exclusive ones a writable channel
+            this.channel = FileChannel.open(
+                    this.file.toPath(),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE
+            );
+        } catch (IOException e) {
+            throw new LockManager.LockException("Failed to open lock table " + this.file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Acquires a lock, waiting as long as needed.
+     *
+     * @param name the lock name
+     * @param mode the lock mode
+     * @return the lease, to release once done
+     * @throws LockManager.LockException if the thread is interrupted or an I/O error occurs
+     */
+    public Lease lock(String name, Mode mode) {
+        return acquire(name, mode, -1L);
+    }
+
+    /**
+     * Acquires a lock only if it is free right now.
+     *
+     * @param name the lock name
+     * @param mode the lock mode
+     * @return the lease, or null if the lock is held elsewhere
+     */
+    public Lease tryLock(String name, Mode mode) {
+        return acquire(name, mode, 0L);
+    }
+
+    /**
+     * Acquires a lock, waiting at most the given time.
+     *
+     * @param name    the lock name
+     * @param mode    the lock mode
+     * @param timeout the maximum time to wait for the lock
+     * @param unit    the time unit of the timeout argument
+     * @return the lease, or null if the timeout elapsed before the lock could be acquired
+     * @throws LockManager.LockException if the thread is interrupted or an I/O error occurs
+     */
+    public Lease tryLock(String name, Mode mode, long timeout, TimeUnit unit) {
+        return acquire(name, mode, Math.max(0L, unit.toNanos(timeout)));
+    }
+
+    /**
+     * @param name the lock name
+     * @return true if the lock is currently held by a thread of this process
+     */
+    public boolean isLocked(String name) {
+        final Range range = ranges.get(positionOf(name));
+        return range != null && (range.local.isWriteLocked() || range.local.getReadLockCount() > 0);
+    }
+
+    /**
+     * Returns the path of the lock file.
+     *
+     * @return the absolute path of the lock file
+     */
+    public String getLockFilePath() {
+        return this.file.getAbsolutePath();
+    }
+
+    /**
+     * Closes the lock file, which releases every lock this process holds on it. The file itself is kept, since
+     * other processes may still be waiting on it.
+     */
+    @Override
+    public void close() {
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            LogUtils.writeLog(this.getClass(), LogUtils.Level.ERROR, "Error closing lock table: {}", e.getMessage());
+        }
+    }
+
+    private Lease acquire(String name, Mode mode, long timeoutNanos) {
+        if (name == null) {
+            throw new IllegalArgumentException("Lock name cannot be null");
+        }
+        if (mode == null) {
+            throw new IllegalArgumentException("Lock mode cannot be null");
+        }
+        final long deadline = System.nanoTime() + timeoutNanos;
+        final Range range = ranges.compute(positionOf(name), (position, existing) -> {
+            final Range result = existing == null ? new Range(position) : existing;
+            result.refs++;
+            return result;
+        });
+        final Lock local = mode == Mode.SHARED ? range.local.readLock() : range.local.writeLock();
+        boolean acquired = false;
+        try {
+            if (timeoutNanos < 0) {
+                local.lockInterruptibly();
+            } else if (!local.tryLock(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                return null;
+            }
+            try {
+                acquired = range.lockFile(mode == Mode.SHARED, timeoutNanos >= 0, deadline);
+            } finally {
+                if (!acquired) {
+                    local.unlock();
+                }
+            }
+            return acquired ? new Lease(this, name, mode, range, local) : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LockManager.LockException("Interrupted while waiting for lock " + name, e);
+        } finally {
+            if (!acquired) {
+                unreference(range);
+            }
+        }
+    }
+
+    private void release(Lease lease) {
+        try {
+            lease.range.unlockFile();
+        } finally {
+            lease.local.unlock();
+            unreference(lease.range);
+        }
+    }
+
+    private void unreference(Range range) {
+        ranges.computeIfPresent(range.position, (position, existing) -> {
+            if (existing == range) {
+                range.refs--;
+            }
+            return existing.isIdle() ? null : existing;
+        });
+    }
+
+    /**
+     * Hashes a name to the position of its range (64-bit FNV-1a of its UTF-8 bytes).
+     */
+    private static long positionOf(String name) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return hash & POSITION_MASK;
+    }
+
+    /**
+     * Lock modes of a {@link LockTable}
+     */
+    public enum Mode {
+        /**
+         * Held by any number of readers at once, in this process and others
+         */
+        SHARED,
+        /**
+         * Held by a single thread across every process
+         */
+        EXCLUSIVE
+    }
+
+    /**
+     * A granted lock. Releasing it more than once has no effect.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final LockTable table;
+        private final String name;
+        private final Mode mode;
+        private final Range range;
+        private final Lock local;
+        private boolean released;
+
+        private Lease(LockTable table, String name, Mode mode, Range range, Lock local) {
+            this.table = table;
+            this.name = name;
+            this.mode = mode;
+            this.range = range;
+            this.local = local;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        /**
+         * Releases the lock; must be called by the thread that acquired it.
+         */
+        public void release() {
+            if (!released) {
+                released = true;
+                table.release(this);
+            }
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
+
+    /**
+     * One byte range of the lock file and the threads of this process using it.
+     * <p>
+     * The threads holding the in-memory lock share a single file lock: the first shared holder acquires it and the
+     * last one releases it. A file lock that was granted after its waiter timed out stays pending, so the next
+     * waiter adopts it rather than asking for an overlapping lock, and it is released if nobody does.
+     */
+    private final class Range {
+        private final long position;
+        private final ReentrantReadWriteLock local = new ReentrantReadWriteLock(true);
+        private final ReentrantLock guard = new ReentrantLock();
+        /**
+         * Threads using this range, only accessed inside {@link ConcurrentHashMap#compute} of {@link #ranges}
+         */
+        private int refs;
+        private volatile int holders;
+        private FileLock fileLock;
+        private volatile CompletableFuture<FileLock> pending;
+        private boolean pendingShared;
+
+        private Range(long position) {
+            this.position = position;
+        }
+
+        /**
+         * Acquires the file lock for a thread holding the in-memory lock.
+         *
+         * @param timed    false to wait as long as needed
+         * @param deadline the {@link System#nanoTime()} to give up at when timed
+         * @return false if the deadline passed first
+         */
+        private boolean lockFile(boolean shared, boolean timed, long deadline) throws InterruptedException {
+            if (!timed) {
+                guard.lockInterruptibly();
+            } else if (!guard.tryLock(remaining(timed, deadline), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+            try {
+                if (holders > 0) {
+                    // only readers hold the in-memory lock together, and they share the file lock
+                    holders++;
+                    return true;
+                }
+                CompletableFuture<FileLock> attempt = pending;
+                if (attempt != null && pendingShared != shared) {
+                    // a lock abandoned in the other mode must be granted and dropped before asking again
+                    if (!FileLockWaiter.awaitCompletion(attempt, remaining(timed, deadline))) {
+                        return false;
+                    }
+                    pending = null;
+                    FileLockWaiter.releaseQuietly(attempt);
+                    attempt = null;
+                }
+                if (attempt == null) {
+                    final FileLock free = tryLockFile(shared);
+                    if (free != null) {
+                        fileLock = free;
+                        holders = 1;
+                        return true;
+                    }
+                    if (timed && remaining(timed, deadline) == 0) {
+                        return false;
+                    }
+                    attempt = FileLockWaiter.lock(channel, position, 1L, shared);
+                    pending = attempt;
+                    pendingShared = shared;
+                }
+                final FileLock granted;
+                try {
+                    granted = FileLockWaiter.await(attempt, remaining(timed, deadline));
+                } catch (LockManager.LockException e) {
+                    pending = null;
+                    throw e;
+                }
+                if (granted == null) {
+                    abandon(attempt);
+                    return false;
+                }
+                pending = null;
+                fileLock = granted;
+                holders = 1;
+                return true;
+            } finally {
+                guard.unlock();
+            }
+        }
+
+        private FileLock tryLockFile(boolean shared) {
+            try {
+                return channel.tryLock(position, 1L, shared);
+            } catch (IOException e) {
+                throw new LockManager.LockException("I/O error occurred while trying to lock file", e);
+            }
+        }
+
+        private void unlockFile() {
+            guard.lock();
+            try {
+                if (--holders == 0) {
+                    FileLockWaiter.releaseQuietly(fileLock);
+                    fileLock = null;
+                }
+            } finally {
+                guard.unlock();
+            }
+        }
+
+        /**
+         * Releases a pending file lock once granted, unless another waiter adopted it meanwhile.
+         */
+        private void abandon(CompletableFuture<FileLock> attempt) {
+            attempt.whenComplete((granted, error) -> {
+                guard.lock();
+                try {
+                    if (pending != attempt) {
+                        return;
+                    }
+                    pending = null;
+                    FileLockWaiter.releaseQuietly(granted);
+                } finally {
+                    guard.unlock();
+                }
+                ranges.computeIfPresent(position, (key, existing) -> existing.isIdle() ? null : existing);
+            });
+        }
+
+        /**
+         * Only called inside {@link ConcurrentHashMap#compute}: without references nobody can take the range
+         * meanwhile, and an abandoned lock removes the range again once it is released.
+         */
+        private boolean isIdle() {
+            return refs == 0 && holders == 0 && pending == null;
+        }
+
+        private long remaining(boolean timed, long deadline) {
+            return timed ? Math.max(0L, deadline - System.nanoTime()) : -1L;
+        }
+    }
+}
@@ -1,24 +1,60 @@
 package vn.io.lcx.common.task.batch;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class BatchHandler {
 
     public <T> void processListInBatches(List<T> inputList, Consumer<List<T>> handlerFunction, int batchSize) {
-        final var tempList = new ArrayList<T>();
+        // each batch is handed over as a new list instead of a copy of a reused one
+        var tempList = new ArrayList<T>(Math.min(batchSize, inputList.size()));
         for (T t : inputList) {
             if (tempList.size() == batchSize) {
-                handlerFunction.accept(new ArrayList<>(tempList));
-                tempList.clear();
+                handlerFunction.accept(tempList);
+                tempList = new ArrayList<>(batchSize);
             }
             tempList.add(t);
         }
         if (!tempList.isEmpty()) {
-            handlerFunction.accept(new ArrayList<>(tempList));
-            tempList.clear();
+            handlerFunction.accept(tempList);
         }
     }
 
+    /**
+     * Processes the items of a stream in batches on several threads, without materializing the stream.
+     * See {@link ParallelBatchProcessor} for more options, such as ordered results.
+     *
+     * @param source          the items; the stream is not closed
+     * @param handlerFunction processes one batch, from several threads at once
+     * @param batchSize       the number of items per batch
+     * @param parallelism     the number of batches processed at once
+     * @return the number of items processed
+     * @throws vn.io.lcx.common.exception.BatchProcessingException if a batch failed
+     */
+    public <T> long processInBatches(Stream<T> source, Consumer<List<T>> handlerFunction, int batchSize, int parallelism) {
+        return processInBatches(source.iterator(), handlerFunction, batchSize, parallelism);
+    }
+
+    /**
+     * Processes the items of an iterator in batches on several threads, without materializing the source.
+     * See {@link ParallelBatchProcessor} for more options, such as ordered results.
+     *
+     * @param source          the items, only read by the calling thread
+     * @param handlerFunction processes one batch, from several threads at once
+     * @param batchSize       the number of items per batch
+     * @param parallelism     the number of batches processed at once
+     * @return the number of items processed
+     * @throws vn.io.lcx.common.exception.BatchProcessingException if a batch failed
+     */
+    public <T> long processInBatches(Iterator<T> source, Consumer<List<T>> handlerFunction, int batchSize, int parallelism) {
+        return ParallelBatchProcessor.builder()
+                .batchSize(batchSize)
+                .parallelism(parallelism)
+                .build()
+                .process(source, handlerFunction);
+    }
+
 }
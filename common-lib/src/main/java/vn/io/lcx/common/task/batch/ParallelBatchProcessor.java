@@ -0,0 +1,399 @@
+package vn.io.lcx.common.task.batch;
+
+import vn.io.lcx.common.exception.BatchProcessingException;
+import vn.io.lcx.common.thread.SimpleExecutor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Splits a stream of items into batches and processes the batches in parallel, with bounded memory.
+ *
+ * <p>The calling thread reads the source, which therefore never needs to be thread-safe, and hands each batch to a
+ * fixed number of workers. At most {@link ParallelBatchProcessorBuilder#maxBatchesInFlight(int)} batches exist at
+ * once, whether queued, running or waiting for their result to be passed on; reading pauses until one of them is
+ * done, so memory stays constant whatever the size of the source.</p>
+ *
+ * <p>Results are passed to the result consumer one at a time, in source order when the processor is
+ * {@link ParallelBatchProcessorBuilder#ordered(boolean) ordered}, otherwise as soon as each batch is done. The first
+ * failure stops reading, lets running batches finish, and is thrown as a {@link BatchProcessingException}.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ParallelBatchProcessor processor = ParallelBatchProcessor.builder()
+ *         .batchSize(5_000)
+ *         .parallelism(8)
+ *         .build();
+ * try (Stream<Row> rows = reader.rows()) {
+ *     long written = processor.process(rows, batch -> repository.insertAll(batch));
+ * }
+ * }</pre>
+ */
+public final class ParallelBatchProcessor {
+
+    private final int batchSize;
+    private final int parallelism;
+    private final int maxBatchesInFlight;
+    private final boolean ordered;
+    private final Executor executor;
+
+    private ParallelBatchProcessor(ParallelBatchProcessorBuilder builder) {
+        this.batchSize = builder.batchSize;
+        this.parallelism = builder.parallelism;
+        this.maxBatchesInFlight = builder.maxBatchesInFlight > 0 ? builder.maxBatchesInFlight : 2 * builder.parallelism;
+        this.ordered = builder.ordered;
+        this.executor = builder.executor != null ? builder.executor : SimpleExecutor.sharedExecutor();
+    }
+
+    public static ParallelBatchProcessorBuilder builder() {
+        return new ParallelBatchProcessorBuilder();
+    }
+
+    /**
+     * Processes the items of a stream in batches; the stream is not closed.
+     *
+     * @param source  the items
+     * @param handler processes one batch, from several threads at once
+     * @param <T>     the type of the items
+     * @return the number of items processed
+     * @throws BatchProcessingException if a batch failed
+     */
+    public <T> long process(Stream<? extends T> source, Consumer<List<T>> handler) {
+        return process(source.iterator(), handler);
+    }
+
+    /**
+     * Processes the items of a spliterator in batches.
+     *
+     * @param source  the items
+     * @param handler processes one batch, from several threads at once
+     * @param <T>     the type of the items
+     * @return the number of items processed
+     * @throws BatchProcessingException if a batch failed
+     */
+    public <T> long process(Spliterator<? extends T> source, Consumer<List<T>> handler) {
+        return process(Spliterators.iterator(source), handler);
+    }
+
+    /**
+     * Processes the items of an iterator in batches.
+     *
+     * @param source  the items
+     * @param handler processes one batch, from several threads at once
+     * @param <T>     the type of the items
+     * @return the number of items processed
+     * @throws BatchProcessingException if a batch failed
+     */
+    public <T> long process(Iterator<? extends T> source, Consumer<List<T>> handler) {
+        return this.<T, Void>process(source, batch -> {
+            handler.accept(batch);
+            return null;
+        }, result -> {
+        });
+    }
+
+    /**
+     * Processes the items of a stream in batches and collects a result per batch; the stream is not closed.
+     *
+     * @param source         the items
+     * @param handler        processes one batch, from several threads at once
+     * @param resultConsumer receives the result of each batch, one at a time
+     * @param <T>            the type of the items
+     * @param <R>            the type of the batch results
+     * @return the number of items processed
+     * @throws BatchProcessingException if a batch or the result consumer failed
+     */
+    public <T, R> long process(Stream<? extends T> source,
+                               Function<List<T>, R> handler,
+                               Consumer<? super R> resultConsumer) {
+        return process(source.iterator(), handler, resultConsumer);
+    }
+
+    /**
+     * Processes the items of an iterator in batches and collects a result per batch.
+     *
+     * @param source         the items
+     * @param handler        processes one batch, from several threads at once
+     * @param resultConsumer receives the result of each batch, one at a time
+     * @param <T>            the type of the items
+     * @param <R>            the type of the batch results
+     * @return the number of items processed
+     * @throws BatchProcessingException if a batch or the result consumer failed
+     */
+    public <T, R> long process(Iterator<? extends T> source,
+                               Function<List<T>, R> handler,
+                               Consumer<? super R> resultConsumer) {
+        if (source == null || handler == null || resultConsumer == null) {
+            throw new IllegalArgumentException("Source, handler and result consumer cannot be null");
+        }
+        return new Run<>(handler, resultConsumer).execute(source);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getMaxBatchesInFlight() {
+        return maxBatchesInFlight;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * One call of {@code process}
+     */
+    private final class Run<T, R> {
+        private final Function<List<T>, R> handler;
+        private final Consumer<? super R> resultConsumer;
+        private final LinkedBlockingQueue<Batch<T, R>> queue = new LinkedBlockingQueue<>();
+        /**
+         * One permit per batch that may exist; a batch gives its permit back once its result was passed on
+         */
+        private final Semaphore window = new Semaphore(maxBatchesInFlight);
+        private final AtomicReference<BatchProcessingException> failure = new AtomicReference<>();
+        private final AtomicLong processedItems = new AtomicLong();
+        private final ReentrantLock emitLock = new ReentrantLock();
+        /**
+         * Results waiting for the results of earlier batches, in ordered mode
+         */
+        private final Map<Long, Batch<T, R>> done = new HashMap<>();
+        private long nextToEmit;
+
+        private Run(Function<List<T>, R> handler, Consumer<? super R> resultConsumer) {
+            this.handler = handler;
+            this.resultConsumer = resultConsumer;
+        }
+
+        private long execute(Iterator<? extends T> source) {
+            final List<CompletableFuture<Void>> workers = new ArrayList<>(parallelism);
+            for (int i = 0; i < parallelism; i++) {
+                workers.add(CompletableFuture.runAsync(this::work, executor));
+            }
+            try {
+                read(source);
+            } finally {
+                for (int i = 0; i < parallelism; i++) {
+                    queue.add(Batch.end());
+                }
+            }
+            try {
+                CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).join();
+            } catch (CompletionException e) {
+                fail(new BatchProcessingException("Batch worker failed", -1L, e.getCause()));
+            }
+            final BatchProcessingException error = failure.get();
+            if (error != null) {
+                throw error;
+            }
+            return processedItems.get();
+        }
+
+        private void read(Iterator<? extends T> source) {
+            long index = 0L;
+            List<T> items = new ArrayList<>(batchSize);
+            try {
+                while (failure.get() == null && source.hasNext()) {
+                    items.add(source.next());
+                    if (items.size() == batchSize) {
+                        submit(index++, items);
+                        items = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!items.isEmpty() && failure.get() == null) {
+                    submit(index, items);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(new BatchProcessingException("Interrupted while reading batches", index, e));
+            } catch (RuntimeException e) {
+                fail(new BatchProcessingException("Failed to read batch " + index, index, e));
+            }
+        }
+
+        private void submit(long index, List<T> items) throws InterruptedException {
+            window.acquire();
+            queue.add(new Batch<>(index, items));
+        }
+
+        private void work() {
+            while (true) {
+                final Batch<T, R> batch;
+                try {
+                    batch = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    fail(new BatchProcessingException("Batch worker interrupted", -1L, e));
+                    return;
+                }
+                if (batch.isEnd()) {
+                    return;
+                }
+                if (failure.get() != null) {
+                    window.release();
+                    continue;
+                }
+                try {
+                    batch.result = handler.apply(batch.items);
+                } catch (Throwable e) {
+                    fail(new BatchProcessingException("Batch " + batch.index + " failed", batch.index, e));
+                    continue;
+                }
+                processedItems.addAndGet(batch.items.size());
+                batch.items = null;
+                emit(batch);
+            }
+        }
+
+        private void emit(Batch<T, R> batch) {
+            emitLock.lock();
+            try {
+                if (!ordered) {
+                    pass(batch);
+                    return;
+                }
+                done.put(batch.index, batch);
+                Batch<T, R> next;
+                while ((next = done.remove(nextToEmit)) != null) {
+                    nextToEmit++;
+                    pass(next);
+                }
+            } finally {
+                emitLock.unlock();
+            }
+        }
+
+        private void pass(Batch<T, R> batch) {
+            try {
+                if (failure.get() == null) {
+                    resultConsumer.accept(batch.result);
+                }
+            } catch (Throwable e) {
+                fail(new BatchProcessingException("Result consumer failed on batch " + batch.index, batch.index, e));
+            } finally {
+                window.release();
+            }
+        }
+
+        private void fail(BatchProcessingException error) {
+            if (failure.compareAndSet(null, error)) {
+                // wakes the reader up if it waits for a permit held by a result that will never be passed on
+                window.release(maxBatchesInFlight);
+            }
+        }
+    }
+
+    private static final class Batch<T, R> {
+        private static final Batch<?, ?> END = new Batch<>(-1L, null);
+
+        private final long index;
+        private List<T> items;
+        private R result;
+
+        private Batch(long index, List<T> items) {
+            this.index = index;
+            this.items = items;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T, R> Batch<T, R> end() {
+            return (Batch<T, R>) END;
+        }
+
+        private boolean isEnd() {
+            return this == END;
+        }
+    }
+
+    public static class ParallelBatchProcessorBuilder {
+        private int batchSize = 1000;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private int maxBatchesInFlight;
+        private boolean ordered;
+        private Executor executor;
+
+        public ParallelBatchProcessorBuilder() {
+        }
+
+        /**
+         * @param batchSize the number of items per batch, 1000 by default
+         * @return this builder
+         */
+        public ParallelBatchProcessorBuilder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * @param parallelism the number of batches processed at once, the number of processors by default
+         * @return this builder
+         */
+        public ParallelBatchProcessorBuilder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * @param maxBatchesInFlight the maximum number of batches held in memory at once, twice the parallelism by
+         *                           default; it cannot be lower than the parallelism
+         * @return this builder
+         */
+        public ParallelBatchProcessorBuilder maxBatchesInFlight(int maxBatchesInFlight) {
+            this.maxBatchesInFlight = maxBatchesInFlight;
+            return this;
+        }
+
+        /**
+         * @param ordered true to pass batch results on in source order, false (the default) to pass them on as soon
+         *                as each batch is done
+         * @return this builder
+         */
+        public ParallelBatchProcessorBuilder ordered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        /**
+         * @param executor runs the workers, {@link SimpleExecutor#sharedExecutor()} by default
+         * @return this builder
+         */
+        public ParallelBatchProcessorBuilder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public ParallelBatchProcessor build() {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("Batch size must be at least 1");
+            }
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be at least 1");
+            }
+            if (maxBatchesInFlight != 0 && maxBatchesInFlight < parallelism) {
+                throw new IllegalArgumentException("Maximum batches in flight cannot be lower than the parallelism");
+            }
+            return new ParallelBatchProcessor(this);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package vn.io.lcx.common.task.retry;
+
+import vn.io.lcx.common.thread.SimpleExecutor;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Describes when {@link MyTaskRetrying#doTaskHedged} starts duplicate attempts of a slow task.
+ *
+ * <p>A hedge starts when the attempts already running have taken longer than the hedge delay: either a fixed
+ * {@code delay}, or the {@code delayPercentile} of the latencies of recent successful calls, so that only the slowest
+ * calls are hedged. The percentile needs a few samples first and uses {@code delay} until then.</p>
+ *
+ * <p>Every call earns {@code maxHedgeRate} hedge tokens and every hedge spends one, so hedges never add more than that
+ * fraction of extra load, even when the backend slows down as a whole. Share one policy between all the calls of an
+ * operation; hedging only suits idempotent tasks.</p>
+ *
+ * <pre>{@code
+ * HedgingPolicy policy = HedgingPolicy.builder().delayPercentile(0.95).maxHedgeRate(0.05).build();
+ * Profile profile = new MyTaskRetrying<Long, Profile>().doTaskHedged(userId, policy, repository::findProfile).join();
+ * }</pre>
+ */
+public final class HedgingPolicy {
+
+    private static final int LATENCY_SAMPLES = 1024;
+    private static final int MIN_LATENCY_SAMPLES = 50;
+    private static final int PERCENTILE_REFRESH_INTERVAL = 32;
+    private static final double MAX_HEDGE_TOKENS = 10;
+
+    private final long delayNanos;
+    private final double delayPercentile;
+    private final int maxHedges;
+    private final double maxHedgeRate;
+    private final Executor executor;
+
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private long latencyCount;
+    private long percentileNanos = -1;
+    private double hedgeTokens = 1;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+
+    private HedgingPolicy(HedgingPolicyBuilder builder) {
+        this.delayNanos = builder.delay.toNanos();
+        this.delayPercentile = builder.delayPercentile;
+        this.maxHedges = builder.maxHedges;
+        this.maxHedgeRate = builder.maxHedgeRate;
+        this.executor = builder.executor != null ? builder.executor : SimpleExecutor.sharedExecutor();
+    }
+
+    public static HedgingPolicyBuilder builder() {
+        return new HedgingPolicyBuilder();
+    }
+
+    public int getMaxHedges() {
+        return maxHedges;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return the number of calls made with this policy
+     */
+    public long getCalls() {
+        return calls.get();
+    }
+
+    /**
+     * @return the number of hedges started with this policy
+     */
+    public long getHedges() {
+        return hedges.get();
+    }
+
+    /**
+     * @return the current hedge delay in nanoseconds
+     */
+    public synchronized long hedgeDelayNanos() {
+        if (delayPercentile <= 0 || latencyCount < MIN_LATENCY_SAMPLES) {
+            return delayNanos;
+        }
+        if (percentileNanos < 0) {
+            final int n = (int) Math.min(latencyCount, LATENCY_SAMPLES);
+            final long[] sorted = Arrays.copyOf(latencies, n);
+            Arrays.sort(sorted);
+            percentileNanos = sorted[Math.min(n - 1, (int) Math.ceil(delayPercentile * n) - 1)];
+        }
+        return percentileNanos;
+    }
+
+    synchronized void recordCall() {
+        calls.incrementAndGet();
+        hedgeTokens = Math.min(MAX_HEDGE_TOKENS, hedgeTokens + maxHedgeRate);
+    }
+
+    /**
+     * @return whether the hedge rate allows one more hedge
+     */
+    synchronized boolean tryAcquireHedge() {
+        if (hedgeTokens < 1) {
+            return false;
+        }
+        hedgeTokens--;
+        hedges.incrementAndGet();
+        return true;
+    }
+
+    synchronized void recordLatency(long nanos) {
+        latencies[(int) (latencyCount++ % LATENCY_SAMPLES)] = nanos;
+        if (latencyCount % PERCENTILE_REFRESH_INTERVAL == 0) {
+            percentileNanos = -1;
+        }
+    }
+
+    public static class HedgingPolicyBuilder {
+        private Duration delay = Duration.ofMillis(100);
+        private double delayPercentile;
+        private int maxHedges = 1;
+        private double maxHedgeRate = 0.1;
+        private Executor executor;
+
+        /**
+         * Fixed hedge delay, also used while too few latencies were observed for {@link #delayPercentile},
+         * 100 milliseconds by default
+         */
+        public HedgingPolicyBuilder delay(Duration delay) {
+            this.delay = delay;
+            return this;
+        }
+
+        /**
+         * Hedges the calls slower than this percentile of the recent latencies, e.g. 0.95; disabled by default
+         */
+        public HedgingPolicyBuilder delayPercentile(double delayPercentile) {
+            this.delayPercentile = delayPercentile;
+            return this;
+        }
+
+        /**
+         * Duplicate attempts allowed per call, 1 by default
+         */
+        public HedgingPolicyBuilder maxHedges(int maxHedges) {
+            this.maxHedges = maxHedges;
+            return this;
+        }
+
+        /**
+         * Hedges allowed per call on average, 0.1 by default
+         */
+        public HedgingPolicyBuilder maxHedgeRate(double maxHedgeRate) {
+            this.maxHedgeRate = maxHedgeRate;
+            return this;
+        }
+
+        /**
+         * Runs the attempts, {@link SimpleExecutor#sharedExecutor()} by default
+         */
+        public HedgingPolicyBuilder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public HedgingPolicy build() {
+            if (delay == null || delay.isNegative()) {
+                throw new IllegalArgumentException("Delay cannot be negative");
+            }
+            if (delayPercentile < 0 || delayPercentile >= 1) {
+                throw new IllegalArgumentException("Delay percentile must be in (0, 1), or 0 to disable it");
+            }
+            if (maxHedges < 0) {
+                throw new IllegalArgumentException("Max hedges cannot be negative");
+            }
+            if (!(maxHedgeRate >= 0)) {
+                throw new IllegalArgumentException("Max hedge rate cannot be negative");
+            }
+            return new HedgingPolicy(this);
+        }
+    }
+}
@@ -1,12 +1,32 @@
 package vn.io.lcx.common.task.retry;
 
+import vn.io.lcx.common.thread.SimpleExecutor;
 import vn.io.lcx.common.utils.LogUtils;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class MyTaskRetrying<I, O> {
 
+    /**
+     * Fires the retry waits and hedge delays; it only submits attempts, so a single thread is enough
+     */
+    private static final ScheduledExecutorService scheduler = createScheduler();
+
+    /**
+     * Runs the task, retrying it on failure after a wait, on the calling thread.
+     *
+     * @return the output of the first successful attempt, or null if every attempt failed, the errors being logged
+     */
     public O doTaskAndRetrying(I input,
                                final int timesToRetrying,
                                final long timeWaitingToRetry,
@@ -35,4 +55,214 @@ public class MyTaskRetrying<I, O> {
         return output;
     }
 
+    /**
+     * Same as {@link #doTaskAndRetrying}, without holding a thread between attempts: the attempts run on
+     * {@link SimpleExecutor#sharedExecutor()} and the waits are scheduled.
+     *
+     * <p>Unlike {@link #doTaskAndRetrying}, which logs the error of the last attempt and returns null, the returned
+     * future fails with that error once every attempt has failed.</p>
+     *
+     * @return a future completed with the output of the first successful attempt, or failed with the error of the
+     * last attempt
+     */
+    public CompletableFuture<O> doTaskAndRetryingAsync(I input,
+                                                       final int timesToRetrying,
+                                                       final long timeWaitingToRetry,
+                                                       final ChronoUnit unit,
+                                                       TaskHandler<I, O> taskHandler) {
+        final CompletableFuture<O> result = new CompletableFuture<>();
+        final long waitNanos = Duration.of(timeWaitingToRetry, unit).toNanos();
+        attempt(input, timesToRetrying, waitNanos, taskHandler, result);
+        return result;
+    }
+
+    private void attempt(I input,
+                         int retriesLeft,
+                         long waitNanos,
+                         TaskHandler<I, O> taskHandler,
+                         CompletableFuture<O> result) {
+        try {
+            SimpleExecutor.sharedExecutor().execute(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    result.complete(taskHandler.doTask(input));
+                } catch (Throwable e) {
+                    if (retriesLeft < 1) {
+                        result.completeExceptionally(e);
+                        return;
+                    }
+                    LogUtils.writeLog(MyTaskRetrying.class, "An exception has been occurred, retrying", e);
+                    scheduler.schedule(
+                            () -> attempt(input, retriesLeft - 1, waitNanos, taskHandler, result),
+                            waitNanos,
+                            TimeUnit.NANOSECONDS
+                    );
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Runs an idempotent task with hedging: if the attempt has not succeeded after the hedge delay of the policy, a
+     * duplicate attempt starts, up to {@link HedgingPolicy#getMaxHedges()} of them and within the hedge rate of the
+     * policy. The first successful attempt wins and the others are cancelled (interrupted). An attempt that fails
+     * while no other is running starts the next hedge at once.
+     *
+     * <p>Cancelling the returned future cancels every attempt.</p>
+     *
+     * @return a future completed with the output of the first successful attempt, or failed with the error of the
+     * last attempt, the errors of the other attempts being suppressed
+     */
+    public CompletableFuture<O> doTaskHedged(I input, HedgingPolicy policy, TaskHandler<I, O> taskHandler) {
+        policy.recordCall();
+        final HedgedCall call = new HedgedCall(input, policy, taskHandler);
+        call.start();
+        return call.result;
+    }
+
+    private static ScheduledExecutorService createScheduler() {
+        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "lcx-task-retrying-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * The attempts of one hedged call
+     */
+    private final class HedgedCall {
+        private final I input;
+        private final HedgingPolicy policy;
+        private final TaskHandler<I, O> taskHandler;
+        private final CompletableFuture<O> result = new CompletableFuture<>();
+        private final List<Attempt> attempts = new ArrayList<>();
+        private final List<Throwable> errors = new ArrayList<>();
+        /**
+         * Start of the whole call, so that a hedge winning does not record the shorter latency of its own attempt
+         */
+        private final long startedAt = System.nanoTime();
+        private int running;
+        private ScheduledFuture<?> nextHedge;
+
+        private HedgedCall(I input, HedgingPolicy policy, TaskHandler<I, O> taskHandler) {
+            this.input = input;
+            this.policy = policy;
+            this.taskHandler = taskHandler;
+            result.whenComplete((output, error) -> {
+                if (result.isCancelled()) {
+                    cancelAttempts(null);
+                }
+            });
+        }
+
+        private void start() {
+            synchronized (this) {
+                launch();
+            }
+        }
+
+        /**
+         * Starts an attempt and schedules the next hedge. Called with the monitor held.
+         */
+        private void launch() {
+            if (result.isDone()) {
+                return;
+            }
+            if (nextHedge != null) {
+                // an attempt failed before the pending hedge fired, the attempt started now schedules its own
+                nextHedge.cancel(false);
+                nextHedge = null;
+            }
+            final Attempt attempt = new Attempt();
+            attempts.add(attempt);
+            running++;
+            try {
+                policy.getExecutor().execute(attempt.task);
+            } catch (RejectedExecutionException e) {
+                running--;
+                errors.add(e);
+                if (running == 0) {
+                    fail();
+                }
+                return;
+            }
+            if (attempts.size() <= policy.getMaxHedges()) {
+                nextHedge = scheduler.schedule(this::hedge, policy.hedgeDelayNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private synchronized void hedge() {
+            if (!result.isDone() && attempts.size() <= policy.getMaxHedges() && policy.tryAcquireHedge()) {
+                launch();
+            }
+        }
+
+        private synchronized void onFailure(Throwable error) {
+            running--;
+            if (result.isDone()) {
+                return;
+            }
+            errors.add(error);
+            if (running > 0) {
+                return;
+            }
+            if (attempts.size() <= policy.getMaxHedges() && policy.tryAcquireHedge()) {
+                LogUtils.writeLog(MyTaskRetrying.class, "An exception has been occurred, hedging", error);
+                launch();
+            } else {
+                fail();
+            }
+        }
+
+        private void fail() {
+            if (nextHedge != null) {
+                nextHedge.cancel(false);
+            }
+            final Throwable last = errors.get(errors.size() - 1);
+            for (Throwable error : errors) {
+                if (error != last) {
+                    last.addSuppressed(error);
+                }
+            }
+            result.completeExceptionally(last);
+        }
+
+        /**
+         * Cancels the pending hedge and interrupts every attempt but the winner, which is still running this
+         */
+        private synchronized void cancelAttempts(Attempt winner) {
+            if (nextHedge != null) {
+                nextHedge.cancel(false);
+            }
+            for (Attempt attempt : attempts) {
+                if (attempt != winner) {
+                    attempt.task.cancel(true);
+                }
+            }
+        }
+
+        private final class Attempt {
+            private final FutureTask<Void> task = new FutureTask<>(this::run, null);
+
+            private void run() {
+                try {
+                    final O output = taskHandler.doTask(input);
+                    if (result.complete(output)) {
+                        policy.recordLatency(System.nanoTime() - startedAt);
+                        cancelAttempts(this);
+                    }
+                } catch (Throwable e) {
+                    onFailure(e);
+                }
+            }
+        }
+    }
+
 }
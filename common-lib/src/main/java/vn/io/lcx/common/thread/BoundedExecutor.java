@@ -0,0 +1,723 @@
+package vn.io.lcx.common.thread;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.commons.lang3.StringUtils;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An executor that bounds how many tasks run at once against each named resource.
+ *
+ * <p>Virtual threads make it cheap to start a task per request, but every task still holds a database connection
+ * or an HTTP call while it runs. This executor gives each resource (a datasource, a downstream service...) a fair
+ * semaphore, and offers two ways to submit work:</p>
+ * <ul>
+ *   <li>{@link #submit(String, Callable)} blocks the producer until a permit is free, so a producer can never get
+ *   further ahead than the limit; the plain {@link ExecutorService} methods use this path on the default
+ *   resource,</li>
+ *   <li>{@link #submitAsync(String, Callable)} returns at once and queues the task until a permit is free; a queued
+ *   task does not hold a thread, it is handed to the delegate by the task that frees the permit. Up to
+ *   {@link BoundedExecutorBuilder#maxQueued(int)} tasks wait per resource; beyond that, the returned future fails
+ *   with a {@link RejectedExecutionException}.</li>
+ * </ul>
+ *
+ * <p>Per-resource statistics (running and waiting tasks, wait time, rejections) are available from
+ * {@link #stats(String)} and can be published to Micrometer with {@link #bindTo(MeterRegistry)}.</p>
+ *
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * BoundedExecutor executor = BoundedExecutor.builder()
+ *         .name("report-workers")
+ *         .limit("orders-db", 20)
+ *         .limit("pricing-api", 50)
+ *         .build();
+ * for (Order order : orders) {
+ *     // blocks while 20 queries already run
+ *     executor.submit("orders-db", () -> repository.load(order.getId()));
+ * }
+ * }</pre>
+ */
+public class BoundedExecutor extends AbstractExecutorService implements MeterBinder {
+
+    /**
+     * Resource used by the {@link ExecutorService} methods
+     */
+    public static final String DEFAULT_RESOURCE = "default";
+
+    private final String name;
+    private final ExecutorService delegate;
+    private final boolean ownsDelegate;
+    private final int defaultLimit;
+    private final int maxQueued;
+    private final Map<String, Integer> limits;
+    private final ConcurrentHashMap<String, Resource> resources = new ConcurrentHashMap<>();
+    private final List<MeterRegistry> registries = new CopyOnWriteArrayList<>();
+
+    private volatile boolean shutdown;
+    /**
+     * Tasks accepted and not finished yet, waiting for a permit or running
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock terminationLock = new ReentrantLock();
+    private final Condition terminated = terminationLock.newCondition();
+
+    private BoundedExecutor(BoundedExecutorBuilder builder, ExecutorService delegate, boolean ownsDelegate) {
+        this.name = builder.name;
+        this.delegate = delegate;
+        this.ownsDelegate = ownsDelegate;
+        this.defaultLimit = builder.defaultLimit;
+        this.maxQueued = builder.maxQueued;
+        this.limits = Collections.unmodifiableMap(new HashMap<>(builder.limits));
+    }
+
+    public static BoundedExecutorBuilder builder() {
+        return new BoundedExecutorBuilder();
+    }
+
+    /**
+     * Submits a task, blocking the caller until the resource has a free permit.
+     *
+     * @param resource the resource the task uses
+     * @param task     the task
+     * @param <T>      the type of result returned by the task
+     * @return a future completed with the result of the task
+     * @throws RejectedExecutionException if the executor is shut down or the caller is interrupted while waiting
+     */
+    public <T> CompletableFuture<T> submit(String resource, Callable<T> task) {
+        return submit(resource, task, null);
+    }
+
+    /**
+     * Submits a task, blocking the caller at most the given time for the resource to have a free permit.
+     *
+     * @param resource the resource the task uses
+     * @param task     the task
+     * @param timeout  the longest time to wait for a permit, null to wait as long as needed
+     * @param <T>      the type of result returned by the task
+     * @return a future completed with the result of the task
+     * @throws RejectedExecutionException if the executor is shut down, no permit was free in time, or the caller is
+     *                                    interrupted while waiting
+     */
+    public <T> CompletableFuture<T> submit(String resource, Callable<T> task, Duration timeout) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task cannot be null");
+        }
+        final Resource target = accept(resource);
+        try {
+            acquire(target, timeout);
+        } catch (RejectedExecutionException e) {
+            finish();
+            throw e;
+        }
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            delegate.execute(() -> run(target, task, result));
+        } catch (RejectedExecutionException e) {
+            target.rejected.increment();
+            abandon(target);
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Submits a task without blocking the caller; the task waits in the queue of the resource, without holding a
+     * thread, until a permit is free.
+     *
+     * @param resource the resource the task uses
+     * @param task     the task
+     * @param <T>      the type of result returned by the task
+     * @return a future completed with the result of the task, or failed with a {@link RejectedExecutionException}
+     * if the executor is shut down or too many tasks already wait for the resource
+     */
+    public <T> CompletableFuture<T> submitAsync(String resource, Callable<T> task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task cannot be null");
+        }
+        final Resource target;
+        try {
+            target = accept(resource);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (!target.tryEnqueue(maxQueued)) {
+            target.rejected.increment();
+            finish();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    String.format("%d tasks already wait for resource %s", maxQueued, target.name)
+            ));
+        }
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        target.waiting.add(new Waiter<>(task, result));
+        dispatch(target);
+        return result;
+    }
+
+    /**
+     * @param resource the resource
+     * @return the current statistics of the resource
+     */
+    public ResourceStats stats(String resource) {
+        return resource(resource).snapshot();
+    }
+
+    /**
+     * @return the resources used so far
+     */
+    public List<String> getResources() {
+        return List.copyOf(resources.keySet());
+    }
+
+    /**
+     * @param resource the resource
+     * @return the maximum number of tasks running at once against the resource
+     */
+    public int getLimit(String resource) {
+        return limits.getOrDefault(resource, defaultLimit);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Publishes the statistics of every resource, including the ones used later, tagged with
+     * {@code executor=<name>} and {@code resource=<resource>}:
+     * {@code executor.bounded.active}, {@code executor.bounded.queued}, {@code executor.bounded.limit},
+     * {@code executor.bounded.rejected} and {@code executor.bounded.wait}.
+     *
+     * @param registry the registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (registries.contains(registry)) {
+            return;
+        }
+        registries.add(registry);
+        for (Resource resource : resources.values()) {
+            resource.bindTo(registry);
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        submit(DEFAULT_RESOURCE, Executors.callable(command));
+    }
+
+    /**
+     * Stops accepting tasks; the tasks already accepted, queued ones included, still run. A delegate owned by this
+     * executor is shut down once they have finished.
+     */
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        signalIfTerminated();
+    }
+
+    /**
+     * Stops accepting tasks and fails the queued ones with a {@link RejectedExecutionException}; running tasks are
+     * only interrupted if this executor owns its delegate.
+     *
+     * @return an empty list, the futures of the queued tasks are failed instead
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        for (Resource target : resources.values()) {
+            Waiter<?> waiter;
+            while ((waiter = target.waiting.poll()) != null) {
+                target.queued.decrementAndGet();
+                waiter.result.completeExceptionally(new RejectedExecutionException("Executor " + name + " is shut down"));
+                finish();
+            }
+        }
+        if (ownsDelegate) {
+            delegate.shutdownNow();
+        }
+        signalIfTerminated();
+        return List.of();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && inFlight.get() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        terminationLock.lock();
+        try {
+            while (!isTerminated()) {
+                if (remaining <= 0L) {
+                    return false;
+                }
+                remaining = terminated.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            terminationLock.unlock();
+        }
+    }
+
+    private Resource accept(String resource) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor " + name + " is shut down");
+        }
+        final Resource target = resource(resource);
+        inFlight.incrementAndGet();
+        return target;
+    }
+
+    private void acquire(Resource target, Duration timeout) {
+        final long submittedAt = System.nanoTime();
+        target.queued.incrementAndGet();
+        boolean acquired = false;
+        try {
+            if (timeout == null) {
+                target.permits.acquire();
+                acquired = true;
+            } else {
+                acquired = target.permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            target.queued.decrementAndGet();
+            target.rejected.increment();
+            throw new RejectedExecutionException("Interrupted while waiting for resource " + target.name, e);
+        }
+        if (!acquired) {
+            target.queued.decrementAndGet();
+            target.rejected.increment();
+            throw new RejectedExecutionException("No permit of resource " + target.name + " was free within " + timeout);
+        }
+        target.acquired(submittedAt);
+    }
+
+    private <T> void run(Resource target, Callable<T> task, CompletableFuture<T> result) {
+        try {
+            if (!result.isDone()) {
+                result.complete(task.call());
+            }
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        } finally {
+            release(target);
+        }
+    }
+
+    private void release(Resource target) {
+        target.completed.increment();
+        abandon(target);
+    }
+
+    /**
+     * Gives back the permit of a task that got one, without counting the task as completed: the delegate may have
+     * refused to run it.
+     */
+    private void abandon(Resource target) {
+        target.active.decrementAndGet();
+        target.permits.release();
+        finish();
+        dispatch(target);
+    }
+
+    /**
+     * Hands queued tasks to the delegate while the resource has free permits. Called after a task is queued and
+     * after a permit is released, so that a task queued while the last permit was being released is not left
+     * behind.
+     */
+    private void dispatch(Resource target) {
+        while (!target.waiting.isEmpty() && target.permits.tryAcquire()) {
+            final Waiter<?> waiter = target.waiting.poll();
+            if (waiter == null) {
+                target.permits.release();
+                continue;
+            }
+            target.acquired(waiter.submittedAt);
+            try {
+                delegate.execute(() -> waiter.run(target));
+            } catch (RejectedExecutionException e) {
+                target.active.decrementAndGet();
+                target.rejected.increment();
+                target.permits.release();
+                waiter.result.completeExceptionally(e);
+                finish();
+            }
+        }
+    }
+
+    private void finish() {
+        if (inFlight.decrementAndGet() == 0 && shutdown) {
+            signalIfTerminated();
+        }
+    }
+
+    private void signalIfTerminated() {
+        if (!isTerminated()) {
+            return;
+        }
+        if (ownsDelegate) {
+            delegate.shutdown();
+        }
+        terminationLock.lock();
+        try {
+            terminated.signalAll();
+        } finally {
+            terminationLock.unlock();
+        }
+    }
+
+    private Resource resource(String resource) {
+        if (StringUtils.isBlank(resource)) {
+            throw new IllegalArgumentException("Resource name cannot be blank");
+        }
+        Resource target = resources.get(resource);
+        if (target == null) {
+            final Resource created = new Resource(resource, getLimit(resource));
+            target = resources.putIfAbsent(resource, created);
+            if (target == null) {
+                target = created;
+                for (MeterRegistry registry : registries) {
+                    created.bindTo(registry);
+                }
+            }
+        }
+        return target;
+    }
+
+    /**
+     * A task submitted with {@link #submitAsync(String, Callable)} waiting for a permit
+     */
+    private final class Waiter<T> {
+        private final Callable<T> task;
+        private final CompletableFuture<T> result;
+        private final long submittedAt = System.nanoTime();
+
+        private Waiter(Callable<T> task, CompletableFuture<T> result) {
+            this.task = task;
+            this.result = result;
+        }
+
+        private void run(Resource target) {
+            BoundedExecutor.this.run(target, task, result);
+        }
+    }
+
+    /**
+     * Permits, queued tasks and counters of one resource
+     */
+    private final class Resource {
+        private final String name;
+        private final int limit;
+        private final Semaphore permits;
+        private final ConcurrentLinkedQueue<Waiter<?>> waiting = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final LongAdder acquiredCount = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+
+        private Resource(String name, int limit) {
+            this.name = name;
+            this.limit = limit;
+            this.permits = new Semaphore(limit, true);
+        }
+
+        /**
+         * Counts one more waiting task unless {@code maxQueued} tasks already wait.
+         */
+        private boolean tryEnqueue(int maxQueued) {
+            while (true) {
+                final int current = queued.get();
+                if (current >= maxQueued) {
+                    return false;
+                }
+                if (queued.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void acquired(long submittedAt) {
+            final long waited = System.nanoTime() - submittedAt;
+            queued.decrementAndGet();
+            active.incrementAndGet();
+            acquiredCount.increment();
+            totalWaitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+        }
+
+        private ResourceStats snapshot() {
+            return new ResourceStats(
+                    name,
+                    limit,
+                    active.get(),
+                    queued.get(),
+                    acquiredCount.sum(),
+                    completed.sum(),
+                    rejected.sum(),
+                    totalWaitNanos.sum(),
+                    maxWaitNanos.get()
+            );
+        }
+
+        private void bindTo(MeterRegistry registry) {
+            final Tags tags = Tags.of("executor", Objects.requireNonNullElse(BoundedExecutor.this.name, "bounded"), "resource", name);
+            Gauge.builder("executor.bounded.active", active, AtomicInteger::get)
+                    .tags(tags)
+                    .description("The number of tasks running against the resource")
+                    .register(registry);
+            Gauge.builder("executor.bounded.queued", queued, AtomicInteger::get)
+                    .tags(tags)
+                    .description("The number of tasks waiting for a permit of the resource")
+                    .register(registry);
+            Gauge.builder("executor.bounded.limit", this, resource -> resource.limit)
+                    .tags(tags)
+                    .description("The maximum number of tasks running at once against the resource")
+                    .register(registry);
+            FunctionCounter.builder("executor.bounded.rejected", rejected, LongAdder::sum)
+                    .tags(tags)
+                    .description("The number of tasks rejected because no permit was free in time")
+                    .register(registry);
+            FunctionTimer.builder(
+                            "executor.bounded.wait",
+                            this,
+                            resource -> resource.acquiredCount.sum(),
+                            resource -> resource.totalWaitNanos.sum(),
+                            TimeUnit.NANOSECONDS
+                    )
+                    .tags(tags)
+                    .description("The time tasks waited for a permit of the resource")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * An immutable snapshot of the statistics of one resource of a {@link BoundedExecutor}.
+     */
+    public static final class ResourceStats {
+        private final String resource;
+        private final int limit;
+        private final int active;
+        private final int queued;
+        private final long acquiredCount;
+        private final long completedCount;
+        private final long rejectedCount;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+
+        private ResourceStats(String resource,
+                              int limit,
+                              int active,
+                              int queued,
+                              long acquiredCount,
+                              long completedCount,
+                              long rejectedCount,
+                              long totalWaitNanos,
+                              long maxWaitNanos) {
+            this.resource = resource;
+            this.limit = limit;
+            this.active = active;
+            this.queued = queued;
+            this.acquiredCount = acquiredCount;
+            this.completedCount = completedCount;
+            this.rejectedCount = rejectedCount;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        public String getResource() {
+            return resource;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        /**
+         * @return the number of tasks running against the resource
+         */
+        public int getActive() {
+            return active;
+        }
+
+        /**
+         * @return the number of tasks waiting for a permit
+         */
+        public int getQueued() {
+            return queued;
+        }
+
+        /**
+         * @return the number of tasks that got a permit
+         */
+        public long getAcquiredCount() {
+            return acquiredCount;
+        }
+
+        /**
+         * @return the number of tasks that finished running
+         */
+        public long getCompletedCount() {
+            return completedCount;
+        }
+
+        /**
+         * @return the number of tasks rejected because no permit was free in time or too many tasks were waiting
+         */
+        public long getRejectedCount() {
+            return rejectedCount;
+        }
+
+        /**
+         * @return the total time tasks waited for a permit, in nanoseconds
+         */
+        public long getTotalWaitNanos() {
+            return totalWaitNanos;
+        }
+
+        /**
+         * @return the average time a task waited for a permit, in nanoseconds
+         */
+        public double getAverageWaitNanos() {
+            return acquiredCount == 0 ? 0.0 : (double) totalWaitNanos / acquiredCount;
+        }
+
+        /**
+         * @return the longest time a task waited for a permit, in nanoseconds
+         */
+        public long getMaxWaitNanos() {
+            return maxWaitNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "ResourceStats{resource=%s, limit=%d, active=%d, queued=%d, acquired=%d, completed=%d, rejected=%d, averageWait=%.0fns, maxWait=%dns}",
+                    resource, limit, active, queued, acquiredCount, completedCount, rejectedCount, getAverageWaitNanos(), maxWaitNanos
+            );
+        }
+    }
+
+    public static class BoundedExecutorBuilder {
+        private String name;
+        private ExecutorService delegate;
+        private int defaultLimit = Math.max(1, Runtime.getRuntime().availableProcessors() * 4);
+        private int maxQueued = 10_000;
+        private final Map<String, Integer> limits = new HashMap<>();
+
+        public BoundedExecutorBuilder() {
+        }
+
+        /**
+         * @param name the name of the executor, used in logs and meter tags
+         * @return this builder
+         */
+        public BoundedExecutorBuilder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * @param delegate runs the tasks once they have a permit; by default a Virtual Thread per task executor on
+         *                 JDK 21+, otherwise {@link SimpleExecutor#sharedExecutor()}. A given delegate is not shut
+         *                 down with this executor
+         * @return this builder
+         */
+        public BoundedExecutorBuilder delegate(ExecutorService delegate) {
+            this.delegate = delegate;
+            return this;
+        }
+
+        /**
+         * @param defaultLimit the maximum number of tasks running at once against a resource without its own limit,
+         *                     4 per processor by default
+         * @return this builder
+         */
+        public BoundedExecutorBuilder defaultLimit(int defaultLimit) {
+            this.defaultLimit = defaultLimit;
+            return this;
+        }
+
+        /**
+         * @param resource       the resource
+         * @param maxConcurrency the maximum number of tasks running at once against the resource, for instance the
+         *                       size of its connection pool
+         * @return this builder
+         */
+        public BoundedExecutorBuilder limit(String resource, int maxConcurrency) {
+            if (StringUtils.isBlank(resource)) {
+                throw new IllegalArgumentException("Resource name cannot be blank");
+            }
+            this.limits.put(resource, maxConcurrency);
+            return this;
+        }
+
+        /**
+         * @param maxQueued the maximum number of tasks submitted with {@link #submitAsync(String, Callable)} waiting
+         *                  for a permit of one resource, 10000 by default; a waiting task holds no thread
+         * @return this builder
+         */
+        public BoundedExecutorBuilder maxQueued(int maxQueued) {
+            this.maxQueued = maxQueued;
+            return this;
+        }
+
+        public BoundedExecutor build() {
+            if (defaultLimit < 1) {
+                throw new IllegalArgumentException("Default limit must be at least 1");
+            }
+            if (maxQueued < 0) {
+                throw new IllegalArgumentException("Maximum queued tasks cannot be negative");
+            }
+            limits.forEach((resource, limit) -> {
+                if (limit < 1) {
+                    throw new IllegalArgumentException("Limit of resource " + resource + " must be at least 1");
+                }
+            });
+            if (delegate != null) {
+                return new BoundedExecutor(this, delegate, false);
+            }
+            final ExecutorService virtualExecutor = VirtualThreadSupport.newVirtualThreadPerTaskExecutor(
+                    Objects.requireNonNullElse(name, "lcx-bounded-worker")
+            );
+            return virtualExecutor != null
+                    ? new BoundedExecutor(this, virtualExecutor, true)
+                    : new BoundedExecutor(this, SimpleExecutor.sharedExecutor(), false);
+        }
+    }
+}
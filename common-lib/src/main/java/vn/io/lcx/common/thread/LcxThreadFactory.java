@@ -8,16 +8,26 @@ public class LcxThreadFactory {
     static class MyThreadFactory implements ThreadFactory {
         private final String namePrefix;
         private final AtomicInteger threadCount = new AtomicInteger(0);
+        private final boolean daemon;
 
         public MyThreadFactory(String namePrefix) {
+            this(namePrefix, false);
+        }
+
+        /**
+         * @param namePrefix the prefix of thread names
+         * @param daemon     true for threads that do not keep the JVM alive, for long-lived shared pools
+         */
+        public MyThreadFactory(String namePrefix, boolean daemon) {
             this.namePrefix = namePrefix;
+            this.daemon = daemon;
         }
 
         @Override
         public Thread newThread(Runnable r) {
             Thread thread = new Thread(r, namePrefix + "-" + threadCount.incrementAndGet());
             // thread.setPriority(Thread.NORM_PRIORITY);
-            // thread.setDaemon(true);
+            thread.setDaemon(daemon);
             return thread;
         }
     }
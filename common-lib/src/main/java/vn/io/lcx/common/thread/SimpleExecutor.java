@@ -2,6 +2,7 @@ package vn.io.lcx.common.thread;
 
 import vn.io.lcx.common.utils.LogUtils;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -50,12 +51,25 @@ import java.util.concurrent.TimeUnit;
  *     // Execute tasks
  *     executor.executeTasksWithCountDownLatch();
  * }
+ *
+ * // Fan out on the shared executor and collect the results in order
+ * try (TaskGroup<String> group = SimpleExecutor.newTaskGroup()) {
+ *     group.fork(() -> "Task 1 result", Duration.ofMillis(500));
+ *     group.fork(() -> "Task 2 result", Duration.ofMillis(500));
+ *     List<String> results = group.joinAll(Duration.ofSeconds(1));
+ * }
  * }</pre>
  *
  * @param <T> the type of result returned by the tasks
  */
 public class SimpleExecutor<T> implements BaseExecutor<T> {
 
+    /**
+     * Executor shared by every task group and asynchronous run that does not bring its own pool, created on first use
+     * and never shut down
+     */
+    private static volatile ExecutorService sharedExecutor;
+
     /**
      * List of callable tasks to be executed
      */
@@ -96,6 +110,11 @@ public class SimpleExecutor<T> implements BaseExecutor<T> {
      */
     private final boolean useVirtualThread;
 
+    /**
+     * Maximum number of tasks running at once with Virtual Threads, 0 for no limit
+     */
+    private final int maxConcurrency;
+
     public SimpleExecutor(List<Callable<T>> taskList,
                           RejectedExecutionHandler rejectedExecutionHandler,
                           int minThread,
@@ -103,6 +122,21 @@ public class SimpleExecutor<T> implements BaseExecutor<T> {
                           long timeout,
                           TimeUnit unit,
                           boolean useVirtualThread) {
+        this(taskList, rejectedExecutionHandler, minThread, maxThread, timeout, unit, useVirtualThread, 0);
+    }
+
+    public SimpleExecutor(List<Callable<T>> taskList,
+                          RejectedExecutionHandler rejectedExecutionHandler,
+                          int minThread,
+                          int maxThread,
+                          long timeout,
+                          TimeUnit unit,
+                          boolean useVirtualThread,
+                          int maxConcurrency) {
+        if (maxConcurrency < 0) {
+            throw new IllegalArgumentException("maxConcurrency cannot be negative");
+        }
+        this.maxConcurrency = maxConcurrency;
         this.taskList = taskList;
         this.rejectedExecutionHandler = rejectedExecutionHandler;
         this.minThread = minThread;
@@ -203,6 +237,41 @@ public class SimpleExecutor<T> implements BaseExecutor<T> {
         );
     }
 
+    /**
+     * Creates a new SimpleExecutor configured to use Virtual Threads, with at most
+     * {@code maxConcurrency} tasks running at once.
+     *
+     * <p>Virtual Threads make thousands of concurrent tasks cheap, but each of them may hold
+     * a database connection or an HTTP call. Tasks beyond the limit wait for a free slot and
+     * submitting them blocks the caller, see {@link BoundedExecutor}. When Virtual Threads are
+     * not supported, the tasks run on the {@link #sharedExecutor() shared executor} with the
+     * same limit.</p>
+     *
+     * @param timeout        the timeout duration for task execution
+     * @param unit           the time unit for the timeout
+     * @param maxConcurrency the maximum number of tasks running at once
+     * @param <T>            the type of result returned by tasks
+     * @return a new SimpleExecutor instance configured for bounded Virtual Threads
+     * @throws IllegalArgumentException if maxConcurrency is less than 1
+     */
+    public static <T> SimpleExecutor<T> initWithVirtualThread(final long timeout,
+                                                               final TimeUnit unit,
+                                                               int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        return new SimpleExecutor<>(
+                new ArrayList<>(),
+                new ThreadPoolExecutor.AbortPolicy(), // Default policy, not used for virtual threads
+                0,
+                0,
+                timeout,
+                unit,
+                true,
+                maxConcurrency
+        );
+    }
+
     /**
      * Creates a new SimpleExecutor with full configuration and Virtual Thread support.
      *
@@ -236,6 +305,43 @@ public class SimpleExecutor<T> implements BaseExecutor<T> {
         );
     }
 
+    /**
+     * Returns the long-lived executor shared across the application.
+     *
+     * <p>It starts a Virtual Thread per task on JDK 21+, and otherwise reuses cached daemon platform threads, so
+     * fanning out many small tasks neither creates a pool per call nor keeps the JVM alive.</p>
+     *
+     * @return the shared executor, which must not be shut down
+     */
+    public static ExecutorService sharedExecutor() {
+        ExecutorService executor = sharedExecutor;
+        if (executor == null) {
+            synchronized (SimpleExecutor.class) {
+                executor = sharedExecutor;
+                if (executor == null) {
+                    executor = VirtualThreadSupport.newVirtualThreadPerTaskExecutor("lcx-shared-virtual-worker");
+                    if (executor == null) {
+                        executor = Executors.newCachedThreadPool(
+                                new LcxThreadFactory.MyThreadFactory("lcx-shared-worker", true)
+                        );
+                    }
+                    sharedExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Creates a task group running on the {@link #sharedExecutor() shared executor}.
+     *
+     * @param <R> the type of result returned by the tasks
+     * @return a new task group
+     */
+    public static <R> TaskGroup<R> newTaskGroup() {
+        return new TaskGroup<>(sharedExecutor());
+    }
+
     /**
      * Converts a RejectMode enum to the corresponding RejectedExecutionHandler.
      *
@@ -289,6 +395,13 @@ public class SimpleExecutor<T> implements BaseExecutor<T> {
         return useVirtualThread;
     }
 
+    /**
+     * @return the maximum number of tasks running at once with Virtual Threads, 0 for no limit
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
     /**
      * Adds a single task to the executor's task list.
      *
@@ -318,8 +431,9 @@ public class SimpleExecutor<T> implements BaseExecutor<T> {
     /**
      * Creates and returns an ExecutorService based on the current configuration.
      *
-     * <p>If minThread and maxThread are both 0, creates a cached thread pool.
-     * Otherwise, creates a ThreadPoolExecutor with the specified configuration.</p>
+     * <p>With Virtual Threads and a concurrency limit, creates a {@link BoundedExecutor}.
+     * Otherwise, if minThread and maxThread are both 0, creates a cached thread pool,
+     * or else a ThreadPoolExecutor with the specified configuration.</p>
      *
      * <p>This method implements lazy initialization - the executor service is only
      * created when needed and reused if already created and not terminated.</p>
@@ -332,6 +446,21 @@ public class SimpleExecutor<T> implements BaseExecutor<T> {
         }
         final ExecutorService service;
 
+        // Virtual Threads gated by a concurrency limit, falling back to the shared executor with the same limit
+        if (useVirtualThread && maxConcurrency > 0) {
+            LogUtils.writeLog(
+                    SimpleExecutor.class,
+                    LogUtils.Level.INFO,
+                    "Using bounded executor with at most {} concurrent task(s)",
+                    maxConcurrency
+            );
+            executorService = BoundedExecutor.builder()
+                    .name("lcx-virtual-worker")
+                    .defaultLimit(maxConcurrency)
+                    .build();
+            return executorService;
+        }
+
         // Try to use Virtual Threads if requested and supported
         if (useVirtualThread) {
             if (VirtualThreadSupport.isVirtualThreadSupported()) {
@@ -470,6 +599,41 @@ public class SimpleExecutor<T> implements BaseExecutor<T> {
         }
     }
 
+    /**
+     * Creates a task group running on the executor service of this instance, which is kept until {@link #close()}.
+     *
+     * <p>With a bounded pool, tasks beyond its queue are handled by the rejection policy; a rejected task fails
+     * with a {@link java.util.concurrent.RejectedExecutionException}.</p>
+     *
+     * @return a new task group
+     */
+    public TaskGroup<T> taskGroup() {
+        return new TaskGroup<>(this.createExecutorService());
+    }
+
+    /**
+     * Executes all tasks and collects their results.
+     *
+     * <p>Unlike {@link #executeTasksWithCountDownLatch()}, the executor service is not shut down afterwards, so it
+     * can run the next batch, and the first failing task cancels the others.</p>
+     *
+     * <p>After execution, the task list is cleared.</p>
+     *
+     * @return the results, in the order the tasks were added
+     * @throws vn.io.lcx.common.exception.TaskGroupException if a task failed or the tasks did not finish within the
+     *                                                       timeout of this executor
+     */
+    public List<T> executeTasks() {
+        try (TaskGroup<T> group = this.taskGroup()) {
+            for (Callable<T> task : this.taskList) {
+                group.fork(task);
+            }
+            return group.joinAll(Duration.ofNanos(this.unit.toNanos(this.timeout)));
+        } finally {
+            taskList.clear();
+        }
+    }
+
     /**
      * Cancels a future task.
      *
@@ -502,8 +666,8 @@ public class SimpleExecutor<T> implements BaseExecutor<T> {
      * Executes multiple runnable tasks asynchronously in sequence.
      *
      * <p>This method creates a chain of CompletableFuture tasks that execute
-     * sequentially. Each task waits for the previous one to complete before
-     * starting.</p>
+     * sequentially on the {@link #sharedExecutor() shared executor}. Each task waits
+     * for the previous one to complete before starting.</p>
      *
      * <p>If no runnables are provided, returns a completed future immediately.</p>
      *
@@ -516,15 +680,13 @@ public class SimpleExecutor<T> implements BaseExecutor<T> {
         if (runnable.length == 0) {
             return CompletableFuture.completedFuture(null);
         }
-        // Create a separate executor to avoid shutting down the shared executorService
-        final ExecutorService localExecutor = Executors.newCachedThreadPool(
-                new LcxThreadFactory.MyThreadFactory("lcx-async-worker")
-        );
+        // The shared executor is never shut down, so it can be used without tearing down the executorService
+        final ExecutorService asyncExecutor = sharedExecutor();
         CompletableFuture<Void> currentFuture = CompletableFuture.completedFuture(null);
         for (Runnable r : runnable) {
-            currentFuture = currentFuture.thenRunAsync(r, localExecutor);
+            currentFuture = currentFuture.thenRunAsync(r, asyncExecutor);
         }
-        return currentFuture.whenComplete((result, error) -> localExecutor.shutdown());
+        return currentFuture;
     }
 
     /**
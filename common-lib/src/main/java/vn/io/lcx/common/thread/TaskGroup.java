@@ -0,0 +1,342 @@
+package vn.io.lcx.common.thread;
+
+import vn.io.lcx.common.exception.TaskGroupException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A group of tasks forked together and joined together, whose results are collected in fork order.
+ *
+ * <p>Tasks run on the executor given at creation, which is not shut down by the group, so a long-lived executor
+ * such as {@link SimpleExecutor#sharedExecutor()} can serve every group without building a pool per call.
+ * Once the group is joined, no task outlives it: the tasks still running are cancelled (interrupted) when</p>
+ * <ul>
+ *   <li>{@link #joinAll} sees a task fail (fail-fast),</li>
+ *   <li>{@link #joinAny} gets a first successful result,</li>
+ *   <li>the group deadline passes, or the group is closed.</li>
+ * </ul>
+ *
+ * <p>A task forked with its own timeout fails with a {@link TimeoutException} when it takes longer, and is
+ * cancelled.</p>
+ *
+ * <p>Usage example:</p>
+ * <pre>{@code
+ * try (TaskGroup<Price> group = SimpleExecutor.newTaskGroup()) {
+ *     group.fork(() -> supplierA.quote(item), Duration.ofMillis(300));
+ *     group.fork(() -> supplierB.quote(item), Duration.ofMillis(300));
+ *     List<Price> prices = group.joinAll(Duration.ofSeconds(1));
+ * }
+ * }</pre>
+ *
+ * <p>A group is meant to be used by the thread that created it.</p>
+ *
+ * @param <T> the type of result returned by the tasks
+ */
+public final class TaskGroup<T> implements AutoCloseable {
+
+    /**
+     * Fires the per-task timeouts; it only cancels tasks, so a single thread is enough
+     */
+    private static final ScheduledExecutorService timeouts = createTimeoutScheduler();
+
+    private final Executor executor;
+    private final List<Subtask<T>> subtasks = new ArrayList<>();
+    /**
+     * Completed when the group has an outcome: every task is done, a task failed in fail-fast mode, or a task
+     * succeeded in first-success mode
+     */
+    private final CompletableFuture<Void> outcome = new CompletableFuture<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    /**
+     * The first task to succeed
+     */
+    private final AtomicReference<Subtask<T>> winner = new AtomicReference<>();
+    private volatile boolean firstSuccessWins;
+    private volatile boolean joined;
+
+    /**
+     * @param executor runs the tasks, it is not shut down by the group
+     */
+    public TaskGroup(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Starts a task.
+     *
+     * @param task the task
+     * @return this group
+     */
+    public TaskGroup<T> fork(Callable<T> task) {
+        return fork(task, null);
+    }
+
+    /**
+     * Starts a task that fails with a {@link TimeoutException} if it does not finish in time.
+     *
+     * @param task    the task
+     * @param timeout the longest time the task may run, null for no limit
+     * @return this group
+     */
+    public TaskGroup<T> fork(Callable<T> task, Duration timeout) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task cannot be null");
+        }
+        if (joined) {
+            throw new IllegalStateException("Cannot fork a task into a group that was already joined");
+        }
+        final Subtask<T> subtask = new Subtask<>(this, task);
+        subtasks.add(subtask);
+        pending.incrementAndGet();
+        try {
+            executor.execute(subtask.runner);
+        } catch (RejectedExecutionException e) {
+            subtask.finish(null, e);
+            return this;
+        }
+        if (timeout != null) {
+            subtask.timeout = timeouts.schedule(
+                    () -> subtask.finish(null, new TimeoutException("Task timed out after " + timeout)),
+                    Math.max(1L, timeout.toNanos()),
+                    TimeUnit.NANOSECONDS
+            );
+            if (subtask.isDone()) {
+                subtask.timeout.cancel(false);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Waits for every task and returns their results; the first failure cancels the other tasks.
+     *
+     * @return the results, in fork order
+     * @throws TaskGroupException if a task failed, with its exception as the cause
+     */
+    public List<T> joinAll() {
+        return joinAll(null);
+    }
+
+    /**
+     * Waits for every task and returns their results; the first failure cancels the other tasks.
+     *
+     * @param deadline the longest time to wait for the group, null for no limit
+     * @return the results, in fork order
+     * @throws TaskGroupException if a task failed, with its exception as the cause, or if the deadline passed,
+     *                            with a {@link TimeoutException} as the cause
+     */
+    public List<T> joinAll(Duration deadline) {
+        await(deadline);
+        for (Subtask<T> subtask : subtasks) {
+            if (subtask.isFailed()) {
+                cancelAll();
+                throw new TaskGroupException("A task of the group failed: " + subtask.error.getMessage(), subtask.error);
+            }
+        }
+        final List<T> results = new ArrayList<>(subtasks.size());
+        for (Subtask<T> subtask : subtasks) {
+            results.add(subtask.result);
+        }
+        return results;
+    }
+
+    /**
+     * Waits for the first task to succeed and cancels the other tasks.
+     *
+     * @return the result of the first task to succeed
+     * @throws TaskGroupException if every task failed, with the first failure as the cause and the others
+     *                            suppressed
+     */
+    public T joinAny() {
+        return joinAny(null);
+    }
+
+    /**
+     * Waits for the first task to succeed and cancels the other tasks.
+     *
+     * @param deadline the longest time to wait for the group, null for no limit
+     * @return the result of the first task to succeed
+     * @throws TaskGroupException if every task failed, with the first failure as the cause and the others
+     *                            suppressed, or if the deadline passed, with a {@link TimeoutException} as the cause
+     */
+    public T joinAny(Duration deadline) {
+        firstSuccessWins = true;
+        if (subtasks.isEmpty()) {
+            throw new TaskGroupException("No task was forked into the group");
+        }
+        await(deadline);
+        cancelAll();
+        final Subtask<T> first = winner.get();
+        if (first != null) {
+            return first.result;
+        }
+        TaskGroupException failure = null;
+        for (Subtask<T> subtask : subtasks) {
+            if (failure == null) {
+                failure = new TaskGroupException("Every task of the group failed", subtask.error);
+            } else {
+                failure.addSuppressed(subtask.error);
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * Cancels the tasks that are still running.
+     */
+    @Override
+    public void close() {
+        cancelAll();
+    }
+
+    private void await(Duration deadline) {
+        if (joined) {
+            throw new IllegalStateException("A group can only be joined once");
+        }
+        joined = true;
+        if (pending.get() == 0) {
+            outcome.complete(null);
+        }
+        // tasks that ended before the mode was known must be looked at again
+        for (Subtask<T> subtask : subtasks) {
+            if (subtask.isDone()) {
+                onTaskDone(subtask);
+            }
+        }
+        try {
+            if (deadline == null) {
+                outcome.get();
+            } else {
+                outcome.get(Math.max(0L, deadline.toNanos()), TimeUnit.NANOSECONDS);
+            }
+        } catch (TimeoutException e) {
+            cancelAll();
+            throw new TaskGroupException("The group did not finish within " + deadline, e);
+        } catch (InterruptedException e) {
+            cancelAll();
+            Thread.currentThread().interrupt();
+            throw new TaskGroupException("Interrupted while waiting for the group", e);
+        } catch (ExecutionException e) {
+            // the outcome is never completed exceptionally
+            throw new TaskGroupException("Unexpected failure of the group", e.getCause());
+        }
+    }
+
+    private void onTaskDone(Subtask<T> subtask) {
+        final boolean last = pending.get() == 0;
+        if (!joined) {
+            // the join decides the mode; it completes the outcome itself
+            return;
+        }
+        if (last || (firstSuccessWins ? subtask.isSucceeded() : subtask.isFailed())) {
+            outcome.complete(null);
+        }
+    }
+
+    private void cancelAll() {
+        for (Subtask<T> subtask : subtasks) {
+            subtask.finish(null, new CancellationException("Cancelled by its task group"));
+        }
+    }
+
+    private static ScheduledExecutorService createTimeoutScheduler() {
+        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "lcx-task-group-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * One task of a group. Its first outcome wins: its own result, its timeout, or its cancellation.
+     */
+    private static final class Subtask<T> {
+        private final TaskGroup<T> group;
+        private final FutureTask<Void> runner;
+        private volatile Future<?> timeout;
+        private volatile boolean done;
+
+        /**
+         * The thread running the task, while it runs
+         */
+        private volatile Thread thread;
+        private T result;
+        private Throwable error;
+
+        private Subtask(TaskGroup<T> group, Callable<T> task) {
+            this.group = group;
+            this.runner = new FutureTask<>(() -> {
+                thread = Thread.currentThread();
+                try {
+                    finish(task.call(), null);
+                } catch (Throwable e) {
+                    finish(null, e);
+                } finally {
+                    thread = null;
+                }
+                return null;
+            });
+        }
+
+        private void finish(T value, Throwable failure) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                result = value;
+                error = failure;
+                done = true;
+            }
+            final Future<?> timer = timeout;
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            if (failure != null) {
+                // interrupts the task if it is still running, and skips it if it has not started yet; a task failing
+                // by itself must not interrupt its own pooled thread, which would leak into the next task
+                runner.cancel(Thread.currentThread() != thread);
+            }
+            if (failure == null) {
+                group.winner.compareAndSet(null, this);
+            }
+            group.pending.decrementAndGet();
+            group.onTaskDone(this);
+        }
+
+        private boolean isDone() {
+            return done;
+        }
+
+        /**
+         * Reading {@link #done} first makes the result and the error visible
+         */
+        private boolean isSucceeded() {
+            return done && error == null;
+        }
+
+        private boolean isFailed() {
+            return done && error != null;
+        }
+    }
+}
@@ -15,6 +15,26 @@ public final class LogUtils {
     private LogUtils() {
     }
 
+    /**
+     * @return whether messages of the given level are written for the class, to skip building costly messages
+     */
+    public static boolean isEnabled(Class<?> clazz, Level level) {
+        switch (level) {
+            case INFO:
+                return LoggerFactory.getLogger(clazz).isInfoEnabled();
+            case WARN:
+                return LoggerFactory.getLogger(clazz).isWarnEnabled();
+            case ERROR:
+                return LoggerFactory.getLogger(clazz).isErrorEnabled();
+            case DEBUG:
+                return LoggerFactory.getLogger(clazz).isDebugEnabled();
+            case TRACE:
+                return LoggerFactory.getLogger(clazz).isTraceEnabled();
+            default:
+                return false;
+        }
+    }
+
     public static void writeLog(Class<?> clazz, Level level, String message, Object... messageParameter) {
         switch (level) {
             case INFO:
@@ -377,9 +377,15 @@ public class SQLMappingProcessor extends AbstractProcessor {
                         )
         ).append("\n").append(
                 methodTemplate
-                        .replace("${return-type}", "static java.util.Map<Integer, Object>")
+                        .replace("${return-type}", "static vn.io.lcx.common.database.SqlParameters")
                         .replace("${method-name}", "insertJDBCParams")
                         .replace("${list-of-parameters}", processorClassInfo.getClazz().getQualifiedName() + " model")
+                        .replace("${method-body}", "return insertJDBCParams(model, new vn.io.lcx.common.database.SqlParameters());")
+        ).append("\n").append(
+                methodTemplate
+                        .replace("${return-type}", "static vn.io.lcx.common.database.SqlParameters")
+                        .replace("${method-name}", "insertJDBCParams")
+                        .replace("${list-of-parameters}", processorClassInfo.getClazz().getQualifiedName() + " model, vn.io.lcx.common.database.SqlParameters parameters")
                         .replace("${method-body}", insertJdbcParameterCodeLines
                                 .stream()
                                 .collect(
@@ -392,9 +398,15 @@ public class SQLMappingProcessor extends AbstractProcessor {
                         )
         ).append("\n").append(
                 methodTemplate
-                        .replace("${return-type}", "static java.util.Map<Integer, Object>")
+                        .replace("${return-type}", "static vn.io.lcx.common.database.SqlParameters")
                         .replace("${method-name}", "updateJDBCParams")
                         .replace("${list-of-parameters}", processorClassInfo.getClazz().getQualifiedName() + " model")
+                        .replace("${method-body}", "return updateJDBCParams(model, new vn.io.lcx.common.database.SqlParameters());")
+        ).append("\n").append(
+                methodTemplate
+                        .replace("${return-type}", "static vn.io.lcx.common.database.SqlParameters")
+                        .replace("${method-name}", "updateJDBCParams")
+                        .replace("${list-of-parameters}", processorClassInfo.getClazz().getQualifiedName() + " model, vn.io.lcx.common.database.SqlParameters parameters")
                         .replace("${method-body}", updateJdbcParameterCodeLines
                                 .stream()
                                 .collect(
@@ -407,9 +419,15 @@ public class SQLMappingProcessor extends AbstractProcessor {
                         )
         ).append("\n").append(
                 methodTemplate
-                        .replace("${return-type}", "static java.util.Map<Integer, Object>")
+                        .replace("${return-type}", "static vn.io.lcx.common.database.SqlParameters")
                         .replace("${method-name}", "deleteJDBCParams")
                         .replace("${list-of-parameters}", processorClassInfo.getClazz().getQualifiedName() + " model")
+                        .replace("${method-body}", "return deleteJDBCParams(model, new vn.io.lcx.common.database.SqlParameters());")
+        ).append("\n").append(
+                methodTemplate
+                        .replace("${return-type}", "static vn.io.lcx.common.database.SqlParameters")
+                        .replace("${method-name}", "deleteJDBCParams")
+                        .replace("${list-of-parameters}", processorClassInfo.getClazz().getQualifiedName() + " model, vn.io.lcx.common.database.SqlParameters parameters")
                         .replace("${method-body}", deleteJdbcParameterCodeLines
                                 .stream()
                                 .collect(
@@ -1144,12 +1162,9 @@ public class SQLMappingProcessor extends AbstractProcessor {
             reactiveDeleteStatementCodeLines.add("    throw new RuntimeException(\"Primary key is null\");");
             reactiveDeleteStatementCodeLines.add("}");
         }
-        insertJdbcParameterCodeLines.add("java.util.Map<Integer, Object> map = new java.util.HashMap<>();");
-        insertJdbcParameterCodeLines.add("int startingPosition = 0;");
-        updateJdbcParameterCodeLines.add("java.util.Map<Integer, Object> map = new java.util.HashMap<>();");
-        updateJdbcParameterCodeLines.add("int startingPosition = 0;");
-        deleteJdbcParameterCodeLines.add("java.util.Map<Integer, Object> map = new java.util.HashMap<>();");
-        deleteJdbcParameterCodeLines.add("int startingPosition = 0;");
+        insertJdbcParameterCodeLines.add("parameters.clear();");
+        updateJdbcParameterCodeLines.add("parameters.clear();");
+        deleteJdbcParameterCodeLines.add("parameters.clear();");
         insertVertClientParameterCodeLines.add("java.util.ArrayList<Object> params = new java.util.ArrayList<>();");
         updateVertClientParameterCodeLines.add("java.util.ArrayList<Object> params = new java.util.ArrayList<>();");
         deleteVertClientParameterCodeLines.add("java.util.ArrayList<Object> params = new java.util.ArrayList<>();");
@@ -1252,7 +1267,7 @@ public class SQLMappingProcessor extends AbstractProcessor {
                         if (primitive) {
                             insertStatementCodeLines.add(String.format("cols.add(\"%s\");", databaseColumnNameToBeGet));
                             reactiveInsertStatementCodeLines.add(String.format("cols.add(\"%s\");", databaseColumnNameToBeGet));
-                            insertJdbcParameterCodeLines.add(String.format("map.put(++startingPosition, model.%s());", getterName));
+                            insertJdbcParameterCodeLines.add(String.format("parameters.%s(model.%s());", sqlParametersAdder(element), getterName));
                             insertVertClientParameterCodeLines.add(String.format("params.add(model.%s());", getterName));
                         } else {
                             insertStatementCodeLines.add(String.format("if (model.%s() != null) {", getterName));
@@ -1262,7 +1277,7 @@ public class SQLMappingProcessor extends AbstractProcessor {
                             reactiveInsertStatementCodeLines.add(String.format("    cols.add(\"%s\");", databaseColumnNameToBeGet));
                             reactiveInsertStatementCodeLines.add("}");
                             insertJdbcParameterCodeLines.add(String.format("if (model.%s() != null) {", getterName));
-                            insertJdbcParameterCodeLines.add(String.format("    map.put(++startingPosition, model.%s()%s);", getterName, enumSuffix));
+                            insertJdbcParameterCodeLines.add(String.format("    parameters.%s(model.%s()%s);", sqlParametersAdder(element), getterName, enumSuffix));
                             insertVertClientParameterCodeLines.add(String.format("if (model.%s() != null) {", getterName));
                             insertVertClientParameterCodeLines.add(String.format("    params.add(model.%s()%s);", getterName, enumSuffix));
                             if (!nullable) {
@@ -1298,7 +1313,7 @@ public class SQLMappingProcessor extends AbstractProcessor {
                             reactiveUpdateStatementCodeLines.add("} else {");
                             reactiveUpdateStatementCodeLines.add(String.format("    cols.add(\"%s = \" + placeHolder + (++count));", databaseColumnNameToBeGet));
                             reactiveUpdateStatementCodeLines.add("}");
-                            updateJdbcParameterCodeLines.add(String.format("map.put(++startingPosition, model.%s());", getterName));
+                            updateJdbcParameterCodeLines.add(String.format("parameters.%s(model.%s());", sqlParametersAdder(element), getterName));
                             updateVertClientParameterCodeLines.add(String.format("params.add(model.%s());", getterName));
                         } else {
                             updateStatementCodeLines.add(String.format("if (model.%s() != null) {", getterName));
@@ -1312,7 +1327,7 @@ public class SQLMappingProcessor extends AbstractProcessor {
                             reactiveUpdateStatementCodeLines.add("    }");
                             reactiveUpdateStatementCodeLines.add("}");
                             updateJdbcParameterCodeLines.add(String.format("if (model.%s() != null) {", getterName));
-                            updateJdbcParameterCodeLines.add(String.format("    map.put(++startingPosition, model.%s()%s);", getterName, enumSuffix));
+                            updateJdbcParameterCodeLines.add(String.format("    parameters.%s(model.%s()%s);", sqlParametersAdder(element), getterName, enumSuffix));
                             updateVertClientParameterCodeLines.add(String.format("if (model.%s() != null) {", getterName));
                             updateVertClientParameterCodeLines.add(String.format("    params.add(model.%s()%s);", getterName, enumSuffix));
                             if (!nullable) {
@@ -1361,13 +1376,13 @@ public class SQLMappingProcessor extends AbstractProcessor {
         reactiveDeleteStatementCodeLines.add(String.format("    return \"DELETE FROM %s WHERE %s = \" + placeHolder + \"1\";", tableName, idDatabaseColumnNameToBeGet));
         reactiveDeleteStatementCodeLines.add("}");
         if (idIsPrimitive) {
-            deleteJdbcParameterCodeLines.add(String.format("map.put(++startingPosition, model.%s());", idGetterName));
+            deleteJdbcParameterCodeLines.add(String.format("parameters.%s(model.%s());", sqlParametersAdder(idElement), idGetterName));
             deleteVertClientParameterCodeLines.add(String.format("params.add(model.%s());", idGetterName));
             updateVertClientParameterCodeLines.add(String.format("params.add(model.%s());", idGetterName));
-            updateJdbcParameterCodeLines.add(String.format("map.put(++startingPosition, model.%s());", idGetterName));
+            updateJdbcParameterCodeLines.add(String.format("parameters.%s(model.%s());", sqlParametersAdder(idElement), idGetterName));
         } else {
             deleteJdbcParameterCodeLines.add(String.format("if (model.%s() != null) {", idGetterName));
-            deleteJdbcParameterCodeLines.add(String.format("    map.put(++startingPosition, model.%s());", idGetterName));
+            deleteJdbcParameterCodeLines.add(String.format("    parameters.%s(model.%s());", sqlParametersAdder(idElement), idGetterName));
             deleteJdbcParameterCodeLines.add("}");
             deleteVertClientParameterCodeLines.add(String.format("if (model.%s() != null) {", idGetterName));
             deleteVertClientParameterCodeLines.add(String.format("    params.add(model.%s());", idGetterName));
@@ -1376,17 +1391,37 @@ public class SQLMappingProcessor extends AbstractProcessor {
             updateVertClientParameterCodeLines.add(String.format("    params.add(model.%s());", idGetterName));
             updateVertClientParameterCodeLines.add("}");
             updateJdbcParameterCodeLines.add(String.format("if (model.%s() != null) {", idGetterName));
-            updateJdbcParameterCodeLines.add(String.format("    map.put(++startingPosition, model.%s());", idGetterName));
+            updateJdbcParameterCodeLines.add(String.format("    parameters.%s(model.%s());", sqlParametersAdder(idElement), idGetterName));
             updateJdbcParameterCodeLines.add("}");
         }
-        insertJdbcParameterCodeLines.add("return map;");
-        updateJdbcParameterCodeLines.add("return map;");
-        deleteJdbcParameterCodeLines.add("return map;");
+        insertJdbcParameterCodeLines.add("return parameters;");
+        updateJdbcParameterCodeLines.add("return parameters;");
+        deleteJdbcParameterCodeLines.add("return parameters;");
         insertVertClientParameterCodeLines.add("return io.vertx.sqlclient.Tuple.from(params.toArray(Object[]::new));");
         updateVertClientParameterCodeLines.add("return io.vertx.sqlclient.Tuple.from(params.toArray(Object[]::new));");
         deleteVertClientParameterCodeLines.add("return io.vertx.sqlclient.Tuple.from(params.toArray(Object[]::new));");
     }
 
+    /**
+     * @return the {@code SqlParameters} method binding a value of the type of {@code element}
+     */
+    private String sqlParametersAdder(Element element) {
+        if (TypeHierarchyAnalyzer.isEnumField(element, processingEnv.getTypeUtils())) {
+            return "addString";
+        }
+        final String fieldType = element.asType().toString();
+        final String fieldTypeSimpleName = fieldType.substring(fieldType.lastIndexOf('.') + 1);
+        return switch (fieldTypeSimpleName) {
+            case "long", "Long" -> "addLong";
+            case "int", "Integer" -> "addInt";
+            case "double", "Double" -> "addDouble";
+            case "boolean", "Boolean" -> "addBoolean";
+            case "String" -> "addString";
+            case "BigDecimal" -> "addBigDecimal";
+            default -> "addObject";
+        };
+    }
+
     private String getTableName(ProcessorClassInfo processorClassInfo) {
         final String tableName;
         TableName tableNameAnnotation = processorClassInfo.getClazz().getAnnotation(TableName.class);
@@ -0,0 +1,527 @@
+package vn.io.lcx.reactive.cache;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.redis.client.Command;
+import io.vertx.redis.client.Redis;
+import io.vertx.redis.client.RedisConnection;
+import io.vertx.redis.client.Request;
+import io.vertx.redis.client.Response;
+import io.vertx.redis.client.ResponseType;
+import vn.io.lcx.common.cache.CacheUtils;
+import vn.io.lcx.common.cache.EvictionPolicy;
+import vn.io.lcx.common.exception.CacheException;
+import vn.io.lcx.common.utils.LogUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A near cache: a bounded local tier of Redis string values in front of a Vert.x {@link Redis} client, so that
+ * reads of hot, read-mostly keys are served from memory instead of costing a network round trip.
+ *
+ * <p>Only keys matching one of the configured prefixes are cached locally; each prefix has its own maximum
+ * staleness, after which a local value is dropped even if no invalidation was received. Other keys are read
+ * from Redis on every call. Local values are invalidated by a dedicated connection, see {@link InvalidationMode}.
+ * While that connection is down, the local tier is emptied and bypassed, and the connection is re-established
+ * with an exponential backoff.</p>
+ *
+ * <p>Concurrent misses on a key share a single {@code GET}, and a value is not kept locally if its key was
+ * invalidated while it was being read.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * RedisNearCache nearCache = RedisNearCache.builder()
+ *         .vertx(vertx)
+ *         .redis(redis)
+ *         .cachePrefix("country:", Duration.ofMinutes(10))
+ *         .cachePrefix("product:", Duration.ofSeconds(30))
+ *         .build();
+ * nearCache.start()
+ *         .compose(v -> nearCache.get("country:VN"))
+ *         .onSuccess(country -> ...);
+ * }</pre>
+ *
+ * <p>The client is only used through {@link Redis#connect()} and {@link Redis#send(Request)}, so it can be
+ * pointed at an in-process server speaking the Redis protocol.</p>
+ */
+public class RedisNearCache {
+
+    /**
+     * Channel on which Redis publishes the invalidations of client-side caching when they are redirected
+     */
+    public static final String TRACKING_CHANNEL = "__redis__:invalidate";
+
+    private static final long MIN_RECONNECT_DELAY_MILLIS = 500L;
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 30_000L;
+
+    private final Vertx vertx;
+    private final Redis redis;
+    private final InvalidationMode invalidationMode;
+    private final String invalidationChannel;
+    private final List<PrefixPolicy> policies;
+    private final CacheUtils<String, String> local;
+
+    /**
+     * Reads from Redis in progress, so that concurrent misses share a single GET
+     */
+    private final ConcurrentHashMap<String, PendingRead> pendingReads = new ConcurrentHashMap<>();
+
+    private volatile boolean connected;
+    private volatile boolean closed;
+
+    /**
+     * The invalidation connections, set by Redis callbacks and read by {@link #close()} from any thread
+     */
+    private volatile RedisConnection subscriber;
+    private volatile RedisConnection tracker;
+    private volatile long reconnectDelayMillis = MIN_RECONNECT_DELAY_MILLIS;
+
+    private RedisNearCache(RedisNearCacheBuilder builder) {
+        this.vertx = builder.vertx;
+        this.redis = builder.redis;
+        this.invalidationMode = builder.invalidationMode;
+        this.invalidationChannel = builder.invalidationChannel;
+        // longest prefix first, so that the most specific policy wins
+        this.policies = builder.policies.stream()
+                .sorted(Comparator.comparingInt((PrefixPolicy policy) -> policy.prefix().length()).reversed())
+                .toList();
+        final CacheUtils.CacheUtilsBuilder<String, String> localBuilder = CacheUtils.<String, String>builder()
+                .capacity(builder.capacity)
+                .evictionPolicy(EvictionPolicy.W_TINY_LFU);
+        if (builder.name != null) {
+            localBuilder.name(builder.name).recordStats();
+        }
+        this.local = localBuilder.build();
+    }
+
+    public static RedisNearCacheBuilder builder() {
+        return new RedisNearCacheBuilder();
+    }
+
+    /**
+     * Opens the invalidation connection. Until it succeeds, every read goes to Redis.
+     *
+     * @return a future completed once local caching is enabled
+     */
+    public Future<Void> start() {
+        closed = false;
+        return connect();
+    }
+
+    /**
+     * Reads a string value, from the local tier if its key matches a cached prefix.
+     *
+     * @param key the key
+     * @return a future completed with the value, or null if the key does not exist
+     */
+    public Future<String> get(String key) {
+        validateKey(key);
+        final PrefixPolicy policy = policyFor(key);
+        if (policy == null || !connected) {
+            return redis.send(Request.cmd(Command.GET).arg(key)).map(RedisNearCache::toStringOrNull);
+        }
+        final String cached = local.get(key);
+        if (cached != null) {
+            return Future.succeededFuture(cached);
+        }
+        final PendingRead read = new PendingRead();
+        final PendingRead inFlight = pendingReads.putIfAbsent(key, read);
+        if (inFlight != null) {
+            return inFlight.promise.future();
+        }
+        redis.send(Request.cmd(Command.GET).arg(key)).onComplete(ar -> {
+            if (ar.failed()) {
+                pendingReads.remove(key, read);
+                read.promise.fail(ar.cause());
+                return;
+            }
+            final String value = toStringOrNull(ar.result());
+            if (value != null && !read.invalidated && connected) {
+                local.put(key, value, policy.maxStaleness());
+                // invalidations run on another connection: one landing since the check above either marked the
+                // read, which is still pending, or removed the value just put
+                if (read.invalidated || !connected) {
+                    local.remove(key);
+                }
+            }
+            pendingReads.remove(key, read);
+            read.promise.complete(value);
+        });
+        return read.promise.future();
+    }
+
+    /**
+     * Writes a string value without expiration.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return a future completed once Redis acknowledged the write
+     */
+    public Future<Void> set(String key, String value) {
+        validateKey(key);
+        return write(key, Request.cmd(Command.SET).arg(key).arg(value));
+    }
+
+    /**
+     * Writes a string value that Redis expires after the given duration.
+     *
+     * @param key   the key
+     * @param value the value
+     * @param ttl   the time-to-live, at least one millisecond
+     * @return a future completed once Redis acknowledged the write
+     */
+    public Future<Void> set(String key, String value, Duration ttl) {
+        validateKey(key);
+        if (ttl == null || ttl.toMillis() < 1) {
+            throw new IllegalArgumentException("Redis TTL must be at least one millisecond: " + ttl);
+        }
+        return write(key, Request.cmd(Command.SET).arg(key).arg(value).arg("PX").arg(ttl.toMillis()));
+    }
+
+    /**
+     * Deletes a key.
+     *
+     * @param key the key
+     * @return a future completed once Redis acknowledged the deletion
+     */
+    public Future<Void> delete(String key) {
+        validateKey(key);
+        return write(key, Request.cmd(Command.DEL).arg(key));
+    }
+
+    /**
+     * Drops the local value of a key, without touching Redis.
+     *
+     * @param key the key
+     */
+    public void invalidate(String key) {
+        // mark the pending read before removing the local value, see the completion of the read in get
+        final PendingRead read = pendingReads.get(key);
+        if (read != null) {
+            read.invalidated = true;
+        }
+        local.remove(key);
+    }
+
+    /**
+     * Drops every local value, without touching Redis.
+     */
+    public void invalidateAll() {
+        pendingReads.values().forEach(read -> read.invalidated = true);
+        local.clear();
+    }
+
+    /**
+     * @return true while local values are being kept and invalidated
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * @return the number of local values
+     */
+    public int localSize() {
+        return local.size();
+    }
+
+    /**
+     * Closes the invalidation connection and empties the local tier. The Redis client itself is left open.
+     *
+     * @return a future completed once the connections are closed
+     */
+    public Future<Void> close() {
+        closed = true;
+        connected = false;
+        invalidateAll();
+        return closeConnections();
+    }
+
+    private Future<Void> write(String key, Request request) {
+        invalidate(key);
+        return redis.send(request).compose(response -> {
+            // drop a value read concurrently with the write
+            invalidate(key);
+            if (invalidationMode == InvalidationMode.PUBSUB) {
+                return redis.send(Request.cmd(Command.PUBLISH).arg(invalidationChannel).arg(key)).mapEmpty();
+            }
+            return Future.succeededFuture();
+        });
+    }
+
+    private Future<Void> connect() {
+        final Future<Void> connecting = redis.connect().compose(connection -> {
+            subscriber = connection;
+            connection.handler(this::handleMessage);
+            connection.exceptionHandler(e -> handleDisconnect(connection, e));
+            connection.endHandler(v -> handleDisconnect(connection, null));
+            if (invalidationMode == InvalidationMode.PUBSUB) {
+                return connection.send(Request.cmd(Command.SUBSCRIBE).arg(invalidationChannel)).mapEmpty();
+            }
+            return connection.send(Request.cmd(Command.CLIENT).arg("ID"))
+                    .compose(clientId -> connection.send(Request.cmd(Command.SUBSCRIBE).arg(TRACKING_CHANNEL))
+                            .compose(subscribed -> redis.connect())
+                            .compose(trackingConnection -> {
+                                tracker = trackingConnection;
+                                trackingConnection.exceptionHandler(e -> handleDisconnect(trackingConnection, e));
+                                trackingConnection.endHandler(v -> handleDisconnect(trackingConnection, null));
+                                final Request tracking = Request.cmd(Command.CLIENT)
+                                        .arg("TRACKING").arg("ON")
+                                        .arg("REDIRECT").arg(clientId.toLong())
+                                        .arg("BCAST");
+                                for (PrefixPolicy policy : policies) {
+                                    tracking.arg("PREFIX").arg(policy.prefix());
+                                }
+                                return trackingConnection.send(tracking);
+                            }))
+                    .mapEmpty();
+        });
+        return connecting
+                .onSuccess(v -> {
+                    reconnectDelayMillis = MIN_RECONNECT_DELAY_MILLIS;
+                    connected = true;
+                    LogUtils.writeLog(this.getClass(), LogUtils.Level.INFO, "Near cache invalidation connected ({})", invalidationMode);
+                })
+                .recover(e -> {
+                    LogUtils.writeLog(this.getClass(), "Cannot connect near cache invalidation: " + e.getMessage(), e, LogUtils.Level.WARN);
+                    closeConnections();
+                    scheduleReconnect();
+                    return Future.failedFuture(e);
+                });
+    }
+
+    private void handleDisconnect(RedisConnection connection, Throwable cause) {
+        if (connection != subscriber && connection != tracker) {
+            return;
+        }
+        final boolean wasConnected = connected;
+        connected = false;
+        // invalidations may have been missed, so nothing kept locally can be trusted anymore
+        invalidateAll();
+        if (wasConnected) {
+            if (cause == null) {
+                LogUtils.writeLog(this.getClass(), LogUtils.Level.WARN, "Near cache invalidation connection closed");
+            } else {
+                LogUtils.writeLog(this.getClass(), "Near cache invalidation connection failed: " + cause.getMessage(), cause, LogUtils.Level.WARN);
+            }
+            closeConnections();
+            scheduleReconnect();
+        }
+    }
+
+    private void scheduleReconnect() {
+        if (closed) {
+            return;
+        }
+        final long delay = reconnectDelayMillis;
+        reconnectDelayMillis = Math.min(reconnectDelayMillis * 2, MAX_RECONNECT_DELAY_MILLIS);
+        vertx.setTimer(delay, id -> {
+            if (!closed && !connected) {
+                connect();
+            }
+        });
+    }
+
+    private Future<Void> closeConnections() {
+        final List<Future<Void>> closing = new ArrayList<>(2);
+        final RedisConnection subscriber = this.subscriber;
+        final RedisConnection tracker = this.tracker;
+        this.subscriber = null;
+        this.tracker = null;
+        if (subscriber != null) {
+            closing.add(subscriber.close());
+        }
+        if (tracker != null) {
+            closing.add(tracker.close());
+        }
+        return Future.join(closing).mapEmpty();
+    }
+
+    /**
+     * Handles a message of the invalidation connection: a pub/sub message from {@link #TRACKING_CHANNEL} or the
+     * invalidation channel, or a RESP3 {@code invalidate} push. A null payload means every key was flushed.
+     */
+    private void handleMessage(Response message) {
+        if ((message.type() != ResponseType.PUSH && message.type() != ResponseType.MULTI) || message.size() < 2) {
+            return;
+        }
+        final String kind = message.get(0).toString();
+        final Response payload;
+        if ("invalidate".equalsIgnoreCase(kind)) {
+            payload = message.get(1);
+        } else if ("message".equalsIgnoreCase(kind) && message.size() >= 3) {
+            final String channel = message.get(1).toString();
+            if (!TRACKING_CHANNEL.equals(channel) && !channel.equals(invalidationChannel)) {
+                return;
+            }
+            payload = message.get(2);
+        } else {
+            return;
+        }
+        if (payload == null) {
+            invalidateAll();
+        } else if (payload.type() == ResponseType.MULTI) {
+            for (Response key : payload) {
+                if (key != null) {
+                    invalidate(key.toString());
+                }
+            }
+        } else {
+            invalidate(payload.toString());
+        }
+    }
+
+    private PrefixPolicy policyFor(String key) {
+        for (PrefixPolicy policy : policies) {
+            if (key.startsWith(policy.prefix())) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    private static String toStringOrNull(Response response) {
+        return response == null ? null : response.toString();
+    }
+
+    private static void validateKey(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Redis key cannot be null");
+        }
+    }
+
+    /**
+     * How local values learn that their key changed in Redis.
+     */
+    public enum InvalidationMode {
+        /**
+         * Redis client-side caching in broadcasting mode ({@code CLIENT TRACKING ... BCAST PREFIX}): Redis itself
+         * reports every write to a cached prefix, by any client. Requires Redis 6 or later.
+         */
+        TRACKING,
+
+        /**
+         * A pub/sub channel on which every near cache publishes the keys it writes. Works with any Redis version, but
+         * writes made without a near cache are only seen once the local value exceeds its maximum staleness.
+         */
+        PUBSUB,
+    }
+
+    /**
+     * @param prefix       the key prefix
+     * @param maxStaleness the longest time a local value of a matching key is served without being re-read
+     */
+    private record PrefixPolicy(String prefix, Duration maxStaleness) {
+    }
+
+    private static final class PendingRead {
+        private final Promise<String> promise = Promise.promise();
+        private volatile boolean invalidated;
+    }
+
+    public static class RedisNearCacheBuilder {
+        private Vertx vertx;
+        private Redis redis;
+        private String name;
+        private int capacity = 10_000;
+        private InvalidationMode invalidationMode = InvalidationMode.TRACKING;
+        private String invalidationChannel = "lcx:near-cache:invalidate";
+        private final List<PrefixPolicy> policies = new ArrayList<>();
+
+        public RedisNearCacheBuilder() {
+        }
+
+        public RedisNearCacheBuilder vertx(Vertx vertx) {
+            this.vertx = vertx;
+            return this;
+        }
+
+        public RedisNearCacheBuilder redis(Redis redis) {
+            this.redis = redis;
+            return this;
+        }
+
+        /**
+         * @param name the name of the local tier, which then records statistics published as cache metrics
+         * @return this builder
+         */
+        public RedisNearCacheBuilder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * @param capacity the maximum number of local values, 10,000 by default
+         * @return this builder
+         */
+        public RedisNearCacheBuilder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * @param invalidationMode how local values are invalidated, {@link InvalidationMode#TRACKING} by default
+         * @return this builder
+         */
+        public RedisNearCacheBuilder invalidationMode(InvalidationMode invalidationMode) {
+            this.invalidationMode = invalidationMode;
+            return this;
+        }
+
+        /**
+         * @param invalidationChannel the channel used by {@link InvalidationMode#PUBSUB}
+         * @return this builder
+         */
+        public RedisNearCacheBuilder invalidationChannel(String invalidationChannel) {
+            this.invalidationChannel = invalidationChannel;
+            return this;
+        }
+
+        /**
+         * Caches the keys starting with a prefix locally. When prefixes overlap, the longest one applies.
+         *
+         * @param prefix       the key prefix, empty to cache every key
+         * @param maxStaleness the longest time a local value is served without being re-read from Redis,
+         *                     bounding staleness if an invalidation is lost
+         * @return this builder
+         */
+        public RedisNearCacheBuilder cachePrefix(String prefix, Duration maxStaleness) {
+            this.policies.add(new PrefixPolicy(prefix, maxStaleness));
+            return this;
+        }
+
+        /**
+         * @return a new near cache, to be started with {@link RedisNearCache#start()}
+         * @throws CacheException if vertx or redis is missing, no prefix is cached, a staleness bound is not
+         *                        positive, or the invalidation channel is blank
+         */
+        public RedisNearCache build() {
+            if (vertx == null || redis == null) {
+                throw new CacheException("Near cache requires a Vert.x instance and a Redis client");
+            }
+            if (invalidationMode == null) {
+                throw new CacheException("Near cache invalidation mode cannot be null");
+            }
+            if (invalidationMode == InvalidationMode.PUBSUB && (invalidationChannel == null || invalidationChannel.isBlank())) {
+                throw new CacheException("Near cache invalidation channel cannot be blank");
+            }
+            if (policies.isEmpty()) {
+                throw new CacheException("Near cache requires at least one cached key prefix");
+            }
+            for (PrefixPolicy policy : policies) {
+                if (policy.prefix() == null) {
+                    throw new CacheException("Near cache key prefix cannot be null");
+                }
+                if (policy.maxStaleness() == null || policy.maxStaleness().isNegative() || policy.maxStaleness().isZero()) {
+                    throw new CacheException("Near cache staleness bound must be positive for prefix " + policy.prefix());
+                }
+            }
+            return new RedisNearCache(this);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package vn.io.lcx.reactive.entity;
 
 import io.vertx.sqlclient.Row;
 import io.vertx.sqlclient.Tuple;
+import vn.io.lcx.common.database.SqlParameters;
 
 import java.util.Map;
 
@@ -12,7 +13,8 @@ import java.util.Map;
  * <ul>
  *     <li>Conversion from JDBC {@link java.sql.ResultSet} or reactive {@link Row} into entity objects</li>
  *     <li>SQL statements (INSERT, UPDATE, DELETE) generation for both JDBC and reactive drivers</li>
- *     <li>Binding parameters as {@link Map} (for JDBC) or {@link Tuple} (for Vert.x reactive SQL client)</li>
+ *     <li>Binding parameters as {@link Map} or {@link SqlParameters} (for JDBC) or {@link Tuple} (for Vert.x reactive
+ *     SQL client)</li>
  *     <li>Extraction of entity identifiers from database rows</li>
  *     <li>Utility method to map entity field names to database column names</li>
  * </ul>
@@ -96,6 +98,19 @@ public interface EntityMapping<T> {
      */
     Map<Integer, Object> insertJDBCParams(T model);
 
+    /**
+     * Bind parameters for JDBC INSERT operation into {@code parameters}, cleared first, so that a single instance
+     * can be reused for every row of a batch.
+     *
+     * @param model      the entity model
+     * @param parameters the parameters to fill
+     * @return {@code parameters}
+     */
+    default SqlParameters insertJDBCParams(T model, SqlParameters parameters) {
+        parameters.clear();
+        return parameters.setAll(insertJDBCParams(model));
+    }
+
     /**
      * Bind parameters for JDBC UPDATE operation.
      *
@@ -104,6 +119,19 @@ public interface EntityMapping<T> {
      */
     Map<Integer, Object> updateJDBCParams(T model);
 
+    /**
+     * Bind parameters for JDBC UPDATE operation into {@code parameters}, cleared first, so that a single instance
+     * can be reused for every row of a batch.
+     *
+     * @param model      the entity model
+     * @param parameters the parameters to fill
+     * @return {@code parameters}
+     */
+    default SqlParameters updateJDBCParams(T model, SqlParameters parameters) {
+        parameters.clear();
+        return parameters.setAll(updateJDBCParams(model));
+    }
+
     /**
      * Bind parameters for JDBC DELETE operation.
      *
@@ -112,6 +140,19 @@ public interface EntityMapping<T> {
      */
     Map<Integer, Object> deleteJDBCParams(T model);
 
+    /**
+     * Bind parameters for JDBC DELETE operation into {@code parameters}, cleared first, so that a single instance
+     * can be reused for every row of a batch.
+     *
+     * @param model      the entity model
+     * @param parameters the parameters to fill
+     * @return {@code parameters}
+     */
+    default SqlParameters deleteJDBCParams(T model, SqlParameters parameters) {
+        parameters.clear();
+        return parameters.setAll(deleteJDBCParams(model));
+    }
+
     /**
      * Map a Vert.x reactive {@link Row} into an entity instance.
      *
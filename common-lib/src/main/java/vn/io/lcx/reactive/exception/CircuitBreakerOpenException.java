@@ -0,0 +1,16 @@
+package vn.io.lcx.reactive.exception;
+
+public class CircuitBreakerOpenException extends RuntimeException {
+    private static final long serialVersionUID = -2208451397125340516L;
+
+    private final String circuitBreakerName;
+
+    public CircuitBreakerOpenException(String circuitBreakerName) {
+        super("Circuit breaker " + circuitBreakerName + " is open, call not permitted");
+        this.circuitBreakerName = circuitBreakerName;
+    }
+
+    public String getCircuitBreakerName() {
+        return circuitBreakerName;
+    }
+}
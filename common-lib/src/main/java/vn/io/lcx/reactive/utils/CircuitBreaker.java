@@ -0,0 +1,309 @@
+package vn.io.lcx.reactive.utils;
+
+import io.vertx.core.Future;
+import vn.io.lcx.common.utils.LogUtils;
+import vn.io.lcx.reactive.exception.CircuitBreakerOpenException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A non-blocking circuit breaker that fails calls fast while a dependency is down, instead of letting them queue up
+ * on timeouts.
+ *
+ * <ul>
+ *   <li>{@code CLOSED} - calls go through, and the outcome of the last {@code slidingWindowSize} calls is recorded.
+ *   Once at least {@code minimumCalls} were recorded and the failure rate reaches {@code failureRateThreshold}, the
+ *   breaker opens.</li>
+ *   <li>{@code OPEN} - calls fail immediately with {@link CircuitBreakerOpenException} during {@code openDuration}.</li>
+ *   <li>{@code HALF_OPEN} - up to {@code halfOpenCalls} trial calls go through. If they all succeed the breaker
+ *   closes, the first failure opens it again. If the trials have not all completed within {@code openDuration}, for
+ *   instance because one of them never does, the breaker opens again too instead of waiting forever.</li>
+ * </ul>
+ *
+ * <p>Checking a closed or open breaker only reads volatile fields; outcomes are recorded in short synchronized
+ * sections, nothing ever waits. Share one instance per dependency.</p>
+ *
+ * <pre>{@code
+ * CircuitBreaker breaker = CircuitBreaker.builder().name("inventory-db").openDuration(Duration.ofSeconds(10)).build();
+ * breaker.execute(() -> pool.query(sql).execute());
+ * }</pre>
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final Predicate<Throwable> recordFailure;
+
+    private final boolean[] outcomes;
+    private int outcomeIndex;
+    private int recordedCalls;
+    private int recordedFailures;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+    private long halfOpenedAt;
+    private int halfOpenPermitted;
+    private int halfOpenSucceeded;
+
+    private CircuitBreaker(CircuitBreakerBuilder builder) {
+        this.name = builder.name;
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.minimumCalls = builder.minimumCalls;
+        this.openDurationNanos = builder.openDuration.toNanos();
+        this.halfOpenCalls = builder.halfOpenCalls;
+        this.recordFailure = builder.recordFailure;
+        this.outcomes = new boolean[builder.slidingWindowSize];
+    }
+
+    public static CircuitBreakerBuilder builder() {
+        return new CircuitBreakerBuilder();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the current state, an expired {@code OPEN} state is only reported as {@code HALF_OPEN} once a call
+     * is attempted
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Runs {@code function} if the breaker permits it and records its outcome.
+     *
+     * @return the future of the call, or a failed future with {@link CircuitBreakerOpenException} if not permitted
+     */
+    public <T> Future<T> execute(Supplier<Future<T>> function) {
+        if (!tryAcquirePermission()) {
+            return Future.failedFuture(new CircuitBreakerOpenException(name));
+        }
+        final Future<T> future;
+        try {
+            future = function.get();
+        } catch (Throwable e) {
+            onFailure(e);
+            return Future.failedFuture(e);
+        }
+        return future.onComplete(ar -> {
+            if (ar.succeeded()) {
+                onSuccess();
+            } else {
+                onFailure(ar.cause());
+            }
+        });
+    }
+
+    /**
+     * Asks whether a call may go through. Every permitted call must be followed by {@link #onSuccess()} or
+     * {@link #onFailure(Throwable)}.
+     */
+    public boolean tryAcquirePermission() {
+        final State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && System.nanoTime() - openedAt < openDurationNanos) {
+            return false;
+        }
+        synchronized (this) {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAt < openDurationNanos) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (halfOpenPermitted < halfOpenCalls) {
+                halfOpenPermitted++;
+                return true;
+            }
+            if (System.nanoTime() - halfOpenedAt >= openDurationNanos) {
+                LogUtils.writeLog(
+                        CircuitBreaker.class,
+                        LogUtils.Level.WARN,
+                        "Circuit breaker {} trial calls did not complete within {} ms",
+                        name, TimeUnit.NANOSECONDS.toMillis(openDurationNanos)
+                );
+                transitionTo(State.OPEN);
+            }
+            return false;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSucceeded >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    /**
+     * Records a failed call. Errors rejected by the {@code recordFailure} predicate, e.g. validation errors, show
+     * that the dependency answered and count as successes. If the predicate itself throws, the call counts as a
+     * failure.
+     */
+    public synchronized void onFailure(Throwable error) {
+        if (!isRecorded(error)) {
+            onSuccess();
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recordedCalls >= minimumCalls && (double) recordedFailures / recordedCalls >= failureRateThreshold) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    private boolean isRecorded(Throwable error) {
+        try {
+            return recordFailure.test(error);
+        } catch (Throwable e) {
+            LogUtils.writeLog(CircuitBreaker.class, "Record failure predicate of circuit breaker " + name + " failed", e, LogUtils.Level.ERROR);
+            return true;
+        }
+    }
+
+    private void record(boolean failure) {
+        if (recordedCalls == outcomes.length) {
+            if (outcomes[outcomeIndex]) {
+                recordedFailures--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        outcomes[outcomeIndex] = failure;
+        if (failure) {
+            recordedFailures++;
+        }
+        outcomeIndex = (outcomeIndex + 1) % outcomes.length;
+    }
+
+    private void transitionTo(State next) {
+        final State previous = state;
+        if (next == State.OPEN) {
+            openedAt = System.nanoTime();
+        } else if (next == State.HALF_OPEN) {
+            halfOpenedAt = System.nanoTime();
+        }
+        halfOpenPermitted = 0;
+        halfOpenSucceeded = 0;
+        outcomeIndex = 0;
+        recordedCalls = 0;
+        recordedFailures = 0;
+        state = next;
+        LogUtils.writeLog(
+                CircuitBreaker.class,
+                next == State.OPEN ? LogUtils.Level.WARN : LogUtils.Level.INFO,
+                "Circuit breaker {} changed from {} to {}",
+                name, previous, next
+        );
+    }
+
+    public static class CircuitBreakerBuilder {
+        private String name = "default";
+        private double failureRateThreshold = 0.5;
+        private int slidingWindowSize = 20;
+        private int minimumCalls = 10;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 3;
+        private Predicate<Throwable> recordFailure = e -> true;
+
+        public CircuitBreakerBuilder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * Failure rate between 0 and 1 at which the breaker opens, 0.5 by default
+         */
+        public CircuitBreakerBuilder failureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * Number of most recent calls the failure rate is computed on, 20 by default
+         */
+        public CircuitBreakerBuilder slidingWindowSize(int slidingWindowSize) {
+            this.slidingWindowSize = slidingWindowSize;
+            return this;
+        }
+
+        /**
+         * Calls to record before the failure rate is considered, 10 by default
+         */
+        public CircuitBreakerBuilder minimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * How long calls fail fast before trial calls are let through, 30 seconds by default
+         */
+        public CircuitBreakerBuilder openDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        /**
+         * Trial calls allowed while half open, 3 by default
+         */
+        public CircuitBreakerBuilder halfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+            return this;
+        }
+
+        /**
+         * Which errors count as failures of the dependency, all of them by default
+         */
+        public CircuitBreakerBuilder recordFailure(Predicate<Throwable> recordFailure) {
+            this.recordFailure = recordFailure;
+            return this;
+        }
+
+        public CircuitBreaker build() {
+            if (name == null || name.isBlank()) {
+                throw new IllegalArgumentException("Name cannot be blank");
+            }
+            if (!(failureRateThreshold > 0 && failureRateThreshold <= 1)) {
+                throw new IllegalArgumentException("Failure rate threshold must be in (0, 1]");
+            }
+            if (slidingWindowSize < 1 || minimumCalls < 1 || halfOpenCalls < 1) {
+                throw new IllegalArgumentException("Window size, minimum calls and half open calls must be positive");
+            }
+            if (minimumCalls > slidingWindowSize) {
+                throw new IllegalArgumentException("Minimum calls cannot exceed the sliding window size");
+            }
+            if (openDuration == null || openDuration.isNegative() || openDuration.isZero()) {
+                throw new IllegalArgumentException("Open duration must be positive");
+            }
+            if (recordFailure == null) {
+                throw new IllegalArgumentException("Record failure predicate cannot be null");
+            }
+            return new CircuitBreaker(this);
+        }
+    }
+}
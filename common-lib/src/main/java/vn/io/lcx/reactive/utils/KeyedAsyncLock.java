@@ -0,0 +1,332 @@
+package vn.io.lcx.reactive.utils;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.internal.ContextInternal;
+import vn.io.lcx.common.utils.LogUtils;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A non-blocking lock per key, local to one Vert.x instance.
+ *
+ * <p>Unlike {@code vertx.sharedData().getLock(...)}, waiting callers are queued: each key has a FIFO wait
+ * queue and the lock is handed over to the next waiter on release, on the Vert.x context the waiter called from.
+ * Acquiring is reentrant per duplicated Vert.x context: Vert.x runs each HTTP request on its own duplicated context,
+ * so nested critical sections of one request can take the same key again while other requests wait. Callers on a
+ * shared event-loop context (a verticle's own timers, for instance) are not told apart, so they never re-enter and
+ * queue like everyone else.</p>
+ *
+ * <p>Vert.x has no public API telling a duplicated context from the event-loop context it derives from, so
+ * reentrancy relies on the internal {@code io.vertx.core.internal.ContextInternal#isDuplicate()} of Vert.x 5, which
+ * is not guaranteed to stay stable across minor versions. If it becomes unavailable, acquiring is no longer reentrant
+ * and a nested acquire waits for its outer lease like any other caller.</p>
+ *
+ * <p>A lease that is not released within its lease timeout is released forcibly and logged, so a critical section
+ * whose future never completes cannot block its key forever. The state of a key is dropped as soon as nobody holds
+ * or waits for it.</p>
+ *
+ * <p>The lock only holds its Vert.x instance weakly, so the instance shared through {@link #of(Vertx)} does not keep
+ * a closed Vert.x instance reachable once none of its keys is held or waited for.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * KeyedAsyncLock.of(vertx)
+ *         .acquire("account:" + accountId, Duration.ofSeconds(5), Duration.ofSeconds(30))
+ *         .compose(lease -> updateAccount(accountId).onComplete(ar -> lease.release()));
+ * }</pre>
+ */
+public final class KeyedAsyncLock {
+
+    private static final Map<Vertx, KeyedAsyncLock> INSTANCES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Cleared if the internal API used to detect duplicated contexts fails to link
+     */
+    private static volatile boolean duplicateCheckAvailable = true;
+
+    /**
+     * Weak, so the entry of {@link #INSTANCES} does not hold its own key strongly
+     */
+    private final WeakReference<Vertx> vertx;
+    private final ConcurrentHashMap<String, KeyState> keys = new ConcurrentHashMap<>();
+
+    public KeyedAsyncLock(Vertx vertx) {
+        this.vertx = new WeakReference<>(vertx);
+    }
+
+    /**
+     * @param vertx the Vert.x instance
+     * @return the lock shared by every caller of the Vert.x instance
+     */
+    public static KeyedAsyncLock of(Vertx vertx) {
+        return INSTANCES.computeIfAbsent(vertx, KeyedAsyncLock::new);
+    }
+
+    /**
+     * Acquires the lock of a key, waiting behind the current holder and earlier waiters if needed.
+     *
+     * @param key          the key
+     * @param waitTimeout  the longest time to wait, null to wait as long as needed
+     * @param leaseTimeout the longest time the lock is held before being released forcibly, null for no limit
+     * @return a future completed with the lease on the caller's context, or failed with a {@link TimeoutException}
+     */
+    public Future<Lease> acquire(String key, Duration waitTimeout, Duration leaseTimeout) {
+        if (key == null) {
+            throw new IllegalArgumentException("Lock key cannot be null");
+        }
+        final Context context = Vertx.currentContext();
+        final Waiter waiter = new Waiter(context, leaseTimeout);
+        final Lease[] granted = new Lease[1];
+        final boolean[] reentrant = new boolean[1];
+        keys.compute(key, (k, state) -> {
+            if (state == null) {
+                state = new KeyState();
+            }
+            if (state.owner == null) {
+                granted[0] = new Lease(this, k, state.grant(waiter));
+            } else if (state.owner.context == context && isDuplicate(context)) {
+                state.holdCount++;
+                granted[0] = new Lease(this, k, state.owner);
+                reentrant[0] = true;
+            } else {
+                state.waiters.addLast(waiter);
+            }
+            return state;
+        });
+        if (granted[0] != null) {
+            if (!reentrant[0]) {
+                startLeaseTimer(granted[0]);
+            }
+            return Future.succeededFuture(granted[0]);
+        }
+        if (waitTimeout != null) {
+            waiter.timerId = vertx().setTimer(Math.max(1L, waitTimeout.toMillis()), id -> timeOut(key, waiter, waitTimeout));
+        }
+        return waiter.promise.future();
+    }
+
+    /**
+     * @param key the key
+     * @return true if the lock of the key is currently held
+     */
+    public boolean isLocked(String key) {
+        final KeyState state = keys.get(key);
+        return state != null && state.owner != null;
+    }
+
+    /**
+     * @param key the key
+     * @return the number of callers waiting for the lock of the key
+     */
+    public int queueLength(String key) {
+        final KeyState state = keys.get(key);
+        return state == null ? 0 : state.waiters.size();
+    }
+
+    /**
+     * @return the number of keys currently held or waited for
+     */
+    public int activeKeys() {
+        return keys.size();
+    }
+
+    private void timeOut(String key, Waiter waiter, Duration waitTimeout) {
+        final boolean[] removed = new boolean[1];
+        keys.computeIfPresent(key, (k, state) -> {
+            removed[0] = state.waiters.remove(waiter);
+            return state.isIdle() ? null : state;
+        });
+        if (removed[0]) {
+            complete(waiter, Future.failedFuture(new TimeoutException("Timed out after " + waitTimeout + " waiting for lock " + key)));
+        }
+    }
+
+    /**
+     * Releases one hold of a lease, or every hold when forced, and hands the lock over to the next waiter.
+     */
+    private void release(Lease lease, boolean force) {
+        final Lease[] next = new Lease[1];
+        final Waiter[] nextWaiter = new Waiter[1];
+        final boolean[] ended = new boolean[1];
+        keys.computeIfPresent(lease.key, (k, state) -> {
+            if (state.owner != lease.ownership) {
+                // already released forcibly, the lock may belong to someone else now
+                return state;
+            }
+            state.holdCount = force ? 0 : state.holdCount - 1;
+            if (state.holdCount > 0) {
+                return state;
+            }
+            state.owner = null;
+            ended[0] = true;
+            final Waiter waiter = state.waiters.pollFirst();
+            if (waiter != null) {
+                next[0] = new Lease(this, k, state.grant(waiter));
+                nextWaiter[0] = waiter;
+            }
+            return state.isIdle() ? null : state;
+        });
+        if (ended[0] && !force && lease.ownership.leaseTimerId >= 0) {
+            vertx().cancelTimer(lease.ownership.leaseTimerId);
+        }
+        if (next[0] != null) {
+            if (nextWaiter[0].timerId >= 0) {
+                vertx().cancelTimer(nextWaiter[0].timerId);
+            }
+            startLeaseTimer(next[0]);
+            complete(nextWaiter[0], Future.succeededFuture(next[0]));
+        }
+    }
+
+    private boolean isOwner(Lease lease) {
+        final KeyState state = keys.get(lease.key);
+        return state != null && state.owner == lease.ownership;
+    }
+
+    private void startLeaseTimer(Lease lease) {
+        final Ownership ownership = lease.ownership;
+        if (ownership.leaseTimeout == null) {
+            return;
+        }
+        ownership.leaseTimerId = vertx().setTimer(Math.max(1L, ownership.leaseTimeout.toMillis()), id -> {
+            if (isOwner(lease)) {
+                LogUtils.writeLog(
+                        this.getClass(),
+                        LogUtils.Level.WARN,
+                        "Lock {} held for {} ms, longer than its lease of {}; releasing it",
+                        lease.key,
+                        (System.nanoTime() - ownership.acquiredAt) / 1_000_000L,
+                        ownership.leaseTimeout
+                );
+                release(lease, true);
+            }
+        });
+    }
+
+    /**
+     * @return the Vert.x instance, which is still reachable while the lock is in use by its callers
+     */
+    private Vertx vertx() {
+        final Vertx instance = vertx.get();
+        if (instance == null) {
+            throw new IllegalStateException("The Vert.x instance of the lock has been garbage collected");
+        }
+        return instance;
+    }
+
+    /**
+     * The only use of the Vert.x internal API, see the class documentation.
+     */
+    private static boolean isDuplicate(Context context) {
+        if (!duplicateCheckAvailable) {
+            return false;
+        }
+        try {
+            return context instanceof ContextInternal internal && internal.isDuplicate();
+        } catch (LinkageError e) {
+            duplicateCheckAvailable = false;
+            LogUtils.writeLog(KeyedAsyncLock.class, LogUtils.Level.WARN,
+                    "ContextInternal#isDuplicate is unavailable in this Vert.x version, locks are no longer reentrant: {}",
+                    e.toString());
+            return false;
+        }
+    }
+
+    private static void complete(Waiter waiter, Future<Lease> result) {
+        if (waiter.context == null) {
+            waiter.promise.handle(result);
+        } else {
+            waiter.context.runOnContext(v -> waiter.promise.handle(result));
+        }
+    }
+
+    /**
+     * A granted hold of a key. Releasing it more than once has no effect.
+     */
+    public static final class Lease {
+        private final KeyedAsyncLock lock;
+        private final String key;
+        private final Ownership ownership;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(KeyedAsyncLock lock, String key, Ownership ownership) {
+            this.lock = lock;
+            this.key = key;
+            this.ownership = ownership;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return how long the lock has been held by the current owner, in milliseconds
+         */
+        public long getHoldTimeMillis() {
+            return (System.nanoTime() - ownership.acquiredAt) / 1_000_000L;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                lock.release(this, false);
+            }
+        }
+    }
+
+    /**
+     * One owner of a key, shared by the reentrant leases taken on its context
+     */
+    private static final class Ownership {
+        private final Context context;
+        private final Duration leaseTimeout;
+        private final long acquiredAt = System.nanoTime();
+        private volatile long leaseTimerId = -1L;
+
+        private Ownership(Context context, Duration leaseTimeout) {
+            this.context = context;
+            this.leaseTimeout = leaseTimeout;
+        }
+    }
+
+    private static final class Waiter {
+        private final Context context;
+        private final Duration leaseTimeout;
+        private final Promise<Lease> promise = Promise.promise();
+        private volatile long timerId = -1L;
+
+        private Waiter(Context context, Duration leaseTimeout) {
+            this.context = context;
+            this.leaseTimeout = leaseTimeout;
+        }
+    }
+
+    /**
+     * State of one key, only accessed inside {@link ConcurrentHashMap#compute} of {@link #keys}
+     */
+    private static final class KeyState {
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        private Ownership owner;
+        private int holdCount;
+
+        private Ownership grant(Waiter waiter) {
+            owner = new Ownership(waiter.context, waiter.leaseTimeout);
+            holdCount = 1;
+            return owner;
+        }
+
+        private boolean isIdle() {
+            return owner == null && waiters.isEmpty();
+        }
+    }
+}
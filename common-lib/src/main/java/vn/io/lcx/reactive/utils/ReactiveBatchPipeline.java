@@ -0,0 +1,446 @@
+package vn.io.lcx.reactive.utils;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import vn.io.lcx.common.exception.BatchProcessingException;
+import vn.io.lcx.common.utils.LogUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Pushes a large source through an asynchronous handler in batches, with a bounded number of batches in flight.
+ *
+ * <p>Chaining one batch after the other leaves the database or the remote service idle between round trips, and
+ * firing every batch at once exhausts the connection pool. The pipeline keeps at most
+ * {@link ReactiveBatchPipelineBuilder#maxInFlight(int)} batch futures pending: set it to a share of the pool size.
+ * The source is read lazily, one batch at a time, so it must not block: an in-memory collection, or an iterator
+ * over already fetched data.</p>
+ *
+ * <p>When the pipeline is started on a Vert.x context, the handler, the progress listener and the result are all
+ * called on that context.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ReactiveBatchPipeline.builder()
+ *         .batchSize(500)
+ *         .maxInFlight(4)
+ *         .failureMode(ReactiveBatchPipeline.FailureMode.SKIP)
+ *         .onProgress(report -> LogUtils.writeLog(MyService.class, LogUtils.Level.INFO, "{}", report))
+ *         .build()
+ *         .run(rows, batch -> repository.saveAll(context, connection, batch))
+ *         .onSuccess(report -> LogUtils.writeLog(MyService.class, LogUtils.Level.INFO, "Done: {}", report));
+ * }</pre>
+ */
+public final class ReactiveBatchPipeline {
+
+    private final int batchSize;
+    private final int maxInFlight;
+    private final FailureMode failureMode;
+    private final Consumer<Report> onProgress;
+
+    private ReactiveBatchPipeline(ReactiveBatchPipelineBuilder builder) {
+        this.batchSize = builder.batchSize;
+        this.maxInFlight = builder.maxInFlight;
+        this.failureMode = builder.failureMode;
+        this.onProgress = builder.onProgress;
+    }
+
+    public static ReactiveBatchPipelineBuilder builder() {
+        return new ReactiveBatchPipelineBuilder();
+    }
+
+    /**
+     * Runs every item of a collection through the handler.
+     *
+     * @param source  the items
+     * @param handler handles one batch
+     * @param <T>     the type of the items
+     * @return a future completed with the report once every batch is done, or failed with a
+     * {@link BatchProcessingException} in {@link FailureMode#STOP} mode if a batch failed
+     */
+    public <T> Future<Report> run(Iterable<? extends T> source, Function<List<T>, Future<?>> handler) {
+        return run(source.iterator(), handler);
+    }
+
+    /**
+     * Runs every item of a stream through the handler; the stream is not closed.
+     *
+     * @param source  the items
+     * @param handler handles one batch
+     * @param <T>     the type of the items
+     * @return a future completed with the report once every batch is done, or failed with a
+     * {@link BatchProcessingException} in {@link FailureMode#STOP} mode if a batch failed
+     */
+    public <T> Future<Report> run(Stream<? extends T> source, Function<List<T>, Future<?>> handler) {
+        return run(source.iterator(), handler);
+    }
+
+    /**
+     * Runs every item of an iterator through the handler.
+     *
+     * @param source  the items, read on the calling context
+     * @param handler handles one batch
+     * @param <T>     the type of the items
+     * @return a future completed with the report once every batch is done, or failed with a
+     * {@link BatchProcessingException} in {@link FailureMode#STOP} mode if a batch failed
+     */
+    public <T> Future<Report> run(Iterator<? extends T> source, Function<List<T>, Future<?>> handler) {
+        if (source == null || handler == null) {
+            throw new IllegalArgumentException("Source and handler cannot be null");
+        }
+        final Run<T> run = new Run<>(source, handler, Vertx.currentContext());
+        run.pump();
+        return run.promise.future();
+    }
+
+    /**
+     * What the pipeline does when a batch fails
+     */
+    public enum FailureMode {
+        /**
+         * Stop reading the source, wait for the batches in flight, and fail the pipeline
+         */
+        STOP,
+        /**
+         * Record the failure in the report and go on with the next batches
+         */
+        SKIP
+    }
+
+    /**
+     * One call of {@code run}. Every method is called on the caller's context when there is one; the methods are
+     * synchronized for callers outside Vert.x.
+     */
+    private final class Run<T> {
+        private final Iterator<? extends T> source;
+        private final Function<List<T>, Future<?>> handler;
+        private final Context context;
+        private final Promise<Report> promise = Promise.promise();
+        private final long startedAt = System.nanoTime();
+        private final List<BatchFailure> failures = new ArrayList<>();
+
+        private long nextIndex;
+        private int inFlight;
+        private long completedBatches;
+        private long failedBatches;
+        private long processedItems;
+        private long failedItems;
+        private BatchProcessingException stopCause;
+        private boolean exhausted;
+        /**
+         * Set while {@link #pump()} runs, so that batches completing synchronously do not recurse into it
+         */
+        private boolean pumping;
+        private boolean pumpAgain;
+
+        private Run(Iterator<? extends T> source, Function<List<T>, Future<?>> handler, Context context) {
+            this.source = source;
+            this.handler = handler;
+            this.context = context;
+        }
+
+        private synchronized void pump() {
+            if (pumping) {
+                pumpAgain = true;
+                return;
+            }
+            pumping = true;
+            try {
+                do {
+                    pumpAgain = false;
+                    while (inFlight < maxInFlight && stopCause == null && !exhausted) {
+                        final List<T> batch = nextBatch();
+                        if (batch == null) {
+                            break;
+                        }
+                        launch(nextIndex++, batch);
+                    }
+                } while (pumpAgain);
+            } finally {
+                pumping = false;
+            }
+            if (inFlight == 0 && (exhausted || stopCause != null) && !promise.future().isComplete()) {
+                finish();
+            }
+        }
+
+        private List<T> nextBatch() {
+            final List<T> batch = new ArrayList<>(batchSize);
+            try {
+                while (batch.size() < batchSize && source.hasNext()) {
+                    batch.add(source.next());
+                }
+            } catch (RuntimeException e) {
+                exhausted = true;
+                stopCause = new BatchProcessingException("Failed to read batch " + nextIndex, nextIndex, e);
+                return null;
+            }
+            if (batch.size() < batchSize) {
+                exhausted = true;
+            }
+            return batch.isEmpty() ? null : batch;
+        }
+
+        private void launch(long index, List<T> batch) {
+            inFlight++;
+            Future<?> future;
+            try {
+                future = handler.apply(batch);
+                if (future == null) {
+                    future = Future.failedFuture(new IllegalStateException("Batch handler returned no future"));
+                }
+            } catch (RuntimeException e) {
+                future = Future.failedFuture(e);
+            }
+            future.onComplete(ar -> {
+                if (context == null || Vertx.currentContext() == context) {
+                    done(index, batch.size(), ar);
+                } else {
+                    context.runOnContext(v -> done(index, batch.size(), ar));
+                }
+            });
+        }
+
+        private synchronized void done(long index, int size, AsyncResult<?> ar) {
+            inFlight--;
+            completedBatches++;
+            if (ar.succeeded()) {
+                processedItems += size;
+            } else {
+                failedItems += size;
+                failedBatches++;
+                final BatchFailure failure = new BatchFailure(index, size, ar.cause());
+                if (failureMode == FailureMode.STOP) {
+                    if (stopCause == null) {
+                        stopCause = new BatchProcessingException("Batch " + index + " failed", index, ar.cause());
+                    }
+                } else {
+                    LogUtils.writeLog(
+                            ReactiveBatchPipeline.class,
+                            LogUtils.Level.WARN,
+                            "Batch {} of {} item(s) failed and was skipped: {}",
+                            index,
+                            size,
+                            String.valueOf(ar.cause().getMessage())
+                    );
+                }
+                failures.add(failure);
+            }
+            if (onProgress != null) {
+                try {
+                    onProgress.accept(report(List.of()));
+                } catch (RuntimeException e) {
+                    LogUtils.writeLog(ReactiveBatchPipeline.class, LogUtils.Level.WARN, "Progress listener failed: {}", e.getMessage());
+                }
+            }
+            pump();
+        }
+
+        private void finish() {
+            if (stopCause != null) {
+                promise.fail(stopCause);
+            } else {
+                promise.complete(report(List.copyOf(failures)));
+            }
+        }
+
+        private Report report(List<BatchFailure> failures) {
+            return new Report(
+                    completedBatches,
+                    failedBatches,
+                    processedItems,
+                    failedItems,
+                    inFlight,
+                    (System.nanoTime() - startedAt) / 1_000_000L,
+                    failures
+            );
+        }
+    }
+
+    /**
+     * A batch that failed, kept in the report in {@link FailureMode#SKIP} mode
+     */
+    public static final class BatchFailure {
+        private final long batchIndex;
+        private final int size;
+        private final Throwable cause;
+
+        private BatchFailure(long batchIndex, int size, Throwable cause) {
+            this.batchIndex = batchIndex;
+            this.size = size;
+            this.cause = cause;
+        }
+
+        /**
+         * @return the index of the batch, starting from 0; its items are the ones from
+         * {@code batchIndex * batchSize} in the source
+         */
+        public long getBatchIndex() {
+            return batchIndex;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public Throwable getCause() {
+            return cause;
+        }
+    }
+
+    /**
+     * Progress of a pipeline, passed to the progress listener after every batch and as the final result
+     */
+    public static final class Report {
+        private final long completedBatches;
+        private final long failedBatches;
+        private final long processedItems;
+        private final long failedItems;
+        private final int inFlight;
+        private final long elapsedMillis;
+        private final List<BatchFailure> failures;
+
+        private Report(long completedBatches,
+                       long failedBatches,
+                       long processedItems,
+                       long failedItems,
+                       int inFlight,
+                       long elapsedMillis,
+                       List<BatchFailure> failures) {
+            this.completedBatches = completedBatches;
+            this.failedBatches = failedBatches;
+            this.processedItems = processedItems;
+            this.failedItems = failedItems;
+            this.inFlight = inFlight;
+            this.elapsedMillis = elapsedMillis;
+            this.failures = Collections.unmodifiableList(failures);
+        }
+
+        /**
+         * @return the number of batches done, whether they succeeded or failed
+         */
+        public long getCompletedBatches() {
+            return completedBatches;
+        }
+
+        public long getFailedBatches() {
+            return failedBatches;
+        }
+
+        /**
+         * @return the number of items of the batches that succeeded
+         */
+        public long getProcessedItems() {
+            return processedItems;
+        }
+
+        /**
+         * @return the number of items of the batches that failed
+         */
+        public long getFailedItems() {
+            return failedItems;
+        }
+
+        /**
+         * @return the number of batches still pending when the report was made
+         */
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * @return the items processed per second so far
+         */
+        public double getItemsPerSecond() {
+            return elapsedMillis == 0 ? 0.0 : processedItems * 1000.0 / elapsedMillis;
+        }
+
+        /**
+         * @return the failed batches; only filled in the final report, progress reports leave it empty
+         */
+        public List<BatchFailure> getFailures() {
+            return failures;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Report{completedBatches=%d, failedBatches=%d, processedItems=%d, failedItems=%d, inFlight=%d, elapsed=%dms, itemsPerSecond=%.1f}",
+                    completedBatches, failedBatches, processedItems, failedItems, inFlight, elapsedMillis, getItemsPerSecond()
+            );
+        }
+    }
+
+    public static class ReactiveBatchPipelineBuilder {
+        private int batchSize = 500;
+        private int maxInFlight = 4;
+        private FailureMode failureMode = FailureMode.STOP;
+        private Consumer<Report> onProgress;
+
+        public ReactiveBatchPipelineBuilder() {
+        }
+
+        /**
+         * @param batchSize the number of items per batch, 500 by default
+         * @return this builder
+         */
+        public ReactiveBatchPipelineBuilder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * @param maxInFlight the maximum number of batches pending at once, 4 by default; keep it below the size of
+         *                    the connection pool the handler uses
+         * @return this builder
+         */
+        public ReactiveBatchPipelineBuilder maxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * @param failureMode what to do when a batch fails, {@link FailureMode#STOP} by default
+         * @return this builder
+         */
+        public ReactiveBatchPipelineBuilder failureMode(FailureMode failureMode) {
+            this.failureMode = failureMode;
+            return this;
+        }
+
+        /**
+         * @param onProgress called after every batch with the progress so far
+         * @return this builder
+         */
+        public ReactiveBatchPipelineBuilder onProgress(Consumer<Report> onProgress) {
+            this.onProgress = onProgress;
+            return this;
+        }
+
+        public ReactiveBatchPipeline build() {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("Batch size must be at least 1");
+            }
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("Maximum batches in flight must be at least 1");
+            }
+            if (failureMode == null) {
+                throw new IllegalArgumentException("Failure mode cannot be null");
+            }
+            return new ReactiveBatchPipeline(this);
+        }
+    }
+}
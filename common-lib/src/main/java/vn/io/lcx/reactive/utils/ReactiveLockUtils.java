@@ -3,6 +3,7 @@ package vn.io.lcx.reactive.utils;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 
+import java.time.Duration;
 import java.util.function.Supplier;
 
 public final class ReactiveLockUtils {
@@ -44,4 +45,32 @@ public final class ReactiveLockUtils {
         return executeInTransactionWithTimeout(vertx, lockName, 1L, function);
     }
 
+    /**
+     * Runs the function while holding the local lock of a key, see {@link KeyedAsyncLock}. Callers on the same key
+     * are queued in FIFO order instead of failing; the lock is released forcibly after 30 seconds.
+     */
+    public static <T> Future<T> executeWithLocalLock(Vertx vertx, String key, Supplier<Future<T>> function) {
+        return executeWithLocalLock(vertx, key, null, Duration.ofSeconds(30), function);
+    }
+
+    /**
+     * Runs the function while holding the local lock of a key, see {@link KeyedAsyncLock}.
+     *
+     * @param waitTimeout  the longest time to wait for the lock, null to wait as long as needed
+     * @param leaseTimeout the longest time the lock is held before being released forcibly, null for no limit
+     */
+    public static <T> Future<T> executeWithLocalLock(Vertx vertx, String key, Duration waitTimeout, Duration leaseTimeout, Supplier<Future<T>> function) {
+        return KeyedAsyncLock.of(vertx).acquire(key, waitTimeout, leaseTimeout).compose(
+                lease -> {
+                    try {
+                        return function.get()
+                                .onComplete(ar -> lease.release());
+                    } catch (Throwable e) {
+                        lease.release();
+                        return Future.failedFuture(e);
+                    }
+                }
+        );
+    }
+
 }
@@ -5,6 +5,7 @@ import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.ext.web.RoutingContext;
 import vn.io.lcx.common.utils.LogUtils;
+import vn.io.lcx.reactive.exception.CircuitBreakerOpenException;
 
 import java.util.function.Supplier;
 
@@ -13,6 +14,8 @@ import java.util.function.Supplier;
  * <p>
  * This class allows developers to execute an asynchronous operation that returns a {@link Future},
  * and automatically retry the operation upon failure, with a configurable number of retries and delay between attempts.
+ * A {@link RetryPolicy} adds exponential backoff with jitter, retryable error classification, a {@link RetryBudget}
+ * and a {@link CircuitBreaker}.
  * </p>
  *
  * <p><b>Example usage:</b></p>
@@ -76,9 +79,37 @@ public final class ReactiveRetryUtils {
                                         Supplier<Future<T>> function,
                                         int retryTimes,
                                         long delayMs) {
+        return execute(vertx, context, function, RetryPolicy.fixedDelay(retryTimes, delayMs));
+    }
+
+    /**
+     * Executes the given asynchronous {@link Supplier} and retries it as described by a {@link RetryPolicy}:
+     * exponential backoff with jitter, only for the errors the policy deems retryable, within its
+     * {@link RetryBudget} and while its {@link CircuitBreaker} lets calls through.
+     *
+     * <p>An open breaker fails the operation at once with
+     * {@link vn.io.lcx.reactive.exception.CircuitBreakerOpenException}, carrying the last error as suppressed if
+     * it opened between two attempts. A spent budget or a non-retryable error fails it with the last error, as does
+     * a {@code retryOn} predicate that throws, its exception being added as suppressed.</p>
+     *
+     * @param vertx    the Vert.x instance used to schedule delayed retry attempts
+     * @param context  the {@link RoutingContext} used for contextual logging, may be {@code null}
+     * @param function the supplier that produces a {@link Future} representing the asynchronous operation
+     * @param policy   the retry policy, usually shared by all the calls of the operation
+     * @param <T>      the type of the operation result
+     * @return a {@link Future} that completes successfully with the result of {@code function.get()},
+     * or fails once no more attempt is allowed
+     */
+    public static <T> Future<T> execute(Vertx vertx,
+                                        RoutingContext context,
+                                        Supplier<Future<T>> function,
+                                        RetryPolicy policy) {
         Promise<T> promise = Promise.promise();
 
-        executeWithRetry(vertx, context, function, retryTimes, delayMs, promise);
+        if (policy.getBudget() != null) {
+            policy.getBudget().recordRequest();
+        }
+        executeWithRetry(vertx, context, function, policy, 1, null, promise);
 
         return promise.future();
     }
@@ -86,43 +117,93 @@ public final class ReactiveRetryUtils {
     /**
      * Internal recursive method that performs the retry logic.
      * <p>
-     * If the operation fails and there are retries left, it schedules a new attempt after the specified delay.
-     * When all retries are exhausted, the promise is failed with the last encountered exception.
+     * If the operation fails with a retryable error, attempts are left and the budget allows it, a new attempt is
+     * scheduled after the backoff delay of the policy. Otherwise the promise is failed with the last encountered
+     * exception.
      * </p>
      *
-     * @param vertx       the Vert.x instance used to schedule delayed retry attempts
-     * @param context     the {@link RoutingContext} used for contextual logging
-     * @param function    the supplier that produces a {@link Future} representing the asynchronous operation
-     * @param retriesLeft number of remaining retry attempts
-     * @param delayMs     delay in milliseconds before the next retry
-     * @param promise     the {@link Promise} to complete or fail with the final result
-     * @param <T>         the type of the operation result
+     * @param vertx     the Vert.x instance used to schedule delayed retry attempts
+     * @param context   the {@link RoutingContext} used for contextual logging
+     * @param function  the supplier that produces a {@link Future} representing the asynchronous operation
+     * @param policy    the retry policy
+     * @param attempt   number of the current attempt, starting from 1
+     * @param lastError error of the previous attempt, {@code null} on the first one
+     * @param promise   the {@link Promise} to complete or fail with the final result
+     * @param <T>       the type of the operation result
      */
     private static <T> void executeWithRetry(Vertx vertx,
                                              RoutingContext context,
                                              Supplier<Future<T>> function,
-                                             int retriesLeft,
-                                             long delayMs,
+                                             RetryPolicy policy,
+                                             int attempt,
+                                             Throwable lastError,
                                              Promise<T> promise) {
 
-        function.get()
+        final CircuitBreaker breaker = policy.getCircuitBreaker();
+        final Future<T> future;
+        if (breaker != null) {
+            future = breaker.execute(function);
+        } else {
+            future = invoke(function);
+        }
+        future
                 .onSuccess(promise::complete)
                 .onFailure(e ->
                         {
-                            if (retriesLeft > 1) {
-                                LogUtils.writeLog(ReactiveRetryUtils.class, context,
-                                        "Retrying... attempts left: " + (retriesLeft - 1),
+                            if (e instanceof CircuitBreakerOpenException) {
+                                if (lastError != null) {
+                                    e.addSuppressed(lastError);
+                                }
+                                writeLog(context, "Circuit breaker open, not attempting the operation.", e, LogUtils.Level.WARN);
+                                promise.fail(e);
+                                return;
+                            }
+                            final int attemptsLeft = policy.getMaxAttempts() - attempt;
+                            final boolean retryable;
+                            try {
+                                retryable = attemptsLeft > 0 && policy.isRetryable(e);
+                            } catch (Throwable predicateError) {
+                                e.addSuppressed(predicateError);
+                                writeLog(context, "Retry predicate failed, not retrying.", predicateError, LogUtils.Level.ERROR);
+                                promise.fail(e);
+                                return;
+                            }
+                            if (attemptsLeft < 1) {
+                                writeLog(context, "All retry attempts failed.", e, LogUtils.Level.ERROR);
+                                promise.fail(e != null ? e : new RuntimeException("All retry attempts failed."));
+                            } else if (!retryable) {
+                                writeLog(context, "Operation failed with a non-retryable error.", e, LogUtils.Level.ERROR);
+                                promise.fail(e);
+                            } else if (policy.getBudget() != null && !policy.getBudget().tryAcquireRetry()) {
+                                writeLog(context, "Retry budget exhausted, not retrying.", e, LogUtils.Level.ERROR);
+                                promise.fail(e);
+                            } else {
+                                final long delayMs = policy.delayMillis(attempt);
+                                writeLog(context,
+                                        "Retrying in " + delayMs + " ms... attempts left: " + attemptsLeft,
                                         e, LogUtils.Level.WARN);
 
                                 vertx.setTimer(delayMs, id ->
-                                        executeWithRetry(vertx, context, function, retriesLeft - 1, delayMs, promise));
-                            } else {
-                                String msg = "All retry attempts failed.";
-                                LogUtils.writeLog(ReactiveRetryUtils.class, context, msg, e, LogUtils.Level.ERROR);
-                                promise.fail(e != null ? e : new RuntimeException(msg));
+                                        executeWithRetry(vertx, context, function, policy, attempt + 1, e, promise));
                             }
                         }
                 );
     }
 
+    private static <T> Future<T> invoke(Supplier<Future<T>> function) {
+        try {
+            return function.get();
+        } catch (Throwable e) {
+            return Future.failedFuture(e);
+        }
+    }
+
+    private static void writeLog(RoutingContext context, String message, Throwable e, LogUtils.Level level) {
+        if (context != null) {
+            LogUtils.writeLog(ReactiveRetryUtils.class, context, message, e, level);
+        } else {
+            LogUtils.writeLog(ReactiveRetryUtils.class, message, e, level);
+        }
+    }
+
 }
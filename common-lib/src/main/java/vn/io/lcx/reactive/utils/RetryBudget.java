@@ -0,0 +1,148 @@
+package vn.io.lcx.reactive.utils;
+
+import java.time.Duration;
+
+/**
+ * Caps the retries of an operation to a fraction of its traffic, so that retries cannot multiply the load on a
+ * dependency that is already failing.
+ *
+ * <p>Requests and retries are counted over a sliding window split into one-second buckets. A retry is allowed while
+ * the retries in the window stay below {@code ratio} times the requests in the window, plus a small floor of
+ * {@code minRetriesPerSecond} so that low-traffic operations can still retry. Share one instance between all the
+ * calls of an operation.</p>
+ *
+ * <pre>{@code
+ * RetryBudget budget = RetryBudget.builder().ratio(0.1).minRetriesPerSecond(5).build();
+ * }</pre>
+ */
+public final class RetryBudget {
+
+    private final double ratio;
+    private final int minRetriesPerSecond;
+    private final long bucketNanos;
+    private final long[] requests;
+    private final long[] retries;
+    private long currentBucket;
+
+    private RetryBudget(double ratio, int minRetriesPerSecond, int windowSeconds) {
+        this.ratio = ratio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        this.bucketNanos = Duration.ofSeconds(1).toNanos();
+        this.requests = new long[windowSeconds];
+        this.retries = new long[windowSeconds];
+        this.currentBucket = System.nanoTime() / bucketNanos;
+    }
+
+    public static RetryBudgetBuilder builder() {
+        return new RetryBudgetBuilder();
+    }
+
+    /**
+     * Counts a first attempt, which earns {@code ratio} retries.
+     */
+    public synchronized void recordRequest() {
+        requests[advance()]++;
+    }
+
+    /**
+     * Withdraws one retry from the budget.
+     *
+     * @return {@code false} if the budget is spent and the operation should fail without retrying
+     */
+    public synchronized boolean tryAcquireRetry() {
+        final int bucket = advance();
+        final double allowed = ratio * sum(requests) + (double) minRetriesPerSecond * requests.length;
+        if (sum(retries) + 1 > allowed) {
+            return false;
+        }
+        retries[bucket]++;
+        return true;
+    }
+
+    /**
+     * @return the number of first attempts counted in the current window
+     */
+    public synchronized long getRequests() {
+        advance();
+        return sum(requests);
+    }
+
+    /**
+     * @return the number of retries granted in the current window
+     */
+    public synchronized long getRetries() {
+        advance();
+        return sum(retries);
+    }
+
+    /**
+     * Clears the buckets that fell out of the window since the last call.
+     *
+     * @return the bucket of the current second
+     */
+    private int advance() {
+        final long now = System.nanoTime() / bucketNanos;
+        final long elapsed = now - currentBucket;
+        if (elapsed > 0) {
+            final long cleared = Math.min(elapsed, requests.length);
+            for (long i = 1; i <= cleared; i++) {
+                final int bucket = (int) Math.floorMod(currentBucket + i, (long) requests.length);
+                requests[bucket] = 0;
+                retries[bucket] = 0;
+            }
+            currentBucket = now;
+        }
+        return (int) Math.floorMod(currentBucket, (long) requests.length);
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    public static class RetryBudgetBuilder {
+        private double ratio = 0.1;
+        private int minRetriesPerSecond = 1;
+        private int windowSeconds = 10;
+
+        /**
+         * Retries allowed per request, 0.1 by default, i.e. at most 10% extra load
+         */
+        public RetryBudgetBuilder ratio(double ratio) {
+            this.ratio = ratio;
+            return this;
+        }
+
+        /**
+         * Retries always allowed regardless of traffic, 1 per second by default
+         */
+        public RetryBudgetBuilder minRetriesPerSecond(int minRetriesPerSecond) {
+            this.minRetriesPerSecond = minRetriesPerSecond;
+            return this;
+        }
+
+        /**
+         * Length of the sliding window, 10 seconds by default
+         */
+        public RetryBudgetBuilder window(Duration window) {
+            if (window == null || window.getSeconds() < 1) {
+                throw new IllegalArgumentException("Window must be at least one second");
+            }
+            this.windowSeconds = (int) Math.min(window.getSeconds(), 3600);
+            return this;
+        }
+
+        public RetryBudget build() {
+            if (ratio < 0 || Double.isNaN(ratio)) {
+                throw new IllegalArgumentException("Ratio cannot be negative");
+            }
+            if (minRetriesPerSecond < 0) {
+                throw new IllegalArgumentException("Minimum retries per second cannot be negative");
+            }
+            return new RetryBudget(ratio, minRetriesPerSecond, windowSeconds);
+        }
+    }
+}
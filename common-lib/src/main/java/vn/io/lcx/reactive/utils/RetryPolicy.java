@@ -0,0 +1,240 @@
+package vn.io.lcx.reactive.utils;
+
+import io.vertx.sqlclient.ClosedConnectionException;
+import io.vertx.sqlclient.DatabaseException;
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Describes how {@link ReactiveRetryUtils} retries an operation: how many attempts, how long to wait between them,
+ * which errors are worth a retry, and optionally a {@link RetryBudget} and a {@link CircuitBreaker} shared by all the
+ * calls of the operation.
+ *
+ * <p>Delays grow exponentially from {@code baseDelay} up to {@code maxDelay}. With full jitter, enabled by default,
+ * the actual delay is drawn uniformly between 0 and that value, so that instances failing together do not retry in
+ * lockstep.</p>
+ *
+ * <pre>{@code
+ * RetryPolicy policy = RetryPolicy.builder()
+ *         .maxAttempts(5)
+ *         .baseDelay(Duration.ofMillis(50))
+ *         .maxDelay(Duration.ofSeconds(2))
+ *         .retryOn(RetryPolicy::isTransientDatabaseError)
+ *         .budget(RetryBudget.builder().build())
+ *         .circuitBreaker(CircuitBreaker.builder().name("orders-db").build())
+ *         .build();
+ * }</pre>
+ */
+public final class RetryPolicy {
+
+    /**
+     * SQL states of serialization failures, deadlocks and lock timeouts, which succeed when the transaction is re-run
+     */
+    private static final Set<String> TRANSIENT_SQL_STATES = Set.of(
+            "40001", // serialization failure, also MySQL and SQL Server deadlocks
+            "40P01", // PostgreSQL deadlock detected
+            "55P03"  // PostgreSQL lock not available
+    );
+
+    /**
+     * MySQL lock wait timeout and deadlock, SQL Server deadlock victim and lock request timeout
+     */
+    private static final Set<Integer> TRANSIENT_ERROR_CODES = Set.of(1205, 1213, 1222);
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final double multiplier;
+    private final boolean jitter;
+    private final Predicate<Throwable> retryOn;
+    private final RetryBudget budget;
+    private final CircuitBreaker circuitBreaker;
+
+    private RetryPolicy(RetryPolicyBuilder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.baseDelayMs = builder.baseDelay.toMillis();
+        this.maxDelayMs = builder.maxDelay.toMillis();
+        this.multiplier = builder.multiplier;
+        this.jitter = builder.jitter;
+        this.retryOn = builder.retryOn;
+        this.budget = builder.budget;
+        this.circuitBreaker = builder.circuitBreaker;
+    }
+
+    public static RetryPolicyBuilder builder() {
+        return new RetryPolicyBuilder();
+    }
+
+    /**
+     * A policy waiting the same delay between attempts and retrying any error, the behaviour of
+     * {@link ReactiveRetryUtils#execute(io.vertx.core.Vertx, io.vertx.ext.web.RoutingContext, java.util.function.Supplier, int, long)}
+     */
+    public static RetryPolicy fixedDelay(int maxAttempts, long delayMs) {
+        final Duration delay = Duration.ofMillis(Math.max(1, delayMs));
+        return builder()
+                .maxAttempts(Math.max(1, maxAttempts))
+                .baseDelay(delay)
+                .maxDelay(delay)
+                .multiplier(1)
+                .jitter(false)
+                .build();
+    }
+
+    /**
+     * Classifies the errors that usually go away when the operation is run again: serialization failures, deadlocks,
+     * lock timeouts and lost connections, whether raised by the Vert.x SQL clients or by JDBC. The whole cause chain
+     * is inspected.
+     */
+    public static boolean isTransientDatabaseError(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause() == e ? null : e.getCause()) {
+            if (e instanceof ClosedConnectionException
+                    || e instanceof SQLTransientException
+                    || e instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (e instanceof DatabaseException) {
+                final DatabaseException databaseException = (DatabaseException) e;
+                if (isTransient(databaseException.getSqlState(), databaseException.getErrorCode())) {
+                    return true;
+                }
+            } else if (e instanceof SQLException) {
+                final SQLException sqlException = (SQLException) e;
+                if (isTransient(sqlException.getSQLState(), sqlException.getErrorCode())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTransient(String sqlState, int errorCode) {
+        return (sqlState != null && (TRANSIENT_SQL_STATES.contains(sqlState) || sqlState.startsWith("08")))
+                || TRANSIENT_ERROR_CODES.contains(errorCode);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public RetryBudget getBudget() {
+        return budget;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public boolean isRetryable(Throwable error) {
+        return retryOn.test(error);
+    }
+
+    /**
+     * @param retry the number of the retry about to be scheduled, starting from 1
+     * @return the delay before that retry in milliseconds, at least 1 as required by Vert.x timers
+     */
+    public long delayMillis(int retry) {
+        final double exponential = baseDelayMs * Math.pow(multiplier, Math.max(0, retry - 1));
+        final long ceiling = (long) Math.min(maxDelayMs, exponential);
+        final long delay = jitter ? ThreadLocalRandom.current().nextLong(ceiling + 1) : ceiling;
+        return Math.max(1, delay);
+    }
+
+    public static class RetryPolicyBuilder {
+        private int maxAttempts = 3;
+        private Duration baseDelay = Duration.ofMillis(100);
+        private Duration maxDelay = Duration.ofSeconds(10);
+        private double multiplier = 2;
+        private boolean jitter = true;
+        private Predicate<Throwable> retryOn = e -> true;
+        private RetryBudget budget;
+        private CircuitBreaker circuitBreaker;
+
+        /**
+         * Total number of attempts, including the first one, 3 by default
+         */
+        public RetryPolicyBuilder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Delay before the first retry, 100 milliseconds by default
+         */
+        public RetryPolicyBuilder baseDelay(Duration baseDelay) {
+            this.baseDelay = baseDelay;
+            return this;
+        }
+
+        /**
+         * Upper bound of the delay between two attempts, 10 seconds by default
+         */
+        public RetryPolicyBuilder maxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * Growth factor of the delay from one retry to the next, 2 by default
+         */
+        public RetryPolicyBuilder multiplier(double multiplier) {
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * Whether the delay is drawn between 0 and its exponential value, enabled by default
+         */
+        public RetryPolicyBuilder jitter(boolean jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Which errors are retried, all of them by default. Other errors fail the operation at once.
+         *
+         * @see RetryPolicy#isTransientDatabaseError(Throwable)
+         */
+        public RetryPolicyBuilder retryOn(Predicate<Throwable> retryOn) {
+            this.retryOn = retryOn;
+            return this;
+        }
+
+        /**
+         * Budget limiting the retries to a fraction of the traffic, none by default
+         */
+        public RetryPolicyBuilder budget(RetryBudget budget) {
+            this.budget = budget;
+            return this;
+        }
+
+        /**
+         * Breaker guarding every attempt, none by default
+         */
+        public RetryPolicyBuilder circuitBreaker(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("Max attempts must be at least 1");
+            }
+            if (baseDelay == null || maxDelay == null || baseDelay.isNegative() || maxDelay.compareTo(baseDelay) < 0) {
+                throw new IllegalArgumentException("Delays must be positive, with max delay not below base delay");
+            }
+            if (!(multiplier >= 1)) {
+                throw new IllegalArgumentException("Multiplier must be at least 1");
+            }
+            if (retryOn == null) {
+                throw new IllegalArgumentException("Retry predicate cannot be null");
+            }
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -6,6 +6,11 @@ public final class VertxBaseConstant {
     public static final String PROCESSED_TIME_HEADER_NAME = "Processed-Time";
     public static final String TRACE_HEADER_NAME = "Trace";
     public static final String CONTENT_TYPE_APPLICATION_JSON = "application/json";
+    /**
+     * Key of the {@link vn.io.lcx.common.database.context.QueryDeadline} of a request in its routing context, as a
+     * {@link System#nanoTime()} value
+     */
+    public static final String QUERY_DEADLINE_KEY_NAME = "lcx.query-deadline";
 
     private VertxBaseConstant() {
     }
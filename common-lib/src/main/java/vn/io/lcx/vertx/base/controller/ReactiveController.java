@@ -7,10 +7,12 @@ import com.google.gson.Gson;
 import com.google.gson.Strictness;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
+import io.vertx.core.Future;
 import io.vertx.ext.web.RoutingContext;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import vn.io.lcx.common.constant.CommonConstant;
+import vn.io.lcx.common.database.context.QueryDeadline;
 import vn.io.lcx.common.utils.DateTimeUtils;
 import vn.io.lcx.common.utils.ExceptionUtils;
 import vn.io.lcx.common.utils.LogUtils;
@@ -30,6 +32,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -318,6 +321,15 @@ public abstract class ReactiveController {
                 LogUtils.Level.WARN));
     }
 
+    /**
+     * Runs blocking work of a request on a worker thread, under the
+     * {@link QueryDeadline} set by {@link vn.io.lcx.vertx.base.verticle.VertxBaseVerticle#queryDeadlineHandler}, if
+     * any. The deadline is removed from the worker thread when the work ends.
+     */
+    public <T> Future<T> executeBlocking(RoutingContext ctx, Callable<T> callable) {
+        return ctx.vertx().executeBlocking(QueryDeadline.wrap(ctx.<Long>get(VertxBaseConstant.QUERY_DEADLINE_KEY_NAME), callable));
+    }
+
     public <T> T handleRequest(RoutingContext ctx, Object jsonHandler, TypeToken<T> reqType) {
         if (VOID.equals(reqType)) {
             return null;
@@ -1,6 +1,7 @@
 package vn.io.lcx.vertx.base.custom;
 
 import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.config.MeterFilter;
 import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
 import io.micrometer.prometheusmetrics.PrometheusConfig;
@@ -15,11 +16,14 @@ import io.vertx.core.http.HttpServerOptions;
 import io.vertx.micrometer.MicrometerMetricsFactory;
 import io.vertx.micrometer.MicrometerMetricsOptions;
 import io.vertx.micrometer.VertxPrometheusOptions;
+import io.vertx.micrometer.backends.BackendRegistries;
 import org.slf4j.LoggerFactory;
 import vn.io.lcx.common.annotation.Verticle;
+import vn.io.lcx.common.cache.CacheMetricsBinder;
 import vn.io.lcx.common.config.ClassPool;
 import vn.io.lcx.common.config.LogbackConfig;
 import vn.io.lcx.common.constant.CommonConstant;
+import vn.io.lcx.common.database.StatementMetrics;
 import vn.io.lcx.common.utils.CommonUtils;
 import vn.io.lcx.common.utils.JVMSystemInfo;
 import vn.io.lcx.common.utils.LogUtils;
@@ -116,6 +120,11 @@ public class MyVertxDeployment {
                                         .setEmbeddedServerOptions(new HttpServerOptions().setPort(metricPort))
                                         .setEmbeddedServerEndpoint(metricEndpoint.equals(CommonConstant.NULL_STRING) ? "/metrics" : metricEndpoint))
                                 .setEnabled(true)));
+                final MeterRegistry meterRegistry = BackendRegistries.getDefaultNow();
+                if (meterRegistry != null) {
+                    CacheMetricsBinder.bindNamedCaches(meterRegistry);
+                    StatementMetrics.getInstance().bindTo(meterRegistry);
+                }
                 // PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
                 // registry.config().meterFilter(
                 //         new MeterFilter() {
@@ -1,11 +1,15 @@
 package vn.io.lcx.vertx.base.verticle;
 
+import io.vertx.core.Handler;
 import io.vertx.core.VerticleBase;
 import io.vertx.ext.web.RoutingContext;
 import org.apache.commons.lang3.StringUtils;
 import vn.io.lcx.common.constant.CommonConstant;
 import vn.io.lcx.common.utils.LogUtils;
 import vn.io.lcx.common.utils.UUIDv7;
+import vn.io.lcx.vertx.base.constant.VertxBaseConstant;
+
+import java.time.Duration;
 
 import static vn.io.lcx.common.constant.CommonConstant.TRACE_ID_MDC_KEY_NAME;
 
@@ -23,4 +27,17 @@ public class VertxBaseVerticle extends VerticleBase {
         context.next();
     }
 
+    /**
+     * @param timeout how long the database statements of a request may run, counted from its arrival
+     * @return a handler keeping the {@link vn.io.lcx.common.database.context.QueryDeadline} of the request in its
+     * routing context, for {@link vn.io.lcx.vertx.base.controller.ReactiveController#executeBlocking} to apply
+     */
+    public Handler<RoutingContext> queryDeadlineHandler(Duration timeout) {
+        final long timeoutNanos = timeout.toNanos();
+        return context -> {
+            context.put(VertxBaseConstant.QUERY_DEADLINE_KEY_NAME, System.nanoTime() + timeoutNanos);
+            context.next();
+        };
+    }
+
 }
@@ -0,0 +1,137 @@
+package vn.io.lcx.common.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vn.io.lcx.common.database.utils.BulkLoadMethod;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkLoaderTest {
+
+    /**
+     * Row whose name is null, which the NOT NULL column rejects
+     */
+    private static final int INVALID_ROW = 15;
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:bulk_loader_test;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE PRODUCT (ID INT PRIMARY KEY, NAME VARCHAR(20) NOT NULL)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE PRODUCT");
+        }
+        connection.close();
+    }
+
+    @Test
+    void loadsEveryRowWithMultiRowInserts() throws SQLException {
+        final BulkLoader loader = loader(BatchOptions.builder().chunkSize(1000).commitPerChunk(true).build());
+        assertEquals(BulkLoadMethod.MULTI_ROW_INSERT, loader.getMethod(connection));
+
+        final BatchResult result = loader.load(connection, IntStream.range(0, 2500).boxed(),
+                (id, parameters) -> parameters.addInt(id).addString("product-" + id));
+
+        assertTrue(result.isSuccessful());
+        assertFalse(result.isStopped());
+        assertEquals(3, result.getChunks().size());
+        assertEquals(2500, result.getRows());
+        assertEquals(2500, result.getUpdateCount());
+        assertEquals(2500, count());
+    }
+
+    @Test
+    void skipsFailedChunks() throws SQLException {
+        final BatchResult result = loader(BatchOptions.builder()
+                .chunkSize(10)
+                .commitPerChunk(true)
+                .failureMode(BatchOptions.FailureMode.SKIP)
+                .build())
+                .load(connection, IntStream.range(0, 30).boxed(), BulkLoaderTest::bindWithInvalidRow);
+
+        assertFalse(result.isSuccessful());
+        assertFalse(result.isStopped());
+        assertEquals(3, result.getChunks().size());
+        assertEquals(30, result.getRows());
+        assertArrayEquals(LongStream.range(10, 20).toArray(), result.getFailedIndices());
+        assertEquals(1, result.getFailedChunks().size());
+        assertEquals(20, count());
+    }
+
+    @Test
+    void stopsAtTheFirstFailedChunk() throws SQLException {
+        final BatchResult result = loader(BatchOptions.builder()
+                .chunkSize(10)
+                .commitPerChunk(true)
+                .failureMode(BatchOptions.FailureMode.STOP)
+                .build())
+                .load(connection, IntStream.range(0, 30).boxed(), BulkLoaderTest::bindWithInvalidRow);
+
+        assertFalse(result.isSuccessful());
+        assertTrue(result.isStopped());
+        assertEquals(2, result.getChunks().size());
+        assertEquals(20, result.getRows());
+        assertArrayEquals(LongStream.range(10, 20).toArray(), result.getFailedIndices());
+        assertEquals(10, count());
+    }
+
+    @Test
+    void rejectsSkippingChunksInsideATransaction() throws SQLException {
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO PRODUCT VALUES (100, 'kept')");
+        }
+        final BulkLoader loader = loader(BatchOptions.builder()
+                .failureMode(BatchOptions.FailureMode.SKIP)
+                .build());
+
+        assertThrows(IllegalArgumentException.class, () -> loader.load(connection, IntStream.range(0, 30).boxed(),
+                BulkLoaderTest::bindWithInvalidRow));
+        assertThrows(IllegalArgumentException.class, () -> loader(BatchOptions.builder().commitPerChunk(true).build())
+                .load(connection, IntStream.range(0, 30).boxed(), BulkLoaderTest::bindWithInvalidRow));
+        assertFalse(connection.getAutoCommit());
+        connection.rollback();
+        connection.setAutoCommit(true);
+        assertEquals(0, count());
+    }
+
+    private static BulkLoader loader(BatchOptions options) {
+        return BulkLoader.builder()
+                .table("PRODUCT")
+                .columns("ID", "NAME")
+                .options(options)
+                .build();
+    }
+
+    private static void bindWithInvalidRow(Integer id, SqlParameters parameters) {
+        parameters.addInt(id).addString(id == INVALID_ROW ? null : "product-" + id);
+    }
+
+    private long count() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM PRODUCT")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package vn.io.lcx.reactive.cache;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetSocket;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The subset of a RESP2 Redis server used by {@link RedisNearCache}: {@code PING}, {@code GET}, {@code SET},
+ * {@code DEL}, {@code PUBLISH}, {@code SUBSCRIBE}, {@code CLIENT ID} and
+ * {@code CLIENT TRACKING ON REDIRECT <id> BCAST PREFIX ...}.
+ */
+final class InProcessRedisServer {
+
+    private final Vertx vertx;
+    private final Map<String, String> data = new ConcurrentHashMap<>();
+    private final Map<Long, Client> clients = new ConcurrentHashMap<>();
+    private final AtomicLong clientIds = new AtomicLong();
+    private final AtomicInteger gets = new AtomicInteger();
+    private final List<Runnable> heldGets = new CopyOnWriteArrayList<>();
+    private volatile boolean holdingGets;
+    private NetServer server;
+
+    InProcessRedisServer(Vertx vertx) {
+        this.vertx = vertx;
+    }
+
+    Future<Integer> start() {
+        server = vertx.createNetServer().connectHandler(socket -> {
+            final Client client = new Client(clientIds.incrementAndGet(), socket);
+            clients.put(client.id, client);
+            socket.handler(client::receive);
+            socket.closeHandler(v -> clients.remove(client.id));
+        });
+        return server.listen(0, "127.0.0.1").map(NetServer::actualPort);
+    }
+
+    Future<Void> stop() {
+        return server.close();
+    }
+
+    /**
+     * @return the number of {@code GET} commands received
+     */
+    int gets() {
+        return gets.get();
+    }
+
+    /**
+     * Holds back the replies of the next {@code GET} commands until {@link #releaseGets()}, as a slow network would.
+     * The values are read when the commands are received.
+     */
+    void holdGets() {
+        holdingGets = true;
+    }
+
+    void releaseGets() {
+        holdingGets = false;
+        heldGets.forEach(Runnable::run);
+        heldGets.clear();
+    }
+
+    /**
+     * Closes every connection in pub/sub mode, as a network failure would.
+     */
+    void dropSubscribers() {
+        clients.values().stream().filter(client -> !client.channels.isEmpty()).forEach(client -> client.socket.close());
+    }
+
+    private void write(String key, String value) {
+        if (value == null) {
+            data.remove(key);
+        } else {
+            data.put(key, value);
+        }
+        for (Client client : clients.values()) {
+            if (client.redirect > 0 && client.prefixes.stream().anyMatch(key::startsWith)) {
+                final Client target = clients.get(client.redirect);
+                if (target != null && target.channels.contains(RedisNearCache.TRACKING_CHANNEL)) {
+                    target.socket.write("*3\r\n" + bulk("message") + bulk(RedisNearCache.TRACKING_CHANNEL) + "*1\r\n" + bulk(key));
+                }
+            }
+        }
+    }
+
+    private static String bulk(String value) {
+        return value == null
+                ? "$-1\r\n"
+                : "$" + value.getBytes(StandardCharsets.UTF_8).length + "\r\n" + value + "\r\n";
+    }
+
+    private final class Client {
+        private final long id;
+        private final NetSocket socket;
+        private final Set<String> channels = ConcurrentHashMap.newKeySet();
+        private final List<String> prefixes = new CopyOnWriteArrayList<>();
+        private volatile long redirect;
+        private Buffer pending = Buffer.buffer();
+
+        private Client(long id, NetSocket socket) {
+            this.id = id;
+            this.socket = socket;
+        }
+
+        private void receive(Buffer buffer) {
+            pending.appendBuffer(buffer);
+            final int[] position = {0};
+            List<String> command;
+            while ((command = parse(position)) != null) {
+                pending = pending.getBuffer(position[0], pending.length());
+                position[0] = 0;
+                execute(command);
+            }
+        }
+
+        /**
+         * @return the next complete command, advancing {@code position} past it, or null if more bytes are needed
+         */
+        private List<String> parse(int[] position) {
+            int index = position[0];
+            if (index >= pending.length() || pending.getByte(index) != '*') {
+                return null;
+            }
+            int lineEnd = lineEnd(index);
+            if (lineEnd < 0) {
+                return null;
+            }
+            final int count = Integer.parseInt(pending.getString(index + 1, lineEnd));
+            index = lineEnd + 2;
+            final List<String> command = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                lineEnd = lineEnd(index);
+                if (lineEnd < 0) {
+                    return null;
+                }
+                final int length = Integer.parseInt(pending.getString(index + 1, lineEnd));
+                index = lineEnd + 2;
+                if (index + length + 2 > pending.length()) {
+                    return null;
+                }
+                command.add(pending.getString(index, index + length, StandardCharsets.UTF_8.name()));
+                index += length + 2;
+            }
+            position[0] = index;
+            return command;
+        }
+
+        private int lineEnd(int from) {
+            for (int i = from; i + 1 < pending.length(); i++) {
+                if (pending.getByte(i) == '\r' && pending.getByte(i + 1) == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void execute(List<String> command) {
+            switch (command.get(0).toUpperCase()) {
+                case "PING" -> socket.write("+PONG\r\n");
+                case "GET" -> {
+                    final String reply = bulk(data.get(command.get(1)));
+                    if (holdingGets) {
+                        heldGets.add(() -> socket.write(reply));
+                    } else {
+                        socket.write(reply);
+                    }
+                    gets.incrementAndGet();
+                }
+                case "SET" -> {
+                    write(command.get(1), command.get(2));
+                    socket.write("+OK\r\n");
+                }
+                case "DEL" -> {
+                    final boolean existed = data.containsKey(command.get(1));
+                    write(command.get(1), null);
+                    socket.write(":" + (existed ? 1 : 0) + "\r\n");
+                }
+                case "PUBLISH" -> {
+                    int receivers = 0;
+                    for (Client client : clients.values()) {
+                        if (client.channels.contains(command.get(1))) {
+                            client.socket.write("*3\r\n" + bulk("message") + bulk(command.get(1)) + bulk(command.get(2)));
+                            receivers++;
+                        }
+                    }
+                    socket.write(":" + receivers + "\r\n");
+                }
+                case "SUBSCRIBE" -> {
+                    channels.add(command.get(1));
+                    socket.write("*3\r\n" + bulk("subscribe") + bulk(command.get(1)) + ":" + channels.size() + "\r\n");
+                }
+                case "CLIENT" -> {
+                    if ("ID".equalsIgnoreCase(command.get(1))) {
+                        socket.write(":" + id + "\r\n");
+                    } else {
+                        for (int i = 2; i < command.size() - 1; i++) {
+                            if ("REDIRECT".equalsIgnoreCase(command.get(i))) {
+                                redirect = Long.parseLong(command.get(i + 1));
+                            } else if ("PREFIX".equalsIgnoreCase(command.get(i))) {
+                                prefixes.add(command.get(i + 1));
+                            }
+                        }
+                        socket.write("+OK\r\n");
+                    }
+                }
+                default -> socket.write("-ERR unknown command '" + command.get(0) + "'\r\n");
+            }
+        }
+    }
+}
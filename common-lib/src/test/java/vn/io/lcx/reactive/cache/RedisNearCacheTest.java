@@ -0,0 +1,164 @@
+package vn.io.lcx.reactive.cache;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.redis.client.Command;
+import io.vertx.redis.client.Redis;
+import io.vertx.redis.client.RedisOptions;
+import io.vertx.redis.client.Request;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vn.io.lcx.common.exception.CacheException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisNearCacheTest {
+
+    private Vertx vertx;
+    private InProcessRedisServer server;
+    private Redis redis;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        vertx = Vertx.vertx();
+        server = new InProcessRedisServer(vertx);
+        final int port = await(server.start());
+        redis = Redis.createClient(vertx, new RedisOptions()
+                .setConnectionString("redis://127.0.0.1:" + port)
+                .setProtocolNegotiation(false));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        redis.close();
+        await(server.stop());
+        await(vertx.close());
+    }
+
+    @Test
+    void servesPrefixedKeysFromTheLocalTier() throws Exception {
+        final RedisNearCache nearCache = start(RedisNearCache.InvalidationMode.TRACKING);
+        await(nearCache.set("product:1", "phone"));
+        await(nearCache.set("order:1", "pending"));
+
+        assertEquals("phone", await(nearCache.get("product:1")));
+        assertEquals("phone", await(nearCache.get("product:1")));
+        assertEquals(1, server.gets());
+        assertEquals(1, nearCache.localSize());
+
+        assertEquals("pending", await(nearCache.get("order:1")));
+        assertEquals("pending", await(nearCache.get("order:1")));
+        assertEquals(3, server.gets());
+
+        assertNull(await(nearCache.get("product:missing")));
+        await(nearCache.close());
+    }
+
+    @Test
+    void trackingInvalidatesWritesOfOtherClients() throws Exception {
+        final RedisNearCache nearCache = start(RedisNearCache.InvalidationMode.TRACKING);
+        await(nearCache.set("product:1", "phone"));
+        assertEquals("phone", await(nearCache.get("product:1")));
+
+        await(redis.send(Request.cmd(Command.SET).arg("product:1").arg("tablet")));
+        eventually(() -> nearCache.localSize() == 0);
+        assertEquals("tablet", await(nearCache.get("product:1")));
+        await(nearCache.close());
+    }
+
+    @Test
+    void pubSubInvalidatesOtherNearCaches() throws Exception {
+        final RedisNearCache writer = start(RedisNearCache.InvalidationMode.PUBSUB);
+        final RedisNearCache reader = start(RedisNearCache.InvalidationMode.PUBSUB);
+        await(writer.set("product:1", "phone"));
+        assertEquals("phone", await(reader.get("product:1")));
+        assertEquals(1, reader.localSize());
+
+        await(writer.delete("product:1"));
+        eventually(() -> reader.localSize() == 0);
+        assertNull(await(reader.get("product:1")));
+        await(writer.close());
+        await(reader.close());
+    }
+
+    @Test
+    void doesNotKeepAValueInvalidatedWhileItWasRead() throws Exception {
+        final RedisNearCache nearCache = start(RedisNearCache.InvalidationMode.TRACKING);
+        await(nearCache.set("product:1", "phone"));
+
+        server.holdGets();
+        final Future<String> read = nearCache.get("product:1");
+        eventually(() -> server.gets() == 1);
+        nearCache.invalidate("product:1");
+        server.releaseGets();
+
+        assertEquals("phone", await(read));
+        assertEquals(0, nearCache.localSize());
+        assertEquals("phone", await(nearCache.get("product:1")));
+        assertEquals(2, server.gets());
+        assertEquals(1, nearCache.localSize());
+        await(nearCache.close());
+    }
+
+    @Test
+    void bypassesTheLocalTierUntilInvalidationReconnects() throws Exception {
+        final RedisNearCache nearCache = start(RedisNearCache.InvalidationMode.TRACKING);
+        await(nearCache.set("product:1", "phone"));
+        assertEquals("phone", await(nearCache.get("product:1")));
+
+        server.dropSubscribers();
+        eventually(() -> !nearCache.isConnected() && nearCache.localSize() == 0);
+        final int gets = server.gets();
+        assertEquals("phone", await(nearCache.get("product:1")));
+        assertEquals(gets + 1, server.gets());
+
+        eventually(nearCache::isConnected);
+        await(nearCache.close());
+        assertFalse(nearCache.isConnected());
+    }
+
+    @Test
+    void rejectsIncompleteConfiguration() {
+        assertThrows(CacheException.class, () -> RedisNearCache.builder().vertx(vertx).redis(redis).build());
+        assertThrows(CacheException.class, () -> RedisNearCache.builder()
+                .vertx(vertx)
+                .redis(redis)
+                .cachePrefix("product:", Duration.ZERO)
+                .build());
+    }
+
+    private RedisNearCache start(RedisNearCache.InvalidationMode mode) throws Exception {
+        final RedisNearCache nearCache = RedisNearCache.builder()
+                .vertx(vertx)
+                .redis(redis)
+                .invalidationMode(mode)
+                .cachePrefix("product:", Duration.ofMinutes(1))
+                .build();
+        await(nearCache.start());
+        assertTrue(nearCache.isConnected());
+        return nearCache;
+    }
+
+    private static <T> T await(Future<T> future) throws Exception {
+        return future.toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    private static void eventually(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new AssertionError("Condition not met within 5 seconds");
+            }
+            Thread.sleep(10);
+        }
+    }
+}